@@ -16,6 +16,9 @@
 
 package org.springframework.cache.caffeine;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.function.Function;
 
@@ -106,11 +109,31 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		return this.cache.getIfPresent(key);
 	}
 
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) {
+		Map<Object, Object> present = this.cache.getAllPresent(keys);
+		Map<Object, Object> result = new LinkedHashMap<>(present.size());
+		for (Object key : keys) {
+			Object storeValue = present.get(key);
+			if (storeValue != null) {
+				result.put(key, fromStoreValue(storeValue));
+			}
+		}
+		return result;
+	}
+
 	@Override
 	public void put(Object key, @Nullable Object value) {
 		this.cache.put(key, toStoreValue(value));
 	}
 
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		Map<Object, Object> storeValues = new LinkedHashMap<>(entries.size());
+		entries.forEach((key, value) -> storeValues.put(key, toStoreValue(value)));
+		this.cache.putAll(storeValues);
+	}
+
 	@Override
 	@Nullable
 	public ValueWrapper putIfAbsent(Object key, @Nullable final Object value) {
@@ -124,6 +147,11 @@ public class CaffeineCache extends AbstractValueAdaptingCache {
 		this.cache.invalidate(key);
 	}
 
+	@Override
+	public void evictAll(Collection<?> keys) {
+		this.cache.invalidateAll(keys);
+	}
+
 	@Override
 	public void clear() {
 		this.cache.invalidateAll();
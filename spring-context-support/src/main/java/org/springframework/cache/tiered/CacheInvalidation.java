@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Message describing the invalidation of local cache entries, published
+ * by the node which modified the corresponding shared cache entries.
+ *
+ * <p>An invalidation either refers to specific keys or, if no keys are
+ * specified, to the entire cache.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see CacheInvalidationBus#publish
+ */
+@SuppressWarnings("serial")
+public class CacheInvalidation implements Serializable {
+
+	private final String origin;
+
+	private final String cacheName;
+
+	@Nullable
+	private final Collection<Object> keys;
+
+
+	/**
+	 * Create a new CacheInvalidation for the given keys.
+	 * @param origin the identifier of the node publishing the invalidation
+	 * @param cacheName the name of the affected cache
+	 * @param keys the keys to invalidate, or {@code null} to invalidate
+	 * the entire cache
+	 */
+	public CacheInvalidation(String origin, String cacheName, @Nullable Collection<?> keys) {
+		Assert.notNull(origin, "Origin must not be null");
+		Assert.notNull(cacheName, "Cache name must not be null");
+		this.origin = origin;
+		this.cacheName = cacheName;
+		this.keys = (keys != null ? Collections.unmodifiableList(new ArrayList<>(keys)) : null);
+	}
+
+
+	/**
+	 * Return the identifier of the node that published this invalidation.
+	 */
+	public String getOrigin() {
+		return this.origin;
+	}
+
+	/**
+	 * Return the name of the affected cache.
+	 */
+	public String getCacheName() {
+		return this.cacheName;
+	}
+
+	/**
+	 * Return the keys to invalidate, or {@code null} if the entire cache
+	 * is to be invalidated.
+	 */
+	@Nullable
+	public Collection<Object> getKeys() {
+		return this.keys;
+	}
+
+	/**
+	 * Return whether this invalidation applies to the entire cache.
+	 */
+	public boolean isClear() {
+		return (this.keys == null);
+	}
+
+
+	@Override
+	public String toString() {
+		return "CacheInvalidation [origin=" + this.origin + ", cacheName=" + this.cacheName +
+				", keys=" + (this.keys != null ? this.keys : "*") + "]";
+	}
+
+}
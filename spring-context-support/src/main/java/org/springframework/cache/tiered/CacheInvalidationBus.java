@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+/**
+ * Transport strategy for distributing {@link CacheInvalidation} messages
+ * between the nodes sharing a cache.
+ *
+ * <p>Implementations may be based on any messaging infrastructure, e.g. a
+ * JMS topic or a Redis channel. Messages published by a node are typically
+ * delivered back to that node as well; {@link TieredCacheManager} ignores
+ * invalidations that originate from itself.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see LoopbackCacheInvalidationBus
+ * @see TieredCacheManager
+ */
+public interface CacheInvalidationBus {
+
+	/**
+	 * Publish the given invalidation to all subscribed nodes.
+	 * @param invalidation the invalidation message
+	 */
+	void publish(CacheInvalidation invalidation);
+
+	/**
+	 * Register the given listener for invalidations published on this bus.
+	 * @param listener the listener to register
+	 */
+	void subscribe(CacheInvalidationListener listener);
+
+	/**
+	 * Unregister the given listener.
+	 * @param listener the listener to unregister
+	 */
+	void unsubscribe(CacheInvalidationListener listener);
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.util.Assert;
+
+/**
+ * In-memory {@link CacheInvalidationBus} which delivers each invalidation
+ * synchronously to all listeners subscribed within the same JVM.
+ *
+ * <p>Useful for testing as well as for multiple {@link TieredCacheManager}
+ * instances within a single process, without any external messaging
+ * infrastructure. A failing listener is logged and does not prevent
+ * delivery to the remaining listeners.
+ *
+ * @author agent
+ * @since 5.1.21
+ */
+public class LoopbackCacheInvalidationBus implements CacheInvalidationBus {
+
+	private static final Log logger = LogFactory.getLog(LoopbackCacheInvalidationBus.class);
+
+	private final List<CacheInvalidationListener> listeners = new CopyOnWriteArrayList<>();
+
+
+	@Override
+	public void publish(CacheInvalidation invalidation) {
+		Assert.notNull(invalidation, "CacheInvalidation must not be null");
+		for (CacheInvalidationListener listener : this.listeners) {
+			try {
+				listener.onInvalidation(invalidation);
+			}
+			catch (Throwable ex) {
+				logger.warn("Cache invalidation listener failed for " + invalidation, ex);
+			}
+		}
+	}
+
+	@Override
+	public void subscribe(CacheInvalidationListener listener) {
+		Assert.notNull(listener, "CacheInvalidationListener must not be null");
+		this.listeners.add(listener);
+	}
+
+	@Override
+	public void unsubscribe(CacheInvalidationListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/**
+	 * Return the number of currently subscribed listeners.
+	 */
+	public int getListenerCount() {
+		return this.listeners.size();
+	}
+
+}
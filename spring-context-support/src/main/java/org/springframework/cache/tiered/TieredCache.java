@@ -0,0 +1,284 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Two-level {@link Cache} implementation: reads through a local cache first,
+ * falling back to a shared cache and populating the local cache with the
+ * shared value. Writes go through to both caches, with an invalidation
+ * published on a {@link CacheInvalidationBus} so that other nodes evict
+ * the affected entries from their local caches.
+ *
+ * <p>Local hits avoid a round trip to the shared cache entirely. Note that
+ * an invalidation is delivered asynchronously with respect to a concurrent
+ * read on another node, so a local cache with a bounded time-to-live is
+ * recommended as an upper limit for staleness. The local cache needs to
+ * accept {@code null} values if the shared cache holds any.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see TieredCacheManager
+ */
+public class TieredCache implements Cache {
+
+	private final Cache localCache;
+
+	private final Cache sharedCache;
+
+	private final CacheInvalidationBus invalidationBus;
+
+	private final String nodeId;
+
+	private final LongAdder localHitCount = new LongAdder();
+
+	private final LongAdder sharedHitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+
+	/**
+	 * Create a new TieredCache for the given local and shared cache.
+	 * @param localCache the local (first-level) cache
+	 * @param sharedCache the shared (second-level) cache
+	 * @param invalidationBus the bus to publish invalidations on
+	 * @param nodeId the identifier of this node, used as origin of invalidations
+	 */
+	public TieredCache(Cache localCache, Cache sharedCache, CacheInvalidationBus invalidationBus, String nodeId) {
+		Assert.notNull(localCache, "Local Cache must not be null");
+		Assert.notNull(sharedCache, "Shared Cache must not be null");
+		Assert.notNull(invalidationBus, "CacheInvalidationBus must not be null");
+		Assert.notNull(nodeId, "Node id must not be null");
+		this.localCache = localCache;
+		this.sharedCache = sharedCache;
+		this.invalidationBus = invalidationBus;
+		this.nodeId = nodeId;
+	}
+
+
+	/**
+	 * Return the local (first-level) cache.
+	 */
+	public Cache getLocalCache() {
+		return this.localCache;
+	}
+
+	/**
+	 * Return the shared (second-level) cache.
+	 */
+	public Cache getSharedCache() {
+		return this.sharedCache;
+	}
+
+	/**
+	 * Return the number of lookups served by the local cache.
+	 */
+	public long getLocalHitCount() {
+		return this.localHitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups served by the shared cache.
+	 */
+	public long getSharedHitCount() {
+		return this.sharedHitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups found in neither cache.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	@Override
+	public String getName() {
+		return this.sharedCache.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this;
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		ValueWrapper wrapper = this.localCache.get(key);
+		if (wrapper != null) {
+			this.localHitCount.increment();
+			return wrapper;
+		}
+		wrapper = this.sharedCache.get(key);
+		if (wrapper != null) {
+			this.sharedHitCount.increment();
+			this.localCache.put(key, wrapper.get());
+		}
+		else {
+			this.missCount.increment();
+		}
+		return wrapper;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, @Nullable Class<T> type) {
+		ValueWrapper wrapper = get(key);
+		Object value = (wrapper != null ? wrapper.get() : null);
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException(
+					"Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = get(key);
+		if (wrapper != null) {
+			return (T) wrapper.get();
+		}
+		T value = this.sharedCache.get(key, valueLoader);
+		this.localCache.put(key, value);
+		return value;
+	}
+
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) {
+		Map<Object, Object> localValues = this.localCache.getAll(keys);
+		this.localHitCount.add(localValues.size());
+		if (localValues.size() == keys.size()) {
+			return localValues;
+		}
+		List<Object> missingKeys = new ArrayList<>(keys.size() - localValues.size());
+		for (Object key : keys) {
+			if (!localValues.containsKey(key)) {
+				missingKeys.add(key);
+			}
+		}
+		Map<Object, Object> sharedValues = this.sharedCache.getAll(missingKeys);
+		this.sharedHitCount.add(sharedValues.size());
+		this.missCount.add(missingKeys.size() - sharedValues.size());
+		if (!sharedValues.isEmpty()) {
+			this.localCache.putAll(sharedValues);
+		}
+		Map<Object, Object> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			if (localValues.containsKey(key)) {
+				result.put(key, localValues.get(key));
+			}
+			else if (sharedValues.containsKey(key)) {
+				result.put(key, sharedValues.get(key));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		this.sharedCache.put(key, value);
+		this.localCache.put(key, value);
+		publish(Collections.singleton(key));
+	}
+
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		if (entries.isEmpty()) {
+			return;
+		}
+		this.sharedCache.putAll(entries);
+		this.localCache.putAll(entries);
+		publish(entries.keySet());
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		ValueWrapper existing = this.sharedCache.putIfAbsent(key, value);
+		if (existing != null) {
+			this.localCache.put(key, existing.get());
+		}
+		else {
+			this.localCache.put(key, value);
+			publish(Collections.singleton(key));
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.sharedCache.evict(key);
+		this.localCache.evict(key);
+		publish(Collections.singleton(key));
+	}
+
+	@Override
+	public void evictAll(Collection<?> keys) {
+		if (keys.isEmpty()) {
+			return;
+		}
+		this.sharedCache.evictAll(keys);
+		this.localCache.evictAll(keys);
+		publish(keys);
+	}
+
+	@Override
+	public void clear() {
+		this.sharedCache.clear();
+		this.localCache.clear();
+		publish(null);
+	}
+
+	/**
+	 * Evict the given keys from the local cache only,
+	 * typically in response to an invalidation from another node.
+	 * @param keys the keys to evict
+	 */
+	public void evictLocal(Collection<?> keys) {
+		for (Object key : keys) {
+			this.localCache.evict(key);
+		}
+	}
+
+	/**
+	 * Clear the local cache only,
+	 * typically in response to an invalidation from another node.
+	 */
+	public void clearLocal() {
+		this.localCache.clear();
+	}
+
+	private void publish(@Nullable Collection<?> keys) {
+		this.invalidationBus.publish(new CacheInvalidation(this.nodeId, getName(), keys));
+	}
+
+}
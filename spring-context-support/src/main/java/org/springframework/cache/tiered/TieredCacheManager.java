@@ -0,0 +1,200 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.AbstractTransactionSupportingCacheManager;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link CacheManager} implementation that layers a local {@link CacheManager}
+ * (e.g. Caffeine) in front of a shared {@link CacheManager} (e.g. Redis),
+ * exposing a {@link TieredCache} for every cache known to the shared manager.
+ *
+ * <p>In contrast to {@link org.springframework.cache.support.CompositeCacheManager},
+ * which uses the first manager that knows a given cache name, this manager
+ * combines the caches of both managers: reading through the local cache and
+ * writing through to both. Modifications are published as {@link CacheInvalidation}
+ * messages on the given {@link CacheInvalidationBus}, with every node evicting
+ * the affected entries from its local cache in response.
+ *
+ * <p>The bus subscription is established in {@link #afterPropertiesSet()}
+ * and released in {@link #destroy()}.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see TieredCache
+ * @see LoopbackCacheInvalidationBus
+ */
+public class TieredCacheManager extends AbstractTransactionSupportingCacheManager implements DisposableBean {
+
+	private final CacheManager localCacheManager;
+
+	private final CacheManager sharedCacheManager;
+
+	private final CacheInvalidationBus invalidationBus;
+
+	private final Map<String, TieredCache> tieredCaches = new ConcurrentHashMap<>(16);
+
+	private final CacheInvalidationListener invalidationListener = this::handleInvalidation;
+
+	private String nodeId = UUID.randomUUID().toString();
+
+
+	/**
+	 * Create a new TieredCacheManager for the given cache managers.
+	 * @param localCacheManager the manager for the local (first-level) caches
+	 * @param sharedCacheManager the manager for the shared (second-level) caches
+	 * @param invalidationBus the bus for exchanging invalidations with other nodes
+	 */
+	public TieredCacheManager(CacheManager localCacheManager, CacheManager sharedCacheManager,
+			CacheInvalidationBus invalidationBus) {
+
+		Assert.notNull(localCacheManager, "Local CacheManager must not be null");
+		Assert.notNull(sharedCacheManager, "Shared CacheManager must not be null");
+		Assert.notNull(invalidationBus, "CacheInvalidationBus must not be null");
+		this.localCacheManager = localCacheManager;
+		this.sharedCacheManager = sharedCacheManager;
+		this.invalidationBus = invalidationBus;
+	}
+
+
+	/**
+	 * Specify the identifier of this node, used as origin of published
+	 * invalidations in order to ignore them when delivered back to this node.
+	 * <p>Default is a random UUID.
+	 */
+	public void setNodeId(String nodeId) {
+		Assert.hasText(nodeId, "Node id must not be empty");
+		this.nodeId = nodeId;
+	}
+
+	/**
+	 * Return the identifier of this node.
+	 */
+	public String getNodeId() {
+		return this.nodeId;
+	}
+
+	/**
+	 * Return the manager for the local (first-level) caches.
+	 */
+	public CacheManager getLocalCacheManager() {
+		return this.localCacheManager;
+	}
+
+	/**
+	 * Return the manager for the shared (second-level) caches.
+	 */
+	public CacheManager getSharedCacheManager() {
+		return this.sharedCacheManager;
+	}
+
+	/**
+	 * Return the bus for exchanging invalidations with other nodes.
+	 */
+	public CacheInvalidationBus getInvalidationBus() {
+		return this.invalidationBus;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		this.invalidationBus.subscribe(this.invalidationListener);
+		super.afterPropertiesSet();
+	}
+
+	@Override
+	public void destroy() {
+		this.invalidationBus.unsubscribe(this.invalidationListener);
+	}
+
+	@Override
+	protected Collection<? extends Cache> loadCaches() {
+		List<Cache> caches = new ArrayList<>();
+		for (String name : this.sharedCacheManager.getCacheNames()) {
+			Cache cache = createTieredCache(name);
+			if (cache != null) {
+				caches.add(cache);
+			}
+		}
+		return caches;
+	}
+
+	@Override
+	@Nullable
+	protected Cache getMissingCache(String name) {
+		return createTieredCache(name);
+	}
+
+	/**
+	 * Create a new TieredCache for the specified cache name, combining the
+	 * corresponding caches of the local and the shared cache manager.
+	 * <p>Falls back to the plain shared cache if the local cache manager
+	 * does not provide a cache of that name.
+	 * @param name the name of the cache
+	 * @return the cache, or {@code null} if the shared cache manager
+	 * does not provide a cache of that name
+	 */
+	@Nullable
+	protected Cache createTieredCache(String name) {
+		Cache sharedCache = this.sharedCacheManager.getCache(name);
+		if (sharedCache == null) {
+			return null;
+		}
+		Cache localCache = this.localCacheManager.getCache(name);
+		if (localCache == null) {
+			return sharedCache;
+		}
+		TieredCache tieredCache = new TieredCache(localCache, sharedCache, this.invalidationBus, this.nodeId);
+		this.tieredCaches.put(name, tieredCache);
+		return tieredCache;
+	}
+
+	/**
+	 * Handle an invalidation received from the bus, evicting the affected
+	 * entries from the local cache unless the invalidation originates
+	 * from this node.
+	 * @param invalidation the invalidation message
+	 */
+	protected void handleInvalidation(CacheInvalidation invalidation) {
+		if (this.nodeId.equals(invalidation.getOrigin())) {
+			return;
+		}
+		TieredCache tieredCache = this.tieredCaches.get(invalidation.getCacheName());
+		if (tieredCache != null) {
+			Collection<Object> keys = invalidation.getKeys();
+			if (keys != null) {
+				tieredCache.evictLocal(keys);
+			}
+			else {
+				tieredCache.clearLocal();
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,15 @@
 
 package org.springframework.cache.transaction;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
@@ -32,6 +38,13 @@ import org.springframework.util.Assert;
  * transaction. If no transaction is active, {@link #put}, {@link #evict} and
  * {@link #clear} operations will be performed immediately, as usual.
  *
+ * <p>Within a transaction, changes are collected in a change buffer per
+ * transaction and target cache, keeping only the last change per key.
+ * On commit, the buffer is applied to the target cache through a single
+ * {@link Cache#evictAll} and {@link Cache#putAll} call, preceded by a
+ * {@link Cache#clear} if requested within the transaction. Lookups within
+ * the transaction see the transaction's own changes.
+ *
  * <p><b>Note:</b> Use of immediate operations such as {@link #putIfAbsent}
  * cannot be deferred to the after-commit phase of a running transaction.
  * Use these with care in a transactional environment.
@@ -44,8 +57,16 @@ import org.springframework.util.Assert;
  */
 public class TransactionAwareCacheDecorator implements Cache {
 
+	/**
+	 * Marker for an evicted key in a change buffer.
+	 */
+	private static final ValueWrapper EVICTED = new SimpleValueWrapper(null);
+
+
 	private final Cache targetCache;
 
+	private final ChangeBufferKey changeBufferKey;
+
 
 	/**
 	 * Create a new TransactionAwareCache for the given target Cache.
@@ -54,6 +75,7 @@ public class TransactionAwareCacheDecorator implements Cache {
 	public TransactionAwareCacheDecorator(Cache targetCache) {
 		Assert.notNull(targetCache, "Target Cache must not be null");
 		this.targetCache = targetCache;
+		this.changeBufferKey = new ChangeBufferKey(targetCache);
 	}
 
 
@@ -77,35 +99,115 @@ public class TransactionAwareCacheDecorator implements Cache {
 	@Override
 	@Nullable
 	public ValueWrapper get(Object key) {
+		ChangeBuffer changeBuffer = getChangeBuffer();
+		if (changeBuffer != null) {
+			ValueWrapper change = changeBuffer.changes.get(key);
+			if (change != null || changeBuffer.cleared) {
+				return (change != EVICTED ? change : null);
+			}
+		}
 		return this.targetCache.get(key);
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
 	public <T> T get(Object key, @Nullable Class<T> type) {
+		ChangeBuffer changeBuffer = getChangeBuffer();
+		if (changeBuffer != null) {
+			ValueWrapper change = changeBuffer.changes.get(key);
+			if (change != null || changeBuffer.cleared) {
+				Object value = (change != null ? change.get() : null);
+				if (value != null && type != null && !type.isInstance(value)) {
+					throw new IllegalStateException(
+							"Cached value is not of required type [" + type.getName() + "]: " + value);
+				}
+				return (T) value;
+			}
+		}
 		return this.targetCache.get(key, type);
 	}
 
 	@Override
+	@SuppressWarnings("unchecked")
 	@Nullable
 	public <T> T get(Object key, Callable<T> valueLoader) {
+		ChangeBuffer changeBuffer = getChangeBuffer();
+		if (changeBuffer != null) {
+			ValueWrapper change = changeBuffer.changes.get(key);
+			if (change != null && change != EVICTED) {
+				return (T) change.get();
+			}
+			if (change != null || changeBuffer.cleared) {
+				T value;
+				try {
+					value = valueLoader.call();
+				}
+				catch (Throwable ex) {
+					throw new ValueRetrievalException(key, valueLoader, ex);
+				}
+				changeBuffer.put(key, value);
+				return value;
+			}
+		}
 		return this.targetCache.get(key, valueLoader);
 	}
 
 	@Override
-	public void put(final Object key, @Nullable final Object value) {
-		if (TransactionSynchronizationManager.isSynchronizationActive()) {
-			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
-				@Override
-				public void afterCommit() {
-					TransactionAwareCacheDecorator.this.targetCache.put(key, value);
+	public Map<Object, Object> getAll(Collection<?> keys) {
+		ChangeBuffer changeBuffer = getChangeBuffer();
+		if (changeBuffer == null) {
+			return this.targetCache.getAll(keys);
+		}
+		Map<Object, Object> targetValues = null;
+		if (!changeBuffer.cleared) {
+			List<Object> targetKeys = new ArrayList<>(keys.size());
+			for (Object key : keys) {
+				if (!changeBuffer.changes.containsKey(key)) {
+					targetKeys.add(key);
 				}
-			});
+			}
+			if (!targetKeys.isEmpty()) {
+				targetValues = this.targetCache.getAll(targetKeys);
+			}
+		}
+		Map<Object, Object> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper change = changeBuffer.changes.get(key);
+			if (change != null) {
+				if (change != EVICTED) {
+					result.put(key, change.get());
+				}
+			}
+			else if (targetValues != null && targetValues.containsKey(key)) {
+				result.put(key, targetValues.get(key));
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		ChangeBuffer changeBuffer = obtainChangeBuffer();
+		if (changeBuffer != null) {
+			changeBuffer.put(key, value);
 		}
 		else {
 			this.targetCache.put(key, value);
 		}
 	}
 
+	@Override
+	public void putAll(Map<?, ?> entries) {
+		ChangeBuffer changeBuffer = obtainChangeBuffer();
+		if (changeBuffer != null) {
+			entries.forEach(changeBuffer::put);
+		}
+		else {
+			this.targetCache.putAll(entries);
+		}
+	}
+
 	@Override
 	@Nullable
 	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
@@ -113,33 +215,165 @@ public class TransactionAwareCacheDecorator implements Cache {
 	}
 
 	@Override
-	public void evict(final Object key) {
-		if (TransactionSynchronizationManager.isSynchronizationActive()) {
-			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
-				@Override
-				public void afterCommit() {
-					TransactionAwareCacheDecorator.this.targetCache.evict(key);
-				}
-			});
+	public void evict(Object key) {
+		ChangeBuffer changeBuffer = obtainChangeBuffer();
+		if (changeBuffer != null) {
+			changeBuffer.evict(key);
 		}
 		else {
 			this.targetCache.evict(key);
 		}
 	}
 
+	@Override
+	public void evictAll(Collection<?> keys) {
+		ChangeBuffer changeBuffer = obtainChangeBuffer();
+		if (changeBuffer != null) {
+			keys.forEach(changeBuffer::evict);
+		}
+		else {
+			this.targetCache.evictAll(keys);
+		}
+	}
+
 	@Override
 	public void clear() {
-		if (TransactionSynchronizationManager.isSynchronizationActive()) {
-			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
-				@Override
-				public void afterCommit() {
-					targetCache.clear();
-				}
-			});
+		ChangeBuffer changeBuffer = obtainChangeBuffer();
+		if (changeBuffer != null) {
+			changeBuffer.clear();
 		}
 		else {
 			this.targetCache.clear();
 		}
 	}
 
+
+	/**
+	 * Return the change buffer bound to the current transaction, if any.
+	 */
+	@Nullable
+	private ChangeBuffer getChangeBuffer() {
+		return (ChangeBuffer) TransactionSynchronizationManager.getResource(this.changeBufferKey);
+	}
+
+	/**
+	 * Return the change buffer for the current transaction, creating and
+	 * registering a new one if necessary.
+	 * @return the change buffer, or {@code null} if no transaction
+	 * synchronization is active
+	 */
+	@Nullable
+	private ChangeBuffer obtainChangeBuffer() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+		ChangeBuffer changeBuffer = getChangeBuffer();
+		if (changeBuffer == null) {
+			changeBuffer = new ChangeBuffer(this.changeBufferKey);
+			TransactionSynchronizationManager.bindResource(this.changeBufferKey, changeBuffer);
+			TransactionSynchronizationManager.registerSynchronization(changeBuffer);
+		}
+		return changeBuffer;
+	}
+
+
+	/**
+	 * Resource key for the change buffer of a specific target cache,
+	 * shared by all decorators for the same target cache.
+	 */
+	private static final class ChangeBufferKey {
+
+		private final Cache targetCache;
+
+		ChangeBufferKey(Cache targetCache) {
+			this.targetCache = targetCache;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof ChangeBufferKey &&
+					this.targetCache == ((ChangeBufferKey) other).targetCache));
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.targetCache);
+		}
+
+		@Override
+		public String toString() {
+			return "ChangeBufferKey for cache '" + this.targetCache.getName() + "'";
+		}
+	}
+
+
+	/**
+	 * Transaction-scoped buffer of cache changes, applied to the
+	 * target cache after commit.
+	 */
+	private static class ChangeBuffer extends TransactionSynchronizationAdapter {
+
+		private final ChangeBufferKey key;
+
+		final Map<Object, ValueWrapper> changes = new LinkedHashMap<>();
+
+		boolean cleared;
+
+		ChangeBuffer(ChangeBufferKey key) {
+			this.key = key;
+		}
+
+		void put(Object key, @Nullable Object value) {
+			this.changes.put(key, new SimpleValueWrapper(value));
+		}
+
+		void evict(Object key) {
+			this.changes.put(key, EVICTED);
+		}
+
+		void clear() {
+			this.changes.clear();
+			this.cleared = true;
+		}
+
+		@Override
+		public void suspend() {
+			TransactionSynchronizationManager.unbindResource(this.key);
+		}
+
+		@Override
+		public void resume() {
+			TransactionSynchronizationManager.bindResource(this.key, this);
+		}
+
+		@Override
+		public void afterCommit() {
+			Cache targetCache = this.key.targetCache;
+			if (this.cleared) {
+				targetCache.clear();
+			}
+			Map<Object, Object> puts = new LinkedHashMap<>(this.changes.size());
+			List<Object> evictions = new ArrayList<>();
+			this.changes.forEach((key, change) -> {
+				if (change != EVICTED) {
+					puts.put(key, change.get());
+				}
+				else if (!this.cleared) {
+					evictions.add(key);
+				}
+			});
+			if (!evictions.isEmpty()) {
+				targetCache.evictAll(evictions);
+			}
+			if (!puts.isEmpty()) {
+				targetCache.putAll(puts);
+			}
+		}
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(this.key);
+		}
+	}
+
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.tiered;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class TieredCacheManagerTests {
+
+	private final ConcurrentMapCacheManager sharedCacheManager = new ConcurrentMapCacheManager();
+
+	private final LoopbackCacheInvalidationBus invalidationBus = new LoopbackCacheInvalidationBus();
+
+	private TieredCacheManager node1;
+
+	private TieredCacheManager node2;
+
+
+	@Before
+	public void setup() {
+		this.node1 = createNode("node1");
+		this.node2 = createNode("node2");
+	}
+
+	@After
+	public void destroy() {
+		this.node1.destroy();
+		this.node2.destroy();
+		assertEquals(0, this.invalidationBus.getListenerCount());
+	}
+
+	private TieredCacheManager createNode(String nodeId) {
+		TieredCacheManager cacheManager =
+				new TieredCacheManager(new ConcurrentMapCacheManager(), this.sharedCacheManager, this.invalidationBus);
+		cacheManager.setNodeId(nodeId);
+		cacheManager.afterPropertiesSet();
+		return cacheManager;
+	}
+
+
+	@Test
+	public void readThroughPopulatesLocalCache() {
+		this.sharedCacheManager.getCache("c1").put("key", "value");
+		TieredCache cache = (TieredCache) this.node1.getCache("c1");
+
+		assertEquals("value", cache.get("key", String.class));
+		assertEquals("value", cache.getLocalCache().get("key").get());
+		assertEquals("value", cache.get("key", String.class));
+		assertEquals(1, cache.getSharedHitCount());
+		assertEquals(1, cache.getLocalHitCount());
+		assertNull(cache.get("other"));
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void putInvalidatesOtherNodes() {
+		TieredCache cache1 = (TieredCache) this.node1.getCache("c1");
+		TieredCache cache2 = (TieredCache) this.node2.getCache("c1");
+		cache1.put("key", "value1");
+		assertEquals("value1", cache2.get("key", String.class));
+
+		cache1.put("key", "value2");
+		assertNull(cache2.getLocalCache().get("key"));
+		assertEquals("value2", cache1.getLocalCache().get("key").get());
+		assertEquals("value2", cache2.get("key", String.class));
+	}
+
+	@Test
+	public void evictAndClearInvalidateOtherNodes() {
+		TieredCache cache1 = (TieredCache) this.node1.getCache("c1");
+		TieredCache cache2 = (TieredCache) this.node2.getCache("c1");
+		cache1.put("key1", "value1");
+		cache1.put("key2", "value2");
+		cache2.get("key1");
+		cache2.get("key2");
+
+		cache1.evict("key1");
+		assertNull(cache2.get("key1"));
+		assertNotNull(cache2.getLocalCache().get("key2"));
+
+		cache1.clear();
+		assertNull(cache2.getLocalCache().get("key2"));
+		assertNull(this.sharedCacheManager.getCache("c1").get("key2"));
+	}
+
+	@Test
+	public void valueLoaderStoresInBothLevels() {
+		TieredCache cache = (TieredCache) this.node1.getCache("c1");
+		assertEquals("loaded", cache.get("key", () -> "loaded"));
+		assertEquals("loaded", cache.get("key", () -> "other"));
+
+		assertEquals("loaded", cache.getLocalCache().get("key").get());
+		assertEquals("loaded", this.sharedCacheManager.getCache("c1").get("key").get());
+	}
+
+	@Test
+	public void bulkOperations() {
+		TieredCache cache1 = (TieredCache) this.node1.getCache("c1");
+		TieredCache cache2 = (TieredCache) this.node2.getCache("c1");
+		Map<Object, Object> entries = new LinkedHashMap<>();
+		entries.put("key1", "value1");
+		entries.put("key2", "value2");
+		cache2.put("key1", "stale");
+		cache1.putAll(entries);
+		assertNull(cache2.getLocalCache().get("key1"));
+
+		cache2.getLocalCache().put("key2", "value2");
+		Map<Object, Object> result = cache2.getAll(Arrays.asList("key1", "key2", "key3"));
+		assertEquals(entries, result);
+		assertEquals(1, cache2.getLocalHitCount());
+		assertEquals(1, cache2.getSharedHitCount());
+		assertEquals(1, cache2.getMissCount());
+		assertEquals("value1", cache2.getLocalCache().get("key1").get());
+	}
+
+	@Test
+	public void fallbackToSharedCacheWithoutLocalCache() {
+		ConcurrentMapCacheManager localCacheManager = new ConcurrentMapCacheManager();
+		localCacheManager.setCacheNames(Collections.singleton("c2"));
+		TieredCacheManager cacheManager =
+				new TieredCacheManager(localCacheManager, this.sharedCacheManager, this.invalidationBus);
+		cacheManager.afterPropertiesSet();
+
+		Cache cache = cacheManager.getCache("c1");
+		assertSame(this.sharedCacheManager.getCache("c1"), cache);
+		assertTrue(cacheManager.getCache("c2") instanceof TieredCache);
+		cacheManager.destroy();
+	}
+
+}
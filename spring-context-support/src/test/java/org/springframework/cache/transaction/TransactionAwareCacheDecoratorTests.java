@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,11 @@
 
 package org.springframework.cache.transaction;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -27,6 +32,7 @@ import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import static org.junit.Assert.*;
 
@@ -162,4 +168,146 @@ public class TransactionAwareCacheDecoratorTests {
 
 		assertNull(target.get(key));
 	}
+
+	@Test
+	public void readOwnWritesWithinTransaction() {
+		Cache target = new ConcurrentMapCache("testCache");
+		Cache cache = new TransactionAwareCacheDecorator(target);
+		target.put("a", "0");
+		target.put("b", "0");
+
+		TransactionStatus status = this.txManager.getTransaction(
+				new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRED));
+		cache.put("a", "1");
+		cache.evict("b");
+		assertEquals("1", cache.get("a").get());
+		assertEquals("1", cache.get("a", String.class));
+		assertNull(cache.get("b"));
+		assertEquals("2", cache.get("b", () -> "2"));
+		assertEquals("0", target.get("a", String.class));
+		assertEquals("0", target.get("b", String.class));
+
+		Map<Object, Object> values = cache.getAll(Arrays.asList("a", "b", "c"));
+		assertEquals(2, values.size());
+		assertEquals("1", values.get("a"));
+		assertEquals("2", values.get("b"));
+		this.txManager.commit(status);
+
+		assertEquals("1", target.get("a", String.class));
+		assertEquals("2", target.get("b", String.class));
+	}
+
+	@Test
+	public void lastWriteWinsWithSingleSynchronization() {
+		CountingCache target = new CountingCache();
+		Cache cache = new TransactionAwareCacheDecorator(target);
+		Cache otherCache = new TransactionAwareCacheDecorator(target);
+		target.put("c", "0");
+
+		TransactionStatus status = this.txManager.getTransaction(
+				new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRED));
+		for (int i = 0; i < 100; i++) {
+			cache.put("a", i);
+			cache.put("b", i);
+		}
+		cache.evict("b");
+		otherCache.evict("c");
+		assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+		this.txManager.commit(status);
+
+		assertEquals(Integer.valueOf(99), target.get("a", Integer.class));
+		assertNull(target.get("b"));
+		assertNull(target.get("c"));
+		assertEquals(1, target.putAllCount);
+		assertEquals(1, target.evictAllCount);
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+	}
+
+	@Test
+	public void batchOperationsTransactional() {
+		CountingCache target = new CountingCache();
+		Cache cache = new TransactionAwareCacheDecorator(target);
+		target.put("c", "0");
+
+		TransactionStatus status = this.txManager.getTransaction(
+				new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRED));
+		Map<Object, Object> entries = new LinkedHashMap<>();
+		entries.put("a", "1");
+		entries.put("b", "2");
+		cache.putAll(entries);
+		cache.evictAll(Arrays.asList("b", "c"));
+		assertEquals(0, target.putAllCount);
+		assertEquals("0", target.get("c", String.class));
+		this.txManager.commit(status);
+
+		assertEquals("1", target.get("a", String.class));
+		assertNull(target.get("b"));
+		assertNull(target.get("c"));
+		assertEquals(1, target.putAllCount);
+		assertEquals(1, target.evictAllCount);
+	}
+
+	@Test
+	public void rollbackDiscardsChanges() {
+		Cache target = new ConcurrentMapCache("testCache");
+		Cache cache = new TransactionAwareCacheDecorator(target);
+		target.put("a", "0");
+
+		TransactionStatus status = this.txManager.getTransaction(
+				new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRED));
+		cache.put("a", "1");
+		cache.put("b", "1");
+		cache.clear();
+		this.txManager.rollback(status);
+
+		assertEquals("0", target.get("a", String.class));
+		assertNull(target.get("b"));
+		assertNull(cache.get("b"));
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+	}
+
+	@Test
+	public void clearThenPutTransactional() {
+		Cache target = new ConcurrentMapCache("testCache");
+		Cache cache = new TransactionAwareCacheDecorator(target);
+		target.put("a", "0");
+		target.put("b", "0");
+
+		TransactionStatus status = this.txManager.getTransaction(
+				new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_REQUIRED));
+		cache.clear();
+		cache.put("b", "1");
+		assertNull(cache.get("a"));
+		assertEquals("1", cache.get("b", String.class));
+		assertEquals("0", target.get("a", String.class));
+		this.txManager.commit(status);
+
+		assertNull(target.get("a"));
+		assertEquals("1", target.get("b", String.class));
+	}
+
+
+	private static class CountingCache extends ConcurrentMapCache {
+
+		int putAllCount;
+
+		int evictAllCount;
+
+		CountingCache() {
+			super("testCache");
+		}
+
+		@Override
+		public void putAll(Map<?, ?> entries) {
+			this.putAllCount++;
+			super.putAll(entries);
+		}
+
+		@Override
+		public void evictAll(Collection<?> keys) {
+			this.evictAllCount++;
+			super.evictAll(keys);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,9 @@
 
 package org.springframework.cache;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.Callable;
 
 import org.springframework.lang.Nullable;
@@ -100,6 +103,29 @@ public interface Cache {
 	@Nullable
 	<T> T get(Object key, Callable<T> valueLoader);
 
+	/**
+	 * Return the values to which this cache maps the specified keys, for all
+	 * keys that this cache contains a mapping for.
+	 * <p>The default implementation performs individual {@link #get(Object)}
+	 * calls; implementations are encouraged to override it with a native
+	 * bulk lookup where available.
+	 * @param keys the keys whose associated values are to be returned
+	 * @return a map from each key present in this cache to its value (which
+	 * may be {@code null} itself), in the iteration order of the given keys
+	 * @since 5.1.21
+	 * @see #get(Object)
+	 */
+	default Map<Object, Object> getAll(Collection<?> keys) {
+		Map<Object, Object> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			ValueWrapper wrapper = get(key);
+			if (wrapper != null) {
+				result.put(key, wrapper.get());
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Associate the specified value with the specified key in this cache.
 	 * <p>If the cache previously contained a mapping for this key, the old
@@ -109,6 +135,19 @@ public interface Cache {
 	 */
 	void put(Object key, @Nullable Object value);
 
+	/**
+	 * Associate all specified values with their keys in this cache.
+	 * <p>The default implementation performs individual {@link #put} calls;
+	 * implementations are encouraged to override it with a native bulk
+	 * operation where available.
+	 * @param entries the keys and values to store (values may be {@code null})
+	 * @since 5.1.21
+	 * @see #put(Object, Object)
+	 */
+	default void putAll(Map<?, ?> entries) {
+		entries.forEach(this::put);
+	}
+
 	/**
 	 * Atomically associate the specified value with the specified key in this cache
 	 * if it is not set already.
@@ -143,6 +182,19 @@ public interface Cache {
 	 */
 	void evict(Object key);
 
+	/**
+	 * Evict the mappings for all specified keys from this cache, if present.
+	 * <p>The default implementation performs individual {@link #evict} calls;
+	 * implementations are encouraged to override it with a native bulk
+	 * operation where available.
+	 * @param keys the keys whose mappings are to be removed from the cache
+	 * @since 5.1.21
+	 * @see #evict(Object)
+	 */
+	default void evictAll(Collection<?> keys) {
+		keys.forEach(this::evict);
+	}
+
 	/**
 	 * Clear the cache through removing all mappings.
 	 */
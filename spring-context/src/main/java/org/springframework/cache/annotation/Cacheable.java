@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -179,4 +179,44 @@ public @interface Cacheable {
 	 */
 	boolean sync() default false;
 
+	/**
+	 * Coalesce concurrent loads for the same key within the current JVM, so that
+	 * only one thread invokes the underlying method while all other threads for
+	 * that key wait for its result. In contrast to {@link #sync()}, this does not
+	 * depend on the cache provider and works with any {@code Cache} implementation.
+	 * <p>Implies the limitations of {@link #sync()}.
+	 * @since 5.1.21
+	 * @see org.springframework.cache.support.SingleFlightCache
+	 */
+	boolean singleFlight() default false;
+
+	/**
+	 * The logical time-to-live of cached entries in milliseconds, as a basis for
+	 * {@link #refreshAhead()} and {@link #serveStaleOnError()}. Ignored otherwise.
+	 * <p>Actual expiration remains the responsibility of the cache provider
+	 * which needs to be configured consistently.
+	 * @since 5.1.21
+	 */
+	long timeToLive() default -1;
+
+	/**
+	 * The fraction of the {@link #timeToLive()} after which an entry gets refreshed
+	 * asynchronously while its current value is still returned, e.g. {@code 0.8}
+	 * for a refresh once 80% of the time-to-live have elapsed. Default is no refresh.
+	 * <p>Requires a {@link #timeToLive()} and implies the limitations of {@link #sync()}.
+	 * @since 5.1.21
+	 * @see org.springframework.cache.support.RefreshAheadCache
+	 */
+	double refreshAhead() default 0;
+
+	/**
+	 * Return an expired entry if reinvoking the underlying method for it fails,
+	 * instead of propagating the exception. Entries are considered expired after
+	 * the {@link #timeToLive()}; the cache provider needs to retain them longer.
+	 * <p>Requires a {@link #timeToLive()} and implies the limitations of {@link #sync()}.
+	 * @since 5.1.21
+	 * @see org.springframework.cache.support.StaleOnErrorCache
+	 */
+	boolean serveStaleOnError() default false;
+
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.springframework.core.annotation.AliasFor;
+
+/**
+ * Annotation indicating that the result of invoking a bulk method (or all methods
+ * in a class) can be cached per element, for example
+ * {@code List<Product> findByIds(Collection<Long> ids)}.
+ *
+ * <p>The first {@link java.util.Collection} parameter of the method provides the
+ * elements. A cache key is computed for each of them as if the method had been
+ * invoked with the element in place of the collection, so entries are shared with
+ * a corresponding {@link Cacheable @Cacheable} single-element method such as
+ * {@code Product findById(Long id)}. Cached elements are retrieved through
+ * {@link org.springframework.cache.Cache#getAll}; the method is then invoked for
+ * the remaining elements only, and its result is stored through
+ * {@link org.springframework.cache.Cache#putAll}.
+ *
+ * <p>The method may return a {@link java.util.Map} keyed by element or a
+ * {@link java.util.Collection} of values, with each value's element determined
+ * through the {@link #resultKey} expression or, if not specified, by position.
+ * The returned {@code Map} or {@code Collection} lists the values in the order of
+ * the given elements, skipping elements without a value; duplicate elements are
+ * only included once.
+ *
+ * <p>The method is invoked with a collection of the cache misses when using
+ * proxy-based caching; other arrangements may pass the full collection, with
+ * the result merged in the same way.
+ *
+ * <p>This annotation may be used as a <em>meta-annotation</em> to create custom
+ * <em>composed annotations</em> with attribute overrides.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see Cacheable
+ * @see CacheConfig
+ */
+@Target({ElementType.TYPE, ElementType.METHOD})
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@Documented
+public @interface CacheableAll {
+
+	/**
+	 * Alias for {@link #cacheNames}.
+	 */
+	@AliasFor("cacheNames")
+	String[] value() default {};
+
+	/**
+	 * Names of the caches in which per-element method invocation results are stored.
+	 * <p>Names may be used to determine the target cache (or caches), matching
+	 * the qualifier value or bean name of a specific bean definition.
+	 * @see #value
+	 * @see CacheConfig#cacheNames
+	 */
+	@AliasFor("value")
+	String[] cacheNames() default {};
+
+	/**
+	 * Spring Expression Language (SpEL) expression for computing the key of
+	 * each element dynamically.
+	 * <p>Default is {@code ""}, meaning all method parameters are considered as a key,
+	 * with the element in place of the collection, unless a custom {@link #keyGenerator}
+	 * has been set.
+	 * <p>The SpEL expression evaluates against the same context as the {@code key}
+	 * expression of {@link Cacheable @Cacheable}, with the collection argument
+	 * replaced by the current element.
+	 */
+	String key() default "";
+
+	/**
+	 * The bean name of the custom {@link org.springframework.cache.interceptor.KeyGenerator}
+	 * to use.
+	 * <p>Mutually exclusive with the {@link #key} attribute.
+	 * @see CacheConfig#keyGenerator
+	 */
+	String keyGenerator() default "";
+
+	/**
+	 * The bean name of the custom {@link org.springframework.cache.CacheManager} to use to
+	 * create a default {@link org.springframework.cache.interceptor.CacheResolver} if none
+	 * is set already.
+	 * <p>Mutually exclusive with the {@link #cacheResolver} attribute.
+	 * @see org.springframework.cache.interceptor.SimpleCacheResolver
+	 * @see CacheConfig#cacheManager
+	 */
+	String cacheManager() default "";
+
+	/**
+	 * The bean name of the custom {@link org.springframework.cache.interceptor.CacheResolver}
+	 * to use.
+	 * @see CacheConfig#cacheResolver
+	 */
+	String cacheResolver() default "";
+
+	/**
+	 * Spring Expression Language (SpEL) expression used for making the method
+	 * caching conditional, evaluated once against the full invocation arguments.
+	 * <p>Default is {@code ""}, meaning the method result is always cached.
+	 */
+	String condition() default "";
+
+	/**
+	 * Spring Expression Language (SpEL) expression for determining the element
+	 * that a value in a returned {@code Collection} belongs to, with {@code #result}
+	 * referring to the value, e.g. {@code "#result.id"}.
+	 * <p>Default is {@code ""}, meaning that values are matched to the requested
+	 * elements by position, requiring a value for each element. Ignored for methods
+	 * returning a {@code Map} keyed by element.
+	 */
+	String resultKey() default "";
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,11 +23,13 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.springframework.cache.interceptor.CacheEvictOperation;
 import org.springframework.cache.interceptor.CacheOperation;
 import org.springframework.cache.interceptor.CachePutOperation;
+import org.springframework.cache.interceptor.CacheableAllOperation;
 import org.springframework.cache.interceptor.CacheableOperation;
 import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.lang.Nullable;
@@ -35,7 +37,7 @@ import org.springframework.util.StringUtils;
 
 /**
  * Strategy implementation for parsing Spring's {@link Caching}, {@link Cacheable},
- * {@link CacheEvict}, and {@link CachePut} annotations.
+ * {@link CacheableAll}, {@link CacheEvict}, and {@link CachePut} annotations.
  *
  * @author Costin Leau
  * @author Juergen Hoeller
@@ -52,6 +54,7 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 
 	static {
 		CACHE_OPERATION_ANNOTATIONS.add(Cacheable.class);
+		CACHE_OPERATION_ANNOTATIONS.add(CacheableAll.class);
 		CACHE_OPERATION_ANNOTATIONS.add(CacheEvict.class);
 		CACHE_OPERATION_ANNOTATIONS.add(CachePut.class);
 		CACHE_OPERATION_ANNOTATIONS.add(Caching.class);
@@ -99,6 +102,8 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 		final Collection<CacheOperation> ops = new ArrayList<>(1);
 		anns.stream().filter(ann -> ann instanceof Cacheable).forEach(
 				ann -> ops.add(parseCacheableAnnotation(ae, cachingConfig, (Cacheable) ann)));
+		anns.stream().filter(ann -> ann instanceof CacheableAll).forEach(
+				ann -> ops.add(parseCacheableAllAnnotation(ae, cachingConfig, (CacheableAll) ann)));
 		anns.stream().filter(ann -> ann instanceof CacheEvict).forEach(
 				ann -> ops.add(parseEvictAnnotation(ae, cachingConfig, (CacheEvict) ann)));
 		anns.stream().filter(ann -> ann instanceof CachePut).forEach(
@@ -122,6 +127,10 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 		builder.setCacheManager(cacheable.cacheManager());
 		builder.setCacheResolver(cacheable.cacheResolver());
 		builder.setSync(cacheable.sync());
+		builder.setSingleFlight(cacheable.singleFlight());
+		builder.setTimeToLive(cacheable.timeToLive());
+		builder.setRefreshAhead(cacheable.refreshAhead());
+		builder.setServeStaleOnError(cacheable.serveStaleOnError());
 
 		defaultConfig.applyDefault(builder);
 		CacheableOperation op = builder.build();
@@ -130,6 +139,27 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 		return op;
 	}
 
+	private CacheableAllOperation parseCacheableAllAnnotation(
+			AnnotatedElement ae, DefaultCacheConfig defaultConfig, CacheableAll cacheableAll) {
+
+		CacheableAllOperation.Builder builder = new CacheableAllOperation.Builder();
+
+		builder.setName(ae.toString());
+		builder.setCacheNames(cacheableAll.cacheNames());
+		builder.setCondition(cacheableAll.condition());
+		builder.setKey(cacheableAll.key());
+		builder.setKeyGenerator(cacheableAll.keyGenerator());
+		builder.setCacheManager(cacheableAll.cacheManager());
+		builder.setCacheResolver(cacheableAll.cacheResolver());
+		builder.setResultKey(cacheableAll.resultKey());
+
+		defaultConfig.applyDefault(builder);
+		CacheableAllOperation op = builder.build();
+		validateCacheOperation(ae, op);
+
+		return op;
+	}
+
 	private CacheEvictOperation parseEvictAnnotation(
 			AnnotatedElement ae, DefaultCacheConfig defaultConfig, CacheEvict cacheEvict) {
 
@@ -213,6 +243,37 @@ public class SpringCacheAnnotationParser implements CacheAnnotationParser, Seria
 					"default cache resolver if none is set. If a cache resolver is set, the cache manager" +
 					"won't be used.");
 		}
+		if (operation instanceof CacheableAllOperation && ae instanceof Method) {
+			boolean collectionParameter = false;
+			for (Class<?> parameterType : ((Method) ae).getParameterTypes()) {
+				if (Collection.class.isAssignableFrom(parameterType)) {
+					collectionParameter = true;
+					break;
+				}
+			}
+			if (!collectionParameter) {
+				throw new IllegalStateException("Invalid cache annotation configuration on '" +
+						ae.toString() + "'. @CacheableAll requires a Collection parameter.");
+			}
+			Class<?> returnType = ((Method) ae).getReturnType();
+			if (!Map.class.isAssignableFrom(returnType) && !Collection.class.isAssignableFrom(returnType)) {
+				throw new IllegalStateException("Invalid cache annotation configuration on '" +
+						ae.toString() + "'. @CacheableAll requires a Map or Collection return type.");
+			}
+		}
+		if (operation instanceof CacheableOperation) {
+			CacheableOperation cacheableOperation = (CacheableOperation) operation;
+			if (cacheableOperation.getRefreshAhead() < 0 || cacheableOperation.getRefreshAhead() >= 1) {
+				throw new IllegalStateException("Invalid cache annotation configuration on '" +
+						ae.toString() + "'. The 'refreshAhead' attribute must be a fraction between 0 and 1.");
+			}
+			if ((cacheableOperation.getRefreshAhead() > 0 || cacheableOperation.isServeStaleOnError()) &&
+					cacheableOperation.getTimeToLive() <= 0) {
+				throw new IllegalStateException("Invalid cache annotation configuration on '" +
+						ae.toString() + "'. The 'refreshAhead' and 'serveStaleOnError' attributes " +
+						"require a positive 'timeToLive'.");
+			}
+		}
 	}
 
 	@Override
@@ -18,14 +18,21 @@ package org.springframework.cache.interceptor;
 
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Supplier;
 
 import org.apache.commons.logging.Log;
@@ -42,9 +49,17 @@ import org.springframework.beans.factory.SmartInitializingSingleton;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.cache.support.RefreshAheadCache;
+import org.springframework.cache.support.SingleFlightCache;
+import org.springframework.cache.support.StaleOnErrorCache;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.CollectionFactory;
+import org.springframework.core.MethodClassKey;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -88,7 +103,11 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	private final Map<CacheOperationCacheKey, CacheOperationMetadata> metadataCache = new ConcurrentHashMap<>(1024);
 
-	private final CacheOperationExpressionEvaluator evaluator = new CacheOperationExpressionEvaluator();
+	private final Map<MethodClassKey, CacheOperationPlan> planCache = new ConcurrentHashMap<>(1024);
+
+	private CacheOperationExpressionEvaluator evaluator = new CacheOperationExpressionEvaluator();
+
+	private final Map<DecoratedCacheKey, DecoratedCache> decoratedCaches = new ConcurrentHashMap<>(64);
 
 	@Nullable
 	private CacheOperationSource cacheOperationSource;
@@ -98,6 +117,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	@Nullable
 	private SingletonSupplier<CacheResolver> cacheResolver;
 
+	private Executor refreshExecutor = new SimpleAsyncTaskExecutor("cache-refresh-");
+
 	@Nullable
 	private BeanFactory beanFactory;
 
@@ -195,6 +216,40 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		this.cacheResolver = SingletonSupplier.of(new SimpleCacheResolver(cacheManager));
 	}
 
+	/**
+	 * Set the {@link Executor} to perform asynchronous refreshes on, for
+	 * {@code @Cacheable} operations with a {@code refreshAhead} setting.
+	 * <p>Default is a {@link SimpleAsyncTaskExecutor}, creating a new thread
+	 * per refresh. Consider a bounded thread pool for production use.
+	 * @since 5.1.21
+	 * @see RefreshAheadCache
+	 */
+	public void setRefreshExecutor(Executor refreshExecutor) {
+		Assert.notNull(refreshExecutor, "Refresh Executor must not be null");
+		this.refreshExecutor = refreshExecutor;
+	}
+
+	/**
+	 * Set the SpEL compiler mode for the {@code key}, {@code condition} and
+	 * {@code unless} expressions of cache operations.
+	 * <p>Default is the general "spring.expression.compiler.mode" setting,
+	 * i.e. {@link SpelCompilerMode#OFF} unless specified otherwise. Consider
+	 * {@link SpelCompilerMode#MIXED} for frequently invoked operations.
+	 * @since 5.1.21
+	 */
+	public void setExpressionCompilerMode(SpelCompilerMode compilerMode) {
+		Assert.notNull(compilerMode, "SpelCompilerMode must not be null");
+		this.evaluator = new CacheOperationExpressionEvaluator(compilerMode);
+	}
+
+	/**
+	 * Return the {@link Executor} to perform asynchronous refreshes on.
+	 * @since 5.1.21
+	 */
+	public Executor getRefreshExecutor() {
+		return this.refreshExecutor;
+	}
+
 	/**
 	 * Set the containing {@link BeanFactory} for {@link CacheManager} and other
 	 * service lookups.
@@ -301,12 +356,55 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				Assert.state(operationCacheResolver != null, "No CacheResolver/CacheManager set");
 			}
 			metadata = new CacheOperationMetadata(operation, method, targetClass,
-					operationKeyGenerator, operationCacheResolver);
+					operationKeyGenerator, operationCacheResolver, isStaticCacheResolver(operationCacheResolver));
 			this.metadataCache.put(cacheKey, metadata);
 		}
 		return metadata;
 	}
 
+	/**
+	 * Determine whether the given {@link CacheResolver} resolves caches based on
+	 * the cache operation only, independent from the particular invocation,
+	 * from a {@link CacheManager} which keeps exposing the same cache instances.
+	 * <p>The caches resolved by such a resolver are retained for subsequent
+	 * invocations of the same operation, avoiding a resolution on every call.
+	 * The default implementation returns {@code true} for a plain
+	 * {@link SimpleCacheResolver} and {@link NamedCacheResolver} backed by an
+	 * {@link AbstractCacheManager}, re-resolving the caches whenever the set
+	 * of caches in that manager changes. Other cache managers, e.g.
+	 * {@code ConcurrentMapCacheManager} or {@code CaffeineCacheManager},
+	 * may replace their cache instances on reconfiguration at any time.
+	 * @param cacheResolver the cache resolver to check
+	 * @return whether the resolved caches can be retained per operation
+	 * @since 5.1.21
+	 */
+	protected boolean isStaticCacheResolver(CacheResolver cacheResolver) {
+		return ((cacheResolver.getClass() == SimpleCacheResolver.class ||
+				cacheResolver.getClass() == NamedCacheResolver.class) &&
+				((AbstractCacheResolver) cacheResolver).getCacheManager() instanceof AbstractCacheManager);
+	}
+
+	/**
+	 * Return the {@link CacheOperationPlan} for the specified operations,
+	 * holding the resolved metadata of each operation on the given method.
+	 */
+	private CacheOperationPlan getCacheOperationPlan(
+			Collection<CacheOperation> operations, Method method, Class<?> targetClass) {
+
+		MethodClassKey planKey = new MethodClassKey(method, targetClass);
+		CacheOperationPlan plan = this.planCache.get(planKey);
+		if (plan == null || (plan.operations != operations && !plan.operations.equals(operations))) {
+			CacheOperationMetadata[] metadata = new CacheOperationMetadata[operations.size()];
+			int i = 0;
+			for (CacheOperation operation : operations) {
+				metadata[i++] = getCacheOperationMetadata(operation, method, targetClass);
+			}
+			plan = new CacheOperationPlan(operations, metadata);
+			this.planCache.put(planKey, plan);
+		}
+		return plan;
+	}
+
 	/**
 	 * Return a bean with the specified name and type. Used to resolve services that
 	 * are referenced by name in a {@link CacheOperation}.
@@ -331,6 +429,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	 */
 	protected void clearMetadataCache() {
 		this.metadataCache.clear();
+		this.planCache.clear();
 		this.evaluator.clear();
 	}
 
@@ -343,8 +442,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			if (cacheOperationSource != null) {
 				Collection<CacheOperation> operations = cacheOperationSource.getCacheOperations(method, targetClass);
 				if (!CollectionUtils.isEmpty(operations)) {
-					return execute(invoker, method,
-							new CacheOperationContexts(operations, method, args, target, targetClass));
+					CacheOperationPlan plan = getCacheOperationPlan(operations, method, targetClass);
+					return execute(invoker, method, new CacheOperationContexts(plan, method, args, target));
 				}
 			}
 		}
@@ -372,12 +471,25 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 	@Nullable
 	private Object execute(final CacheOperationInvoker invoker, Method method, CacheOperationContexts contexts) {
+		// Special handling of bulk invocation
+		if (contexts.isBulk()) {
+			CacheOperationContext context = contexts.get(CacheableAllOperation.class).iterator().next();
+			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
+				return executeBulk(invoker, method, context, contexts.getArgs());
+			}
+			else {
+				// No caching required, only call the underlying method
+				return invokeOperation(invoker);
+			}
+		}
+
 		// Special handling of synchronized invocation
 		if (contexts.isSynchronized()) {
 			CacheOperationContext context = contexts.get(CacheableOperation.class).iterator().next();
 			if (isConditionPassing(context, CacheOperationExpressionEvaluator.NO_RESULT)) {
 				Object key = generateKey(context, CacheOperationExpressionEvaluator.NO_RESULT);
-				Cache cache = context.getCaches().iterator().next();
+				Cache cache = decorateCache(context.getCaches().iterator().next(),
+						(CacheableOperation) context.getOperation());
 				try {
 					return wrapCacheValue(method, cache.get(key, () -> unwrapReturnValue(invokeOperation(invoker))));
 				}
@@ -436,6 +548,213 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		return returnValue;
 	}
 
+	/**
+	 * Execute a {@link CacheableAllOperation}: look up all elements of the
+	 * collection argument in the cache(s), invoke the underlying method for
+	 * the missing elements only, and merge the results in the original order.
+	 */
+	private Object executeBulk(CacheOperationInvoker invoker, Method method,
+			CacheOperationContext context, Object[] invocationArgs) {
+
+		int index = getCollectionParameterIndex(method);
+		Object[] args = context.getArgs();
+		Collection<?> elements = (Collection<?>) args[index];
+		if (elements == null) {
+			return invokeOperation(invoker);
+		}
+
+		// Compute a cache key per distinct element
+		Map<Object, Object> keysByElement = new LinkedHashMap<>(elements.size());
+		for (Object element : elements) {
+			if (!keysByElement.containsKey(element)) {
+				Object[] elementArgs = args.clone();
+				elementArgs[index] = element;
+				keysByElement.put(element, generateElementKey(context, elementArgs));
+			}
+		}
+
+		// Collect cached values, with earlier caches taking precedence
+		Map<Object, Object> valuesByKey = new HashMap<>(keysByElement.size());
+		Set<Object> missingKeys = new LinkedHashSet<>(keysByElement.values());
+		for (Cache cache : context.getCaches()) {
+			if (missingKeys.isEmpty()) {
+				break;
+			}
+			Map<Object, Object> cached = doGetAll(cache, missingKeys);
+			valuesByKey.putAll(cached);
+			missingKeys.removeAll(cached.keySet());
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Found " + (keysByElement.size() - missingKeys.size()) + " of " + keysByElement.size() +
+					" cache entries in cache(s) " + context.getCacheNames());
+		}
+
+		// Invoke the method for the missing elements only
+		if (!missingKeys.isEmpty()) {
+			List<Object> misses = new ArrayList<>(missingKeys.size());
+			keysByElement.forEach((element, key) -> {
+				if (missingKeys.contains(key)) {
+					misses.add(element);
+				}
+			});
+			Object originalArg = invocationArgs[index];
+			Collection<Object> missArg = createBulkArgument(method, index, misses);
+			if (missArg != null && originalArg == elements) {
+				invocationArgs[index] = missArg;
+			}
+			Object returnValue;
+			try {
+				returnValue = invokeOperation(invoker);
+			}
+			finally {
+				invocationArgs[index] = originalArg;
+			}
+
+			Map<?, ?> valuesByElement = mapBulkResult(context, returnValue, misses, elements);
+			Map<Object, Object> entries = new LinkedHashMap<>(valuesByElement.size());
+			valuesByElement.forEach((element, value) -> {
+				Object key = keysByElement.get(element);
+				if (key != null) {
+					entries.put(key, value);
+				}
+			});
+			if (!entries.isEmpty()) {
+				for (Cache cache : context.getCaches()) {
+					doPutAll(cache, entries);
+				}
+				valuesByKey.putAll(entries);
+			}
+		}
+
+		// Merge cached and loaded values in the order of the given elements
+		Class<?> returnType = method.getReturnType();
+		if (Map.class.isAssignableFrom(returnType)) {
+			Map<Object, Object> result = (returnType.isAssignableFrom(LinkedHashMap.class) ?
+					new LinkedHashMap<>(keysByElement.size()) :
+					CollectionFactory.createMap(returnType, keysByElement.size()));
+			keysByElement.forEach((element, key) -> {
+				if (valuesByKey.containsKey(key)) {
+					result.put(element, valuesByKey.get(key));
+				}
+			});
+			return result;
+		}
+		else {
+			Collection<Object> result = (returnType.isAssignableFrom(ArrayList.class) ?
+					new ArrayList<>(keysByElement.size()) :
+					CollectionFactory.createCollection(returnType, keysByElement.size()));
+			keysByElement.forEach((element, key) -> {
+				if (valuesByKey.containsKey(key)) {
+					result.add(valuesByKey.get(key));
+				}
+			});
+			return result;
+		}
+	}
+
+	private int getCollectionParameterIndex(Method method) {
+		Class<?>[] parameterTypes = method.getParameterTypes();
+		for (int i = 0; i < parameterTypes.length; i++) {
+			if (Collection.class.isAssignableFrom(parameterTypes[i])) {
+				return i;
+			}
+		}
+		throw new IllegalStateException("@CacheableAll requires a Collection parameter on '" + method + "'");
+	}
+
+	@Nullable
+	private Collection<Object> createBulkArgument(Method method, int index, List<Object> elements) {
+		Class<?> parameterType = method.getParameterTypes()[index];
+		if (parameterType.isAssignableFrom(ArrayList.class)) {
+			return elements;
+		}
+		try {
+			Collection<Object> collection = CollectionFactory.createCollection(parameterType, elements.size());
+			collection.addAll(elements);
+			return collection;
+		}
+		catch (IllegalArgumentException ex) {
+			// Cannot create a collection of the parameter type -> pass the original collection
+			return null;
+		}
+	}
+
+	private Map<?, ?> mapBulkResult(CacheOperationContext context, @Nullable Object returnValue,
+			List<Object> misses, Collection<?> elements) {
+
+		if (returnValue == null) {
+			return Collections.emptyMap();
+		}
+		if (returnValue instanceof Map) {
+			return (Map<?, ?>) returnValue;
+		}
+		if (returnValue instanceof Collection) {
+			Collection<?> values = (Collection<?>) returnValue;
+			Map<Object, Object> valuesByElement = new LinkedHashMap<>(values.size());
+			String resultKey = ((CacheableAllOperation) context.getOperation()).getResultKey();
+			if (StringUtils.hasText(resultKey)) {
+				for (Object value : values) {
+					valuesByElement.put(context.evaluateResultKey(resultKey, value), value);
+				}
+			}
+			else {
+				// Match values by position, against the missing or all requested elements
+				Collection<?> requested = (values.size() == misses.size() ? misses : elements);
+				if (values.size() != requested.size()) {
+					throw new IllegalStateException("Returned " + values.size() + " values for " + misses.size() +
+							" requested elements - specify a 'resultKey' expression for " + context.getOperation());
+				}
+				Iterator<?> it = requested.iterator();
+				for (Object value : values) {
+					valuesByElement.put(it.next(), value);
+				}
+			}
+			return valuesByElement;
+		}
+		throw new IllegalStateException("@CacheableAll requires a Map or Collection return value: " +
+				context.getOperation());
+	}
+
+	/**
+	 * Decorate the given cache according to the settings of the given
+	 * {@code @Cacheable} operation, reusing decorators across invocations.
+	 * <p>Decorators are held per operation and cache name for as long as the
+	 * given cache instance is in use, and get recreated once a cache manager
+	 * exposes a different instance under the same name.
+	 * @param cache the target cache
+	 * @param operation the cacheable operation
+	 * @return the decorated cache (or the given cache if no decoration is required)
+	 * @since 5.1.21
+	 */
+	protected Cache decorateCache(Cache cache, CacheableOperation operation) {
+		if (!operation.isSingleFlight() && operation.getRefreshAhead() <= 0 && !operation.isServeStaleOnError()) {
+			return cache;
+		}
+		DecoratedCacheKey key = new DecoratedCacheKey(cache.getName(), operation);
+		DecoratedCache decoratedCache = this.decoratedCaches.get(key);
+		if (decoratedCache == null || decoratedCache.targetCache != cache) {
+			decoratedCache = this.decoratedCaches.compute(key, (k, existing) ->
+					(existing != null && existing.targetCache == cache ? existing :
+							new DecoratedCache(cache, createDecorator(cache, operation))));
+		}
+		return decoratedCache.decorator;
+	}
+
+	private Cache createDecorator(Cache cache, CacheableOperation operation) {
+		Duration timeToLive = Duration.ofMillis(operation.getTimeToLive());
+		Cache decorated = cache;
+		if (operation.isServeStaleOnError()) {
+			decorated = new StaleOnErrorCache(decorated, timeToLive);
+		}
+		if (operation.isSingleFlight()) {
+			decorated = new SingleFlightCache(decorated);
+		}
+		if (operation.getRefreshAhead() > 0) {
+			decorated = new RefreshAheadCache(decorated, timeToLive, operation.getRefreshAhead(), this.refreshExecutor);
+		}
+		return decorated;
+	}
+
 	@Nullable
 	private Object wrapCacheValue(Method method, @Nullable Object cacheValue) {
 		if (method.getReturnType() == Optional.class &&
@@ -453,11 +772,11 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	private boolean hasCachePut(CacheOperationContexts contexts) {
 		// Evaluate the conditions *without* the result object because we don't have it yet...
 		Collection<CacheOperationContext> cachePutContexts = contexts.get(CachePutOperation.class);
-		Collection<CacheOperationContext> excluded = new ArrayList<>();
+		int excluded = 0;
 		for (CacheOperationContext context : cachePutContexts) {
 			try {
 				if (!context.isConditionPassing(CacheOperationExpressionEvaluator.RESULT_UNAVAILABLE)) {
-					excluded.add(context);
+					excluded++;
 				}
 			}
 			catch (VariableNotAvailableException ex) {
@@ -465,7 +784,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 		}
 		// Check if all puts have been excluded by condition
-		return (cachePutContexts.size() != excluded.size());
+		return (cachePutContexts.size() != excluded);
 	}
 
 	private void processCacheEvicts(
@@ -585,20 +904,39 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	}
 
 
+	private Object generateElementKey(CacheOperationContext context, Object[] elementArgs) {
+		Object key = context.generateKey(elementArgs, CacheOperationExpressionEvaluator.NO_RESULT);
+		if (key == null) {
+			throw new IllegalArgumentException("Null key returned for cache operation (maybe you are " +
+					"using named params on classes without debug info?) " + context.metadata.operation);
+		}
+		if (logger.isTraceEnabled()) {
+			logger.trace("Computed cache key '" + key + "' for operation " + context.metadata.operation);
+		}
+		return key;
+	}
+
+
 	private class CacheOperationContexts {
 
 		private final MultiValueMap<Class<? extends CacheOperation>, CacheOperationContext> contexts;
 
+		private final Object[] args;
+
 		private final boolean sync;
 
-		public CacheOperationContexts(Collection<? extends CacheOperation> operations, Method method,
-				Object[] args, Object target, Class<?> targetClass) {
+		private final boolean bulk;
 
-			this.contexts = new LinkedMultiValueMap<>(operations.size());
-			for (CacheOperation op : operations) {
-				this.contexts.add(op.getClass(), getOperationContext(op, method, args, target, targetClass));
+		public CacheOperationContexts(CacheOperationPlan plan, Method method, Object[] args, Object target) {
+			this.contexts = new LinkedMultiValueMap<>(plan.metadata.length);
+			for (CacheOperationMetadata metadata : plan.metadata) {
+				CacheOperationContext context =
+						getOperationContext(metadata.operation, method, args, target, metadata.targetClass);
+				this.contexts.add(metadata.operation.getClass(), context);
 			}
+			this.args = args;
 			this.sync = determineSyncFlag(method);
+			this.bulk = determineBulkFlag(method);
 		}
 
 		public Collection<CacheOperationContext> get(Class<? extends CacheOperation> operationClass) {
@@ -606,10 +944,30 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			return (result != null ? result : Collections.emptyList());
 		}
 
+		public Object[] getArgs() {
+			return this.args;
+		}
+
 		public boolean isSynchronized() {
 			return this.sync;
 		}
 
+		public boolean isBulk() {
+			return this.bulk;
+		}
+
+		private boolean determineBulkFlag(Method method) {
+			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableAllOperation.class);
+			if (cacheOperationContexts == null) {  // no @CacheableAll operation at all
+				return false;
+			}
+			if (this.contexts.size() > 1 || cacheOperationContexts.size() > 1) {
+				throw new IllegalStateException(
+						"@CacheableAll cannot be combined with other cache operations on '" + method + "'");
+			}
+			return true;
+		}
+
 		private boolean determineSyncFlag(Method method) {
 			List<CacheOperationContext> cacheOperationContexts = this.contexts.get(CacheableOperation.class);
 			if (cacheOperationContexts == null) {  // no @Cacheable operation at all
@@ -617,7 +975,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			}
 			boolean syncEnabled = false;
 			for (CacheOperationContext cacheOperationContext : cacheOperationContexts) {
-				if (((CacheableOperation) cacheOperationContext.getOperation()).isSync()) {
+				if (((CacheableOperation) cacheOperationContext.getOperation()).isLoaderBased()) {
 					syncEnabled = true;
 					break;
 				}
@@ -668,9 +1026,36 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final CacheResolver cacheResolver;
 
+		private final boolean staticCaches;
+
+		@Nullable
+		private final String conditionExpression;
+
+		@Nullable
+		private final String keyExpression;
+
+		@Nullable
+		private final String unlessExpression;
+
+		@Nullable
+		private volatile ResolvedCaches resolvedCaches;
+
 		public CacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass,
 				KeyGenerator keyGenerator, CacheResolver cacheResolver) {
 
+			this(operation, method, targetClass, keyGenerator, cacheResolver, false);
+		}
+
+		/**
+		 * Create a new {@code CacheOperationMetadata} instance.
+		 * @param staticCaches whether the caches resolved by the given
+		 * {@link CacheResolver} can be retained for subsequent invocations
+		 * @since 5.1.21
+		 * @see CacheAspectSupport#isStaticCacheResolver
+		 */
+		public CacheOperationMetadata(CacheOperation operation, Method method, Class<?> targetClass,
+				KeyGenerator keyGenerator, CacheResolver cacheResolver, boolean staticCaches) {
+
 			this.operation = operation;
 			this.method = BridgeMethodResolver.findBridgedMethod(method);
 			this.targetClass = targetClass;
@@ -679,6 +1064,23 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			this.methodKey = new AnnotatedElementKey(this.targetMethod, targetClass);
 			this.keyGenerator = keyGenerator;
 			this.cacheResolver = cacheResolver;
+			this.staticCaches = staticCaches;
+			this.conditionExpression = textOrNull(operation.getCondition());
+			this.keyExpression = textOrNull(operation.getKey());
+			if (operation instanceof CacheableOperation) {
+				this.unlessExpression = textOrNull(((CacheableOperation) operation).getUnless());
+			}
+			else if (operation instanceof CachePutOperation) {
+				this.unlessExpression = textOrNull(((CachePutOperation) operation).getUnless());
+			}
+			else {
+				this.unlessExpression = null;
+			}
+		}
+
+		@Nullable
+		private static String textOrNull(@Nullable String expression) {
+			return (StringUtils.hasText(expression) ? expression : null);
 		}
 	}
 
@@ -696,7 +1098,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		private final Collection<? extends Cache> caches;
 
-		private final Collection<String> cacheNames;
+		@Nullable
+		private Collection<String> cacheNames;
 
 		@Nullable
 		private Boolean conditionPassing;
@@ -705,8 +1108,7 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			this.metadata = metadata;
 			this.args = extractArgs(metadata.method, args);
 			this.target = target;
-			this.caches = CacheAspectSupport.this.getCaches(this, metadata.cacheResolver);
-			this.cacheNames = createCacheNames(this.caches);
+			this.caches = resolveCaches();
 		}
 
 		@Override
@@ -729,6 +1131,22 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 			return this.args;
 		}
 
+		private Collection<? extends Cache> resolveCaches() {
+			if (!this.metadata.staticCaches) {
+				return CacheAspectSupport.this.getCaches(this, this.metadata.cacheResolver);
+			}
+			// The set of cache names gets replaced whenever the manager's caches change
+			Collection<String> cacheNames =
+					((AbstractCacheResolver) this.metadata.cacheResolver).getCacheManager().getCacheNames();
+			ResolvedCaches resolvedCaches = this.metadata.resolvedCaches;
+			if (resolvedCaches == null || resolvedCaches.cacheNames != cacheNames) {
+				resolvedCaches = new ResolvedCaches(cacheNames, Collections.unmodifiableCollection(
+						CacheAspectSupport.this.getCaches(this, this.metadata.cacheResolver)));
+				this.metadata.resolvedCaches = resolvedCaches;
+			}
+			return resolvedCaches.caches;
+		}
+
 		private Object[] extractArgs(Method method, Object[] args) {
 			if (!method.isVarArgs()) {
 				return args;
@@ -742,10 +1160,10 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 
 		protected boolean isConditionPassing(@Nullable Object result) {
 			if (this.conditionPassing == null) {
-				if (StringUtils.hasText(this.metadata.operation.getCondition())) {
+				String condition = this.metadata.conditionExpression;
+				if (condition != null) {
 					EvaluationContext evaluationContext = createEvaluationContext(result);
-					this.conditionPassing = evaluator.condition(this.metadata.operation.getCondition(),
-							this.metadata.methodKey, evaluationContext);
+					this.conditionPassing = evaluator.condition(condition, this.metadata.methodKey, evaluationContext);
 				}
 				else {
 					this.conditionPassing = true;
@@ -755,14 +1173,8 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 
 		protected boolean canPutToCache(@Nullable Object value) {
-			String unless = "";
-			if (this.metadata.operation instanceof CacheableOperation) {
-				unless = ((CacheableOperation) this.metadata.operation).getUnless();
-			}
-			else if (this.metadata.operation instanceof CachePutOperation) {
-				unless = ((CachePutOperation) this.metadata.operation).getUnless();
-			}
-			if (StringUtils.hasText(unless)) {
+			String unless = this.metadata.unlessExpression;
+			if (unless != null) {
 				EvaluationContext evaluationContext = createEvaluationContext(value);
 				return !evaluator.unless(unless, this.metadata.methodKey, evaluationContext);
 			}
@@ -774,15 +1186,40 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		 */
 		@Nullable
 		protected Object generateKey(@Nullable Object result) {
-			if (StringUtils.hasText(this.metadata.operation.getKey())) {
-				EvaluationContext evaluationContext = createEvaluationContext(result);
-				return evaluator.key(this.metadata.operation.getKey(), this.metadata.methodKey, evaluationContext);
+			return generateKey(this.args, result);
+		}
+
+		/**
+		 * Compute the key for the given caching operation, based on the given
+		 * arguments instead of the actual invocation arguments.
+		 * @since 5.1.21
+		 */
+		@Nullable
+		protected Object generateKey(Object[] args, @Nullable Object result) {
+			String key = this.metadata.keyExpression;
+			if (key != null) {
+				EvaluationContext evaluationContext = createEvaluationContext(args, result);
+				return evaluator.key(key, this.metadata.methodKey, evaluationContext);
 			}
-			return this.metadata.keyGenerator.generate(this.target, this.metadata.method, this.args);
+			return this.metadata.keyGenerator.generate(this.target, this.metadata.method, args);
+		}
+
+		/**
+		 * Evaluate the given result key expression against the given value.
+		 * @since 5.1.21
+		 */
+		@Nullable
+		protected Object evaluateResultKey(String expression, @Nullable Object value) {
+			EvaluationContext evaluationContext = createEvaluationContext(this.args, value);
+			return evaluator.key(expression, this.metadata.methodKey, evaluationContext);
 		}
 
 		private EvaluationContext createEvaluationContext(@Nullable Object result) {
-			return evaluator.createEvaluationContext(this.caches, this.metadata.method, this.args,
+			return createEvaluationContext(this.args, result);
+		}
+
+		private EvaluationContext createEvaluationContext(Object[] args, @Nullable Object result) {
+			return evaluator.createEvaluationContext(this.caches, this.metadata.method, args,
 					this.target, this.metadata.targetClass, this.metadata.targetMethod, result, beanFactory);
 		}
 
@@ -791,6 +1228,9 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 
 		protected Collection<String> getCacheNames() {
+			if (this.cacheNames == null) {
+				this.cacheNames = createCacheNames(this.caches);
+			}
 			return this.cacheNames;
 		}
 
@@ -825,6 +1265,23 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 	}
 
 
+	/**
+	 * Per-method plan of cache operations, holding the resolved metadata of all
+	 * operations on a method for reuse across invocations.
+	 */
+	private static final class CacheOperationPlan {
+
+		private final Collection<CacheOperation> operations;
+
+		private final CacheOperationMetadata[] metadata;
+
+		public CacheOperationPlan(Collection<CacheOperation> operations, CacheOperationMetadata[] metadata) {
+			this.operations = operations;
+			this.metadata = metadata;
+		}
+	}
+
+
 	private static final class CacheOperationCacheKey implements Comparable<CacheOperationCacheKey> {
 
 		private final CacheOperation cacheOperation;
@@ -869,4 +1326,71 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		}
 	}
 
+
+	/**
+	 * Caches resolved for an operation, along with the cache names of
+	 * the cache manager at the time of the resolution.
+	 */
+	private static final class ResolvedCaches {
+
+		final Collection<String> cacheNames;
+
+		final Collection<? extends Cache> caches;
+
+		ResolvedCaches(Collection<String> cacheNames, Collection<? extends Cache> caches) {
+			this.cacheNames = cacheNames;
+			this.caches = caches;
+		}
+	}
+
+
+	/**
+	 * Key for a decorated cache: the name of the target cache along
+	 * with the operation holding the decoration settings.
+	 */
+	private static final class DecoratedCacheKey {
+
+		private final String cacheName;
+
+		private final CacheableOperation operation;
+
+		private DecoratedCacheKey(String cacheName, CacheableOperation operation) {
+			this.cacheName = cacheName;
+			this.operation = operation;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof DecoratedCacheKey)) {
+				return false;
+			}
+			DecoratedCacheKey otherKey = (DecoratedCacheKey) other;
+			return (this.cacheName.equals(otherKey.cacheName) && this.operation.equals(otherKey.operation));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.cacheName.hashCode() * 31 + this.operation.hashCode());
+		}
+	}
+
+
+	/**
+	 * Decorator for a specific target cache instance.
+	 */
+	private static final class DecoratedCache {
+
+		final Cache targetCache;
+
+		final Cache decorator;
+
+		DecoratedCache(Cache targetCache, Cache decorator) {
+			this.targetCache = targetCache;
+			this.decorator = decorator;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,9 @@ import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.context.expression.CachedExpressionEvaluator;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.lang.Nullable;
 
 /**
@@ -68,6 +71,23 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 	private final Map<ExpressionKey, Expression> unlessCache = new ConcurrentHashMap<>(64);
 
 
+	/**
+	 * Create a new evaluator with the default SpEL configuration.
+	 */
+	public CacheOperationExpressionEvaluator() {
+		super();
+	}
+
+	/**
+	 * Create a new evaluator with the given SpEL compiler mode.
+	 * @param compilerMode the compiler mode for cache expressions
+	 * @since 5.1.21
+	 */
+	public CacheOperationExpressionEvaluator(SpelCompilerMode compilerMode) {
+		super(new SpelExpressionParser(new SpelParserConfiguration(compilerMode, null)));
+	}
+
+
 	/**
 	 * Create an {@link EvaluationContext}.
 	 * @param caches the current caches
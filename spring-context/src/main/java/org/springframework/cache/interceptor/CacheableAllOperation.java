@@ -0,0 +1,77 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Class describing a bulk 'cacheable' operation, caching the result
+ * of a method per element of a collection argument.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see org.springframework.cache.annotation.CacheableAll
+ */
+public class CacheableAllOperation extends CacheOperation {
+
+	@Nullable
+	private final String resultKey;
+
+
+	/**
+	 * Create a new {@link CacheableAllOperation} instance from the given builder.
+	 */
+	public CacheableAllOperation(CacheableAllOperation.Builder b) {
+		super(b);
+		this.resultKey = b.resultKey;
+	}
+
+
+	@Nullable
+	public String getResultKey() {
+		return this.resultKey;
+	}
+
+
+	/**
+	 * A builder that can be used to create a {@link CacheableAllOperation}.
+	 */
+	public static class Builder extends CacheOperation.Builder {
+
+		@Nullable
+		private String resultKey;
+
+		public void setResultKey(String resultKey) {
+			this.resultKey = resultKey;
+		}
+
+		@Override
+		protected StringBuilder getOperationDescription() {
+			StringBuilder sb = super.getOperationDescription();
+			sb.append(" | resultKey='");
+			sb.append(this.resultKey);
+			sb.append("'");
+			return sb;
+		}
+
+		@Override
+		public CacheableAllOperation build() {
+			return new CacheableAllOperation(this);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -33,6 +33,14 @@ public class CacheableOperation extends CacheOperation {
 
 	private final boolean sync;
 
+	private final boolean singleFlight;
+
+	private final long timeToLive;
+
+	private final double refreshAhead;
+
+	private final boolean serveStaleOnError;
+
 
 	/**
 	 * Create a new {@link CacheableOperation} instance from the given builder.
@@ -42,6 +50,10 @@ public class CacheableOperation extends CacheOperation {
 		super(b);
 		this.unless = b.unless;
 		this.sync = b.sync;
+		this.singleFlight = b.singleFlight;
+		this.timeToLive = b.timeToLive;
+		this.refreshAhead = b.refreshAhead;
+		this.serveStaleOnError = b.serveStaleOnError;
 	}
 
 
@@ -54,6 +66,43 @@ public class CacheableOperation extends CacheOperation {
 		return this.sync;
 	}
 
+	/**
+	 * @since 5.1.21
+	 */
+	public boolean isSingleFlight() {
+		return this.singleFlight;
+	}
+
+	/**
+	 * @since 5.1.21
+	 */
+	public long getTimeToLive() {
+		return this.timeToLive;
+	}
+
+	/**
+	 * @since 5.1.21
+	 */
+	public double getRefreshAhead() {
+		return this.refreshAhead;
+	}
+
+	/**
+	 * @since 5.1.21
+	 */
+	public boolean isServeStaleOnError() {
+		return this.serveStaleOnError;
+	}
+
+	/**
+	 * Return whether this operation requires a value loader based cache
+	 * lookup, either for synchronization or for a cache decorator.
+	 * @since 5.1.21
+	 */
+	public boolean isLoaderBased() {
+		return (this.sync || this.singleFlight || this.refreshAhead > 0 || this.serveStaleOnError);
+	}
+
 
 	/**
 	 * A builder that can be used to create a {@link CacheableOperation}.
@@ -66,6 +115,14 @@ public class CacheableOperation extends CacheOperation {
 
 		private boolean sync;
 
+		private boolean singleFlight;
+
+		private long timeToLive = -1;
+
+		private double refreshAhead;
+
+		private boolean serveStaleOnError;
+
 		public void setUnless(String unless) {
 			this.unless = unless;
 		}
@@ -74,6 +131,22 @@ public class CacheableOperation extends CacheOperation {
 			this.sync = sync;
 		}
 
+		public void setSingleFlight(boolean singleFlight) {
+			this.singleFlight = singleFlight;
+		}
+
+		public void setTimeToLive(long timeToLive) {
+			this.timeToLive = timeToLive;
+		}
+
+		public void setRefreshAhead(double refreshAhead) {
+			this.refreshAhead = refreshAhead;
+		}
+
+		public void setServeStaleOnError(boolean serveStaleOnError) {
+			this.serveStaleOnError = serveStaleOnError;
+		}
+
 		@Override
 		protected StringBuilder getOperationDescription() {
 			StringBuilder sb = super.getOperationDescription();
@@ -83,6 +156,14 @@ public class CacheableOperation extends CacheOperation {
 			sb.append(" | sync='");
 			sb.append(this.sync);
 			sb.append("'");
+			if (this.singleFlight) {
+				sb.append(" | singleFlight='true'");
+			}
+			if (this.refreshAhead > 0 || this.serveStaleOnError) {
+				sb.append(" | timeToLive='").append(this.timeToLive).append("'");
+				sb.append(" | refreshAhead='").append(this.refreshAhead).append("'");
+				sb.append(" | serveStaleOnError='").append(this.serveStaleOnError).append("'");
+			}
 			return sb;
 		}
 
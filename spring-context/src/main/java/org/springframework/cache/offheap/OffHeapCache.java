@@ -0,0 +1,575 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.offheap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+import org.springframework.core.serializer.support.SerializationDelegate;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link org.springframework.cache.Cache} implementation which stores serialized
+ * entries in off-heap memory, keeping large caches out of the Java heap and
+ * therefore out of the garbage collector's way.
+ *
+ * <p>The cache is bounded by a byte-size capacity, allocated lazily in direct
+ * {@link ByteBuffer} slabs which are divided into fixed-size blocks. Each entry
+ * occupies as many blocks as its serialized form requires. When the capacity is
+ * exhausted, entries are evicted according to the CLOCK algorithm, an efficient
+ * approximation of LRU. Entries may also expire after a fixed time-to-live.
+ *
+ * <p>Keys are held on the heap, in an index per segment; the cache is split into
+ * independently locked segments for concurrent access. Values are serialized
+ * through a {@link SerializationDelegate}, by default using Java serialization;
+ * a custom delegate may adapt other serialization libraries.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see OffHeapCacheManager
+ */
+public class OffHeapCache extends AbstractValueAdaptingCache {
+
+	/**
+	 * The default size of the blocks that entries are stored in: 256 bytes.
+	 */
+	public static final int DEFAULT_BLOCK_SIZE = 256;
+
+	private static final int MAX_SEGMENT_COUNT = 16;
+
+	private static final int MAX_SLAB_SIZE = 16 * 1024 * 1024;
+
+
+	private final String name;
+
+	private final long capacity;
+
+	private final int blockSize;
+
+	private final long timeToLive;
+
+	private final SerializationDelegate serialization;
+
+	private final Segment[] segments;
+
+	private final Map<Object, CompletableFuture<byte[]>> loads = new ConcurrentHashMap<>(16);
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	private final LongAdder expirationCount = new LongAdder();
+
+
+	/**
+	 * Create a new OffHeapCache with the specified name and capacity,
+	 * using Java serialization and no time-to-live.
+	 * @param name the name of the cache
+	 * @param capacity the maximum number of bytes to allocate for entries
+	 */
+	public OffHeapCache(String name, long capacity) {
+		this(name, capacity, DEFAULT_BLOCK_SIZE, null, true,
+				new SerializationDelegate(ClassUtils.getDefaultClassLoader()));
+	}
+
+	/**
+	 * Create a new OffHeapCache with the specified settings.
+	 * @param name the name of the cache
+	 * @param capacity the maximum number of bytes to allocate for entries
+	 * @param blockSize the size of the blocks that entries are stored in
+	 * @param timeToLive the time-to-live of entries, or {@code null} for none
+	 * @param allowNullValues whether to accept and convert {@code null} values
+	 * for this cache
+	 * @param serialization the {@link SerializationDelegate} to serialize
+	 * and deserialize entries with
+	 */
+	public OffHeapCache(String name, long capacity, int blockSize, @Nullable Duration timeToLive,
+			boolean allowNullValues, SerializationDelegate serialization) {
+
+		super(allowNullValues);
+		Assert.notNull(name, "Name must not be null");
+		Assert.isTrue(blockSize > 0, "Block size must be positive");
+		Assert.isTrue(capacity >= blockSize, "Capacity must not be smaller than the block size");
+		Assert.notNull(serialization, "SerializationDelegate must not be null");
+		this.name = name;
+		this.capacity = capacity;
+		this.blockSize = blockSize;
+		this.timeToLive = (timeToLive != null ? timeToLive.toNanos() : 0);
+		this.serialization = serialization;
+		long totalBlocks = capacity / blockSize;
+		int segmentCount = (int) Math.max(1, Math.min(MAX_SEGMENT_COUNT, totalBlocks / 64));
+		this.segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			long segmentBlocks = totalBlocks / segmentCount + (i < totalBlocks % segmentCount ? 1 : 0);
+			Assert.isTrue(segmentBlocks <= Integer.MAX_VALUE, "Capacity too large for block size");
+			this.segments[i] = new Segment((int) segmentBlocks);
+		}
+	}
+
+
+	@Override
+	public final String getName() {
+		return this.name;
+	}
+
+	@Override
+	public final OffHeapCache getNativeCache() {
+		return this;
+	}
+
+	/**
+	 * Return the maximum number of bytes to allocate for entries.
+	 */
+	public long getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * Return the number of lookups that found an entry.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups that did not find an entry.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the number of entries evicted because of the capacity limit.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	/**
+	 * Return the number of entries removed because of their time-to-live.
+	 */
+	public long getExpirationCount() {
+		return this.expirationCount.sum();
+	}
+
+	/**
+	 * Return the current number of entries.
+	 */
+	public int getEntryCount() {
+		int count = 0;
+		for (Segment segment : this.segments) {
+			count += segment.entryCount;
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of bytes taken by the serialized entries.
+	 */
+	public long getUsedBytes() {
+		long bytes = 0;
+		for (Segment segment : this.segments) {
+			bytes += segment.usedBytes;
+		}
+		return bytes;
+	}
+
+	/**
+	 * Return the number of bytes in blocks allocated to entries,
+	 * including the unused remainder of each entry's last block.
+	 */
+	public long getAllocatedBytes() {
+		long blocks = 0;
+		for (Segment segment : this.segments) {
+			blocks += segment.allocatedBlocks;
+		}
+		return blocks * this.blockSize;
+	}
+
+
+	@Override
+	@Nullable
+	protected Object lookup(Object key) {
+		byte[] bytes = segmentFor(key).read(key);
+		if (bytes != null) {
+			this.hitCount.increment();
+		}
+		else {
+			this.missCount.increment();
+		}
+		return bytes;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		Object storeValue = lookup(key);
+		if (storeValue != null) {
+			return (T) fromStoreValue(storeValue);
+		}
+		// Coalesce concurrent loads per key, without holding a lock while loading
+		CompletableFuture<byte[]> load = new CompletableFuture<>();
+		CompletableFuture<byte[]> existingLoad = this.loads.putIfAbsent(key, load);
+		if (existingLoad != null) {
+			return (T) fromStoreValue(awaitLoad(key, valueLoader, existingLoad));
+		}
+		try {
+			Segment segment = segmentFor(key);
+			byte[] bytes = segment.read(key);
+			if (bytes != null) {
+				load.complete(bytes);
+				return (T) fromStoreValue(bytes);
+			}
+			T value;
+			try {
+				value = valueLoader.call();
+			}
+			catch (Throwable ex) {
+				throw new ValueRetrievalException(key, valueLoader, ex);
+			}
+			bytes = (byte[]) toStoreValue(value);
+			segment.write(key, bytes, false);
+			load.complete(bytes);
+			return value;
+		}
+		catch (RuntimeException | Error ex) {
+			load.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.loads.remove(key, load);
+		}
+	}
+
+	private byte[] awaitLoad(Object key, Callable<?> valueLoader, CompletableFuture<byte[]> load) {
+		try {
+			return load.get();
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new ValueRetrievalException(key, valueLoader, ex);
+		}
+		catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new ValueRetrievalException(key, valueLoader, cause);
+		}
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		segmentFor(key).write(key, (byte[]) toStoreValue(value), false);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		byte[] existing = segmentFor(key).write(key, (byte[]) toStoreValue(value), true);
+		return toValueWrapper(existing);
+	}
+
+	@Override
+	public void evict(Object key) {
+		segmentFor(key).remove(key);
+	}
+
+	@Override
+	public void clear() {
+		for (Segment segment : this.segments) {
+			segment.clear();
+		}
+	}
+
+	@Override
+	protected Object toStoreValue(@Nullable Object userValue) {
+		Object storeValue = super.toStoreValue(userValue);
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(this.blockSize);
+			this.serialization.serialize(storeValue, out);
+			return out.toByteArray();
+		}
+		catch (Throwable ex) {
+			throw new IllegalArgumentException("Failed to serialize cache value '" + userValue +
+					"'. Does it implement Serializable?", ex);
+		}
+	}
+
+	@Override
+	@Nullable
+	protected Object fromStoreValue(@Nullable Object storeValue) {
+		if (storeValue == null) {
+			return null;
+		}
+		try {
+			return super.fromStoreValue(
+					this.serialization.deserialize(new ByteArrayInputStream((byte[]) storeValue)));
+		}
+		catch (Throwable ex) {
+			throw new IllegalArgumentException("Failed to deserialize cache value for cache '" + this.name + "'", ex);
+		}
+	}
+
+	private Segment segmentFor(Object key) {
+		int hash = key.hashCode();
+		hash ^= (hash >>> 16);
+		return this.segments[Math.floorMod(hash, this.segments.length)];
+	}
+
+	private boolean isExpired(Entry entry, long now) {
+		return (this.timeToLive > 0 && now - entry.creationTime >= this.timeToLive);
+	}
+
+
+	/**
+	 * A segment of the cache, holding its own index, slabs and eviction state.
+	 * All state is guarded by the segment's monitor.
+	 */
+	private final class Segment {
+
+		private final int totalBlocks;
+
+		private final int blocksPerSlab;
+
+		private final ByteBuffer[] slabs;
+
+		private final Map<Object, Entry> index = new HashMap<>();
+
+		private final List<Entry> clock = new ArrayList<>();
+
+		private int clockHand;
+
+		private int[] freeBlocks = new int[64];
+
+		private int freeCount;
+
+		private int nextBlock;
+
+		volatile int entryCount;
+
+		volatile long usedBytes;
+
+		volatile int allocatedBlocks;
+
+		Segment(int totalBlocks) {
+			this.totalBlocks = totalBlocks;
+			this.blocksPerSlab = Math.max(1, Math.min(totalBlocks, MAX_SLAB_SIZE / blockSize));
+			this.slabs = new ByteBuffer[(totalBlocks + this.blocksPerSlab - 1) / this.blocksPerSlab];
+		}
+
+		@Nullable
+		synchronized byte[] read(Object key) {
+			Entry entry = this.index.get(key);
+			if (entry == null) {
+				return null;
+			}
+			if (isExpired(entry, System.nanoTime())) {
+				removeEntry(entry);
+				expirationCount.increment();
+				return null;
+			}
+			entry.referenced = true;
+			return copyOut(entry);
+		}
+
+		@Nullable
+		synchronized byte[] write(Object key, byte[] bytes, boolean onlyIfAbsent) {
+			Entry existing = this.index.get(key);
+			if (existing != null) {
+				if (onlyIfAbsent && !isExpired(existing, System.nanoTime())) {
+					existing.referenced = true;
+					return copyOut(existing);
+				}
+				removeEntry(existing);
+			}
+			int requiredBlocks = Math.max((bytes.length + blockSize - 1) / blockSize, 1);
+			if (requiredBlocks > this.totalBlocks) {
+				// Entry exceeds the segment's capacity: not cacheable
+				return null;
+			}
+			while (this.freeCount + (this.totalBlocks - this.nextBlock) < requiredBlocks) {
+				evictEntry();
+			}
+			int[] blocks = new int[requiredBlocks];
+			for (int i = 0; i < blocks.length; i++) {
+				blocks[i] = allocateBlock();
+			}
+			Entry entry = new Entry(key, blocks, bytes.length, System.nanoTime());
+			copyIn(entry, bytes);
+			entry.clockIndex = this.clock.size();
+			this.clock.add(entry);
+			this.index.put(key, entry);
+			this.entryCount = this.index.size();
+			this.usedBytes += bytes.length;
+			this.allocatedBlocks += blocks.length;
+			return null;
+		}
+
+		synchronized void remove(Object key) {
+			Entry entry = this.index.get(key);
+			if (entry != null) {
+				removeEntry(entry);
+			}
+		}
+
+		synchronized void clear() {
+			this.index.clear();
+			this.clock.clear();
+			this.clockHand = 0;
+			this.freeCount = 0;
+			this.nextBlock = 0;
+			this.entryCount = 0;
+			this.usedBytes = 0;
+			this.allocatedBlocks = 0;
+		}
+
+		private void evictEntry() {
+			long now = System.nanoTime();
+			while (true) {
+				if (this.clockHand >= this.clock.size()) {
+					this.clockHand = 0;
+				}
+				Entry entry = this.clock.get(this.clockHand);
+				if (isExpired(entry, now)) {
+					removeEntry(entry);
+					expirationCount.increment();
+					return;
+				}
+				if (entry.referenced) {
+					entry.referenced = false;
+					this.clockHand++;
+				}
+				else {
+					removeEntry(entry);
+					evictionCount.increment();
+					return;
+				}
+			}
+		}
+
+		private void removeEntry(Entry entry) {
+			this.index.remove(entry.key);
+			Entry last = this.clock.remove(this.clock.size() - 1);
+			if (last != entry) {
+				this.clock.set(entry.clockIndex, last);
+				last.clockIndex = entry.clockIndex;
+			}
+			for (int block : entry.blocks) {
+				if (this.freeCount == this.freeBlocks.length) {
+					this.freeBlocks = Arrays.copyOf(this.freeBlocks, this.freeCount * 2);
+				}
+				this.freeBlocks[this.freeCount++] = block;
+			}
+			this.entryCount = this.index.size();
+			this.usedBytes -= entry.length;
+			this.allocatedBlocks -= entry.blocks.length;
+		}
+
+		private int allocateBlock() {
+			if (this.freeCount > 0) {
+				return this.freeBlocks[--this.freeCount];
+			}
+			int block = this.nextBlock++;
+			int slab = block / this.blocksPerSlab;
+			if (this.slabs[slab] == null) {
+				int slabBlocks = Math.min(this.blocksPerSlab, this.totalBlocks - slab * this.blocksPerSlab);
+				this.slabs[slab] = ByteBuffer.allocateDirect(slabBlocks * blockSize);
+			}
+			return block;
+		}
+
+		private void copyIn(Entry entry, byte[] bytes) {
+			int offset = 0;
+			for (int block : entry.blocks) {
+				int length = Math.min(blockSize, bytes.length - offset);
+				if (length <= 0) {
+					break;
+				}
+				ByteBuffer slab = this.slabs[block / this.blocksPerSlab];
+				slab.position((block % this.blocksPerSlab) * blockSize);
+				slab.put(bytes, offset, length);
+				offset += length;
+			}
+		}
+
+		private byte[] copyOut(Entry entry) {
+			byte[] bytes = new byte[entry.length];
+			int offset = 0;
+			for (int block : entry.blocks) {
+				int length = Math.min(blockSize, bytes.length - offset);
+				if (length <= 0) {
+					break;
+				}
+				ByteBuffer slab = this.slabs[block / this.blocksPerSlab];
+				slab.position((block % this.blocksPerSlab) * blockSize);
+				slab.get(bytes, offset, length);
+				offset += length;
+			}
+			return bytes;
+		}
+	}
+
+
+	/**
+	 * Index entry for a serialized value, pointing to its blocks.
+	 */
+	private static final class Entry {
+
+		final Object key;
+
+		final int[] blocks;
+
+		final int length;
+
+		final long creationTime;
+
+		boolean referenced;
+
+		int clockIndex;
+
+		Entry(Object key, int[] blocks, int length, long creationTime) {
+			this.key = key;
+			this.blocks = blocks;
+			this.length = length;
+			this.creationTime = creationTime;
+		}
+	}
+
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.offheap;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.serializer.support.SerializationDelegate;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * {@link CacheManager} implementation that lazily builds {@link OffHeapCache}
+ * instances for each {@link #getCache} request. Also supports a 'static' mode where
+ * the set of cache names is pre-defined through {@link #setCacheNames}, with no
+ * dynamic creation of further cache regions at runtime.
+ *
+ * <p>All caches share the same settings: in particular, the configured
+ * {@link #setCapacity capacity} applies to each cache individually.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see OffHeapCache
+ */
+public class OffHeapCacheManager implements CacheManager, BeanClassLoaderAware {
+
+	/**
+	 * The default capacity per cache: 64 MB.
+	 */
+	public static final long DEFAULT_CAPACITY = 64 * 1024 * 1024;
+
+
+	private final ConcurrentMap<String, Cache> cacheMap = new ConcurrentHashMap<>(16);
+
+	private boolean dynamic = true;
+
+	private long capacity = DEFAULT_CAPACITY;
+
+	private int blockSize = OffHeapCache.DEFAULT_BLOCK_SIZE;
+
+	@Nullable
+	private Duration timeToLive;
+
+	private boolean allowNullValues = true;
+
+	private SerializationDelegate serialization = new SerializationDelegate(ClassUtils.getDefaultClassLoader());
+
+	private boolean customSerialization = false;
+
+
+	/**
+	 * Construct a dynamic OffHeapCacheManager,
+	 * lazily creating cache instances as they are being requested.
+	 */
+	public OffHeapCacheManager() {
+	}
+
+	/**
+	 * Construct a static OffHeapCacheManager,
+	 * managing caches for the specified cache names only.
+	 */
+	public OffHeapCacheManager(String... cacheNames) {
+		setCacheNames(Arrays.asList(cacheNames));
+	}
+
+
+	/**
+	 * Specify the set of cache names for this CacheManager's 'static' mode.
+	 * <p>The number of caches and their names will be fixed after a call to this method,
+	 * with no creation of further cache regions at runtime.
+	 * <p>Calling this with a {@code null} collection argument resets the
+	 * mode to 'dynamic', allowing for further creation of caches again.
+	 */
+	public void setCacheNames(@Nullable Collection<String> cacheNames) {
+		if (cacheNames != null) {
+			for (String name : cacheNames) {
+				this.cacheMap.put(name, createOffHeapCache(name));
+			}
+			this.dynamic = false;
+		}
+		else {
+			this.dynamic = true;
+		}
+	}
+
+	/**
+	 * Specify the maximum number of bytes to allocate per cache.
+	 * <p>Default is 64 MB.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new capacity.
+	 */
+	public void setCapacity(long capacity) {
+		if (capacity != this.capacity) {
+			this.capacity = capacity;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Specify the size of the blocks that entries are stored in.
+	 * <p>Default is 256 bytes. A block size close to the typical entry size
+	 * reduces the unused remainder per entry.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new block size.
+	 */
+	public void setBlockSize(int blockSize) {
+		if (blockSize != this.blockSize) {
+			this.blockSize = blockSize;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Specify the time-to-live of entries in all caches.
+	 * <p>Default is none, with entries only removed through eviction.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new time-to-live.
+	 */
+	public void setTimeToLive(@Nullable Duration timeToLive) {
+		this.timeToLive = timeToLive;
+		recreateCaches();
+	}
+
+	/**
+	 * Specify whether to accept and convert {@code null} values for all caches
+	 * in this cache manager.
+	 * <p>Default is "true", storing an internal holder object for user-level
+	 * {@code null}s.
+	 * <p>Note: A change of the null-value setting will reset all existing caches,
+	 * if any, to reconfigure them with the new null-value requirement.
+	 */
+	public void setAllowNullValues(boolean allowNullValues) {
+		if (allowNullValues != this.allowNullValues) {
+			this.allowNullValues = allowNullValues;
+			recreateCaches();
+		}
+	}
+
+	/**
+	 * Return whether this cache manager accepts and converts {@code null} values
+	 * for all of its caches.
+	 */
+	public boolean isAllowNullValues() {
+		return this.allowNullValues;
+	}
+
+	/**
+	 * Specify the {@link SerializationDelegate} for serializing cache entries,
+	 * e.g. adapting a JSON library or another serialization library.
+	 * <p>Default is Java serialization with the bean ClassLoader.
+	 * <p>Note: A change of this setting will reset all existing caches,
+	 * if any, to reconfigure them with the new serialization.
+	 */
+	public void setSerialization(SerializationDelegate serialization) {
+		Assert.notNull(serialization, "SerializationDelegate must not be null");
+		this.serialization = serialization;
+		this.customSerialization = true;
+		recreateCaches();
+	}
+
+	@Override
+	public void setBeanClassLoader(ClassLoader classLoader) {
+		if (!this.customSerialization) {
+			this.serialization = new SerializationDelegate(classLoader);
+			recreateCaches();
+		}
+	}
+
+
+	@Override
+	public Collection<String> getCacheNames() {
+		return Collections.unmodifiableSet(this.cacheMap.keySet());
+	}
+
+	@Override
+	@Nullable
+	public Cache getCache(String name) {
+		Cache cache = this.cacheMap.get(name);
+		if (cache == null && this.dynamic) {
+			synchronized (this.cacheMap) {
+				cache = this.cacheMap.get(name);
+				if (cache == null) {
+					cache = createOffHeapCache(name);
+					this.cacheMap.put(name, cache);
+				}
+			}
+		}
+		return cache;
+	}
+
+	private void recreateCaches() {
+		for (Map.Entry<String, Cache> entry : this.cacheMap.entrySet()) {
+			entry.setValue(createOffHeapCache(entry.getKey()));
+		}
+	}
+
+	/**
+	 * Create a new OffHeapCache instance for the specified cache name.
+	 * @param name the name of the cache
+	 * @return the OffHeapCache (or a decorator thereof)
+	 */
+	protected Cache createOffHeapCache(String name) {
+		return new OffHeapCache(name, this.capacity, this.blockSize, this.timeToLive,
+				this.allowNullValues, this.serialization);
+	}
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Convenient base class for {@link Cache} decorators, delegating all
+ * operations to a target Cache. Subclasses override the operations
+ * whose behavior they intend to enrich.
+ *
+ * <p>Decorators only rely on the {@code Cache} contract and can therefore
+ * be layered on top of any provider-specific implementation, including
+ * {@code CaffeineCache}, {@code EhCacheCache} and {@code JCacheCache}.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see SingleFlightCache
+ * @see RefreshAheadCache
+ * @see StaleOnErrorCache
+ */
+public abstract class AbstractCacheDecorator implements Cache {
+
+	private final Cache targetCache;
+
+
+	/**
+	 * Create a new decorator for the given target Cache.
+	 * @param targetCache the target Cache to decorate
+	 */
+	protected AbstractCacheDecorator(Cache targetCache) {
+		Assert.notNull(targetCache, "Target Cache must not be null");
+		this.targetCache = targetCache;
+	}
+
+
+	/**
+	 * Return the target Cache that this Cache should delegate to.
+	 */
+	public Cache getTargetCache() {
+		return this.targetCache;
+	}
+
+	@Override
+	public String getName() {
+		return this.targetCache.getName();
+	}
+
+	@Override
+	public Object getNativeCache() {
+		return this.targetCache.getNativeCache();
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		return this.targetCache.get(key);
+	}
+
+	@Override
+	@Nullable
+	public <T> T get(Object key, @Nullable Class<T> type) {
+		return this.targetCache.get(key, type);
+	}
+
+	@Override
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		return this.targetCache.get(key, valueLoader);
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		this.targetCache.put(key, value);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		return this.targetCache.putIfAbsent(key, value);
+	}
+
+	@Override
+	public void evict(Object key) {
+		this.targetCache.evict(key);
+	}
+
+	@Override
+	public void clear() {
+		this.targetCache.clear();
+	}
+
+}
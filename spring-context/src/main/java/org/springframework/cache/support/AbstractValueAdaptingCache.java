@@ -16,6 +16,10 @@
 
 package org.springframework.cache.support;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import org.springframework.cache.Cache;
 import org.springframework.lang.Nullable;
 
@@ -70,6 +74,18 @@ public abstract class AbstractValueAdaptingCache implements Cache {
 		return (T) value;
 	}
 
+	@Override
+	public Map<Object, Object> getAll(Collection<?> keys) {
+		Map<Object, Object> result = new LinkedHashMap<>(keys.size());
+		for (Object key : keys) {
+			Object storeValue = lookup(key);
+			if (storeValue != null) {
+				result.put(key, fromStoreValue(storeValue));
+			}
+		}
+		return result;
+	}
+
 	/**
 	 * Perform an actual lookup in the underlying store.
 	 * @param key the key whose associated value is to be returned
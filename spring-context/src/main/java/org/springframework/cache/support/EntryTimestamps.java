@@ -0,0 +1,101 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cache.Cache;
+
+/**
+ * Creation times of the entries in a Cache, as tracked by
+ * {@link RefreshAheadCache} and {@link StaleOnErrorCache} next to their
+ * target Cache. Values in the target Cache remain as-is, so that other
+ * accessors of the same Cache keep seeing plain user-level values.
+ *
+ * <p>Creation times are shared by all decorators of the same underlying
+ * Cache and get removed along with the entry when evicted or cleared
+ * through a decorator, or when a decorator finds the entry missing.
+ * An entry whose creation time is not known, e.g. since it has been
+ * stored through an undecorated accessor, counts as created at the
+ * time of its first lookup through a decorator.
+ *
+ * @author agent
+ * @since 5.1.21
+ */
+final class EntryTimestamps {
+
+	private static final Map<Cache, EntryTimestamps> timestampsPerCache = new WeakHashMap<>();
+
+
+	private final Map<Object, Long> creationTimes = new ConcurrentHashMap<>(256);
+
+
+	private EntryTimestamps() {
+	}
+
+
+	/**
+	 * Record the current time as creation time of the given entry.
+	 * @param key the key of the entry that got stored
+	 */
+	public void created(Object key) {
+		this.creationTimes.put(key, System.currentTimeMillis());
+	}
+
+	/**
+	 * Return the age of the given entry in milliseconds.
+	 * @param key the key of an entry present in the target Cache
+	 */
+	public long getAge(Object key) {
+		long now = System.currentTimeMillis();
+		return now - this.creationTimes.computeIfAbsent(key, k -> now);
+	}
+
+	/**
+	 * Remove the creation time of the given entry.
+	 * @param key the key of the entry that got evicted
+	 */
+	public void remove(Object key) {
+		this.creationTimes.remove(key);
+	}
+
+	/**
+	 * Remove all creation times.
+	 */
+	public void clear() {
+		this.creationTimes.clear();
+	}
+
+
+	/**
+	 * Return the shared creation times for the given Cache,
+	 * identified by the innermost target of any decorators.
+	 * @param cache the (potentially decorated) Cache
+	 */
+	static EntryTimestamps forCache(Cache cache) {
+		Cache targetCache = cache;
+		while (targetCache instanceof AbstractCacheDecorator) {
+			targetCache = ((AbstractCacheDecorator) targetCache).getTargetCache();
+		}
+		synchronized (timestampsPerCache) {
+			return timestampsPerCache.computeIfAbsent(targetCache, key -> new EntryTimestamps());
+		}
+	}
+
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Cache decorator which refreshes entries asynchronously before they expire:
+ * once an entry returned from {@link #get(Object, Callable)} has reached the
+ * configured fraction of its time-to-live, the value loader is invoked on the
+ * given {@link Executor} and its result replaces the cached value, while the
+ * current value is returned to the caller right away. At most one refresh per
+ * key is in progress at any given time; a failed refresh keeps the current value.
+ *
+ * <p>Entries are stored in the target Cache as-is, with their creation time
+ * tracked by this decorator. Actual expiration is left to the underlying cache provider which needs to be
+ * configured with a time-to-live matching the one given here; this decorator
+ * merely determines the point in time for a refresh.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see org.springframework.cache.annotation.Cacheable#refreshAhead()
+ */
+public class RefreshAheadCache extends AbstractCacheDecorator {
+
+	private static final Log logger = LogFactory.getLog(RefreshAheadCache.class);
+
+	private final long refreshThreshold;
+
+	private final Executor refreshExecutor;
+
+	private final Set<Object> refreshingKeys = ConcurrentHashMap.newKeySet();
+
+	private final EntryTimestamps timestamps;
+
+
+	/**
+	 * Create a new RefreshAheadCache for the given target Cache.
+	 * @param targetCache the target Cache to decorate
+	 * @param timeToLive the time-to-live of entries in the target Cache
+	 * @param refreshAheadRatio the fraction of the time-to-live after which
+	 * an entry gets refreshed (between 0 and 1, e.g. 0.8 for 80%)
+	 * @param refreshExecutor the executor to perform refresh calls on
+	 */
+	public RefreshAheadCache(Cache targetCache, Duration timeToLive, double refreshAheadRatio,
+			Executor refreshExecutor) {
+
+		super(targetCache);
+		Assert.isTrue(!timeToLive.isNegative() && !timeToLive.isZero(), "Time-to-live must be positive");
+		Assert.isTrue(refreshAheadRatio > 0 && refreshAheadRatio < 1, "Refresh-ahead ratio must be between 0 and 1");
+		Assert.notNull(refreshExecutor, "Refresh Executor must not be null");
+		this.refreshThreshold = (long) (timeToLive.toMillis() * refreshAheadRatio);
+		this.refreshExecutor = refreshExecutor;
+		this.timestamps = EntryTimestamps.forCache(targetCache);
+	}
+
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = getTargetCache().get(key);
+		if (wrapper != null) {
+			if (this.timestamps.getAge(key) >= this.refreshThreshold) {
+				refresh(key, valueLoader);
+			}
+			return (T) wrapper.get();
+		}
+		this.timestamps.remove(key);
+		return getTargetCache().get(key, () -> {
+			T value = valueLoader.call();
+			this.timestamps.created(key);
+			return value;
+		});
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		getTargetCache().put(key, value);
+		this.timestamps.created(key);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		ValueWrapper existing = getTargetCache().putIfAbsent(key, value);
+		if (existing == null) {
+			this.timestamps.created(key);
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		getTargetCache().evict(key);
+		this.timestamps.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		getTargetCache().clear();
+		this.timestamps.clear();
+	}
+
+	/**
+	 * Trigger an asynchronous refresh of the given key,
+	 * unless a refresh for that key is in progress already.
+	 * @param key the key to refresh
+	 * @param valueLoader the value loader to obtain the new value from
+	 */
+	protected void refresh(Object key, Callable<?> valueLoader) {
+		if (!this.refreshingKeys.add(key)) {
+			return;
+		}
+		try {
+			this.refreshExecutor.execute(() -> {
+				try {
+					put(key, valueLoader.call());
+				}
+				catch (Throwable ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Refresh of cache entry '" + key + "' in cache '" + getName() +
+								"' failed - keeping current value", ex);
+					}
+				}
+				finally {
+					this.refreshingKeys.remove(key);
+				}
+			});
+		}
+		catch (RejectedExecutionException ex) {
+			this.refreshingKeys.remove(key);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Refresh of cache entry '" + key + "' in cache '" + getName() + "' rejected", ex);
+			}
+		}
+	}
+
+	/**
+	 * Return the number of refreshes currently in progress.
+	 */
+	public int getRefreshCount() {
+		return this.refreshingKeys.size();
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+
+/**
+ * Cache decorator which coalesces concurrent {@link #get(Object, Callable)}
+ * calls for the same key: only the first caller invokes the value loader,
+ * with all other callers for the same key waiting for and sharing its result
+ * (or its exception). This prevents a cache stampede on a popular key even
+ * for Cache implementations that do not synchronize their own value loading.
+ *
+ * <p>Coalescing is local to this decorator instance, i.e. to the current
+ * JVM; the loaded value is stored in the target Cache as usual.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see org.springframework.cache.annotation.Cacheable#singleFlight()
+ */
+public class SingleFlightCache extends AbstractCacheDecorator {
+
+	private final ConcurrentMap<Object, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>(64);
+
+
+	/**
+	 * Create a new SingleFlightCache for the given target Cache.
+	 * @param targetCache the target Cache to decorate
+	 */
+	public SingleFlightCache(Cache targetCache) {
+		super(targetCache);
+	}
+
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = getTargetCache().get(key);
+		if (wrapper != null) {
+			return (T) wrapper.get();
+		}
+
+		CompletableFuture<Object> load = new CompletableFuture<>();
+		CompletableFuture<Object> existingLoad = this.inFlightLoads.putIfAbsent(key, load);
+		if (existingLoad != null) {
+			try {
+				return (T) existingLoad.join();
+			}
+			catch (CompletionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new ValueRetrievalException(key, valueLoader, cause);
+			}
+		}
+
+		try {
+			T value = getTargetCache().get(key, valueLoader);
+			load.complete(value);
+			return value;
+		}
+		catch (RuntimeException | Error ex) {
+			load.completeExceptionally(ex);
+			throw ex;
+		}
+		finally {
+			this.inFlightLoads.remove(key, load);
+		}
+	}
+
+	/**
+	 * Return the number of value loads currently in progress.
+	 */
+	public int getInFlightCount() {
+		return this.inFlightLoads.size();
+	}
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Cache decorator which serves a stale entry if reloading it fails: entries
+ * are considered expired after the time-to-live given here, at which point
+ * {@link #get(Object, Callable)} invokes the value loader again. If the loader
+ * throws an exception, the expired value is returned instead of propagating
+ * the exception, shielding callers from temporary outages of the backend.
+ *
+ * <p>Entries are stored in the target Cache as-is, with their creation time
+ * tracked by this decorator. The underlying cache provider needs to be configured with a time-to-live
+ * (or eviction policy) that keeps entries <i>longer</i> than the logical
+ * time-to-live given here, since stale entries can only be served for as
+ * long as the provider retains them. Lookups other than through a value
+ * loader do not expose expired entries.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see org.springframework.cache.annotation.Cacheable#serveStaleOnError()
+ */
+public class StaleOnErrorCache extends AbstractCacheDecorator {
+
+	private static final Log logger = LogFactory.getLog(StaleOnErrorCache.class);
+
+	private final long timeToLive;
+
+	private final EntryTimestamps timestamps;
+
+
+	/**
+	 * Create a new StaleOnErrorCache for the given target Cache.
+	 * @param targetCache the target Cache to decorate
+	 * @param timeToLive the logical time-to-live of entries, after which
+	 * they are reloaded but still kept as a fallback
+	 */
+	public StaleOnErrorCache(Cache targetCache, Duration timeToLive) {
+		super(targetCache);
+		Assert.isTrue(!timeToLive.isNegative() && !timeToLive.isZero(), "Time-to-live must be positive");
+		this.timeToLive = timeToLive.toMillis();
+		this.timestamps = EntryTimestamps.forCache(targetCache);
+	}
+
+
+	@Override
+	@Nullable
+	public ValueWrapper get(Object key) {
+		ValueWrapper wrapper = getTargetCache().get(key);
+		if (wrapper == null) {
+			this.timestamps.remove(key);
+			return null;
+		}
+		return (isExpired(key) ? null : wrapper);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, @Nullable Class<T> type) {
+		ValueWrapper wrapper = get(key);
+		Object value = (wrapper != null ? wrapper.get() : null);
+		if (value != null && type != null && !type.isInstance(value)) {
+			throw new IllegalStateException(
+					"Cached value is not of required type [" + type.getName() + "]: " + value);
+		}
+		return (T) value;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper wrapper = getTargetCache().get(key);
+		if (wrapper == null) {
+			this.timestamps.remove(key);
+			return getTargetCache().get(key, () -> {
+				T value = valueLoader.call();
+				this.timestamps.created(key);
+				return value;
+			});
+		}
+		if (!isExpired(key)) {
+			return (T) wrapper.get();
+		}
+
+		T value;
+		try {
+			value = valueLoader.call();
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Reload of cache entry '" + key + "' in cache '" + getName() +
+						"' failed - serving stale value", ex);
+			}
+			return (T) wrapper.get();
+		}
+		put(key, value);
+		return value;
+	}
+
+	@Override
+	public void put(Object key, @Nullable Object value) {
+		getTargetCache().put(key, value);
+		this.timestamps.created(key);
+	}
+
+	@Override
+	@Nullable
+	public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+		ValueWrapper existing = getTargetCache().putIfAbsent(key, value);
+		if (existing == null) {
+			this.timestamps.created(key);
+		}
+		else if (isExpired(key)) {
+			put(key, value);
+			return null;
+		}
+		return existing;
+	}
+
+	@Override
+	public void evict(Object key) {
+		getTargetCache().evict(key);
+		this.timestamps.remove(key);
+	}
+
+	@Override
+	public void clear() {
+		getTargetCache().clear();
+		this.timestamps.clear();
+	}
+
+	private boolean isExpired(Object key) {
+		return (this.timestamps.getAge(key) >= this.timeToLive);
+	}
+
+}
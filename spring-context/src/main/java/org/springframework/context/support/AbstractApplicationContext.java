@@ -35,6 +35,7 @@ import org.springframework.context.weaving.LoadTimeWeaverAwareProcessor;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.StandardEnvironment;
@@ -1031,6 +1032,12 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		// Instantiate all remaining (non-lazy-init) singletons.
 		// 这段代码实例化所有剩余的非延迟初始化的单例 Bean。
 		beanFactory.preInstantiateSingletons();
+
+		// Compile the conversion fast path, not expecting further converter registrations.
+		ConversionService conversionService = beanFactory.getConversionService();
+		if (conversionService instanceof GenericConversionService) {
+			((GenericConversionService) conversionService).freeze();
+		}
 	}
 
 	/**
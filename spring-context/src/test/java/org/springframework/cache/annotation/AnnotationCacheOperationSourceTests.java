@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -159,6 +159,23 @@ public class AnnotationCacheOperationSourceTests {
 		getOps(AnnotatedClass.class, "invalidKeyAndKeyGeneratorSet");
 	}
 
+	@Test
+	public void refreshAheadAndServeStaleOnError() {
+		Collection<CacheOperation> ops = getOps(AnnotatedClass.class, "refreshAheadAndServeStaleOnError", 1);
+		CacheableOperation operation = (CacheableOperation) ops.iterator().next();
+		assertEquals(60000, operation.getTimeToLive());
+		assertEquals(0.75, operation.getRefreshAhead(), 0.0);
+		assertTrue(operation.isServeStaleOnError());
+		assertTrue(operation.isSingleFlight());
+		assertTrue(operation.isLoaderBased());
+	}
+
+	@Test
+	public void refreshAheadRequiresTimeToLive() {
+		this.exception.expect(IllegalStateException.class);
+		getOps(AnnotatedClass.class, "invalidRefreshAheadWithoutTimeToLive");
+	}
+
 	@Test
 	public void customCacheManager() {
 		Collection<CacheOperation> ops = getOps(AnnotatedClass.class, "customCacheManager", 1);
@@ -375,6 +392,14 @@ public class AnnotationCacheOperationSourceTests {
 		public void invalidKeyAndKeyGeneratorSet() {
 		}
 
+		@Cacheable(cacheNames = "test", timeToLive = 60000, refreshAhead = 0.75, serveStaleOnError = true, singleFlight = true)
+		public void refreshAheadAndServeStaleOnError() {
+		}
+
+		@Cacheable(cacheNames = "test", refreshAhead = 0.75)
+		public void invalidRefreshAheadWithoutTimeToLive() {
+		}
+
 		@CacheableFooCustomCacheManager
 		public void customCacheManagerInherited() {
 		}
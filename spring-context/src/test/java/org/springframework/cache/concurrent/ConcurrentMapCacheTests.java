@@ -18,7 +18,10 @@ package org.springframework.cache.concurrent;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -114,6 +117,21 @@ public class ConcurrentMapCacheTests extends AbstractValueAdaptingCacheTests<Con
 		serializeCache.get(key);
 	}
 
+	@Test
+	public void testGetAllAndPutAll() {
+		ConcurrentMapCache serializeCache = createCacheWithStoreByValue();
+		Map<Object, Object> entries = new LinkedHashMap<>();
+		entries.put("a", Arrays.asList("one", "two"));
+		entries.put("b", null);
+		serializeCache.putAll(entries);
+
+		Map<Object, Object> result = serializeCache.getAll(Arrays.asList("c", "b", "a"));
+		assertEquals(Arrays.asList("b", "a"), new ArrayList<>(result.keySet()));
+		assertNull(result.get("b"));
+		assertEquals(Arrays.asList("one", "two"), result.get("a"));
+		assertNotSame(result.get("a"), serializeCache.getAll(Collections.singleton("a")).get("a"));
+	}
+
 
 	private ConcurrentMapCache createCacheWithStoreByValue() {
 		return new ConcurrentMapCache(CACHE_NAME, this.nativeCache, true,
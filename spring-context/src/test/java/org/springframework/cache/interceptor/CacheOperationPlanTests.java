@@ -0,0 +1,237 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.AnnotationCacheOperationSource;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CachingConfigurerSupport;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.cache.support.SimpleCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the per-method cache operation plan in {@link CacheAspectSupport}.
+ *
+ * @author agent
+ */
+public class CacheOperationPlanTests {
+
+	private ConfigurableApplicationContext context;
+
+	private CountingCacheManager cacheManager;
+
+	private SimpleService service;
+
+
+	@Before
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.cacheManager = this.context.getBean(CountingCacheManager.class);
+		this.service = this.context.getBean(SimpleService.class);
+	}
+
+	@After
+	public void close() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+
+	@Test
+	public void staticCachesResolvedOnce() {
+		for (int i = 0; i < 10; i++) {
+			assertEquals(Integer.valueOf(1), this.service.get(1));
+		}
+		assertEquals(1, this.service.counter.get());
+		assertEquals(1, this.cacheManager.lookups.get());
+	}
+
+	@Test
+	public void staticCachesResolvedAgainAfterManagerChange() {
+		assertEquals(Integer.valueOf(1), this.service.get(1));
+		this.cacheManager.initializeCaches();
+		assertEquals(Integer.valueOf(1), this.service.get(1));
+		assertEquals(Integer.valueOf(1), this.service.get(1));
+
+		assertEquals(2, this.service.counter.get());
+		assertEquals(2, this.cacheManager.lookups.get());
+		assertNotNull(this.cacheManager.getCache("default").get(1));
+	}
+
+	@Test
+	public void staticCacheResolverDetection() {
+		CacheInterceptor interceptor = new CacheInterceptor();
+		assertTrue(interceptor.isStaticCacheResolver(new SimpleCacheResolver(new SimpleCacheManager())));
+		assertTrue(interceptor.isStaticCacheResolver(new NamedCacheResolver(new SimpleCacheManager(), "default")));
+		assertFalse(interceptor.isStaticCacheResolver(new SimpleCacheResolver(new ConcurrentMapCacheManager())));
+		assertFalse(interceptor.isStaticCacheResolver(new RuntimeCacheResolver(new SimpleCacheManager())));
+	}
+
+	@Test
+	public void runtimeCachesResolvedPerInvocation() {
+		this.service.getRuntime("first");
+		this.service.getRuntime("second");
+		this.service.getRuntime("first");
+
+		assertEquals(2, this.service.counter.get());
+		assertNotNull(this.cacheManager.getCache("first").get("first"));
+		assertNotNull(this.cacheManager.getCache("second").get("second"));
+	}
+
+	@Test
+	public void keyExpressionBeyondCompilationThreshold() {
+		for (int i = 0; i < 300; i++) {
+			Object id = (i < 150 ? (Object) i : (Object) ("id" + i));
+			assertEquals("value-" + id, this.service.getWithKey(id, "suffix"));
+		}
+		assertEquals(300, this.service.counter.get());
+
+		Cache cache = this.cacheManager.getCache("default");
+		assertEquals("value-1", cache.get("1-suffix").get());
+		assertEquals("value-id299", cache.get("id299-suffix").get());
+		assertEquals("value-1", this.service.getWithKey(1, "suffix"));
+		assertEquals(300, this.service.counter.get());
+	}
+
+	@Test
+	public void operationContextHookUsedForPlannedOperations() {
+		AtomicInteger contexts = new AtomicInteger();
+		CacheInterceptor interceptor = new CacheInterceptor() {
+			@Override
+			protected CacheOperationContext getOperationContext(CacheOperation operation,
+					Method method, Object[] args, Object target, Class<?> targetClass) {
+
+				contexts.incrementAndGet();
+				return super.getOperationContext(operation, method, args, target, targetClass);
+			}
+		};
+		interceptor.setCacheManager(new ConcurrentMapCacheManager("default"));
+		interceptor.setCacheOperationSources(new AnnotationCacheOperationSource());
+		interceptor.afterPropertiesSet();
+		interceptor.afterSingletonsInstantiated();
+
+		ProxyFactory proxyFactory = new ProxyFactory(new SimpleService());
+		proxyFactory.addAdvice(interceptor);
+		SimpleService proxy = (SimpleService) proxyFactory.getProxy();
+		assertEquals(Integer.valueOf(1), proxy.get(1));
+		assertEquals(Integer.valueOf(1), proxy.get(1));
+		assertEquals(2, contexts.get());
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config extends CachingConfigurerSupport {
+
+		@Bean
+		@Override
+		public CacheManager cacheManager() {
+			return new CountingCacheManager();
+		}
+
+		@Bean
+		public CacheResolver runtimeCacheResolver() {
+			return new RuntimeCacheResolver(cacheManager());
+		}
+
+		@Bean
+		public SimpleService simpleService() {
+			return new SimpleService();
+		}
+	}
+
+
+	static class CountingCacheManager extends AbstractCacheManager {
+
+		final AtomicInteger lookups = new AtomicInteger();
+
+		@Override
+		protected Collection<? extends Cache> loadCaches() {
+			return Collections.singleton(new ConcurrentMapCache("default"));
+		}
+
+		@Override
+		protected Cache getMissingCache(String name) {
+			return new ConcurrentMapCache(name);
+		}
+
+		@Override
+		public Cache getCache(String name) {
+			this.lookups.incrementAndGet();
+			return super.getCache(name);
+		}
+	}
+
+
+	static class RuntimeCacheResolver extends AbstractCacheResolver {
+
+		RuntimeCacheResolver(CacheManager cacheManager) {
+			super(cacheManager);
+		}
+
+		@Override
+		protected Collection<String> getCacheNames(CacheOperationInvocationContext<?> context) {
+			return Collections.singleton(String.valueOf(context.getArgs()[0]));
+		}
+	}
+
+
+	public static class SimpleService {
+
+		final AtomicInteger counter = new AtomicInteger();
+
+		@Cacheable("default")
+		public Integer get(Integer id) {
+			this.counter.incrementAndGet();
+			return id;
+		}
+
+		@Cacheable(cacheResolver = "runtimeCacheResolver", key = "#p0")
+		public String getRuntime(String name) {
+			this.counter.incrementAndGet();
+			return name;
+		}
+
+		@Cacheable(cacheNames = "default", key = "#p0 + '-' + #p1")
+		public String getWithKey(Object id, String suffix) {
+			this.counter.incrementAndGet();
+			return "value-" + id;
+		}
+	}
+
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.interceptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.CacheableAll;
+import org.springframework.cache.annotation.CachingConfigurerSupport;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CacheableAll} bulk operations.
+ *
+ * @author agent
+ */
+public class CacheableAllTests {
+
+	private ConfigurableApplicationContext context;
+
+	private Cache cache;
+
+	private ProductService service;
+
+
+	@Before
+	public void setup() {
+		this.context = new AnnotationConfigApplicationContext(Config.class);
+		this.cache = this.context.getBean(CacheManager.class).getCache("products");
+		this.service = this.context.getBean(ProductService.class);
+	}
+
+	@After
+	public void close() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+
+	@Test
+	public void missesOnlyPassedToMethod() {
+		this.cache.put(2L, "product-2");
+
+		List<String> products = this.service.findByIds(Arrays.asList(1L, 2L, 3L));
+		assertEquals(Arrays.asList("product-1", "product-2", "product-3"), products);
+		assertEquals(Collections.singletonList(Arrays.asList(1L, 3L)), this.service.requests);
+		assertEquals("product-3", this.cache.get(3L).get());
+
+		products = this.service.findByIds(Arrays.asList(3L, 1L, 3L));
+		assertEquals(Arrays.asList("product-3", "product-1"), products);
+		assertEquals(1, this.service.requests.size());
+	}
+
+	@Test
+	public void entriesSharedWithSingleElementMethod() {
+		assertEquals("product-5", this.service.findById(5L));
+		Map<Long, String> products = this.service.findMapByIds(Arrays.asList(4L, 5L));
+		assertEquals(2, products.size());
+		assertEquals("product-4", products.get(4L));
+		assertEquals("product-5", products.get(5L));
+		assertEquals(Arrays.asList(Collections.singletonList(5L), Collections.singletonList(4L)), this.service.requests);
+	}
+
+	@Test
+	public void valuesMatchedByResultKey() {
+		List<String> products = this.service.findUnorderedByIds(Arrays.asList(7L, 8L));
+		assertEquals(Arrays.asList("product-7", "product-8"), products);
+		assertEquals("product-8", this.cache.get(8L).get());
+	}
+
+	@Test
+	public void allHitsSkipMethod() {
+		this.cache.put(1L, "cached-1");
+		this.cache.put(2L, "cached-2");
+
+		assertEquals(Arrays.asList("cached-1", "cached-2"), this.service.findByIds(Arrays.asList(1L, 2L)));
+		assertTrue(this.service.requests.isEmpty());
+	}
+
+
+	@Configuration
+	@EnableCaching
+	static class Config extends CachingConfigurerSupport {
+
+		@Bean
+		@Override
+		public CacheManager cacheManager() {
+			return new ConcurrentMapCacheManager();
+		}
+
+		@Bean
+		public ProductService productService() {
+			return new ProductService();
+		}
+	}
+
+
+	public static class ProductService {
+
+		final List<Collection<Long>> requests = new ArrayList<>();
+
+		@Cacheable("products")
+		public String findById(Long id) {
+			this.requests.add(Collections.singletonList(id));
+			return "product-" + id;
+		}
+
+		@CacheableAll("products")
+		public List<String> findByIds(Collection<Long> ids) {
+			this.requests.add(new ArrayList<>(ids));
+			List<String> result = new ArrayList<>(ids.size());
+			for (Long id : ids) {
+				result.add("product-" + id);
+			}
+			return result;
+		}
+
+		@CacheableAll("products")
+		public Map<Long, String> findMapByIds(Collection<Long> ids) {
+			this.requests.add(new ArrayList<>(ids));
+			Map<Long, String> result = new LinkedHashMap<>(ids.size());
+			for (Long id : ids) {
+				result.put(id, "product-" + id);
+			}
+			return result;
+		}
+
+		@CacheableAll(cacheNames = "products", resultKey = "T(Long).valueOf(#result.substring(8))")
+		public List<String> findUnorderedByIds(Collection<Long> ids) {
+			this.requests.add(new ArrayList<>(ids));
+			List<String> result = new ArrayList<>(ids.size());
+			for (Long id : ids) {
+				result.add(0, "product-" + id);
+			}
+			return result;
+		}
+	}
+
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.offheap;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.AbstractValueAdaptingCacheTests;
+import org.springframework.cache.Cache;
+import org.springframework.core.serializer.support.SerializationDelegate;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class OffHeapCacheTests extends AbstractValueAdaptingCacheTests<OffHeapCache> {
+
+	private OffHeapCache cache;
+
+	private OffHeapCache cacheNoNull;
+
+
+	@Before
+	public void setup() {
+		SerializationDelegate serialization = new SerializationDelegate(getClass().getClassLoader());
+		this.cache = new OffHeapCache(CACHE_NAME, 1024 * 1024, OffHeapCache.DEFAULT_BLOCK_SIZE, null, true, serialization);
+		this.cacheNoNull = new OffHeapCache(CACHE_NAME_NO_NULL, 1024 * 1024, OffHeapCache.DEFAULT_BLOCK_SIZE, null, false, serialization);
+	}
+
+	@Override
+	protected OffHeapCache getCache() {
+		return getCache(true);
+	}
+
+	@Override
+	protected OffHeapCache getCache(boolean allowNull) {
+		return (allowNull ? this.cache : this.cacheNoNull);
+	}
+
+	@Override
+	protected Object getNativeCache() {
+		return this.cache;
+	}
+
+
+	@Test
+	public void testStoreByValue() {
+		List<String> content = new ArrayList<>(Arrays.asList("one", "two"));
+		this.cache.put("key", content);
+		content.add("three");
+
+		Cache.ValueWrapper wrapper = this.cache.get("key");
+		assertNotNull(wrapper);
+		assertEquals(Arrays.asList("one", "two"), wrapper.get());
+		assertNotSame(wrapper.get(), this.cache.get("key").get());
+	}
+
+	@Test
+	public void testLargeValueSpanningBlocks() {
+		char[] chars = new char[2000];
+		Arrays.fill(chars, 'x');
+		String value = new String(chars);
+		this.cache.put("key", value);
+
+		assertEquals(value, this.cache.get("key", String.class));
+		assertTrue(this.cache.getAllocatedBytes() > 2000);
+		assertTrue(this.cache.getUsedBytes() <= this.cache.getAllocatedBytes());
+	}
+
+	@Test
+	public void testEvictionWithinCapacity() {
+		OffHeapCache smallCache = new OffHeapCache("small", 64 * 1024);
+		for (int i = 0; i < 2000; i++) {
+			smallCache.put(i, "value" + i);
+		}
+
+		assertTrue(smallCache.getEvictionCount() > 0);
+		assertTrue(smallCache.getEntryCount() < 2000);
+		assertTrue(smallCache.getAllocatedBytes() <= smallCache.getCapacity());
+		assertEquals("value1999", smallCache.get(1999, String.class));
+	}
+
+	@Test
+	public void testValueExceedingCapacityNotStored() {
+		OffHeapCache smallCache = new OffHeapCache("small", 1024);
+		smallCache.put("key", new byte[4096]);
+
+		assertNull(smallCache.get("key"));
+		assertEquals(0, smallCache.getEntryCount());
+	}
+
+	@Test
+	public void testTimeToLive() throws InterruptedException {
+		OffHeapCache expiringCache = new OffHeapCache("expiring", 64 * 1024, OffHeapCache.DEFAULT_BLOCK_SIZE,
+				Duration.ofMillis(50), true, new SerializationDelegate(getClass().getClassLoader()));
+		expiringCache.put("key", "value");
+		assertEquals("value", expiringCache.get("key", String.class));
+
+		Thread.sleep(100);
+		assertNull(expiringCache.get("key"));
+		assertEquals(1, expiringCache.getExpirationCount());
+		assertEquals(0, expiringCache.getEntryCount());
+	}
+
+	@Test
+	public void testStatistics() {
+		this.cache.put("key", "value");
+		this.cache.get("key");
+		this.cache.get("other");
+
+		assertEquals(1, this.cache.getHitCount());
+		assertEquals(1, this.cache.getMissCount());
+		assertEquals(1, this.cache.getEntryCount());
+
+		this.cache.evict("key");
+		assertEquals(0, this.cache.getEntryCount());
+		assertEquals(0, this.cache.getUsedBytes());
+	}
+
+	@Test
+	public void testSlowLoadDoesNotBlockSegment() throws Exception {
+		OffHeapCache singleSegmentCache = new OffHeapCache("single", 16 * 1024, OffHeapCache.DEFAULT_BLOCK_SIZE,
+				null, true, new SerializationDelegate(getClass().getClassLoader()));
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread loader = new Thread(() -> singleSegmentCache.get("slow", () -> {
+			loading.countDown();
+			release.await();
+			return "slow";
+		}));
+		loader.start();
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+		assertEquals("fast", singleSegmentCache.get("fast", () -> "fast"));
+		release.countDown();
+		loader.join(5000);
+		assertEquals("slow", singleSegmentCache.get("slow", String.class));
+	}
+
+	@Test
+	public void testConcurrentLoadsCoalesced() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		Thread loader = new Thread(() -> this.cache.get("key", () -> {
+			loads.incrementAndGet();
+			loading.countDown();
+			release.await();
+			return "value";
+		}));
+		loader.start();
+		assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+		AtomicReference<Object> result = new AtomicReference<>();
+		Thread waiter = new Thread(() -> result.set(this.cache.get("key", () -> {
+			loads.incrementAndGet();
+			return "other";
+		})));
+		waiter.start();
+		Thread.sleep(50);
+		release.countDown();
+		loader.join(5000);
+		waiter.join(5000);
+
+		assertEquals("value", result.get());
+		assertEquals(1, loads.get());
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class RefreshAheadCacheTests {
+
+	private final ConcurrentMapCache targetCache = new ConcurrentMapCache("test");
+
+	private final List<Runnable> refreshTasks = new ArrayList<>();
+
+	private final RefreshAheadCache cache =
+			new RefreshAheadCache(this.targetCache, Duration.ofMillis(100), 0.5, this.refreshTasks::add);
+
+
+	@Test
+	public void freshEntryNotRefreshed() {
+		assertEquals("value", this.cache.get("key", () -> "value"));
+		assertEquals("value", this.cache.get("key", () -> "other"));
+		assertTrue(this.refreshTasks.isEmpty());
+		assertEquals("value", this.cache.get("key").get());
+		assertEquals("value", this.cache.get("key", String.class));
+	}
+
+	@Test
+	public void plainValueInTargetCache() throws Exception {
+		this.cache.put("key", "value");
+		assertEquals("value", this.targetCache.get("key").get());
+		this.targetCache.put("other", "plain");
+		assertEquals("plain", this.cache.get("other", () -> "loaded"));
+		assertTrue(this.refreshTasks.isEmpty());
+	}
+
+	@Test
+	public void timestampsSharedAcrossOperations() throws Exception {
+		RefreshAheadCache otherCache =
+				new RefreshAheadCache(this.targetCache, Duration.ofMillis(100), 0.5, this.refreshTasks::add);
+		this.cache.put("key", "value");
+		Thread.sleep(60);
+
+		assertEquals("value", otherCache.get("key", () -> "refreshed"));
+		assertEquals(1, this.refreshTasks.size());
+	}
+
+	@Test
+	public void agedEntryRefreshedOnce() throws Exception {
+		this.cache.put("key", "value");
+		Thread.sleep(60);
+
+		assertEquals("value", this.cache.get("key", () -> "refreshed"));
+		assertEquals("value", this.cache.get("key", () -> "refreshed"));
+		assertEquals(1, this.refreshTasks.size());
+		assertEquals(1, this.cache.getRefreshCount());
+
+		this.refreshTasks.get(0).run();
+		assertEquals(0, this.cache.getRefreshCount());
+		assertEquals("refreshed", this.cache.get("key", () -> "other"));
+	}
+
+	@Test
+	public void failedRefreshKeepsCurrentValue() throws Exception {
+		this.cache.put("key", "value");
+		Thread.sleep(60);
+
+		assertEquals("value", this.cache.get("key", () -> {
+			throw new IllegalStateException("boom");
+		}));
+		this.refreshTasks.get(0).run();
+		assertEquals("value", this.cache.get("key").get());
+		assertEquals(0, this.cache.getRefreshCount());
+	}
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class SingleFlightCacheTests {
+
+	private final ConcurrentMapCache targetCache = new ConcurrentMapCache("test");
+
+	private final SingleFlightCache cache = new SingleFlightCache(this.targetCache);
+
+
+	@Test
+	public void concurrentLoadsCoalesced() throws Exception {
+		AtomicInteger invocations = new AtomicInteger();
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<String> first = executor.submit(() -> this.cache.get("key", () -> {
+				invocations.incrementAndGet();
+				loading.countDown();
+				release.await(5, TimeUnit.SECONDS);
+				return "value";
+			}));
+			assertTrue(loading.await(5, TimeUnit.SECONDS));
+			Future<String> second = executor.submit(() -> this.cache.get("key", () -> {
+				invocations.incrementAndGet();
+				return "other";
+			}));
+			Thread.sleep(100);
+			assertEquals(1, this.cache.getInFlightCount());
+			release.countDown();
+
+			assertEquals("value", first.get(5, TimeUnit.SECONDS));
+			assertEquals("value", second.get(5, TimeUnit.SECONDS));
+			assertEquals(1, invocations.get());
+			assertEquals("value", this.targetCache.get("key").get());
+			assertEquals(0, this.cache.getInFlightCount());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void existingEntryReturned() {
+		this.targetCache.put("key", "value");
+		assertEquals("value", this.cache.get("key", () -> "other"));
+	}
+
+	@Test
+	public void loaderFailurePropagated() {
+		try {
+			this.cache.get("key", () -> {
+				throw new IllegalStateException("boom");
+			});
+			fail("Should have thrown ValueRetrievalException");
+		}
+		catch (Cache.ValueRetrievalException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+		assertNull(this.targetCache.get("key"));
+		assertEquals(0, this.cache.getInFlightCount());
+	}
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cache.support;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class StaleOnErrorCacheTests {
+
+	private final ConcurrentMapCache targetCache = new ConcurrentMapCache("test");
+
+	private final StaleOnErrorCache cache = new StaleOnErrorCache(this.targetCache, Duration.ofMillis(50));
+
+
+	@Test
+	public void staleValueServedOnError() throws Exception {
+		assertEquals("value", this.cache.get("key", () -> "value"));
+		Thread.sleep(60);
+
+		assertNull(this.cache.get("key"));
+		assertEquals("value", this.cache.get("key", () -> {
+			throw new IllegalStateException("boom");
+		}));
+		assertNotNull(this.targetCache.get("key"));
+	}
+
+	@Test
+	public void plainValueInTargetCache() throws Exception {
+		assertEquals("value", this.cache.get("key", () -> "value"));
+		assertEquals("value", this.targetCache.get("key").get());
+		this.targetCache.put("other", "plain");
+		assertEquals("plain", this.cache.get("other", () -> "loaded"));
+		Thread.sleep(60);
+
+		assertEquals("plain", this.cache.get("other", () -> {
+			throw new IllegalStateException("boom");
+		}));
+	}
+
+	@Test
+	public void timestampsSharedAcrossOperations() throws Exception {
+		StaleOnErrorCache otherCache = new StaleOnErrorCache(this.targetCache, Duration.ofMillis(50));
+		AtomicInteger loads = new AtomicInteger();
+		assertEquals("value", this.cache.get("key", () -> "value"));
+		Thread.sleep(60);
+
+		assertNull(otherCache.get("key"));
+		assertEquals("value", otherCache.get("key", () -> {
+			loads.incrementAndGet();
+			throw new IllegalStateException("boom");
+		}));
+		assertEquals(1, loads.get());
+		assertEquals("reloaded", otherCache.get("key", () -> "reloaded"));
+		assertEquals("reloaded", this.cache.get("key").get());
+
+		otherCache.evict("key");
+		this.targetCache.put("key", "plain");
+		assertEquals("plain", this.cache.get("key").get());
+	}
+
+	@Test
+	public void expiredValueReloaded() throws Exception {
+		this.cache.put("key", "value");
+		assertEquals("value", this.cache.get("key", String.class));
+		Thread.sleep(60);
+
+		assertEquals("reloaded", this.cache.get("key", () -> "reloaded"));
+		assertEquals("reloaded", this.cache.get("key").get());
+	}
+
+	@Test
+	public void errorPropagatedWithoutStaleValue() {
+		try {
+			this.cache.get("key", () -> {
+				throw new IllegalStateException("boom");
+			});
+			fail("Should have thrown ValueRetrievalException");
+		}
+		catch (Cache.ValueRetrievalException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void putIfAbsentReplacesExpiredValue() throws Exception {
+		this.cache.put("key", "value");
+		assertEquals("value", this.cache.putIfAbsent("key", "other").get());
+		Thread.sleep(60);
+
+		assertNull(this.cache.putIfAbsent("key", "other"));
+		assertEquals("other", this.cache.get("key").get());
+	}
+
+}
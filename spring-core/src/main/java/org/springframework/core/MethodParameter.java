@@ -98,6 +98,10 @@ public class MethodParameter {
 	@Nullable
 	private volatile MethodParameter nestedMethodParameter;
 
+	/** Cached ResolvableType for the current nesting state, reset on changes. */
+	@Nullable
+	volatile ResolvableType resolvableType;
+
 
 	/**
 	 * Create a new {@code MethodParameter} for the given method, with nesting level 1.
@@ -256,6 +260,7 @@ public class MethodParameter {
 	 */
 	public void increaseNestingLevel() {
 		this.nestingLevel++;
+		this.resolvableType = null;
 	}
 
 	/**
@@ -265,6 +270,7 @@ public class MethodParameter {
 	public void decreaseNestingLevel() {
 		getTypeIndexesPerLevel().remove(this.nestingLevel);
 		this.nestingLevel--;
+		this.resolvableType = null;
 	}
 
 	/**
@@ -284,6 +290,7 @@ public class MethodParameter {
 	 */
 	public void setTypeIndexForCurrentLevel(int typeIndex) {
 		getTypeIndexesPerLevel().put(this.nestingLevel, typeIndex);
+		this.resolvableType = null;
 	}
 
 	/**
@@ -382,6 +389,7 @@ public class MethodParameter {
 	 */
 	void setContainingClass(Class<?> containingClass) {
 		this.containingClass = containingClass;
+		this.resolvableType = null;
 	}
 
 	/**
@@ -93,6 +93,9 @@ public class ResolvableType implements Serializable {
 	private static final ConcurrentReferenceHashMap<ResolvableType, ResolvableType> cache =
 			new ConcurrentReferenceHashMap<>(256);
 
+	private static final ConcurrentReferenceHashMap<Field, ResolvableType> fieldTypeCache =
+			new ConcurrentReferenceHashMap<>(256);
+
 
 	/**
 	 * The underlying Java type being managed.
@@ -123,6 +126,13 @@ public class ResolvableType implements Serializable {
 	@Nullable
 	private Class<?> resolved;
 
+	/**
+	 * The cached instance equal to this type, if any, holding the shared
+	 * lazily resolved super type, interfaces and generics.
+	 */
+	@Nullable
+	private transient ResolvableType canonicalType;
+
 	@Nullable
 	private volatile ResolvableType superType;
 
@@ -466,6 +476,10 @@ public class ResolvableType implements Serializable {
 		if (resolved == null || resolved.getGenericSuperclass() == null) {
 			return NONE;
 		}
+		ResolvableType canonicalType = this.canonicalType;
+		if (canonicalType != null) {
+			return canonicalType.getSuperType();
+		}
 		ResolvableType superType = this.superType;
 		if (superType == null) {
 			superType = forType(resolved.getGenericSuperclass(), this);
@@ -486,6 +500,10 @@ public class ResolvableType implements Serializable {
 		if (resolved == null) {
 			return EMPTY_TYPES_ARRAY;
 		}
+		ResolvableType canonicalType = this.canonicalType;
+		if (canonicalType != null) {
+			return canonicalType.getInterfaces();
+		}
 		ResolvableType[] interfaces = this.interfaces;
 		if (interfaces == null) {
 			Type[] genericIfcs = resolved.getGenericInterfaces();
@@ -689,6 +707,10 @@ public class ResolvableType implements Serializable {
 		if (this == NONE) {
 			return EMPTY_TYPES_ARRAY;
 		}
+		ResolvableType canonicalType = this.canonicalType;
+		if (canonicalType != null) {
+			return canonicalType.getGenerics();
+		}
 		ResolvableType[] generics = this.generics;
 		if (generics == null) {
 			if (this.type instanceof Class) {
@@ -1114,7 +1136,13 @@ public class ResolvableType implements Serializable {
 	 */
 	public static ResolvableType forField(Field field) {
 		Assert.notNull(field, "Field must not be null");
-		return forType(null, new FieldTypeProvider(field), null);
+		ResolvableType resolvableType = fieldTypeCache.get(field);
+		// Field copies are equal but distinct: only reuse a type exposing the given instance
+		if (resolvableType == null || resolvableType.getSource() != field) {
+			resolvableType = forType(null, new FieldTypeProvider(field), null);
+			fieldTypeCache.put(field, resolvableType);
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1278,7 +1306,15 @@ public class ResolvableType implements Serializable {
 	 * @see #forMethodParameter(Method, int)
 	 */
 	public static ResolvableType forMethodParameter(MethodParameter methodParameter) {
-		return forMethodParameter(methodParameter, (Type) null);
+		Assert.notNull(methodParameter, "MethodParameter must not be null");
+		ResolvableType resolvableType = methodParameter.resolvableType;
+		if (resolvableType == null) {
+			resolvableType = forMethodParameter(methodParameter, (Type) null);
+			if (methodParameter.typeIndexesPerLevel == null) {
+				methodParameter.resolvableType = resolvableType;
+			}
+		}
+		return resolvableType;
 	}
 
 	/**
@@ -1427,6 +1463,7 @@ public class ResolvableType implements Serializable {
 			cache.put(cachedType, cachedType);
 		}
 		resultType.resolved = cachedType.resolved;
+		resultType.canonicalType = cachedType;
 		return resultType;
 	}
 
@@ -1436,6 +1473,7 @@ public class ResolvableType implements Serializable {
 	 */
 	public static void clearCache() {
 		cache.clear();
+		fieldTypeCache.clear();
 		SerializableTypeWrapper.cache.clear();
 	}
 
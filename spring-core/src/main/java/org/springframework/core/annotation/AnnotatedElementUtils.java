@@ -178,23 +178,7 @@ public abstract class AnnotatedElementUtils {
 		if (composed == null) {
 			return Collections.emptySet();
 		}
-
-		try {
-			final Set<String> types = new LinkedHashSet<>();
-			searchWithGetSemantics(composed.annotationType(), Collections.emptySet(), null, null, new SimpleAnnotationProcessor<Object>(true) {
-					@Override
-					@Nullable
-					public Object process(@Nullable AnnotatedElement annotatedElement, Annotation annotation, int metaDepth) {
-						types.add(annotation.annotationType().getName());
-						return CONTINUE;
-					}
-				}, new HashSet<>(), 1);
-			return types;
-		}
-		catch (Throwable ex) {
-			AnnotationUtils.rethrowAnnotationConfigurationException(ex);
-			throw new IllegalStateException("Failed to introspect annotations on " + element, ex);
-		}
+		return MergedAnnotationView.forElement(composed.annotationType()).getAnnotationTypeNames();
 	}
 
 	/**
@@ -232,14 +216,8 @@ public abstract class AnnotatedElementUtils {
 	private static boolean hasMetaAnnotationTypes(
 			AnnotatedElement element, @Nullable Class<? extends Annotation> annotationType, @Nullable String annotationName) {
 
-		return Boolean.TRUE.equals(
-			searchWithGetSemantics(element, annotationType, annotationName, new SimpleAnnotationProcessor<Boolean>() {
-				@Override
-				@Nullable
-				public Boolean process(@Nullable AnnotatedElement annotatedElement, Annotation annotation, int metaDepth) {
-					return (metaDepth > 0 ? Boolean.TRUE : CONTINUE);
-				}
-			}));
+		String nameToCheck = (annotationType != null ? annotationType.getName() : annotationName);
+		return (nameToCheck != null && MergedAnnotationView.forElement(element).isMetaPresent(nameToCheck));
 	}
 
 	/**
@@ -261,7 +239,7 @@ public abstract class AnnotatedElementUtils {
 		if (element.isAnnotationPresent(annotationType)) {
 			return true;
 		}
-		return Boolean.TRUE.equals(searchWithGetSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor));
+		return MergedAnnotationView.forElement(element).isPresent(annotationType);
 	}
 
 	/**
@@ -277,7 +255,7 @@ public abstract class AnnotatedElementUtils {
 	 * @return {@code true} if a matching annotation is present
 	 */
 	public static boolean isAnnotated(AnnotatedElement element, String annotationName) {
-		return Boolean.TRUE.equals(searchWithGetSemantics(element, null, annotationName, alwaysTrueAnnotationProcessor));
+		return MergedAnnotationView.forElement(element).isPresent(annotationName);
 	}
 
 	/**
@@ -301,10 +279,7 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(
 			AnnotatedElement element, Class<? extends Annotation> annotationType) {
 
-		AnnotationAttributes attributes = searchWithGetSemantics(element, annotationType, null,
-				new MergedAnnotationAttributesProcessor());
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, false, false);
-		return attributes;
+		return MergedAnnotationView.forElement(element).getMergedAttributes(annotationType);
 	}
 
 	/**
@@ -360,6 +335,9 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
+		if (!classValuesAsString && !nestedAnnotationsAsMap) {
+			return MergedAnnotationView.forElement(element).getMergedAttributes(annotationName);
+		}
 		AnnotationAttributes attributes = searchWithGetSemantics(element, null, annotationName,
 				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
 		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
@@ -397,9 +375,8 @@ public abstract class AnnotatedElementUtils {
 			return null;
 		}
 
-		// Exhaustive retrieval of merged annotation attributes...
-		AnnotationAttributes attributes = getMergedAnnotationAttributes(element, annotationType);
-		return (attributes != null ? AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
+		// Exhaustive retrieval of merged annotation, synthesized once per element...
+		return MergedAnnotationView.forElement(element).getMergedAnnotation(annotationType);
 	}
 
 	/**
@@ -1524,7 +1501,7 @@ public abstract class AnnotatedElementUtils {
 	 * @see AnnotationUtils#retrieveAnnotationAttributes
 	 * @see AnnotationUtils#postProcessAnnotationAttributes
 	 */
-	private static class MergedAnnotationAttributesProcessor implements Processor<AnnotationAttributes> {
+	static class MergedAnnotationAttributesProcessor implements Processor<AnnotationAttributes> {
 
 		private final boolean classValuesAsString;
 
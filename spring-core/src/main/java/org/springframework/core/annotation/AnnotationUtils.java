@@ -122,9 +122,6 @@ public abstract class AnnotationUtils {
 	private static final Map<AnnotationCacheKey, Annotation> findAnnotationCache =
 			new ConcurrentReferenceHashMap<>(256);
 
-	private static final Map<AnnotationCacheKey, Boolean> metaPresentCache =
-			new ConcurrentReferenceHashMap<>(256);
-
 	private static final Map<AnnotatedElement, Annotation[]> declaredAnnotationsCache =
 			new ConcurrentReferenceHashMap<>(256);
 
@@ -923,17 +920,11 @@ public abstract class AnnotationUtils {
 			return false;
 		}
 
-		AnnotationCacheKey cacheKey = new AnnotationCacheKey(annotationType, metaAnnotationType);
-		Boolean metaPresent = metaPresentCache.get(cacheKey);
-		if (metaPresent != null) {
-			return metaPresent;
-		}
-		metaPresent = Boolean.FALSE;
-		if (findAnnotation(annotationType, metaAnnotationType, false) != null) {
-			metaPresent = Boolean.TRUE;
+		if (isInJavaLangAnnotationPackage(metaAnnotationType)) {
+			// Not tracked in merged annotation views
+			return (findAnnotation(annotationType, metaAnnotationType, false) != null);
 		}
-		metaPresentCache.put(cacheKey, metaPresent);
-		return metaPresent;
+		return MergedAnnotationView.forElement(annotationType).isPresent(metaAnnotationType);
 	}
 
 	/**
@@ -1981,7 +1972,7 @@ public abstract class AnnotationUtils {
 	 */
 	public static void clearCache() {
 		findAnnotationCache.clear();
-		metaPresentCache.clear();
+		MergedAnnotationView.clearCache();
 		declaredAnnotationsCache.clear();
 		annotatedBaseTypeCache.clear();
 		synthesizableCache.clear();
@@ -0,0 +1,366 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Precomputed, immutable view of all annotations <em>present</em> or
+ * <em>meta-present</em> on an {@link AnnotatedElement}, following the
+ * <em>get semantics</em> of {@link AnnotatedElementUtils}.
+ *
+ * <p>The annotation hierarchy of an element is traversed once, recording
+ * each annotation in search order along with its meta-depth and the path of
+ * lower-level annotations it was reached through. Merged attributes for an
+ * annotation type are resolved on first access, with {@link AliasFor @AliasFor}
+ * declarations and attribute overrides applied, and then kept as flat
+ * name/value arrays which can be read without synthesizing annotation proxies.
+ *
+ * <p>Views are cached per element and shared between callers; returned
+ * {@link AnnotationAttributes} are always fresh copies.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see AnnotatedElementUtils#isAnnotated
+ * @see AnnotatedElementUtils#getMergedAnnotationAttributes(AnnotatedElement, Class)
+ * @see AnnotationUtils#isAnnotationMetaPresent
+ */
+final class MergedAnnotationView {
+
+	private static final Map<AnnotatedElement, MergedAnnotationView> viewCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+
+	private final AnnotatedElement element;
+
+	private final Entry[] entries;
+
+	private final Map<Class<? extends Annotation>, Entry> entriesByType;
+
+	private final Map<String, Entry> entriesByName;
+
+	private final Set<String> metaPresentTypeNames;
+
+
+	private MergedAnnotationView(AnnotatedElement element, List<Entry> entries) {
+		this.element = element;
+		this.entries = entries.toArray(new Entry[0]);
+		this.entriesByType = new HashMap<>(entries.size() * 2);
+		this.entriesByName = new HashMap<>(entries.size() * 2);
+		this.metaPresentTypeNames = new HashSet<>(entries.size() * 2);
+		for (Entry entry : this.entries) {
+			Class<? extends Annotation> annotationType = entry.annotation.annotationType();
+			this.entriesByType.putIfAbsent(annotationType, entry);
+			this.entriesByName.putIfAbsent(annotationType.getName(), entry);
+			if (entry.metaDepth > 0) {
+				this.metaPresentTypeNames.add(annotationType.getName());
+			}
+		}
+	}
+
+
+	/**
+	 * Determine whether an annotation of the given type is present or
+	 * meta-present on the element.
+	 */
+	public boolean isPresent(Class<? extends Annotation> annotationType) {
+		return this.entriesByType.containsKey(annotationType);
+	}
+
+	/**
+	 * Determine whether an annotation of the given type name is present or
+	 * meta-present on the element.
+	 */
+	public boolean isPresent(String annotationName) {
+		return this.entriesByName.containsKey(annotationName);
+	}
+
+	/**
+	 * Determine whether an annotation of the given type name is present
+	 * as a meta-annotation on the element, i.e. at a meta-depth above 0.
+	 */
+	public boolean isMetaPresent(String annotationName) {
+		return this.metaPresentTypeNames.contains(annotationName);
+	}
+
+	/**
+	 * Return the fully qualified names of all annotation types present or
+	 * meta-present on the element, in search order.
+	 */
+	public Set<String> getAnnotationTypeNames() {
+		Set<String> names = new LinkedHashSet<>(this.entries.length * 2);
+		for (Entry entry : this.entries) {
+			names.add(entry.annotation.annotationType().getName());
+		}
+		return names;
+	}
+
+	/**
+	 * Return the merged attributes of the first annotation of the given type
+	 * within the annotation hierarchy of the element.
+	 * @return a fresh copy of the merged attributes, or {@code null} if not found
+	 */
+	@Nullable
+	public AnnotationAttributes getMergedAttributes(Class<? extends Annotation> annotationType) {
+		Entry entry = this.entriesByType.get(annotationType);
+		return (entry != null ? getMergedAttributes(entry) : null);
+	}
+
+	/**
+	 * Return the merged attributes of the first annotation of the given type
+	 * name within the annotation hierarchy of the element.
+	 * @return a fresh copy of the merged attributes, or {@code null} if not found
+	 */
+	@Nullable
+	public AnnotationAttributes getMergedAttributes(String annotationName) {
+		Entry entry = this.entriesByName.get(annotationName);
+		return (entry != null ? getMergedAttributes(entry) : null);
+	}
+
+	/**
+	 * Return the first annotation of the given type within the annotation
+	 * hierarchy of the element, merged and synthesized once per view.
+	 * @return the merged annotation, or {@code null} if not found
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public <A extends Annotation> A getMergedAnnotation(Class<A> annotationType) {
+		Entry entry = this.entriesByType.get(annotationType);
+		if (entry == null) {
+			return null;
+		}
+		Annotation synthesized = entry.synthesized;
+		if (synthesized == null) {
+			AnnotationAttributes attributes = getMergedAttributes(entry);
+			if (attributes == null) {
+				return null;
+			}
+			synthesized = AnnotationUtils.synthesizeAnnotation(attributes, annotationType, this.element);
+			entry.synthesized = synthesized;
+		}
+		return (A) synthesized;
+	}
+
+	@Nullable
+	private AnnotationAttributes getMergedAttributes(Entry entry) {
+		MergedAttributes merged = getMergedAttributeArrays(entry);
+		if (merged == null) {
+			return null;
+		}
+		AnnotationAttributes attributes = new AnnotationAttributes(entry.annotation.annotationType());
+		for (int i = 0; i < merged.names.length; i++) {
+			Object value = merged.values[i];
+			attributes.put(merged.names[i], cloneArrayIfNecessary(value));
+		}
+		attributes.validated = true;
+		return attributes;
+	}
+
+	@Nullable
+	private static Object cloneArrayIfNecessary(@Nullable Object value) {
+		if (value == null || !value.getClass().isArray()) {
+			return value;
+		}
+		int length = Array.getLength(value);
+		Object clone = Array.newInstance(value.getClass().getComponentType(), length);
+		System.arraycopy(value, 0, clone, 0, length);
+		return clone;
+	}
+
+	@Nullable
+	private MergedAttributes getMergedAttributeArrays(Entry entry) {
+		MergedAttributes merged = entry.merged;
+		if (merged == null) {
+			AnnotationAttributes attributes;
+			try {
+				attributes = AnnotationUtils.retrieveAnnotationAttributes(entry.source, entry.annotation, false, false);
+				AnnotatedElementUtils.MergedAnnotationAttributesProcessor processor =
+						new AnnotatedElementUtils.MergedAnnotationAttributesProcessor();
+				for (Entry current = entry.parent; current != null; current = current.parent) {
+					processor.postProcess(current.source, current.annotation, attributes);
+				}
+			}
+			catch (Throwable ex) {
+				AnnotationUtils.handleIntrospectionFailure(entry.source, ex);
+				return null;
+			}
+			AnnotationUtils.postProcessAnnotationAttributes(this.element, attributes, false, false);
+			merged = new MergedAttributes(attributes);
+			entry.merged = merged;
+		}
+		return merged;
+	}
+
+	@Override
+	public String toString() {
+		return "MergedAnnotationView for " + this.element + ": " + Arrays.toString(this.entries);
+	}
+
+
+	/**
+	 * Return the view for the given element, computing it on first access.
+	 * @param element the annotated element
+	 * @return the (potentially cached) view
+	 * @throws AnnotationConfigurationException in case of invalid
+	 * {@link AliasFor @AliasFor} configuration
+	 */
+	static MergedAnnotationView forElement(AnnotatedElement element) {
+		MergedAnnotationView view = viewCache.get(element);
+		if (view == null) {
+			List<Entry> entries = new ArrayList<>();
+			try {
+				collect(element, null, 0, entries, new HashSet<>());
+			}
+			catch (Throwable ex) {
+				AnnotationUtils.rethrowAnnotationConfigurationException(ex);
+				throw new IllegalStateException("Failed to introspect annotations on " + element, ex);
+			}
+			view = new MergedAnnotationView(element, entries);
+			viewCache.put(element, view);
+		}
+		return view;
+	}
+
+	/**
+	 * Clear the internal view cache.
+	 * @see AnnotationUtils#clearCache()
+	 */
+	static void clearCache() {
+		viewCache.clear();
+	}
+
+	/**
+	 * Record the annotations on the given element and, recursively, their
+	 * meta-annotations, in the order in which the <em>get semantics</em>
+	 * search algorithm of {@link AnnotatedElementUtils} processes them.
+	 */
+	private static void collect(AnnotatedElement element, @Nullable Entry parent, int metaDepth,
+			List<Entry> entries, Set<AnnotatedElement> visited) {
+
+		if (!visited.add(element)) {
+			return;
+		}
+		try {
+			List<Annotation> declaredAnnotations = Arrays.asList(AnnotationUtils.getDeclaredAnnotations(element));
+			collectInAnnotations(element, declaredAnnotations, parent, metaDepth, entries, visited);
+			if (element instanceof Class) {
+				Class<?> superclass = ((Class<?>) element).getSuperclass();
+				if (superclass != null && superclass != Object.class) {
+					List<Annotation> inheritedAnnotations = new ArrayList<>();
+					for (Annotation annotation : element.getAnnotations()) {
+						if (!declaredAnnotations.contains(annotation)) {
+							inheritedAnnotations.add(annotation);
+						}
+					}
+					collectInAnnotations(element, inheritedAnnotations, parent, metaDepth, entries, visited);
+				}
+			}
+		}
+		catch (Throwable ex) {
+			AnnotationUtils.handleIntrospectionFailure(element, ex);
+		}
+	}
+
+	private static void collectInAnnotations(AnnotatedElement element, List<Annotation> annotations,
+			@Nullable Entry parent, int metaDepth, List<Entry> entries, Set<AnnotatedElement> visited) {
+
+		List<Entry> local = new ArrayList<>(annotations.size());
+		for (Annotation annotation : annotations) {
+			if (!AnnotationUtils.isInJavaLangAnnotationPackage(annotation.annotationType())) {
+				local.add(new Entry(element, annotation, metaDepth, parent));
+			}
+		}
+		entries.addAll(local);
+		for (Entry entry : local) {
+			Class<? extends Annotation> annotationType = entry.annotation.annotationType();
+			if (!AnnotationUtils.hasPlainJavaAnnotationsOnly(annotationType)) {
+				collect(annotationType, entry, metaDepth + 1, entries, visited);
+			}
+		}
+	}
+
+
+	/**
+	 * An annotation found within the hierarchy, along with the lower-level
+	 * annotation it was declared on (if any).
+	 */
+	private static final class Entry {
+
+		final AnnotatedElement source;
+
+		final Annotation annotation;
+
+		final int metaDepth;
+
+		@Nullable
+		final Entry parent;
+
+		@Nullable
+		volatile MergedAttributes merged;
+
+		@Nullable
+		volatile Annotation synthesized;
+
+		Entry(AnnotatedElement source, Annotation annotation, int metaDepth, @Nullable Entry parent) {
+			this.source = source;
+			this.annotation = annotation;
+			this.metaDepth = metaDepth;
+			this.parent = parent;
+		}
+
+		@Override
+		public String toString() {
+			return this.annotation.annotationType().getName() + " (meta-depth " + this.metaDepth + ")";
+		}
+	}
+
+
+	/**
+	 * Resolved attributes of a merged annotation, as flat parallel arrays.
+	 */
+	private static final class MergedAttributes {
+
+		final String[] names;
+
+		final Object[] values;
+
+		MergedAttributes(Map<String, Object> attributes) {
+			this.names = new String[attributes.size()];
+			this.values = new Object[attributes.size()];
+			int i = 0;
+			for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+				this.names[i] = attribute.getKey();
+				this.values[i] = attribute.getValue();
+				i++;
+			}
+		}
+	}
+
+}
@@ -59,6 +59,7 @@ import org.springframework.util.StringUtils;
  * @author Phillip Webb
  * @author David Haraburda
  * @since 3.0
+ * @see #freeze()
  */
 public class GenericConversionService implements ConfigurableConversionService {
 
@@ -73,11 +74,23 @@ public class GenericConversionService implements ConfigurableConversionService {
 	 */
 	private static final GenericConverter NO_MATCH = new NoOpConverter("NO_MATCH");
 
+	/**
+	 * Primitive types for which String and wrapper conversions get
+	 * precompiled when {@link #freeze() freezing} the service.
+	 */
+	private static final Class<?>[] PRIMITIVE_TYPES = {boolean.class, byte.class, char.class,
+			double.class, float.class, int.class, long.class, short.class};
+
 
 	private final Converters converters = new Converters();
 
 	private final Map<ConverterCacheKey, GenericConverter> converterCache = new ConcurrentReferenceHashMap<>(64);
 
+	/** Direct (sourceClass, targetClass) dispatch table, only consulted once frozen. */
+	private final Map<Class<?>, Map<Class<?>, FastPathConverter>> fastPathCache = new ConcurrentReferenceHashMap<>(64);
+
+	private volatile boolean frozen;
+
 
 	// ConverterRegistry implementation
 
@@ -126,12 +139,49 @@ public class GenericConversionService implements ConfigurableConversionService {
 		invalidateCache();
 	}
 
+	/**
+	 * Freeze the converter registrations of this service, switching plain
+	 * class-to-class conversions onto a precompiled dispatch table keyed by
+	 * (sourceClass, targetClass) which bypasses {@link TypeDescriptor} and
+	 * cache key creation for every call. String and primitive/wrapper
+	 * combinations are compiled eagerly; other pairs such as String to enum
+	 * are compiled on first use.
+	 * <p>Typically triggered by the application context at the end of its
+	 * refresh. Converters may still be added or removed afterwards, in which
+	 * case the dispatch table is simply recompiled on demand.
+	 * @since 5.1.21
+	 * @see #isFrozen()
+	 */
+	public void freeze() {
+		this.frozen = true;
+		for (Class<?> primitiveType : PRIMITIVE_TYPES) {
+			Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(primitiveType);
+			getFastPathConverter(String.class, primitiveType);
+			getFastPathConverter(String.class, wrapperType);
+			getFastPathConverter(wrapperType, primitiveType);
+			getFastPathConverter(wrapperType, String.class);
+		}
+	}
+
+	/**
+	 * Return whether this service has been {@link #freeze() frozen},
+	 * i.e. whether class-to-class conversions go through the precompiled
+	 * dispatch table.
+	 * @since 5.1.21
+	 */
+	public boolean isFrozen() {
+		return this.frozen;
+	}
+
 
 	// ConversionService implementation
 
 	@Override
 	public boolean canConvert(@Nullable Class<?> sourceType, Class<?> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (this.frozen && sourceType != null) {
+			return (getFastPathConverter(sourceType, targetType) != null);
+		}
 		return canConvert((sourceType != null ? TypeDescriptor.valueOf(sourceType) : null),
 				TypeDescriptor.valueOf(targetType));
 	}
@@ -142,6 +192,9 @@ public class GenericConversionService implements ConfigurableConversionService {
 		if (sourceType == null) {
 			return true;
 		}
+		if (this.frozen && isPlainType(sourceType) && isPlainType(targetType)) {
+			return (getFastPathConverter(sourceType.getType(), targetType.getType()) != null);
+		}
 		GenericConverter converter = getConverter(sourceType, targetType);
 		return (converter != null);
 	}
@@ -171,6 +224,15 @@ public class GenericConversionService implements ConfigurableConversionService {
 	@Nullable
 	public <T> T convert(@Nullable Object source, Class<T> targetType) {
 		Assert.notNull(targetType, "Target type to convert to cannot be null");
+		if (this.frozen && source != null) {
+			FastPathConverter converter = getFastPathConverter(source.getClass(), targetType);
+			if (converter != null) {
+				Object result = converter.convert(source);
+				if (result != null) {
+					return (T) result;
+				}
+			}
+		}
 		return (T) convert(source, TypeDescriptor.forObject(source), TypeDescriptor.valueOf(targetType));
 	}
 
@@ -186,6 +248,15 @@ public class GenericConversionService implements ConfigurableConversionService {
 			throw new IllegalArgumentException("Source to convert from must be an instance of [" +
 					sourceType + "]; instead it was a [" + source.getClass().getName() + "]");
 		}
+		if (this.frozen && source != null && isPlainType(sourceType) && isPlainType(targetType)) {
+			FastPathConverter converter = getFastPathConverter(sourceType.getType(), targetType.getType());
+			if (converter != null) {
+				Object result = converter.convert(source);
+				if (result != null) {
+					return result;
+				}
+			}
+		}
 		GenericConverter converter = getConverter(sourceType, targetType);
 		if (converter != null) {
 			Object result = ConversionUtils.invokeConverter(converter, source, sourceType, targetType);
@@ -304,6 +375,41 @@ public class GenericConversionService implements ConfigurableConversionService {
 
 	private void invalidateCache() {
 		this.converterCache.clear();
+		this.fastPathCache.clear();
+	}
+
+	/**
+	 * Determine whether the given type descriptor carries nothing beyond its
+	 * class, i.e. neither annotations nor generics which conditional converters
+	 * could match on, so that it may be looked up by class only.
+	 */
+	private boolean isPlainType(TypeDescriptor typeDescriptor) {
+		return (typeDescriptor.getAnnotations().length == 0 &&
+				typeDescriptor.getResolvableType().getType() instanceof Class);
+	}
+
+	/**
+	 * Look up the precompiled converter for the given class pair,
+	 * compiling it on first access.
+	 * @return the fast path converter, or {@code null} if none available
+	 */
+	@Nullable
+	private FastPathConverter getFastPathConverter(Class<?> sourceType, Class<?> targetType) {
+		Map<Class<?>, FastPathConverter> convertersForSource = this.fastPathCache.get(sourceType);
+		if (convertersForSource == null) {
+			convertersForSource = this.fastPathCache.computeIfAbsent(sourceType, key -> new ConcurrentReferenceHashMap<>(16));
+		}
+		FastPathConverter converter = convertersForSource.get(targetType);
+		if (converter == null) {
+			TypeDescriptor sourceTypeDescriptor = TypeDescriptor.valueOf(sourceType);
+			TypeDescriptor targetTypeDescriptor = TypeDescriptor.valueOf(targetType);
+			GenericConverter genericConverter = getConverter(sourceTypeDescriptor, targetTypeDescriptor);
+			converter = (genericConverter != null ?
+					new FastPathConverter(genericConverter, sourceTypeDescriptor, targetTypeDescriptor) :
+					FastPathConverter.NO_MATCH);
+			convertersForSource.put(targetType, converter);
+		}
+		return (converter != FastPathConverter.NO_MATCH ? converter : null);
 	}
 
 	@Nullable
@@ -443,6 +549,68 @@ public class GenericConversionService implements ConfigurableConversionService {
 	}
 
 
+	/**
+	 * Precompiled converter for a specific (sourceClass, targetClass) pair,
+	 * holding on to the type descriptors and, for {@link Converter} and
+	 * {@link ConverterFactory} registrations, the resolved target converter.
+	 */
+	private static final class FastPathConverter {
+
+		static final FastPathConverter NO_MATCH = new FastPathConverter(GenericConversionService.NO_MATCH,
+				TypeDescriptor.valueOf(Object.class), TypeDescriptor.valueOf(Object.class));
+
+		private final GenericConverter converter;
+
+		private final TypeDescriptor sourceType;
+
+		private final TypeDescriptor targetType;
+
+		@Nullable
+		private final Converter<Object, Object> directConverter;
+
+		@SuppressWarnings("unchecked")
+		public FastPathConverter(GenericConverter converter, TypeDescriptor sourceType, TypeDescriptor targetType) {
+			this.converter = converter;
+			this.sourceType = sourceType;
+			this.targetType = targetType;
+			if (converter instanceof ConverterAdapter) {
+				this.directConverter = ((ConverterAdapter) converter).converter;
+			}
+			else if (converter instanceof ConverterFactoryAdapter) {
+				this.directConverter = (Converter<Object, Object>) ((ConverterFactoryAdapter) converter)
+						.converterFactory.getConverter(targetType.getObjectType());
+			}
+			else {
+				this.directConverter = null;
+			}
+		}
+
+		/**
+		 * Convert the given non-null source object.
+		 * @return the converted value, or {@code null} in case of a {@code null}
+		 * result (to be reprocessed through the regular conversion path)
+		 */
+		@Nullable
+		public Object convert(Object source) {
+			if (this.converter == NO_OP_CONVERTER) {
+				return source;
+			}
+			if (this.directConverter != null) {
+				try {
+					return this.directConverter.convert(source);
+				}
+				catch (ConversionFailedException ex) {
+					throw ex;
+				}
+				catch (Throwable ex) {
+					throw new ConversionFailedException(this.sourceType, this.targetType, source, ex);
+				}
+			}
+			return ConversionUtils.invokeConverter(this.converter, source, this.sourceType, this.targetType);
+		}
+	}
+
+
 	/**
 	 * Key for use with the converter cache.
 	 */
@@ -69,6 +69,9 @@ public abstract class StringUtils {
 
 	private static final char EXTENSION_SEPARATOR = '.';
 
+	private static final ConcurrentLruCache<String, Locale> cachedLocales =
+			new ConcurrentLruCache<>(64, StringUtils::parseLocaleInternal);
+
 
 	//---------------------------------------------------------------------
 	// General convenience methods for working with Strings
@@ -783,6 +786,14 @@ public abstract class StringUtils {
 	 */
 	@Nullable
 	public static Locale parseLocale(String localeValue) {
+		if (!hasLength(localeValue)) {
+			return parseLocaleInternal(localeValue);
+		}
+		return cachedLocales.get(localeValue);
+	}
+
+	@Nullable
+	private static Locale parseLocaleInternal(String localeValue) {
 		String[] tokens = tokenizeLocaleSource(localeValue);
 		if (tokens.length == 1) {
 			validateLocalePart(localeValue);
@@ -200,6 +200,24 @@ public class ResolvableTypeTests {
 		assertEquals(type.hashCode(), type2.hashCode());
 	}
 
+	@Test
+	public void forFieldIsCached() throws Exception {
+		Field field = Fields.class.getField("charSequenceList");
+		ResolvableType type = ResolvableType.forField(field);
+		assertThat(ResolvableType.forField(field), sameInstance(type));
+		assertThat(type.getSource(), sameInstance(field));
+	}
+
+	@Test
+	public void lazilyResolvedStateSharedAcrossEqualTypes() throws Exception {
+		ResolvableType type1 = ResolvableType.forField(Fields.class.getDeclaredField("privateField"));
+		ResolvableType type2 = ResolvableType.forField(Fields.class.getDeclaredField("otherPrivateField"));
+		assertEquals(type1, type2);
+		assertThat(type2.getGenerics(), sameInstance(type1.getGenerics()));
+		assertThat(type2.getInterfaces(), sameInstance(type1.getInterfaces()));
+		assertThat(type2.getSource(), not(sameInstance(type1.getSource())));
+	}
+
 	@Test
 	public void forFieldMustNotBeNull() throws Exception {
 		this.thrown.expect(IllegalArgumentException.class);
@@ -266,6 +284,26 @@ public class ResolvableTypeTests {
 		assertThat(type.getGeneric(1).resolve(), equalTo((Class) Integer.class));
 	}
 
+	@Test
+	public void forMethodParameterIsCachedUntilNestingChanges() throws Exception {
+		Method method = Methods.class.getMethod("nested", Map.class);
+		MethodParameter methodParameter = MethodParameter.forExecutable(method, 0);
+		ResolvableType type = ResolvableType.forMethodParameter(methodParameter);
+		assertThat(ResolvableType.forMethodParameter(methodParameter), sameInstance(type));
+		assertThat(type.getSource(), sameInstance((Object) methodParameter));
+
+		methodParameter.increaseNestingLevel();
+		ResolvableType nestedType = ResolvableType.forMethodParameter(methodParameter);
+		assertThat(nestedType.getGeneric(0).resolve(), equalTo((Class) Byte.class));
+
+		methodParameter.setTypeIndexForCurrentLevel(0);
+		nestedType = ResolvableType.forMethodParameter(methodParameter);
+		assertThat(nestedType.getGeneric(0).resolve(), equalTo((Class) String.class));
+
+		methodParameter.decreaseNestingLevel();
+		assertThat(ResolvableType.forMethodParameter(methodParameter), equalTo(type));
+	}
+
 	@Test
 	public void forMethodParameterMustNotBeNull() throws Exception {
 		this.thrown.expect(IllegalArgumentException.class);
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import org.junit.Test;
+
+import org.springframework.core.annotation.AnnotatedElementUtilsTests.AliasedComposedContextConfigClass;
+import org.springframework.core.annotation.AnnotatedElementUtilsTests.ComposedTransactionalComponentClass;
+import org.springframework.core.annotation.AnnotatedElementUtilsTests.ContextConfig;
+import org.springframework.core.annotation.AnnotatedElementUtilsTests.NonAnnotatedClass;
+import org.springframework.core.annotation.AnnotatedElementUtilsTests.Transactional;
+import org.springframework.core.annotation.AnnotatedElementUtilsTests.TransactionalComponent;
+import org.springframework.stereotype.Component;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MergedAnnotationView}.
+ *
+ * @author agent
+ */
+public class MergedAnnotationViewTests {
+
+	@Test
+	public void viewIsCachedPerElement() {
+		assertSame(MergedAnnotationView.forElement(ComposedTransactionalComponentClass.class),
+				MergedAnnotationView.forElement(ComposedTransactionalComponentClass.class));
+	}
+
+	@Test
+	public void presentAndMetaPresentTypes() {
+		MergedAnnotationView view = MergedAnnotationView.forElement(ComposedTransactionalComponentClass.class);
+		assertTrue(view.isPresent(TransactionalComponent.class));
+		assertTrue(view.isPresent(Transactional.class.getName()));
+		assertTrue(view.isMetaPresent(Component.class.getName()));
+		assertFalse(view.isPresent(ContextConfig.class));
+
+		MergedAnnotationView emptyView = MergedAnnotationView.forElement(NonAnnotatedClass.class);
+		assertFalse(emptyView.isPresent(Component.class));
+		assertTrue(emptyView.getAnnotationTypeNames().isEmpty());
+	}
+
+	@Test
+	public void mergedAttributesWithAliasResolved() {
+		MergedAnnotationView view = MergedAnnotationView.forElement(AliasedComposedContextConfigClass.class);
+		AnnotationAttributes attributes = view.getMergedAttributes(ContextConfig.class);
+		assertNotNull(attributes);
+		assertArrayEquals(new String[] {"test.xml"}, attributes.getStringArray("locations"));
+		assertArrayEquals(new String[] {"test.xml"}, attributes.getStringArray("value"));
+	}
+
+	@Test
+	public void mergedAttributesAreCopiedForEachCall() {
+		MergedAnnotationView view = MergedAnnotationView.forElement(AliasedComposedContextConfigClass.class);
+		AnnotationAttributes attributes = view.getMergedAttributes(ContextConfig.class);
+		attributes.getStringArray("locations")[0] = "modified.xml";
+		attributes.put("classes", new Class<?>[] {String.class});
+
+		AnnotationAttributes other = view.getMergedAttributes(ContextConfig.class.getName());
+		assertArrayEquals(new String[] {"test.xml"}, other.getStringArray("locations"));
+		assertEquals(0, other.getClassArray("classes").length);
+	}
+
+	@Test
+	public void mergedAnnotationIsSynthesizedOnce() {
+		MergedAnnotationView view = MergedAnnotationView.forElement(AliasedComposedContextConfigClass.class);
+		ContextConfig contextConfig = view.getMergedAnnotation(ContextConfig.class);
+		assertNotNull(contextConfig);
+		assertArrayEquals(new String[] {"test.xml"}, contextConfig.locations());
+		assertSame(contextConfig, view.getMergedAnnotation(ContextConfig.class));
+		assertNull(view.getMergedAnnotation(Transactional.class));
+	}
+
+}
@@ -640,6 +640,53 @@ public class GenericConversionServiceTests {
 				conversionService.convert("test", TypeDescriptor.valueOf(String.class), new TypeDescriptor(getClass().getField("integerCollection"))));
 	}
 
+	@Test
+	public void frozenFastPath() {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		conversionService.freeze();
+		assertTrue(conversionService.isFrozen());
+
+		assertEquals(Integer.valueOf(3), conversionService.convert("3", int.class));
+		assertEquals(Long.valueOf(3), conversionService.convert("3", Long.class));
+		assertEquals(MyEnum.A, conversionService.convert("A", MyEnum.class));
+		assertEquals("3", conversionService.convert(3, String.class));
+		assertEquals(MyEnum.B, conversionService.convert("B", TypeDescriptor.valueOf(MyEnum.class)));
+		assertTrue(conversionService.canConvert(String.class, MyEnum.class));
+		assertFalse(conversionService.canConvert(String.class, Color.class));
+	}
+
+	@Test(expected = ConversionFailedException.class)
+	public void frozenFastPathWithConversionFailure() {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		conversionService.freeze();
+		conversionService.convert("x", int.class);
+	}
+
+	@Test(expected = ConversionFailedException.class)
+	public void frozenFastPathWithNullResultForPrimitive() {
+		DefaultConversionService.addDefaultConverters(conversionService);
+		conversionService.freeze();
+		conversionService.convert("", int.class);
+	}
+
+	@Test
+	public void frozenFastPathRecompiledAfterRegistration() {
+		conversionService.freeze();
+		assertFalse(conversionService.canConvert(String.class, Color.class));
+		conversionService.addConverter(new ColorConverter());
+		assertTrue(conversionService.canConvert(String.class, Color.class));
+		assertEquals(Color.RED, conversionService.convert("#FF0000", Color.class));
+	}
+
+	@Test
+	public void frozenFastPathWithAnnotatedTargetType() throws Exception {
+		conversionService.addConverter(new MyConditionalColorConverter());
+		conversionService.freeze();
+		assertFalse(conversionService.canConvert(String.class, Color.class));
+		assertEquals(Color.BLACK, conversionService.convert("000000xxxx",
+				TypeDescriptor.valueOf(String.class), new TypeDescriptor(getClass().getField("activeColor"))));
+	}
+
 
 	@ExampleAnnotation(active = true)
 	public String annotatedString;
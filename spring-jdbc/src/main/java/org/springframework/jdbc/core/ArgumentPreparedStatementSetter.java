@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,7 +27,8 @@ import org.springframework.lang.Nullable;
  * @author Juergen Hoeller
  * @since 3.2.3
  */
-public class ArgumentPreparedStatementSetter implements PreparedStatementSetter, ParameterDisposer {
+public class ArgumentPreparedStatementSetter
+		implements PreparedStatementSetter, ParameterDisposer, QueryResultCache.StatementArguments {
 
 	@Nullable
 	private final Object[] args;
@@ -70,6 +71,11 @@ public class ArgumentPreparedStatementSetter implements PreparedStatementSetter,
 		}
 	}
 
+	@Override
+	public Object[] getStatementArguments() {
+		return (this.args != null ? this.args : new Object[0]);
+	}
+
 	@Override
 	public void cleanupParameters() {
 		StatementCreatorUtils.cleanupParameters(this.args);
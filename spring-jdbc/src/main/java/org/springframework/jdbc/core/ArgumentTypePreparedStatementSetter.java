@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,7 +31,8 @@ import org.springframework.lang.Nullable;
  * @author Juergen Hoeller
  * @since 3.2.3
  */
-public class ArgumentTypePreparedStatementSetter implements PreparedStatementSetter, ParameterDisposer {
+public class ArgumentTypePreparedStatementSetter
+		implements PreparedStatementSetter, ParameterDisposer, QueryResultCache.StatementArguments {
 
 	@Nullable
 	private final Object[] args;
@@ -100,6 +101,11 @@ public class ArgumentTypePreparedStatementSetter implements PreparedStatementSet
 		StatementCreatorUtils.setParameterValue(ps, parameterPosition, argType, argValue);
 	}
 
+	@Override
+	public Object[] getStatementArguments() {
+		return new Object[] {this.args, this.argTypes};
+	}
+
 	@Override
 	public void cleanupParameters() {
 		StatementCreatorUtils.cleanupParameters(this.args);
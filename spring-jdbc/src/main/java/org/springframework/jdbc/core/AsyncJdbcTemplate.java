@@ -0,0 +1,493 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.datasource.PooledDataSourceMXBean;
+import org.springframework.jdbc.support.SQLExceptionTranslator;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.CustomizableThreadCreator;
+import org.springframework.util.concurrent.CompletableToListenableFutureAdapter;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Asynchronous facade for a {@link JdbcTemplate}, executing JDBC operations
+ * on a dedicated bounded thread pool and returning {@link CompletableFuture},
+ * {@link ListenableFuture} or Reactor {@link Mono} handles for their results.
+ *
+ * <p>The executor is sized to the target connection pool by default: with a
+ * {@link org.springframework.jdbc.datasource.PooledDataSource}, the number of
+ * worker threads matches its maximum pool size, so that worker threads never
+ * have to wait for a Connection. Operations beyond that limit wait in a queue
+ * of {@link #setQueueCapacity "queueCapacity"} entries; once that queue is
+ * full, further operations get rejected right away with a
+ * {@link TaskRejectedException}, isolating callers from a saturated database.
+ *
+ * <p>A timeout in seconds may be specified per operation. The time spent in
+ * the queue counts against it: if the timeout expires before the operation
+ * starts executing, it fails with a {@link QueryTimeoutException} without
+ * touching the database; otherwise, the remaining time gets applied to each
+ * JDBC Statement via {@link java.sql.Statement#setQueryTimeout}.
+ *
+ * <p>Operations submitted within a transaction, i.e. with a Connection bound
+ * to the current thread for the target DataSource, get executed synchronously
+ * on the calling thread instead, so that they participate in that transaction
+ * (JDBC Connections are not safe for use by several threads at a time).
+ * The returned handle is completed by the time the method returns then.
+ *
+ * <p>Executor statistics are exposed through the {@link AsyncJdbcTemplateMXBean}
+ * interface. The executor gets started lazily on first use and shut down
+ * on {@link #destroy()}.
+ *
+ * <p>Reactor is an optional dependency: it is only required for the
+ * {@code Mono}-returning methods.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see JdbcTemplate
+ * @see #setConcurrencyLimit
+ * @see #setQueueCapacity
+ */
+public class AsyncJdbcTemplate implements AsyncJdbcTemplateMXBean, DisposableBean {
+
+	/** Default concurrency limit for a DataSource without a known pool size: 10. */
+	public static final int DEFAULT_CONCURRENCY_LIMIT = 10;
+
+	/** Default queue capacity: 100. */
+	public static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private int concurrencyLimit = -1;
+
+	private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+	private int defaultTimeout = -1;
+
+	private String threadNamePrefix = "AsyncJdbcTemplate-";
+
+	@Nullable
+	private volatile ThreadPoolExecutor executor;
+
+	private final Map<Integer, JdbcTemplate> templatesByTimeout = new ConcurrentHashMap<>();
+
+	private final LongAdder submittedCount = new LongAdder();
+
+	private final LongAdder rejectedCount = new LongAdder();
+
+	private final LongAdder expiredCount = new LongAdder();
+
+	private final LongAdder inlineCount = new LongAdder();
+
+
+	/**
+	 * Create a new AsyncJdbcTemplate for the given DataSource.
+	 * @param dataSource the JDBC DataSource to obtain connections from
+	 */
+	public AsyncJdbcTemplate(DataSource dataSource) {
+		this.jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * Create a new AsyncJdbcTemplate for the given {@link JdbcTemplate}.
+	 * @param jdbcTemplate the JdbcTemplate to execute operations with
+	 */
+	public AsyncJdbcTemplate(JdbcTemplate jdbcTemplate) {
+		Assert.notNull(jdbcTemplate, "JdbcTemplate must not be null");
+		Assert.notNull(jdbcTemplate.getDataSource(), "JdbcTemplate must have a DataSource");
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+
+	/**
+	 * Return the underlying JdbcTemplate.
+	 */
+	public JdbcTemplate getJdbcTemplate() {
+		return this.jdbcTemplate;
+	}
+
+	/**
+	 * Set the maximum number of concurrently executing operations,
+	 * i.e. the number of worker threads.
+	 * <p>Default is the maximum pool size of a
+	 * {@link org.springframework.jdbc.datasource.PooledDataSource},
+	 * or {@link #DEFAULT_CONCURRENCY_LIMIT} for any other DataSource.
+	 * Needs to be set before first use.
+	 */
+	public void setConcurrencyLimit(int concurrencyLimit) {
+		Assert.isTrue(concurrencyLimit > 0, "Concurrency limit must be greater than 0");
+		this.concurrencyLimit = concurrencyLimit;
+	}
+
+	@Override
+	public int getConcurrencyLimit() {
+		if (this.concurrencyLimit > 0) {
+			return this.concurrencyLimit;
+		}
+		DataSource dataSource = this.jdbcTemplate.getDataSource();
+		if (dataSource instanceof PooledDataSourceMXBean) {
+			return ((PooledDataSourceMXBean) dataSource).getMaxPoolSize();
+		}
+		return DEFAULT_CONCURRENCY_LIMIT;
+	}
+
+	/**
+	 * Set the maximum number of operations waiting for execution.
+	 * Default is 100.
+	 * <p>A value of 0 switches queueing off: operations get rejected
+	 * unless a worker thread is available right away.
+	 * Needs to be set before first use.
+	 */
+	public void setQueueCapacity(int queueCapacity) {
+		Assert.isTrue(queueCapacity >= 0, "Queue capacity must not be negative");
+		this.queueCapacity = queueCapacity;
+	}
+
+	@Override
+	public int getQueueCapacity() {
+		return this.queueCapacity;
+	}
+
+	/**
+	 * Set the timeout in seconds for operations submitted without
+	 * an explicit timeout.
+	 * <p>Default is -1, applying the query timeout of the underlying
+	 * JdbcTemplate without a limit on the time spent in the queue.
+	 * @see JdbcTemplate#setQueryTimeout
+	 */
+	public void setDefaultTimeout(int defaultTimeout) {
+		this.defaultTimeout = defaultTimeout;
+	}
+
+	/**
+	 * Return the timeout in seconds for operations submitted without
+	 * an explicit timeout.
+	 */
+	public int getDefaultTimeout() {
+		return this.defaultTimeout;
+	}
+
+	/**
+	 * Set the name prefix for the worker threads.
+	 * Default is "AsyncJdbcTemplate-".
+	 */
+	public void setThreadNamePrefix(String threadNamePrefix) {
+		Assert.notNull(threadNamePrefix, "Thread name prefix must not be null");
+		this.threadNamePrefix = threadNamePrefix;
+	}
+
+	/**
+	 * Return the name prefix for the worker threads.
+	 */
+	public String getThreadNamePrefix() {
+		return this.threadNamePrefix;
+	}
+
+
+	/**
+	 * Execute the given operation asynchronously, applying the default timeout.
+	 * @param action a callback performing JDBC operations on the given
+	 * {@link JdbcOperations} instance
+	 * @return a future for the result of the callback
+	 * @see #setDefaultTimeout
+	 */
+	public <T> CompletableFuture<T> execute(Function<JdbcOperations, T> action) {
+		return execute(action, this.defaultTimeout);
+	}
+
+	/**
+	 * Execute the given operation asynchronously.
+	 * @param action a callback performing JDBC operations on the given
+	 * {@link JdbcOperations} instance
+	 * @param timeout the timeout in seconds, including the time spent in
+	 * the queue (-1 for the query timeout of the underlying JdbcTemplate)
+	 * @return a future for the result of the callback, completed with a
+	 * {@link TaskRejectedException} if the queue is full, or with a
+	 * {@link QueryTimeoutException} if the timeout expired in the queue
+	 */
+	public <T> CompletableFuture<T> execute(Function<JdbcOperations, T> action, int timeout) {
+		Assert.notNull(action, "Callback object must not be null");
+		CompletableFuture<T> future = new CompletableFuture<>();
+		if (TransactionSynchronizationManager.hasResource(obtainDataSource())) {
+			this.inlineCount.increment();
+			try {
+				future.complete(action.apply(getTemplate(timeout)));
+			}
+			catch (Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+			return future;
+		}
+		long startTime = System.nanoTime();
+		Runnable task = () -> {
+			if (future.isDone()) {
+				// Cancelled while waiting in the queue.
+				return;
+			}
+			int remainingTimeout = timeout;
+			if (timeout > 0) {
+				long remainingNanos = TimeUnit.SECONDS.toNanos(timeout) - (System.nanoTime() - startTime);
+				if (remainingNanos <= 0) {
+					this.expiredCount.increment();
+					future.completeExceptionally(new QueryTimeoutException(
+							"Timeout of " + timeout + " seconds expired before execution of JDBC operation"));
+					return;
+				}
+				remainingTimeout = (int) ((remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+			}
+			try {
+				future.complete(action.apply(getTemplate(remainingTimeout)));
+			}
+			catch (Throwable ex) {
+				future.completeExceptionally(ex);
+			}
+		};
+		try {
+			obtainExecutor().execute(task);
+			this.submittedCount.increment();
+		}
+		catch (RejectedExecutionException ex) {
+			this.rejectedCount.increment();
+			future.completeExceptionally(new TaskRejectedException(
+					"Queue capacity of " + this.queueCapacity + " exceeded for JDBC operation", ex));
+		}
+		return future;
+	}
+
+	/**
+	 * Execute the given operation asynchronously, applying the default timeout.
+	 * @param action a callback performing JDBC operations on the given
+	 * {@link JdbcOperations} instance
+	 * @return a {@link ListenableFuture} for the result of the callback
+	 * @see #execute(Function)
+	 */
+	public <T> ListenableFuture<T> executeListenable(Function<JdbcOperations, T> action) {
+		return new CompletableToListenableFutureAdapter<>(execute(action));
+	}
+
+	/**
+	 * Execute the given operation asynchronously.
+	 * @param action a callback performing JDBC operations on the given
+	 * {@link JdbcOperations} instance
+	 * @param timeout the timeout in seconds, including the time spent in the queue
+	 * @return a {@link ListenableFuture} for the result of the callback
+	 * @see #execute(Function, int)
+	 */
+	public <T> ListenableFuture<T> executeListenable(Function<JdbcOperations, T> action, int timeout) {
+		return new CompletableToListenableFutureAdapter<>(execute(action, timeout));
+	}
+
+	/**
+	 * Return a {@link Mono} which executes the given operation asynchronously
+	 * once subscribed to, applying the default timeout.
+	 * <p>A {@code null} result of the callback leads to an empty {@code Mono}.
+	 * @param action a callback performing JDBC operations on the given
+	 * {@link JdbcOperations} instance
+	 * @return a {@code Mono} for the result of the callback
+	 * @see #execute(Function)
+	 */
+	public <T> Mono<T> executeMono(Function<JdbcOperations, T> action) {
+		return executeMono(action, this.defaultTimeout);
+	}
+
+	/**
+	 * Return a {@link Mono} which executes the given operation asynchronously
+	 * once subscribed to.
+	 * <p>A {@code null} result of the callback leads to an empty {@code Mono}.
+	 * @param action a callback performing JDBC operations on the given
+	 * {@link JdbcOperations} instance
+	 * @param timeout the timeout in seconds, including the time spent in the queue
+	 * @return a {@code Mono} for the result of the callback
+	 * @see #execute(Function, int)
+	 */
+	public <T> Mono<T> executeMono(Function<JdbcOperations, T> action, int timeout) {
+		return ReactorDelegate.defer(() -> execute(action, timeout));
+	}
+
+
+	//-------------------------------------------------------------------------
+	// Convenience methods for common operations
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Asynchronously query given SQL, mapping each row via a RowMapper.
+	 * @see JdbcOperations#query(String, RowMapper, Object...)
+	 */
+	public <T> CompletableFuture<List<T>> query(String sql, RowMapper<T> rowMapper, @Nullable Object... args) {
+		return execute(ops -> ops.query(sql, rowMapper, args));
+	}
+
+	/**
+	 * Asynchronously query given SQL for a single result object.
+	 * @see JdbcOperations#queryForObject(String, Class, Object...)
+	 */
+	public <T> CompletableFuture<T> queryForObject(String sql, Class<T> requiredType, @Nullable Object... args) {
+		return execute(ops -> ops.queryForObject(sql, requiredType, args));
+	}
+
+	/**
+	 * Asynchronously query given SQL for a list of column Maps.
+	 * @see JdbcOperations#queryForList(String, Object...)
+	 */
+	public CompletableFuture<List<Map<String, Object>>> queryForList(String sql, @Nullable Object... args) {
+		return execute(ops -> ops.queryForList(sql, args));
+	}
+
+	/**
+	 * Asynchronously issue a single SQL update operation.
+	 * @see JdbcOperations#update(String, Object...)
+	 */
+	public CompletableFuture<Integer> update(String sql, @Nullable Object... args) {
+		return execute(ops -> ops.update(sql, args));
+	}
+
+
+	//-------------------------------------------------------------------------
+	// Implementation of AsyncJdbcTemplateMXBean interface
+	//-------------------------------------------------------------------------
+
+	@Override
+	public int getActiveCount() {
+		ThreadPoolExecutor executor = this.executor;
+		return (executor != null ? executor.getActiveCount() : 0);
+	}
+
+	@Override
+	public int getQueueSize() {
+		ThreadPoolExecutor executor = this.executor;
+		return (executor != null ? executor.getQueue().size() : 0);
+	}
+
+	@Override
+	public long getSubmittedCount() {
+		return this.submittedCount.sum();
+	}
+
+	@Override
+	public long getRejectedCount() {
+		return this.rejectedCount.sum();
+	}
+
+	@Override
+	public long getExpiredCount() {
+		return this.expiredCount.sum();
+	}
+
+	@Override
+	public long getInlineCount() {
+		return this.inlineCount.sum();
+	}
+
+
+	/**
+	 * Shut down the executor, letting queued operations complete.
+	 */
+	@Override
+	public void destroy() {
+		ThreadPoolExecutor executor = this.executor;
+		if (executor != null) {
+			executor.shutdown();
+		}
+	}
+
+
+	private DataSource obtainDataSource() {
+		DataSource dataSource = this.jdbcTemplate.getDataSource();
+		Assert.state(dataSource != null, "No DataSource set");
+		return dataSource;
+	}
+
+	/**
+	 * Return the executor, creating it on first access.
+	 */
+	private ThreadPoolExecutor obtainExecutor() {
+		ThreadPoolExecutor executor = this.executor;
+		if (executor == null) {
+			synchronized (this) {
+				executor = this.executor;
+				if (executor == null) {
+					int poolSize = getConcurrencyLimit();
+					BlockingQueue<Runnable> queue = (this.queueCapacity > 0 ?
+							new ArrayBlockingQueue<>(this.queueCapacity) : new SynchronousQueue<>());
+					CustomizableThreadCreator threadCreator = new CustomizableThreadCreator(this.threadNamePrefix);
+					executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+							queue, threadCreator::createThread, new ThreadPoolExecutor.AbortPolicy());
+					executor.allowCoreThreadTimeOut(true);
+					this.executor = executor;
+				}
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Return a JdbcTemplate applying the given query timeout, derived from
+	 * the underlying JdbcTemplate with all of its other settings if necessary.
+	 */
+	private JdbcTemplate getTemplate(int timeout) {
+		if (timeout < 0 || timeout == this.jdbcTemplate.getQueryTimeout()) {
+			return this.jdbcTemplate;
+		}
+		return this.templatesByTimeout.computeIfAbsent(timeout, key -> {
+			JdbcTemplate template = new JdbcTemplate() {
+				@Override
+				public SQLExceptionTranslator getExceptionTranslator() {
+					// Share the lazily initialized translator of the underlying template
+					return jdbcTemplate.getExceptionTranslator();
+				}
+			};
+			template.copySettingsFrom(this.jdbcTemplate);
+			template.setQueryTimeout(key);
+			return template;
+		});
+	}
+
+
+	/**
+	 * Inner class to avoid a hard dependency on Reactor at runtime.
+	 */
+	private static class ReactorDelegate {
+
+		static <T> Mono<T> defer(Supplier<CompletableFuture<T>> futureSupplier) {
+			return Mono.defer(() -> Mono.fromFuture(futureSupplier.get()));
+		}
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+/**
+ * Management interface for an {@link AsyncJdbcTemplate}, exposing
+ * statistics about its dedicated executor.
+ *
+ * <p>Follows the MXBean conventions, so an {@code AsyncJdbcTemplate} bean is
+ * automatically detected and registered by Spring's
+ * {@link org.springframework.jmx.export.MBeanExporter} when autodetection
+ * is active, without any need for JMX-specific metadata.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see AsyncJdbcTemplate
+ */
+public interface AsyncJdbcTemplateMXBean {
+
+	/**
+	 * Return the maximum number of concurrently executing operations.
+	 */
+	int getConcurrencyLimit();
+
+	/**
+	 * Return the maximum number of operations waiting for execution.
+	 */
+	int getQueueCapacity();
+
+	/**
+	 * Return the number of operations currently executing.
+	 */
+	int getActiveCount();
+
+	/**
+	 * Return the number of operations currently waiting for execution.
+	 */
+	int getQueueSize();
+
+	/**
+	 * Return the total number of operations submitted to the executor.
+	 */
+	long getSubmittedCount();
+
+	/**
+	 * Return the number of operations rejected because of a full queue.
+	 */
+	long getRejectedCount();
+
+	/**
+	 * Return the number of operations whose timeout expired
+	 * while waiting for execution.
+	 */
+	long getExpiredCount();
+
+	/**
+	 * Return the number of operations executed on the calling thread
+	 * because of a transaction-bound Connection.
+	 */
+	long getInlineCount();
+
+}
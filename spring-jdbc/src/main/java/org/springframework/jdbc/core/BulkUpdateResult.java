@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+/**
+ * Aggregated result of a bulk update executed in chunks across several
+ * Connections, as returned by {@link JdbcTemplate#bulkUpdate}.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see JdbcTemplate#bulkUpdate
+ */
+public class BulkUpdateResult {
+
+	private final int[][] updateCounts;
+
+	private final int rowCount;
+
+	private final int retryCount;
+
+	private final long elapsedTime;
+
+
+	/**
+	 * Create a new BulkUpdateResult.
+	 * @param updateCounts the update counts per chunk, in input order
+	 * @param rowCount the number of input rows
+	 * @param retryCount the number of chunk executions which have been retried
+	 * @param elapsedTime the overall execution time in milliseconds
+	 */
+	public BulkUpdateResult(int[][] updateCounts, int rowCount, int retryCount, long elapsedTime) {
+		this.updateCounts = updateCounts;
+		this.rowCount = rowCount;
+		this.retryCount = retryCount;
+		this.elapsedTime = elapsedTime;
+	}
+
+
+	/**
+	 * Return the update counts as returned by the JDBC driver:
+	 * an array per chunk, with the chunks in the order of the input rows.
+	 */
+	public int[][] getUpdateCounts() {
+		return this.updateCounts;
+	}
+
+	/**
+	 * Return the sum of all update counts reported by the JDBC driver,
+	 * not including {@link java.sql.Statement#SUCCESS_NO_INFO} entries.
+	 */
+	public long getTotalUpdateCount() {
+		long total = 0;
+		for (int[] chunkCounts : this.updateCounts) {
+			for (int count : chunkCounts) {
+				if (count > 0) {
+					total += count;
+				}
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Return the number of input rows.
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Return the number of chunks that the input rows have been split into.
+	 */
+	public int getChunkCount() {
+		return this.updateCounts.length;
+	}
+
+	/**
+	 * Return the number of chunk executions which have been retried
+	 * after a transient failure.
+	 */
+	public int getRetryCount() {
+		return this.retryCount;
+	}
+
+	/**
+	 * Return the overall execution time in milliseconds.
+	 */
+	public long getElapsedTime() {
+		return this.elapsedTime;
+	}
+
+	/**
+	 * Return the throughput of the bulk update in input rows per second.
+	 */
+	public double getRowsPerSecond() {
+		return (this.elapsedTime > 0 ? this.rowCount * 1000.0 / this.elapsedTime : this.rowCount);
+	}
+
+
+	@Override
+	public String toString() {
+		return "BulkUpdateResult: rows=" + this.rowCount + ", chunks=" + getChunkCount() +
+				", retries=" + this.retryCount + ", elapsedTime=" + this.elapsedTime + "ms, rowsPerSecond=" +
+				String.format("%.1f", getRowsPerSecond());
+	}
+
+}
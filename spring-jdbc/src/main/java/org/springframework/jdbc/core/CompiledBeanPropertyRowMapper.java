@@ -0,0 +1,399 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyDescriptor;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeanInstantiationException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.MethodInvocationException;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link BeanPropertyRowMapper} variant which resolves the mapping between
+ * result set columns and bean properties once per combination of mapped class
+ * and column labels, instead of once per row.
+ *
+ * <p>The resulting mapping plan is shared across mapper instances and holds,
+ * for each mapped column index, the target setter method along with a typed
+ * {@code ResultSet} accessor ({@code getLong(int)}, {@code getString(int)},
+ * etc.) for the property type. Rows are then mapped through direct setter
+ * invocations on an instance created via the cached default constructor,
+ * without a {@link org.springframework.beans.BeanWrapper} per row.
+ * A {@link ConversionService} is only consulted for values which are not
+ * assignable to the property type as retrieved.
+ *
+ * <p>Column name matching, {@link #setCheckFullyPopulated "checkFullyPopulated"}
+ * and {@link #setPrimitivesDefaultedForNullValue "primitivesDefaultedForNullValue"}
+ * follow the semantics of {@code BeanPropertyRowMapper}. Since no
+ * {@code BeanWrapper} is involved, {@link #initBeanWrapper} and
+ * {@link #getColumnValue} are not called by this mapper.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @param <T> the result type
+ */
+public class CompiledBeanPropertyRowMapper<T> extends BeanPropertyRowMapper<T> {
+
+	private static final Map<Class<?>, ColumnReader> columnReaders = new HashMap<>(32);
+
+	private static final Map<MappingKey, MappingPlan> mappingPlanCache = new ConcurrentReferenceHashMap<>(64);
+
+	static {
+		columnReaders.put(String.class, ResultSet::getString);
+		columnReaders.put(BigDecimal.class, ResultSet::getBigDecimal);
+		columnReaders.put(byte[].class, ResultSet::getBytes);
+		columnReaders.put(java.sql.Date.class, ResultSet::getDate);
+		columnReaders.put(java.sql.Time.class, ResultSet::getTime);
+		columnReaders.put(java.sql.Timestamp.class, ResultSet::getTimestamp);
+		columnReaders.put(java.util.Date.class, ResultSet::getTimestamp);
+		registerPrimitiveReader(boolean.class, Boolean.class, ResultSet::getBoolean);
+		registerPrimitiveReader(byte.class, Byte.class, ResultSet::getByte);
+		registerPrimitiveReader(short.class, Short.class, ResultSet::getShort);
+		registerPrimitiveReader(int.class, Integer.class, ResultSet::getInt);
+		registerPrimitiveReader(long.class, Long.class, ResultSet::getLong);
+		registerPrimitiveReader(float.class, Float.class, ResultSet::getFloat);
+		registerPrimitiveReader(double.class, Double.class, ResultSet::getDouble);
+	}
+
+	private static void registerPrimitiveReader(Class<?> primitiveType, Class<?> wrapperType, ColumnReader reader) {
+		ColumnReader nullAwareReader = (rs, index) -> {
+			Object value = reader.read(rs, index);
+			return (rs.wasNull() ? null : value);
+		};
+		columnReaders.put(primitiveType, nullAwareReader);
+		columnReaders.put(wrapperType, nullAwareReader);
+	}
+
+
+	/** The most recently used plan along with the ResultSet it applies to. */
+	@Nullable
+	private volatile ResultSetMappingPlan currentPlan;
+
+
+	/**
+	 * Create a new {@code CompiledBeanPropertyRowMapper} for bean-style configuration.
+	 * @see #setMappedClass
+	 * @see #setCheckFullyPopulated
+	 */
+	public CompiledBeanPropertyRowMapper() {
+	}
+
+	/**
+	 * Create a new {@code CompiledBeanPropertyRowMapper}, accepting unpopulated
+	 * properties in the target bean.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public CompiledBeanPropertyRowMapper(Class<T> mappedClass) {
+		super(mappedClass);
+	}
+
+	/**
+	 * Create a new {@code CompiledBeanPropertyRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 * @param checkFullyPopulated whether we're strictly validating that
+	 * all bean properties have been mapped from corresponding database fields
+	 */
+	public CompiledBeanPropertyRowMapper(Class<T> mappedClass, boolean checkFullyPopulated) {
+		super(mappedClass, checkFullyPopulated);
+	}
+
+
+	/**
+	 * Map the current row through the mapping plan for the given ResultSet.
+	 */
+	@Override
+	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+		Class<T> mappedClass = getMappedClass();
+		Assert.state(mappedClass != null, "Mapped class was not specified");
+		MappingPlan plan = getMappingPlan(rs, mappedClass);
+
+		if (isCheckFullyPopulated() && !plan.fullyPopulated) {
+			throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+					"necessary to populate object of " + mappedClass + ": " + plan.writableProperties);
+		}
+
+		T mappedObject = BeanUtils.instantiateClass(plan.<T>getConstructor());
+		for (PropertyMapping mapping : plan.propertyMappings) {
+			Object value = mapping.reader.read(rs, mapping.index);
+			if (value == null) {
+				if (mapping.propertyType.isPrimitive()) {
+					if (isPrimitivesDefaultedForNullValue()) {
+						continue;
+					}
+					throw new TypeMismatchException(
+							new PropertyChangeEvent(mappedObject, mapping.propertyName, null, null), mapping.propertyType);
+				}
+			}
+			else if (!ClassUtils.isAssignableValue(mapping.propertyType, value)) {
+				value = convertValue(mappedObject, mapping, value);
+			}
+			try {
+				mapping.writeMethod.invoke(mappedObject, value);
+			}
+			catch (InvocationTargetException ex) {
+				throw new MethodInvocationException(
+						new PropertyChangeEvent(mappedObject, mapping.propertyName, null, value), ex.getTargetException());
+			}
+			catch (IllegalAccessException ex) {
+				throw new IllegalStateException("Could not access setter for property '" +
+						mapping.propertyName + "': " + ex);
+			}
+		}
+		return mappedObject;
+	}
+
+	@Nullable
+	private Object convertValue(T mappedObject, PropertyMapping mapping, Object value) {
+		ConversionService conversionService = getConversionService();
+		if (conversionService != null && conversionService.canConvert(value.getClass(), mapping.propertyType)) {
+			return conversionService.convert(value, mapping.propertyType);
+		}
+		throw new TypeMismatchException(
+				new PropertyChangeEvent(mappedObject, mapping.propertyName, null, value), mapping.propertyType);
+	}
+
+	/**
+	 * Obtain the mapping plan for the given ResultSet, reusing the current
+	 * plan while the same ResultSet is being processed.
+	 */
+	private MappingPlan getMappingPlan(ResultSet rs, Class<T> mappedClass) throws SQLException {
+		ResultSetMappingPlan currentPlan = this.currentPlan;
+		if (currentPlan != null && currentPlan.resultSet.get() == rs) {
+			return currentPlan.plan;
+		}
+		ResultSetMetaData rsmd = rs.getMetaData();
+		String[] columns = new String[rsmd.getColumnCount()];
+		for (int index = 1; index <= columns.length; index++) {
+			columns[index - 1] = JdbcUtils.lookupColumnName(rsmd, index);
+		}
+		MappingKey key = new MappingKey(getClass(), mappedClass, columns);
+		MappingPlan plan = mappingPlanCache.get(key);
+		if (plan == null) {
+			plan = buildMappingPlan(mappedClass, columns);
+			mappingPlanCache.put(key, plan);
+		}
+		this.currentPlan = new ResultSetMappingPlan(rs, plan);
+		return plan;
+	}
+
+	/**
+	 * Resolve the column-to-property mapping for the given columns.
+	 */
+	private MappingPlan buildMappingPlan(Class<T> mappedClass, String[] columns) {
+		Map<String, PropertyDescriptor> mappedFields = new HashMap<>();
+		Set<String> writableProperties = new HashSet<>();
+		for (PropertyDescriptor pd : BeanUtils.getPropertyDescriptors(mappedClass)) {
+			if (pd.getWriteMethod() != null) {
+				mappedFields.put(lowerCaseName(pd.getName()), pd);
+				String underscoredName = underscoreName(pd.getName());
+				if (!lowerCaseName(pd.getName()).equals(underscoredName)) {
+					mappedFields.put(underscoredName, pd);
+				}
+				writableProperties.add(pd.getName());
+			}
+		}
+
+		PropertyMapping[] propertyMappings = new PropertyMapping[columns.length];
+		Set<String> populatedProperties = new HashSet<>();
+		int count = 0;
+		for (int index = 1; index <= columns.length; index++) {
+			String column = columns[index - 1];
+			String field = lowerCaseName(StringUtils.delete(column, " "));
+			PropertyDescriptor pd = mappedFields.get(field);
+			if (pd != null) {
+				Method writeMethod = pd.getWriteMethod();
+				ReflectionUtils.makeAccessible(writeMethod);
+				Class<?> propertyType = pd.getPropertyType();
+				ColumnReader reader = columnReaders.get(propertyType);
+				if (reader == null) {
+					reader = (rs, columnIndex) -> JdbcUtils.getResultSetValue(rs, columnIndex, propertyType);
+				}
+				propertyMappings[count++] = new PropertyMapping(index, pd.getName(), propertyType, writeMethod, reader);
+				populatedProperties.add(pd.getName());
+				if (logger.isDebugEnabled()) {
+					logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+							"' of type '" + ClassUtils.getQualifiedName(propertyType) + "'");
+				}
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("No property found for column '" + column + "' mapped to field '" + field + "'");
+			}
+		}
+
+		Constructor<?> ctor;
+		try {
+			ctor = ReflectionUtils.accessibleConstructor(mappedClass);
+		}
+		catch (NoSuchMethodException ex) {
+			throw new BeanInstantiationException(mappedClass, "No default constructor found", ex);
+		}
+		return new MappingPlan(ctor, Arrays.copyOf(propertyMappings, count),
+				writableProperties, populatedProperties.equals(writableProperties));
+	}
+
+
+	/**
+	 * Static factory method to create a new {@code CompiledBeanPropertyRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public static <T> CompiledBeanPropertyRowMapper<T> newInstance(Class<T> mappedClass) {
+		return new CompiledBeanPropertyRowMapper<>(mappedClass);
+	}
+
+
+	/**
+	 * Typed accessor for a single column of the current row.
+	 */
+	@FunctionalInterface
+	private interface ColumnReader {
+
+		@Nullable
+		Object read(ResultSet rs, int index) throws SQLException;
+	}
+
+
+	/**
+	 * Resolved mapping from a column index to a bean property.
+	 */
+	private static final class PropertyMapping {
+
+		final int index;
+
+		final String propertyName;
+
+		final Class<?> propertyType;
+
+		final Method writeMethod;
+
+		final ColumnReader reader;
+
+		PropertyMapping(int index, String propertyName, Class<?> propertyType, Method writeMethod, ColumnReader reader) {
+			this.index = index;
+			this.propertyName = propertyName;
+			this.propertyType = propertyType;
+			this.writeMethod = writeMethod;
+			this.reader = reader;
+		}
+	}
+
+
+	/**
+	 * Mapping plan for a specific mapped class and column layout.
+	 */
+	private static final class MappingPlan {
+
+		private final Constructor<?> constructor;
+
+		final PropertyMapping[] propertyMappings;
+
+		final Set<String> writableProperties;
+
+		final boolean fullyPopulated;
+
+		MappingPlan(Constructor<?> constructor, PropertyMapping[] propertyMappings,
+				Set<String> writableProperties, boolean fullyPopulated) {
+
+			this.constructor = constructor;
+			this.propertyMappings = propertyMappings;
+			this.writableProperties = writableProperties;
+			this.fullyPopulated = fullyPopulated;
+		}
+
+		@SuppressWarnings("unchecked")
+		<T> Constructor<T> getConstructor() {
+			return (Constructor<T>) this.constructor;
+		}
+	}
+
+
+	/**
+	 * Cache key for a mapping plan.
+	 */
+	private static final class MappingKey {
+
+		private final Class<?> mapperClass;
+
+		private final Class<?> mappedClass;
+
+		private final String[] columns;
+
+		MappingKey(Class<?> mapperClass, Class<?> mappedClass, String[] columns) {
+			this.mapperClass = mapperClass;
+			this.mappedClass = mappedClass;
+			this.columns = columns;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MappingKey)) {
+				return false;
+			}
+			MappingKey otherKey = (MappingKey) other;
+			return (this.mapperClass == otherKey.mapperClass && this.mappedClass == otherKey.mappedClass &&
+					Arrays.equals(this.columns, otherKey.columns));
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.mappedClass.hashCode() * 29 + Arrays.hashCode(this.columns));
+		}
+	}
+
+
+	/**
+	 * Holder for the plan applying to a specific ResultSet.
+	 */
+	private static final class ResultSetMappingPlan {
+
+		final WeakReference<ResultSet> resultSet;
+
+		final MappingPlan plan;
+
+		ResultSetMappingPlan(ResultSet resultSet, MappingPlan plan) {
+			this.resultSet = new WeakReference<>(resultSet);
+			this.plan = plan;
+		}
+	}
+
+}
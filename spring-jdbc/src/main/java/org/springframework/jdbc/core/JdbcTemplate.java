@@ -20,6 +20,7 @@ import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.sql.BatchUpdateException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
@@ -34,11 +35,23 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import javax.sql.DataSource;
 
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.SQLWarningException;
 import org.springframework.jdbc.UncategorizedSQLException;
@@ -47,11 +60,16 @@ import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.jdbc.support.JdbcAccessor;
 import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.support.rowset.ColumnarRowList;
+import org.springframework.jdbc.support.rowset.ColumnarSqlRowSet;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 import org.springframework.util.LinkedCaseInsensitiveMap;
 import org.springframework.util.StringUtils;
+import org.springframework.util.backoff.BackOffExecution;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 /**
  * <b>This is the central class in the JDBC core package.</b>
@@ -147,6 +165,26 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 */
 	private boolean resultsMapCaseInsensitive = false;
 
+	/**
+	 * If this variable is set to a positive value, updates within a transaction
+	 * will be buffered and executed as JDBC batches of up to this size.
+	 */
+	private int writeBehindBatchSize = 0;
+
+	/** The executor to run bulk update chunks on, if not thread-per-worker. */
+	@Nullable
+	private Executor bulkUpdateExecutor;
+
+	/** The number of retries for a bulk update chunk after a transient failure. */
+	private int bulkUpdateRetries = 3;
+
+	/** Whether queryForList and queryForRowSet return columnar results. */
+	private boolean columnarResults = false;
+
+	/** The cache for query results, if any. */
+	@Nullable
+	private QueryResultCache queryResultCache;
+
 
 	/**
 	 * Construct a new JdbcTemplate for bean usage.
@@ -311,6 +349,176 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return this.resultsMapCaseInsensitive;
 	}
 
+	/**
+	 * Set the maximum number of updates to buffer within a transaction,
+	 * activating write-behind mode for values greater than 0. Default is 0.
+	 * <p>In write-behind mode, {@code update} calls with SQL and a
+	 * PreparedStatementSetter or arguments are not executed right away when
+	 * issued within an actual transaction with transaction synchronization
+	 * active. They are rather buffered per DataSource and executed as JDBC batches,
+	 * coalescing consecutive updates with identical SQL, when the buffer limit
+	 * is reached, before any other statement is executed through a JdbcTemplate
+	 * for the same DataSource, and before the transaction commits. Buffered
+	 * updates are discarded on rollback.
+	 * <p><b>NOTE:</b> Buffered {@code update} calls return
+	 * {@link Statement#SUCCESS_NO_INFO} instead of an actual update count,
+	 * and failures only surface when the buffer gets flushed, potentially
+	 * at commit time. Call {@link #flushWriteBehindUpdates()} to obtain the
+	 * actual update counts. Also, statement parameters are only applied on
+	 * flush, so argument values must not be modified after the update call.
+	 * Statements issued against the transactional Connection without going
+	 * through a JdbcTemplate will not see buffered updates.
+	 * <p>Buffered updates are executed through the template which issued them,
+	 * with its statement settings. If their execution fails, the remaining
+	 * buffered updates are discarded and the transaction is marked as
+	 * rollback-only, in addition to the exception being propagated.
+	 * @since 5.1.21
+	 * @see #flushWriteBehindUpdates()
+	 * @see org.springframework.transaction.support.TransactionSynchronizationManager
+	 */
+	public void setWriteBehindBatchSize(int writeBehindBatchSize) {
+		this.writeBehindBatchSize = writeBehindBatchSize;
+	}
+
+	/**
+	 * Return the maximum number of updates to buffer within a transaction.
+	 * @since 5.1.21
+	 */
+	public int getWriteBehindBatchSize() {
+		return this.writeBehindBatchSize;
+	}
+
+	/**
+	 * Set the executor to run the workers of a {@link #bulkUpdate bulk update} on.
+	 * <p>Default is a new thread per worker. Note that each worker holds on to
+	 * a Connection of its own, so the executor's concurrency limit effectively
+	 * caps the number of Connections in use for a bulk update.
+	 * @since 5.1.21
+	 * @see #bulkUpdate
+	 */
+	public void setBulkUpdateExecutor(@Nullable Executor bulkUpdateExecutor) {
+		this.bulkUpdateExecutor = bulkUpdateExecutor;
+	}
+
+	/**
+	 * Return the executor to run the workers of a bulk update on, if any.
+	 * @since 5.1.21
+	 */
+	@Nullable
+	public Executor getBulkUpdateExecutor() {
+		return this.bulkUpdateExecutor;
+	}
+
+	/**
+	 * Set the number of times a chunk of a {@link #bulkUpdate bulk update} gets
+	 * retried after a transient failure, e.g. a deadlock or lock acquisition
+	 * failure as classified by the {@link #getExceptionTranslator() exception
+	 * translator}. Default is 3.
+	 * @since 5.1.21
+	 * @see org.springframework.dao.TransientDataAccessException
+	 * @see org.springframework.dao.RecoverableDataAccessException
+	 */
+	public void setBulkUpdateRetries(int bulkUpdateRetries) {
+		Assert.isTrue(bulkUpdateRetries >= 0, "bulkUpdateRetries must not be negative");
+		this.bulkUpdateRetries = bulkUpdateRetries;
+	}
+
+	/**
+	 * Return the number of times a chunk of a bulk update gets retried.
+	 * @since 5.1.21
+	 */
+	public int getBulkUpdateRetries() {
+		return this.bulkUpdateRetries;
+	}
+
+	/**
+	 * Set whether {@code queryForList} variants returning column Maps as well as
+	 * {@code queryForRowSet} variants should build a columnar representation
+	 * of the result, sharing one column index across all rows and storing
+	 * numeric and boolean values in primitive arrays. Default is "false".
+	 * <p>Switch this on for large generic results in order to reduce memory
+	 * consumption. Note that the column Maps will be read-only views then,
+	 * and that {@link #getColumnMapRowMapper()} will not be used for them.
+	 * @since 5.1.21
+	 * @see ColumnarRowList
+	 * @see ColumnarSqlRowSet
+	 */
+	public void setColumnarResults(boolean columnarResults) {
+		this.columnarResults = columnarResults;
+	}
+
+	/**
+	 * Return whether {@code queryForList} and {@code queryForRowSet} build
+	 * a columnar representation of the result.
+	 * @since 5.1.21
+	 */
+	public boolean isColumnarResults() {
+		return this.columnarResults;
+	}
+
+	/**
+	 * Set a cache for the results of queries issued through this template,
+	 * keyed by SQL and arguments and invalidated by the tables affected by
+	 * updates issued through this template. Default is none.
+	 * <p>Applies to queries with SQL and simple arguments processed through a
+	 * {@link ResultSetExtractor}, {@link RowCallbackHandler} or {@link RowMapper},
+	 * including queries issued through a
+	 * {@link org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate}
+	 * which wraps this template.
+	 * @since 5.1.21
+	 * @see QueryResultCache
+	 */
+	public void setQueryResultCache(@Nullable QueryResultCache queryResultCache) {
+		this.queryResultCache = queryResultCache;
+	}
+
+	/**
+	 * Return the cache for the results of queries issued through this template, if any.
+	 * @since 5.1.21
+	 */
+	@Nullable
+	public QueryResultCache getQueryResultCache() {
+		return this.queryResultCache;
+	}
+
+	/**
+	 * Execute all updates buffered for this template's DataSource within the
+	 * current transaction, in write-behind mode.
+	 * @return the update counts of all updates executed since the last
+	 * invocation of this method within the current transaction, in the order
+	 * in which the updates were issued (an empty array if there are none)
+	 * @throws DataAccessException if there is any problem executing the updates
+	 * @since 5.1.21
+	 * @see #setWriteBehindBatchSize
+	 */
+	public int[] flushWriteBehindUpdates() throws DataAccessException {
+		WriteBehindUpdateBuffer buffer = WriteBehindUpdateBuffer.getBuffer(obtainDataSource());
+		return (buffer != null ? buffer.flushAndGetUpdateCounts() : new int[0]);
+	}
+
+	/**
+	 * Apply all settings of the given JdbcTemplate to this template,
+	 * including its DataSource but not its exception translator.
+	 * @param other the JdbcTemplate to copy the settings from
+	 * @since 5.1.21
+	 */
+	void copySettingsFrom(JdbcTemplate other) {
+		setDataSource(other.getDataSource());
+		setLazyInit(other.isLazyInit());
+		this.ignoreWarnings = other.ignoreWarnings;
+		this.fetchSize = other.fetchSize;
+		this.maxRows = other.maxRows;
+		this.queryTimeout = other.queryTimeout;
+		this.skipResultsProcessing = other.skipResultsProcessing;
+		this.skipUndeclaredResults = other.skipUndeclaredResults;
+		this.resultsMapCaseInsensitive = other.resultsMapCaseInsensitive;
+		this.writeBehindBatchSize = other.writeBehindBatchSize;
+		this.bulkUpdateExecutor = other.bulkUpdateExecutor;
+		this.bulkUpdateRetries = other.bulkUpdateRetries;
+		this.columnarResults = other.columnarResults;
+		this.queryResultCache = other.queryResultCache;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with a plain java.sql.Connection
@@ -321,6 +529,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	public <T> T execute(ConnectionCallback<T> action) throws DataAccessException {
 		Assert.notNull(action, "Callback object must not be null");
 
+		flushWriteBehindUpdatesIfNecessary();
 		Connection con = DataSourceUtils.getConnection(obtainDataSource());
 		try {
 			// Create close-suppressing Connection proxy, also preparing returned Statements.
@@ -358,29 +567,84 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				new CloseSuppressingInvocationHandler(con));
 	}
 
+	/**
+	 * Register the closing of the given Statement and the release of the given
+	 * Connection with the close handler of the given {@link Stream} result.
+	 * <p>Releases the Connection handle exactly as obtained from
+	 * {@link DataSourceUtils#getConnection}, rather than the Connection exposed
+	 * by the Statement which might be the underlying target of a proxy.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T closeOnStreamClose(T result, Statement stmt, Connection con) {
+		Assert.state(result instanceof Stream, "Stream result expected");
+		return (T) ((Stream<?>) result).onClose(() -> {
+			JdbcUtils.closeStatement(stmt);
+			DataSourceUtils.releaseConnection(con, getDataSource());
+		});
+	}
+
+
+	/**
+	 * Close the given {@link Stream} result which has not been handed over
+	 * to the caller, running its own cleanup of ResultSet and parameters.
+	 * @param result the result returned by the callback (may be {@code null})
+	 * @param closeResources whether the resources are closed after the callback
+	 * (in which case the result is not a Stream to be closed here)
+	 * @return whether a Stream result has been closed
+	 */
+	private boolean closeStreamResult(@Nullable Object result, boolean closeResources) {
+		if (!closeResources && result instanceof Stream) {
+			try {
+				((Stream<?>) result).close();
+			}
+			catch (Throwable ex) {
+				logger.debug("Could not close Stream result", ex);
+			}
+			return true;
+		}
+		return false;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with static SQL (java.sql.Statement)
 	//-------------------------------------------------------------------------
 
-	@Override
+	/**
+	 * Internal execute callback method for static SQL.
+	 * @param action a callback that specifies the action
+	 * @param closeResources whether to close the Statement and release the
+	 * Connection after the callback (or leave it to the close handler of the
+	 * {@link Stream} returned by the callback)
+	 * @return a result object returned by the action, or {@code null} if none
+	 * @throws DataAccessException if there is any problem
+	 */
 	@Nullable
-	public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+	private <T> T execute(StatementCallback<T> action, boolean closeResources) throws DataAccessException {
 		Assert.notNull(action, "Callback object must not be null");
 
+		flushWriteBehindUpdatesIfNecessary();
 		Connection con = DataSourceUtils.getConnection(obtainDataSource());
 		Statement stmt = null;
+		T result = null;
+		boolean handedOver = false;
 		try {
 			stmt = con.createStatement();
 			applyStatementSettings(stmt);
-			T result = action.doInStatement(stmt);
+			result = action.doInStatement(stmt);
 			handleWarnings(stmt);
+			if (!closeResources) {
+				result = closeOnStreamClose(result, stmt, con);
+				handedOver = true;
+			}
 			return result;
 		}
 		catch (SQLException ex) {
 			// Release Connection early, to avoid potential connection pool deadlock
 			// in the case when the exception translator hasn't been initialized yet.
 			String sql = getSql(action);
+			closeStreamResult(result, closeResources);
+			result = null;
 			JdbcUtils.closeStatement(stmt);
 			stmt = null;
 			DataSourceUtils.releaseConnection(con, getDataSource());
@@ -388,11 +652,21 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			throw translateException("StatementCallback", sql, ex);
 		}
 		finally {
-			JdbcUtils.closeStatement(stmt);
-			DataSourceUtils.releaseConnection(con, getDataSource());
+			// Unless handed over to a Stream result, also on any runtime exception
+			if (!handedOver) {
+				closeStreamResult(result, closeResources);
+				JdbcUtils.closeStatement(stmt);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
 		}
 	}
 
+	@Override
+	@Nullable
+	public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+		return execute(action, true);
+	}
+
 	@Override
 	public void execute(final String sql) throws DataAccessException {
 		if (logger.isDebugEnabled()) {
@@ -416,6 +690,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 
 		execute(new ExecuteStatementCallback());
+		invalidateQueryResults(sql);
 	}
 
 	@Override
@@ -423,6 +698,14 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	public <T> T query(final String sql, final ResultSetExtractor<T> rse) throws DataAccessException {
 		Assert.notNull(sql, "SQL must not be null");
 		Assert.notNull(rse, "ResultSetExtractor must not be null");
+		QueryResultCache.CachedQuery cachedQuery =
+				(this.queryResultCache != null ? this.queryResultCache.getCachedQuery(sql, new Object[0]) : null);
+		if (cachedQuery != null) {
+			ResultSet cachedResult = getCachedResult(cachedQuery);
+			if (cachedResult != null) {
+				return extractCachedResult(cachedQuery, cachedResult, rse);
+			}
+		}
 		if (logger.isDebugEnabled()) {
 			logger.debug("Executing SQL query [" + sql + "]");
 		}
@@ -437,7 +720,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				ResultSet rs = null;
 				try {
 					rs = stmt.executeQuery(sql);
-					return rse.extractData(rs);
+					return rse.extractData(cachedQuery != null ? cachedQuery.cacheResult(rs) : rs);
 				}
 				finally {
 					JdbcUtils.closeResultSet(rs);
@@ -462,6 +745,29 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper) throws DataAccessException {
+		Assert.notNull(sql, "SQL must not be null");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing SQL query [" + sql + "]");
+		}
+
+		class StreamStatementCallback implements StatementCallback<Stream<T>>, SqlProvider {
+			@Override
+			public Stream<T> doInStatement(Statement stmt) throws SQLException {
+				ResultSet rs = stmt.executeQuery(sql);
+				return new ResultSetSpliterator<>(rs, rowMapper).stream().onClose(() -> JdbcUtils.closeResultSet(rs));
+			}
+			@Override
+			public String getSql() {
+				return sql;
+			}
+		}
+
+		return result(execute(new StreamStatementCallback(), false));
+	}
+
 	@Override
 	public Map<String, Object> queryForMap(String sql) throws DataAccessException {
 		return result(queryForObject(sql, getColumnMapRowMapper()));
@@ -487,12 +793,15 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 
 	@Override
 	public List<Map<String, Object>> queryForList(String sql) throws DataAccessException {
+		if (isColumnarResults()) {
+			return result(query(sql, getColumnarRowListExtractor()));
+		}
 		return query(sql, getColumnMapRowMapper());
 	}
 
 	@Override
 	public SqlRowSet queryForRowSet(String sql) throws DataAccessException {
-		return result(query(sql, new SqlRowSetResultSetExtractor()));
+		return result(query(sql, getSqlRowSetExtractor()));
 	}
 
 	@Override
@@ -520,7 +829,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			}
 		}
 
-		return updateCount(execute(new UpdateStatementCallback()));
+		int rows = updateCount(execute(new UpdateStatementCallback()));
+		invalidateQueryResults(sql);
+		return rows;
 	}
 
 	@Override
@@ -587,7 +898,15 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			}
 		}
 
-		int[] result = execute(new BatchUpdateStatementCallback());
+		int[] result;
+		try {
+			result = execute(new BatchUpdateStatementCallback());
+		}
+		finally {
+			for (String sqlStmt : sql) {
+				invalidateQueryResults(sqlStmt);
+			}
+		}
 		Assert.state(result != null, "No update counts");
 		return result;
 	}
@@ -597,9 +916,18 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	// Methods dealing with prepared statements
 	//-------------------------------------------------------------------------
 
-	@Override
+	/**
+	 * Internal execute callback method for prepared statements.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param action a callback that specifies the action
+	 * @param closeResources whether to close the PreparedStatement and release the
+	 * Connection after the callback (or leave it to the close handler of the
+	 * {@link Stream} returned by the callback)
+	 * @return a result object returned by the action, or {@code null} if none
+	 * @throws DataAccessException if there is any problem
+	 */
 	@Nullable
-	public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
+	private <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action, boolean closeResources)
 			throws DataAccessException {
 
 		Assert.notNull(psc, "PreparedStatementCreator must not be null");
@@ -609,21 +937,29 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing prepared SQL statement" + (sql != null ? " [" + sql + "]" : ""));
 		}
 
+		flushWriteBehindUpdatesIfNecessary();
 		Connection con = DataSourceUtils.getConnection(obtainDataSource());
 		PreparedStatement ps = null;
+		T result = null;
+		boolean handedOver = false;
 		try {
 			ps = psc.createPreparedStatement(con);
 			applyStatementSettings(ps);
-			T result = action.doInPreparedStatement(ps);
+			result = action.doInPreparedStatement(ps);
 			handleWarnings(ps);
+			if (!closeResources) {
+				result = closeOnStreamClose(result, ps, con);
+				handedOver = true;
+			}
 			return result;
 		}
 		catch (SQLException ex) {
 			// Release Connection early, to avoid potential connection pool deadlock
 			// in the case when the exception translator hasn't been initialized yet.
-			if (psc instanceof ParameterDisposer) {
+			if (!closeStreamResult(result, closeResources) && psc instanceof ParameterDisposer) {
 				((ParameterDisposer) psc).cleanupParameters();
 			}
+			result = null;
 			String sql = getSql(psc);
 			psc = null;
 			JdbcUtils.closeStatement(ps);
@@ -633,14 +969,25 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			throw translateException("PreparedStatementCallback", sql, ex);
 		}
 		finally {
-			if (psc instanceof ParameterDisposer) {
-				((ParameterDisposer) psc).cleanupParameters();
+			// Unless handed over to a Stream result, also on any runtime exception
+			if (!handedOver) {
+				if (!closeStreamResult(result, closeResources) && psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
 			}
-			JdbcUtils.closeStatement(ps);
-			DataSourceUtils.releaseConnection(con, getDataSource());
 		}
 	}
 
+	@Override
+	@Nullable
+	public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
+			throws DataAccessException {
+
+		return execute(psc, action, true);
+	}
+
 	@Override
 	@Nullable
 	public <T> T execute(String sql, PreparedStatementCallback<T> action) throws DataAccessException {
@@ -664,6 +1011,19 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			throws DataAccessException {
 
 		Assert.notNull(rse, "ResultSetExtractor must not be null");
+		QueryResultCache.CachedQuery cachedQuery = getCachedQuery(psc, pss);
+		if (cachedQuery != null) {
+			ResultSet cachedResult = getCachedResult(cachedQuery);
+			if (cachedResult != null) {
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+				return extractCachedResult(cachedQuery, cachedResult, rse);
+			}
+		}
 		logger.debug("Executing prepared SQL query");
 
 		return execute(psc, new PreparedStatementCallback<T>() {
@@ -676,7 +1036,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 						pss.setValues(ps);
 					}
 					rs = ps.executeQuery();
-					return rse.extractData(rs);
+					return rse.extractData(cachedQuery != null ? cachedQuery.cacheResult(rs) : rs);
 				}
 				finally {
 					JdbcUtils.closeResultSet(rs);
@@ -768,6 +1128,64 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, args, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	/**
+	 * Query using a prepared statement, allowing for a PreparedStatementCreator
+	 * and a PreparedStatementSetter, mapping each row to a result object via a
+	 * RowMapper and exposing the rows as a Stream pulled from the open ResultSet.
+	 * <p>The Statement and Connection stay open until the returned Stream is
+	 * closed; a transaction-bound Connection is released through
+	 * {@link DataSourceUtils} accordingly. The configured fetch size applies.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param pss a callback that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if the query fails
+	 * @since 5.1.21
+	 */
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss,
+			RowMapper<T> rowMapper) throws DataAccessException {
+
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		logger.debug("Executing prepared SQL query for stream");
+
+		return result(execute(psc, ps -> {
+			if (pss != null) {
+				pss.setValues(ps);
+			}
+			ResultSet rs = ps.executeQuery();
+			return new ResultSetSpliterator<>(rs, rowMapper).stream().onClose(() -> {
+				JdbcUtils.closeResultSet(rs);
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+			});
+		}, false));
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException {
+		return queryForStream(psc, null, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), pss, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, @Nullable Object... args)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), newArgPreparedStatementSetter(args), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
@@ -836,22 +1254,28 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 
 	@Override
 	public List<Map<String, Object>> queryForList(String sql, Object[] args, int[] argTypes) throws DataAccessException {
+		if (isColumnarResults()) {
+			return result(query(sql, args, argTypes, getColumnarRowListExtractor()));
+		}
 		return query(sql, args, argTypes, getColumnMapRowMapper());
 	}
 
 	@Override
 	public List<Map<String, Object>> queryForList(String sql, @Nullable Object... args) throws DataAccessException {
+		if (isColumnarResults()) {
+			return result(query(sql, args, getColumnarRowListExtractor()));
+		}
 		return query(sql, args, getColumnMapRowMapper());
 	}
 
 	@Override
 	public SqlRowSet queryForRowSet(String sql, Object[] args, int[] argTypes) throws DataAccessException {
-		return result(query(sql, args, argTypes, new SqlRowSetResultSetExtractor()));
+		return result(query(sql, args, argTypes, getSqlRowSetExtractor()));
 	}
 
 	@Override
 	public SqlRowSet queryForRowSet(String sql, @Nullable Object... args) throws DataAccessException {
-		return result(query(sql, args, new SqlRowSetResultSetExtractor()));
+		return result(query(sql, args, getSqlRowSetExtractor()));
 	}
 
 	protected int update(final PreparedStatementCreator psc, @Nullable final PreparedStatementSetter pss)
@@ -874,6 +1298,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				if (pss instanceof ParameterDisposer) {
 					((ParameterDisposer) pss).cleanupParameters();
 				}
+				invalidateQueryResults(getSql(psc));
 			}
 		}));
 	}
@@ -908,12 +1333,23 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			if (logger.isTraceEnabled()) {
 				logger.trace("SQL update affected " + rows + " rows and returned " + generatedKeys.size() + " keys");
 			}
+			invalidateQueryResults(getSql(psc));
 			return rows;
 		}));
 	}
 
 	@Override
 	public int update(String sql, @Nullable PreparedStatementSetter pss) throws DataAccessException {
+		if (this.writeBehindBatchSize > 0 && TransactionSynchronizationManager.isSynchronizationActive() &&
+				TransactionSynchronizationManager.isActualTransactionActive()) {
+			Assert.notNull(sql, "SQL must not be null");
+			if (logger.isDebugEnabled()) {
+				logger.debug("Buffering SQL update [" + sql + "]");
+			}
+			WriteBehindUpdateBuffer.obtainBuffer(obtainDataSource()).addUpdate(this, sql, pss);
+			invalidateQueryResults(sql);
+			return Statement.SUCCESS_NO_INFO;
+		}
 		return update(new SimplePreparedStatementCreator(sql), pss);
 	}
 
@@ -969,6 +1405,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				if (pss instanceof ParameterDisposer) {
 					((ParameterDisposer) pss).cleanupParameters();
 				}
+				invalidateQueryResults(sql);
 			}
 		});
 
@@ -1060,6 +1497,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				if (pss instanceof ParameterDisposer) {
 					((ParameterDisposer) pss).cleanupParameters();
 				}
+				invalidateQueryResults(sql);
 			}
 		});
 
@@ -1068,6 +1506,205 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	}
 
 
+	/**
+	 * Execute a bulk update, splitting the given arguments into chunks of the
+	 * given size and executing the chunks concurrently on up to the given number
+	 * of Connections obtained from the DataSource.
+	 * <p>Each chunk is executed as a JDBC batch in a local transaction of its own
+	 * and retried up to {@link #setBulkUpdateRetries "bulkUpdateRetries"} times
+	 * (with exponential back-off) after a transient failure. Any other failure stops
+	 * the processing of further chunks and is rethrown once the chunks in flight
+	 * have completed; chunks executed before remain committed.
+	 * <p>Since the chunks are executed on separate Connections, this method must
+	 * not be called within a transaction.
+	 * @param sql the SQL statement to execute
+	 * @param batchArgs the List of Objects containing the batch of arguments for the query
+	 * @param batchSize the number of arguments per chunk
+	 * @param concurrency the maximum number of chunks executed concurrently,
+	 * i.e. the maximum number of Connections in use
+	 * @param pss the ParameterizedPreparedStatementSetter to use
+	 * @return the aggregated result, including the update counts per chunk
+	 * @throws DataAccessException if there is any problem issuing the update
+	 * @since 5.1.21
+	 * @see #setBulkUpdateExecutor
+	 * @see #setBulkUpdateRetries
+	 */
+	public <T> BulkUpdateResult bulkUpdate(String sql, Collection<T> batchArgs, int batchSize, int concurrency,
+			ParameterizedPreparedStatementSetter<T> pss) throws DataAccessException {
+
+		Assert.notNull(sql, "SQL must not be null");
+		Assert.isTrue(batchSize > 0, "Batch size must be greater than 0");
+		Assert.isTrue(concurrency > 0, "Concurrency must be greater than 0");
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new InvalidDataAccessApiUsageException(
+					"Bulk update executes on separate Connections and cannot participate in a transaction");
+		}
+
+		List<T> args = (batchArgs instanceof List ? (List<T>) batchArgs : new ArrayList<>(batchArgs));
+		int chunkCount = (args.size() + batchSize - 1) / batchSize;
+		int workerCount = Math.min(concurrency, chunkCount);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing SQL bulk update [" + sql + "] with " + args.size() + " rows in " +
+					chunkCount + " chunks on " + workerCount + " Connections");
+		}
+
+		long startTime = System.currentTimeMillis();
+		int[][] updateCounts = new int[chunkCount][];
+		AtomicInteger nextChunk = new AtomicInteger();
+		AtomicInteger retryCount = new AtomicInteger();
+		List<Throwable> failures = new CopyOnWriteArrayList<>();
+		CountDownLatch workersDone = new CountDownLatch(workerCount);
+		Executor executor = (this.bulkUpdateExecutor != null ? this.bulkUpdateExecutor :
+				new SimpleAsyncTaskExecutor("jdbc-bulk-update-"));
+
+		Runnable worker = () -> {
+			try {
+				int chunk;
+				while (failures.isEmpty() && (chunk = nextChunk.getAndIncrement()) < chunkCount) {
+					List<T> chunkArgs = args.subList(chunk * batchSize, Math.min((chunk + 1) * batchSize, args.size()));
+					updateCounts[chunk] = executeBulkUpdateChunk(sql, chunkArgs, pss, retryCount);
+				}
+			}
+			catch (Throwable ex) {
+				failures.add(ex);
+			}
+			finally {
+				workersDone.countDown();
+			}
+		};
+		for (int i = 0; i < workerCount; i++) {
+			try {
+				executor.execute(worker);
+			}
+			catch (RuntimeException ex) {
+				// Task rejected: let the workers started so far finish up.
+				failures.add(ex);
+				for (int j = i; j < workerCount; j++) {
+					workersDone.countDown();
+				}
+				break;
+			}
+		}
+
+		try {
+			workersDone.await();
+		}
+		catch (InterruptedException ex) {
+			failures.add(ex);
+			Thread.currentThread().interrupt();
+			throw new TransientDataAccessResourceException("Interrupted while waiting for bulk update", ex);
+		}
+		finally {
+			if (pss instanceof ParameterDisposer) {
+				((ParameterDisposer) pss).cleanupParameters();
+			}
+			invalidateQueryResults(sql);
+		}
+
+		if (!failures.isEmpty()) {
+			Throwable failure = failures.get(0);
+			for (int i = 1; i < failures.size(); i++) {
+				failure.addSuppressed(failures.get(i));
+			}
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			throw new UndeclaredThrowableException(failure);
+		}
+
+		BulkUpdateResult result = new BulkUpdateResult(
+				updateCounts, args.size(), retryCount.get(), System.currentTimeMillis() - startTime);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Completed SQL bulk update [" + sql + "]: " + result);
+		}
+		return result;
+	}
+
+	/**
+	 * Execute a single chunk of a bulk update as a JDBC batch in a local transaction,
+	 * retrying it after transient failures.
+	 */
+	private <T> int[] executeBulkUpdateChunk(String sql, List<T> chunkArgs,
+			ParameterizedPreparedStatementSetter<T> pss, AtomicInteger retryCount) {
+
+		BackOffExecution backOff = new ExponentialBackOff(100, 2).start();
+		int attempt = 0;
+		while (true) {
+			try {
+				int[] result = execute((ConnectionCallback<int[]>) con -> {
+					boolean autoCommit = con.getAutoCommit();
+					if (autoCommit) {
+						con.setAutoCommit(false);
+					}
+					PreparedStatement ps = null;
+					try {
+						ps = con.prepareStatement(sql);
+						int[] rowsAffected;
+						if (JdbcUtils.supportsBatchUpdates(con)) {
+							for (T obj : chunkArgs) {
+								pss.setValues(ps, obj);
+								ps.addBatch();
+							}
+							rowsAffected = ps.executeBatch();
+						}
+						else {
+							rowsAffected = new int[chunkArgs.size()];
+							int i = 0;
+							for (T obj : chunkArgs) {
+								pss.setValues(ps, obj);
+								rowsAffected[i++] = ps.executeUpdate();
+							}
+						}
+						con.commit();
+						return rowsAffected;
+					}
+					catch (SQLException | RuntimeException | Error ex) {
+						try {
+							con.rollback();
+						}
+						catch (SQLException rollbackEx) {
+							ex.addSuppressed(rollbackEx);
+						}
+						throw ex;
+					}
+					finally {
+						JdbcUtils.closeStatement(ps);
+						if (autoCommit) {
+							try {
+								con.setAutoCommit(true);
+							}
+							catch (SQLException ex) {
+								logger.debug("Could not reset auto-commit after bulk update chunk", ex);
+							}
+						}
+					}
+				});
+				Assert.state(result != null, "No result array");
+				return result;
+			}
+			catch (TransientDataAccessException | RecoverableDataAccessException ex) {
+				long waitTime = backOff.nextBackOff();
+				if (attempt++ >= this.bulkUpdateRetries || waitTime == BackOffExecution.STOP) {
+					throw ex;
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("Retrying bulk update chunk after transient failure: " + ex);
+				}
+				retryCount.incrementAndGet();
+				try {
+					Thread.sleep(waitTime);
+				}
+				catch (InterruptedException interruptEx) {
+					Thread.currentThread().interrupt();
+					throw ex;
+				}
+			}
+		}
+	}
+
 	//-------------------------------------------------------------------------
 	// Methods dealing with callable statements
 	//-------------------------------------------------------------------------
@@ -1084,6 +1721,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Calling stored procedure" + (sql != null ? " [" + sql  + "]" : ""));
 		}
 
+		flushWriteBehindUpdatesIfNecessary();
 		Connection con = DataSourceUtils.getConnection(obtainDataSource());
 		CallableStatement cs = null;
 		try {
@@ -1322,6 +1960,21 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return new ColumnMapRowMapper();
 	}
 
+	/**
+	 * Create a ResultSetExtractor for reading all rows into a {@link ColumnarRowList}.
+	 */
+	private ResultSetExtractor<List<Map<String, Object>>> getColumnarRowListExtractor() {
+		return ColumnarRowList::from;
+	}
+
+	/**
+	 * Create a ResultSetExtractor for reading all rows into a disconnected
+	 * {@link SqlRowSet}, columnar if {@link #isColumnarResults()} applies.
+	 */
+	private ResultSetExtractor<SqlRowSet> getSqlRowSetExtractor() {
+		return (isColumnarResults() ? ColumnarSqlRowSet::from : new SqlRowSetResultSetExtractor());
+	}
+
 	/**
 	 * Create a new RowMapper for reading result objects from a single column.
 	 * @param requiredType the type that each result object is expected to match
@@ -1350,6 +2003,88 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+	/**
+	 * Execute updates buffered for this template's DataSource in write-behind mode,
+	 * before executing any other statement on the transactional Connection.
+	 * @see #setWriteBehindBatchSize
+	 */
+	private void flushWriteBehindUpdatesIfNecessary() {
+		WriteBehindUpdateBuffer buffer = WriteBehindUpdateBuffer.getBuffer(obtainDataSource());
+		if (buffer != null) {
+			buffer.flush();
+		}
+	}
+
+	/**
+	 * Prepare a lookup in the query result cache for the given statement,
+	 * if its SQL and arguments are known.
+	 * @see #setQueryResultCache
+	 */
+	@Nullable
+	private QueryResultCache.CachedQuery getCachedQuery(PreparedStatementCreator psc,
+			@Nullable PreparedStatementSetter pss) {
+
+		QueryResultCache cache = this.queryResultCache;
+		if (cache == null) {
+			return null;
+		}
+		Object[] args;
+		if (psc instanceof SimplePreparedStatementCreator) {
+			if (pss == null) {
+				args = new Object[0];
+			}
+			else if (pss instanceof QueryResultCache.StatementArguments) {
+				args = ((QueryResultCache.StatementArguments) pss).getStatementArguments();
+			}
+			else {
+				return null;
+			}
+		}
+		else if (psc instanceof QueryResultCache.StatementArguments && pss == null) {
+			args = ((QueryResultCache.StatementArguments) psc).getStatementArguments();
+		}
+		else {
+			return null;
+		}
+		return cache.getCachedQuery(((SqlProvider) psc).getSql(), args);
+	}
+
+	@Nullable
+	private ResultSet getCachedResult(QueryResultCache.CachedQuery cachedQuery) {
+		try {
+			return cachedQuery.getCachedResult();
+		}
+		catch (SQLException ex) {
+			throw translateException("QueryResultCache", cachedQuery.getSql(), ex);
+		}
+	}
+
+	@Nullable
+	private <T> T extractCachedResult(
+			QueryResultCache.CachedQuery cachedQuery, ResultSet cachedResult, ResultSetExtractor<T> rse) {
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Returning cached result for SQL query [" + cachedQuery.getSql() + "]");
+		}
+		try {
+			return rse.extractData(cachedResult);
+		}
+		catch (SQLException ex) {
+			throw translateException("ResultSetExtractor", cachedQuery.getSql(), ex);
+		}
+	}
+
+	/**
+	 * Invalidate cached query results for the tables affected by the given SQL.
+	 * @see #setQueryResultCache
+	 */
+	private void invalidateQueryResults(@Nullable String sql) {
+		QueryResultCache cache = this.queryResultCache;
+		if (cache != null) {
+			cache.invalidateFor(sql);
+		}
+	}
+
 	/**
 	 * Prepare the given JDBC Statement (or PreparedStatement or CallableStatement),
 	 * applying statement settings such as fetch size, max rows, and query timeout.
@@ -1610,4 +2345,57 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+
+	/**
+	 * Spliterator for queryForStream adaptation of a ResultSet to a Stream,
+	 * pulling one row from the ResultSet per advance.
+	 */
+	private class ResultSetSpliterator<T> implements Spliterator<T> {
+
+		private final ResultSet rs;
+
+		private final RowMapper<T> rowMapper;
+
+		private int rowNum = 0;
+
+		public ResultSetSpliterator(ResultSet rs, RowMapper<T> rowMapper) {
+			this.rs = rs;
+			this.rowMapper = rowMapper;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			try {
+				if (this.rs.next()) {
+					action.accept(this.rowMapper.mapRow(this.rs, this.rowNum++));
+					return true;
+				}
+				return false;
+			}
+			catch (SQLException ex) {
+				throw translateException("ResultSetSpliterator", null, ex);
+			}
+		}
+
+		@Override
+		@Nullable
+		public Spliterator<T> trySplit() {
+			return null;
+		}
+
+		@Override
+		public long estimateSize() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+
+		public Stream<T> stream() {
+			return StreamSupport.stream(this, false);
+		}
+	}
+
 }
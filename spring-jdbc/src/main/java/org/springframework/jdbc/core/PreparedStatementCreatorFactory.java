@@ -187,8 +187,8 @@ public class PreparedStatementCreatorFactory {
 	/**
 	 * PreparedStatementCreator implementation returned by this class.
 	 */
-	private class PreparedStatementCreatorImpl
-			implements PreparedStatementCreator, PreparedStatementSetter, SqlProvider, ParameterDisposer {
+	private class PreparedStatementCreatorImpl implements PreparedStatementCreator, PreparedStatementSetter,
+			SqlProvider, ParameterDisposer, QueryResultCache.StatementArguments {
 
 		private final String actualSql;
 
@@ -291,6 +291,15 @@ public class PreparedStatementCreatorFactory {
 			return sql;
 		}
 
+		@Override
+		public Object[] getStatementArguments() {
+			int[] types = new int[declaredParameters.size()];
+			for (int i = 0; i < types.length; i++) {
+				types[i] = declaredParameters.get(i).getSqlType();
+			}
+			return new Object[] {this.actualSql, this.parameters, types};
+		}
+
 		@Override
 		public void cleanupParameters() {
 			StatementCreatorUtils.cleanupParameters(this.parameters);
@@ -0,0 +1,848 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Result cache for queries executed through a {@link JdbcTemplate}, storing
+ * the rows of each result in a {@link org.springframework.cache.Cache}, keyed
+ * by SQL statement and arguments. Activated through
+ * {@link JdbcTemplate#setQueryResultCache}, which also applies to a
+ * {@link org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate}
+ * wrapping that JdbcTemplate.
+ *
+ * <p>Results are stored as disconnected row images (a standard JDBC
+ * {@link CachedRowSet}) rather than as mapped objects, so queries with the
+ * same SQL and arguments share a cache entry independent of the
+ * {@link RowMapper} or {@link ResultSetExtractor} in use. Only queries with
+ * simple argument values (strings, numbers, dates, enums and collections
+ * thereof) and with SQL and arguments exposed by the template's own
+ * statement setters are eligible for caching; other queries simply bypass
+ * the cache.
+ *
+ * <p>Cached results are tagged with the tables that the query reads from, as
+ * extracted from its SQL or as {@link #registerTableNames registered} explicitly.
+ * Any {@code update} or {@code batchUpdate} call as well as any {@code execute}
+ * call with a plain SQL String issued through the same JdbcTemplate invalidates
+ * the results for the tables that its SQL refers to, or all cached results if
+ * no table can be determined. Callback-based {@code execute} and {@code call}
+ * operations do not invalidate any results; changes applied through them need
+ * to be signalled explicitly, just like changes applied by other means. Within a
+ * transaction, queries against tables written in that same transaction bypass
+ * the cache, and the written tables get invalidated once more after completion
+ * of the transaction. Such explicit signals go through
+ * {@link #invalidate(String...)} or {@link #invalidateAll()}.
+ *
+ * <p>Invalidation is based on local version counters per table which are
+ * checked on every cache hit, so the given {@code Cache} should be dedicated
+ * to a single {@code QueryResultCache} instance.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see JdbcTemplate#setQueryResultCache
+ */
+public class QueryResultCache {
+
+	/**
+	 * Default maximum number of rows for a result to be cached.
+	 * @see #setMaxCachedRows
+	 */
+	public static final int DEFAULT_MAX_CACHED_ROWS = 1000;
+
+	private static final Object NOT_CACHEABLE = new Object();
+
+	private static final String[] NO_TABLES = new String[0];
+
+	private static final Set<String> TABLE_KEYWORDS =
+			new HashSet<>(Arrays.asList("from", "join", "into", "update", "table"));
+
+	private static final Set<String> RESERVED_WORDS = new HashSet<>(Arrays.asList(
+			"where", "group", "order", "having", "join", "inner", "left", "right", "full", "cross",
+			"outer", "natural", "on", "using", "union", "intersect", "except", "minus", "limit",
+			"offset", "fetch", "for", "set", "values", "select", "window", "start", "connect",
+			"with", "as", "lateral", "default", "returning"));
+
+	private static final RowSetFactory rowSetFactory;
+
+	static {
+		try {
+			rowSetFactory = RowSetProvider.newFactory();
+		}
+		catch (SQLException ex) {
+			throw new IllegalStateException("Cannot create RowSetFactory through RowSetProvider", ex);
+		}
+	}
+
+
+	private final Cache cache;
+
+	@Nullable
+	private Set<String> cacheableTables;
+
+	private int maxCachedRows = DEFAULT_MAX_CACHED_ROWS;
+
+	private final Map<String, String[]> registeredTables = new ConcurrentHashMap<>();
+
+	private final Map<String, String[]> extractedTables = new ConcurrentReferenceHashMap<>(256);
+
+	private final Map<String, AtomicLong> tableVersions = new ConcurrentHashMap<>();
+
+	private final AtomicLong globalVersion = new AtomicLong();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+
+	/**
+	 * Create a new QueryResultCache for the given Cache.
+	 * @param cache the Cache to store query results in
+	 * (dedicated to this QueryResultCache)
+	 */
+	public QueryResultCache(Cache cache) {
+		Assert.notNull(cache, "Cache must not be null");
+		this.cache = cache;
+	}
+
+
+	/**
+	 * Return the Cache that query results are stored in.
+	 */
+	public Cache getCache() {
+		return this.cache;
+	}
+
+	/**
+	 * Restrict caching to queries which read from the given tables only,
+	 * e.g. reference data tables. Default is to cache any query for which
+	 * the tables can be determined.
+	 * @param tableNames the names of the tables (case-insensitive)
+	 */
+	public void setCacheableTables(String... tableNames) {
+		Set<String> tables = new HashSet<>();
+		for (String tableName : tableNames) {
+			tables.add(normalizeTableName(tableName));
+		}
+		this.cacheableTables = tables;
+	}
+
+	/**
+	 * Set the maximum number of rows for a query result to be cached.
+	 * Larger results are returned to the caller as usual but not stored.
+	 * <p>Default is {@link #DEFAULT_MAX_CACHED_ROWS}, preventing large results
+	 * from occupying the cache. Specify -1 for no limit.
+	 */
+	public void setMaxCachedRows(int maxCachedRows) {
+		this.maxCachedRows = maxCachedRows;
+	}
+
+	/**
+	 * Return the maximum number of rows for a query result to be cached.
+	 */
+	public int getMaxCachedRows() {
+		return this.maxCachedRows;
+	}
+
+	/**
+	 * Register the tables that the given SQL statement refers to, overriding
+	 * the table names extracted from the SQL. Useful for statements against
+	 * views or calling stored functions, for which the underlying tables
+	 * cannot be derived from the SQL.
+	 * <p>Applies to queries as well as to updates with the given SQL.
+	 * @param sql the SQL statement, as passed to the JdbcTemplate
+	 * @param tableNames the names of the tables (or arbitrary tags)
+	 * to invalidate results by
+	 */
+	public void registerTableNames(String sql, String... tableNames) {
+		Assert.notNull(sql, "SQL must not be null");
+		Assert.notEmpty(tableNames, "At least one table name required");
+		Set<String> tables = new LinkedHashSet<>();
+		for (String tableName : tableNames) {
+			tables.add(normalizeTableName(tableName));
+		}
+		this.registeredTables.put(sql, tables.toArray(NO_TABLES));
+	}
+
+	/**
+	 * Invalidate all cached results for queries which read from any of the
+	 * given tables. Within a transaction, the tables are invalidated once
+	 * more after completion of the transaction, and queries against them
+	 * bypass the cache until then.
+	 * @param tableNames the names of the tables (or registered tags)
+	 */
+	public void invalidate(String... tableNames) {
+		Set<String> tables = new HashSet<>();
+		for (String tableName : tableNames) {
+			tables.add(normalizeTableName(tableName));
+		}
+		invalidate(tables);
+	}
+
+	/**
+	 * Invalidate all cached results.
+	 */
+	public void invalidateAll() {
+		invalidate((Set<String>) null);
+	}
+
+	/**
+	 * Return the number of queries served from the cache.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of cacheable queries executed against the database.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+
+	/**
+	 * Extract the names of the tables that the given SQL statement refers to.
+	 * <p>The default implementation scans the SQL for table references after
+	 * {@code FROM}, {@code JOIN}, {@code INTO}, {@code UPDATE} and {@code TABLE}
+	 * keywords, including comma-separated table lists, ignoring schema prefixes.
+	 * Can be overridden for database-specific syntax.
+	 * @param sql the SQL statement
+	 * @return the table names (lower case), or an empty array if none found
+	 */
+	protected String[] extractTableNames(String sql) {
+		List<String> tokens = tokenize(sql);
+		Set<String> tables = new LinkedHashSet<>();
+		for (int i = 0; i < tokens.size(); i++) {
+			String token = tokens.get(i);
+			if (!TABLE_KEYWORDS.contains(token)) {
+				continue;
+			}
+			boolean tableList = "from".equals(token);
+			int pos = i + 1;
+			while (pos < tokens.size()) {
+				String next = tokens.get(pos);
+				if (isIdentifier(next)) {
+					tables.add(normalizeTableName(next));
+					pos++;
+				}
+				else if (tableList && "(".equals(next)) {
+					// Derived table: its own FROM clause gets scanned separately
+					pos = skipParentheses(tokens, pos);
+				}
+				else {
+					break;
+				}
+				if (!tableList) {
+					break;
+				}
+				// Skip optional alias, then continue with a comma-separated table
+				if (pos < tokens.size() && "as".equals(tokens.get(pos))) {
+					pos++;
+				}
+				if (pos < tokens.size() && isIdentifier(tokens.get(pos))) {
+					pos++;
+				}
+				if (pos < tokens.size() && ",".equals(tokens.get(pos))) {
+					pos++;
+				}
+				else {
+					break;
+				}
+			}
+		}
+		return tables.toArray(NO_TABLES);
+	}
+
+	/**
+	 * Determine whether the given SQL statement is a query whose results
+	 * may be cached: a {@code SELECT} statement without locking clause.
+	 * @param sql the SQL statement
+	 */
+	protected boolean isCacheableQuery(String sql) {
+		List<String> tokens = tokenize(sql);
+		if (tokens.isEmpty() || !("select".equals(tokens.get(0)) || "with".equals(tokens.get(0)))) {
+			return false;
+		}
+		for (int i = 0; i < tokens.size() - 1; i++) {
+			if ("for".equals(tokens.get(i)) &&
+					("update".equals(tokens.get(i + 1)) || "share".equals(tokens.get(i + 1)))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Prepare a cache lookup for the given query.
+	 * @param sql the SQL query
+	 * @param args the query arguments, including argument types where declared
+	 * @return the handle for the cache lookup, or {@code null} if the
+	 * query is not eligible for caching
+	 */
+	@Nullable
+	CachedQuery getCachedQuery(String sql, Object[] args) {
+		String[] tables = getTableNames(sql, true);
+		if (tables.length == 0) {
+			return null;
+		}
+		Set<String> cacheableTables = this.cacheableTables;
+		if (cacheableTables != null) {
+			for (String table : tables) {
+				if (!cacheableTables.contains(table)) {
+					return null;
+				}
+			}
+		}
+		TransactionWrites writes = getTransactionWrites();
+		if (writes != null && writes.containsAny(tables)) {
+			return null;
+		}
+		Object keyArgs = normalizeArgument(args);
+		if (keyArgs == NOT_CACHEABLE) {
+			return null;
+		}
+		long[] versions = new long[tables.length + 1];
+		versions[0] = this.globalVersion.get();
+		for (int i = 0; i < tables.length; i++) {
+			versions[i + 1] = getTableVersion(tables[i]).get();
+		}
+		return new CachedQuery(new QueryKey(sql, (Object[]) keyArgs), tables, versions);
+	}
+
+	/**
+	 * Invalidate the results for the tables that the given SQL statement
+	 * refers to, or all results if the tables cannot be determined.
+	 * @param sql the SQL statement (may be {@code null} if not known)
+	 */
+	void invalidateFor(@Nullable String sql) {
+		String[] tables = (sql != null ? getTableNames(sql, false) : NO_TABLES);
+		invalidate(tables.length > 0 ? new HashSet<>(Arrays.asList(tables)) : null);
+	}
+
+	private void invalidate(@Nullable Set<String> tables) {
+		bumpVersions(tables);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionWrites writes = getTransactionWrites();
+			if (writes == null) {
+				writes = new TransactionWrites();
+				TransactionSynchronizationManager.bindResource(this, writes);
+				TransactionSynchronizationManager.registerSynchronization(new TransactionWritesSynchronization());
+			}
+			writes.add(tables);
+		}
+	}
+
+	private void bumpVersions(@Nullable Set<String> tables) {
+		if (tables != null) {
+			for (String table : tables) {
+				getTableVersion(table).incrementAndGet();
+			}
+		}
+		else {
+			this.globalVersion.incrementAndGet();
+		}
+	}
+
+	private String[] getTableNames(String sql, boolean query) {
+		String[] tables = this.registeredTables.get(sql);
+		if (tables != null) {
+			return tables;
+		}
+		if (query && !isCacheableQuery(sql)) {
+			return NO_TABLES;
+		}
+		return this.extractedTables.computeIfAbsent(sql, this::extractTableNames);
+	}
+
+	private AtomicLong getTableVersion(String table) {
+		return this.tableVersions.computeIfAbsent(table, key -> new AtomicLong());
+	}
+
+	@Nullable
+	private TransactionWrites getTransactionWrites() {
+		return (TransactionWrites) TransactionSynchronizationManager.getResource(this);
+	}
+
+
+	private static String normalizeTableName(String tableName) {
+		String name = (tableName.startsWith("\"") ? tableName.substring(1) : tableName);
+		int separatorIndex = name.lastIndexOf('.');
+		if (separatorIndex != -1) {
+			name = name.substring(separatorIndex + 1);
+		}
+		return name.toLowerCase(Locale.ENGLISH);
+	}
+
+	private static boolean isIdentifier(String token) {
+		char first = token.charAt(0);
+		return (first == '"' || ((Character.isLetter(first) || first == '_') && !RESERVED_WORDS.contains(token)));
+	}
+
+	private static int skipParentheses(List<String> tokens, int openingPos) {
+		int depth = 0;
+		for (int pos = openingPos; pos < tokens.size(); pos++) {
+			String token = tokens.get(pos);
+			if ("(".equals(token)) {
+				depth++;
+			}
+			else if (")".equals(token) && --depth == 0) {
+				return pos + 1;
+			}
+		}
+		return tokens.size();
+	}
+
+	/**
+	 * Split the given SQL into lower-case words and punctuation tokens,
+	 * skipping comments and string literals and unquoting quoted identifiers.
+	 */
+	private static List<String> tokenize(String sql) {
+		List<String> tokens = new ArrayList<>();
+		int length = sql.length();
+		int i = 0;
+		while (i < length) {
+			char c = sql.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			}
+			else if (c == '-' && i + 1 < length && sql.charAt(i + 1) == '-') {
+				int end = sql.indexOf('\n', i);
+				i = (end != -1 ? end + 1 : length);
+			}
+			else if (c == '/' && i + 1 < length && sql.charAt(i + 1) == '*') {
+				int end = sql.indexOf("*/", i + 2);
+				i = (end != -1 ? end + 2 : length);
+			}
+			else if (c == '\'') {
+				int end = sql.indexOf('\'', i + 1);
+				i = (end != -1 ? end + 1 : length);
+				tokens.add("'");
+			}
+			else if (Character.isLetterOrDigit(c) || c == '_' || c == '"' || c == '`' || c == '[') {
+				StringBuilder word = new StringBuilder();
+				boolean quoted = false;
+				while (i < length) {
+					c = sql.charAt(i);
+					if (c == '"' || c == '`' || c == '[') {
+						char closing = (c == '[' ? ']' : c);
+						int end = sql.indexOf(closing, i + 1);
+						end = (end != -1 ? end : length);
+						word.append(sql, i + 1, end);
+						i = end + 1;
+						quoted = true;
+					}
+					else if (Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '#' || c == '.') {
+						word.append(c);
+						i++;
+					}
+					else {
+						break;
+					}
+				}
+				if (word.length() > 0) {
+					// Mark quoted identifiers through a leading quote, to be
+					// recognized as identifiers even if they match a keyword
+					String token = word.toString().toLowerCase(Locale.ENGLISH);
+					tokens.add(quoted ? '"' + token : token);
+				}
+			}
+			else {
+				tokens.add(String.valueOf(c));
+				i++;
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Convert the given argument into an immutable value with proper
+	 * {@code equals}/{@code hashCode} semantics for use in a cache key.
+	 * @return the key value, or {@link #NOT_CACHEABLE}
+	 */
+	@Nullable
+	private static Object normalizeArgument(@Nullable Object arg) {
+		if (arg == null || arg instanceof String || arg instanceof Boolean || arg instanceof Character ||
+				arg instanceof Enum || arg instanceof UUID || arg instanceof BigDecimal || arg instanceof BigInteger ||
+				(arg instanceof Number && ClassUtils.isPrimitiveWrapper(arg.getClass())) ||
+				(arg instanceof TemporalAccessor && arg.getClass().getName().startsWith("java.time."))) {
+			return arg;
+		}
+		if (arg instanceof Date) {
+			return ((Date) arg).clone();
+		}
+		if (arg instanceof Object[]) {
+			Object[] array = (Object[]) arg;
+			Object[] result = new Object[array.length];
+			for (int i = 0; i < array.length; i++) {
+				result[i] = normalizeArgument(array[i]);
+				if (result[i] == NOT_CACHEABLE) {
+					return NOT_CACHEABLE;
+				}
+			}
+			return result;
+		}
+		if (arg instanceof int[]) {
+			return ((int[]) arg).clone();
+		}
+		if (arg instanceof byte[]) {
+			return ((byte[]) arg).clone();
+		}
+		if (arg instanceof Collection) {
+			Object result = normalizeArgument(((Collection<?>) arg).toArray());
+			return (result != NOT_CACHEABLE ? Arrays.asList((Object[]) result) : NOT_CACHEABLE);
+		}
+		if (arg instanceof SqlParameterValue) {
+			SqlParameterValue paramValue = (SqlParameterValue) arg;
+			return normalizeArgument(new Object[] {paramValue.getSqlType(), paramValue.getTypeName(),
+					paramValue.getScale(), paramValue.getValue()});
+		}
+		return NOT_CACHEABLE;
+	}
+
+
+	/**
+	 * Internal interface for statement creators and setters which expose
+	 * the SQL arguments that they apply, for use in a cache key.
+	 */
+	interface StatementArguments {
+
+		/**
+		 * Return the arguments applied to the statement,
+		 * including argument types where declared.
+		 */
+		Object[] getStatementArguments();
+	}
+
+
+	/**
+	 * Handle for a lookup of the result of a specific query,
+	 * capturing the table versions at the time of the lookup.
+	 */
+	final class CachedQuery {
+
+		private final QueryKey key;
+
+		private final String[] tables;
+
+		private final long[] versions;
+
+		CachedQuery(QueryKey key, String[] tables, long[] versions) {
+			this.key = key;
+			this.tables = tables;
+			this.versions = versions;
+		}
+
+		public String getSql() {
+			return this.key.sql;
+		}
+
+		/**
+		 * Return a ResultSet for the cached result of the query,
+		 * or {@code null} if there is no current result in the cache.
+		 */
+		@Nullable
+		public ResultSet getCachedResult() throws SQLException {
+			Cache.ValueWrapper wrapper = cache.get(this.key);
+			if (wrapper != null && wrapper.get() instanceof CachedResult) {
+				CachedResult result = (CachedResult) wrapper.get();
+				if (Arrays.equals(result.versions, currentVersions())) {
+					hitCount.increment();
+					return result.rows.createShared();
+				}
+			}
+			missCount.increment();
+			return null;
+		}
+
+		/**
+		 * Store the given ResultSet in the cache, unless any of the tables
+		 * involved got invalidated in the meantime. Copies no more than the
+		 * maximum number of rows plus one: a larger result does not get cached
+		 * but continues with the remaining rows of the given ResultSet.
+		 * @param rs the ResultSet to store (connected)
+		 * @return a ResultSet with the same data, to be processed forward-only
+		 */
+		public ResultSet cacheResult(ResultSet rs) throws SQLException {
+			int maxRows = maxCachedRows;
+			CachedRowSet rows = rowSetFactory.createCachedRowSet();
+			if (maxRows < 0) {
+				rows.populate(rs);
+			}
+			else {
+				RowLimitingInvocationHandler limiter = new RowLimitingInvocationHandler(rs, maxRows + 1);
+				rows.populate((ResultSet) Proxy.newProxyInstance(
+						ResultSet.class.getClassLoader(), new Class<?>[] {ResultSet.class}, limiter));
+				if (limiter.rowCount > maxRows) {
+					return (ResultSet) Proxy.newProxyInstance(ResultSet.class.getClassLoader(),
+							new Class<?>[] {ResultSet.class}, new ContinuingInvocationHandler(rows, rs));
+				}
+			}
+			if (Arrays.equals(this.versions, currentVersions())) {
+				cache.put(this.key, new CachedResult(this.versions, rows));
+			}
+			return rows.createShared();
+		}
+
+		private long[] currentVersions() {
+			long[] current = new long[this.tables.length + 1];
+			current[0] = globalVersion.get();
+			for (int i = 0; i < this.tables.length; i++) {
+				current[i + 1] = getTableVersion(this.tables[i]).get();
+			}
+			return current;
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a ResultSet which ends after the given number
+	 * of rows, for copying a bounded number of rows from a larger result.
+	 */
+	private static class RowLimitingInvocationHandler implements InvocationHandler {
+
+		private final ResultSet target;
+
+		private final int rowLimit;
+
+		int rowCount;
+
+		RowLimitingInvocationHandler(ResultSet target, int rowLimit) {
+			this.target = target;
+			this.rowLimit = rowLimit;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (method.getName().equals("next")) {
+				if (this.rowCount >= this.rowLimit || !this.target.next()) {
+					return false;
+				}
+				this.rowCount++;
+				return true;
+			}
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a ResultSet which exposes the rows copied from
+	 * the given ResultSet first and then continues with its remaining rows.
+	 */
+	private static class ContinuingInvocationHandler implements InvocationHandler {
+
+		private final ResultSet copiedRows;
+
+		private final ResultSet target;
+
+		private boolean copiedRowsActive = true;
+
+		ContinuingInvocationHandler(ResultSet copiedRows, ResultSet target) {
+			this.copiedRows = copiedRows;
+			this.target = target;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "next":
+					if (this.copiedRowsActive) {
+						if (this.copiedRows.next()) {
+							return true;
+						}
+						// The target ResultSet is positioned on the last copied row
+						this.copiedRowsActive = false;
+					}
+					return this.target.next();
+				case "close":
+					this.copiedRows.close();
+					this.target.close();
+					return null;
+				case "getMetaData":
+				case "getStatement":
+				case "getWarnings":
+				case "unwrap":
+				case "isWrapperFor":
+					return invoke(this.target, method, args);
+				default:
+					return invoke(this.copiedRowsActive ? this.copiedRows : this.target, method, args);
+			}
+		}
+
+		@Nullable
+		private Object invoke(ResultSet rs, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(rs, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+
+	/**
+	 * Cache key for a query result: SQL statement plus arguments.
+	 */
+	@SuppressWarnings("serial")
+	private static final class QueryKey implements Serializable {
+
+		private final String sql;
+
+		private final Object[] args;
+
+		private final int hashCode;
+
+		QueryKey(String sql, Object[] args) {
+			this.sql = sql;
+			this.args = args;
+			this.hashCode = sql.hashCode() * 29 + Arrays.deepHashCode(args);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof QueryKey)) {
+				return false;
+			}
+			QueryKey otherKey = (QueryKey) other;
+			return (this.sql.equals(otherKey.sql) && Arrays.deepEquals(this.args, otherKey.args));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		@Override
+		public String toString() {
+			return "QueryKey [" + this.sql + "] " + Arrays.deepToString(this.args);
+		}
+	}
+
+
+	/**
+	 * Cached query result: row images plus the table versions
+	 * at the time of the query.
+	 */
+	@SuppressWarnings("serial")
+	private static final class CachedResult implements Serializable {
+
+		final long[] versions;
+
+		final CachedRowSet rows;
+
+		CachedResult(long[] versions, CachedRowSet rows) {
+			this.versions = versions;
+			this.rows = rows;
+		}
+	}
+
+
+	/**
+	 * Tables written within the current transaction.
+	 */
+	private static final class TransactionWrites {
+
+		private final Set<String> tables = new HashSet<>();
+
+		private boolean allTables;
+
+		void add(@Nullable Set<String> tables) {
+			if (tables != null) {
+				this.tables.addAll(tables);
+			}
+			else {
+				this.allTables = true;
+			}
+		}
+
+		boolean containsAny(String[] tables) {
+			return (this.allTables || !Collections.disjoint(this.tables, Arrays.asList(tables)));
+		}
+
+		@Nullable
+		Set<String> getTables() {
+			return (this.allTables ? null : this.tables);
+		}
+	}
+
+
+	/**
+	 * Synchronization which invalidates the tables written within the
+	 * transaction once more after completion, covering results cached
+	 * by other threads before the changes became visible.
+	 */
+	private final class TransactionWritesSynchronization extends TransactionSynchronizationAdapter {
+
+		@Override
+		public void afterCompletion(int status) {
+			TransactionWrites writes = (TransactionWrites)
+					TransactionSynchronizationManager.unbindResourceIfPossible(QueryResultCache.this);
+			if (writes != null) {
+				bumpVersions(writes.getTables());
+			}
+		}
+	}
+
+}
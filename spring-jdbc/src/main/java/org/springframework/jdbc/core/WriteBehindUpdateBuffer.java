@@ -0,0 +1,297 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.ResourceHolderSupport;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Transaction-scoped buffer for updates issued through a {@link JdbcTemplate}
+ * in write-behind mode, bound as a transactional resource per DataSource.
+ *
+ * <p>Consecutive updates with identical SQL are coalesced into a single JDBC
+ * batch. Buffered updates are executed in their original order, once the
+ * buffer limit is reached, before any other statement is executed through
+ * a JdbcTemplate for the same DataSource, and before transaction commit.
+ * Buffered updates are discarded on rollback.
+ *
+ * <p>Each buffered update is executed through the JdbcTemplate which issued
+ * it, applying that template's statement settings, and the buffer limit of
+ * the issuing template applies when an update gets added. If the execution
+ * of a batch fails, the remaining buffered updates are discarded and the
+ * transaction is marked as rollback-only.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see JdbcTemplate#setWriteBehindBatchSize
+ * @see JdbcTemplate#flushWriteBehindUpdates
+ */
+final class WriteBehindUpdateBuffer extends TransactionSynchronizationAdapter {
+
+	private static final int[] NO_UPDATE_COUNTS = new int[0];
+
+	/** Number of buffers currently bound, allowing for a quick check without lookup. */
+	private static final AtomicInteger boundBufferCount = new AtomicInteger();
+
+
+	private final BufferKey key;
+
+	private final List<BatchedUpdate> batches = new ArrayList<>();
+
+	private int bufferedCount;
+
+	private int[] updateCounts = NO_UPDATE_COUNTS;
+
+	private int updateCountsSize;
+
+
+	private WriteBehindUpdateBuffer(BufferKey key) {
+		this.key = key;
+	}
+
+
+	/**
+	 * Buffer the given update, flushing the buffer if the limit of the
+	 * issuing JdbcTemplate has been reached.
+	 * @param jdbcTemplate the JdbcTemplate to execute the update with
+	 * @param sql the SQL statement to execute
+	 * @param pss the setter for the statement's parameters (may be {@code null})
+	 */
+	public void addUpdate(JdbcTemplate jdbcTemplate, String sql, @Nullable PreparedStatementSetter pss) {
+		BatchedUpdate batch = (!this.batches.isEmpty() ? this.batches.get(this.batches.size() - 1) : null);
+		if (batch == null || batch.jdbcTemplate != jdbcTemplate || !batch.sql.equals(sql)) {
+			batch = new BatchedUpdate(jdbcTemplate, sql);
+			this.batches.add(batch);
+		}
+		batch.setters.add(pss);
+		this.bufferedCount++;
+		if (this.bufferedCount >= jdbcTemplate.getWriteBehindBatchSize()) {
+			flush();
+		}
+	}
+
+	/**
+	 * Execute all buffered updates as JDBC batches.
+	 * @throws RuntimeException if the execution of a batch failed, after
+	 * discarding the remaining updates and marking the transaction as
+	 * rollback-only
+	 */
+	public void flush() {
+		if (this.batches.isEmpty()) {
+			return;
+		}
+		// Detach buffered updates first: the batch execution will come back to this buffer.
+		BatchedUpdate[] batchesToFlush = this.batches.toArray(new BatchedUpdate[0]);
+		this.batches.clear();
+		this.bufferedCount = 0;
+		for (int i = 0; i < batchesToFlush.length; i++) {
+			BatchedUpdate batch = batchesToFlush[i];
+			try {
+				int[] counts = batch.jdbcTemplate.batchUpdate(batch.sql, batch);
+				addUpdateCounts(counts);
+			}
+			catch (RuntimeException | Error ex) {
+				for (int j = i + 1; j < batchesToFlush.length; j++) {
+					batchesToFlush[j].cleanupParameters();
+				}
+				setRollbackOnly();
+				throw ex;
+			}
+		}
+	}
+
+	/**
+	 * Flush the buffer and return the update counts of all updates
+	 * executed since the last invocation of this method.
+	 */
+	public int[] flushAndGetUpdateCounts() {
+		flush();
+		int[] result = Arrays.copyOf(this.updateCounts, this.updateCountsSize);
+		this.updateCounts = NO_UPDATE_COUNTS;
+		this.updateCountsSize = 0;
+		return result;
+	}
+
+	private void addUpdateCounts(int[] counts) {
+		int requiredSize = this.updateCountsSize + counts.length;
+		if (requiredSize > this.updateCounts.length) {
+			this.updateCounts = Arrays.copyOf(this.updateCounts, Math.max(requiredSize, this.updateCounts.length * 2));
+		}
+		System.arraycopy(counts, 0, this.updateCounts, this.updateCountsSize, counts.length);
+		this.updateCountsSize = requiredSize;
+	}
+
+	/**
+	 * Mark the transaction as rollback-only through the resource holder
+	 * bound for the DataSource, e.g. the ConnectionHolder of a
+	 * {@link org.springframework.jdbc.datasource.DataSourceTransactionManager}.
+	 */
+	private void setRollbackOnly() {
+		Object resourceHolder = TransactionSynchronizationManager.getResource(this.key.dataSource);
+		if (resourceHolder instanceof ResourceHolderSupport) {
+			((ResourceHolderSupport) resourceHolder).setRollbackOnly();
+		}
+	}
+
+	private void discard() {
+		for (BatchedUpdate batch : this.batches) {
+			batch.cleanupParameters();
+		}
+		this.batches.clear();
+		this.bufferedCount = 0;
+	}
+
+
+	@Override
+	public void suspend() {
+		// Flush while the Connection of the suspended transaction is still bound.
+		flush();
+		TransactionSynchronizationManager.unbindResource(this.key);
+	}
+
+	@Override
+	public void resume() {
+		TransactionSynchronizationManager.bindResource(this.key, this);
+	}
+
+	@Override
+	public void beforeCommit(boolean readOnly) {
+		flush();
+	}
+
+	@Override
+	public void afterCompletion(int status) {
+		TransactionSynchronizationManager.unbindResourceIfPossible(this.key);
+		boundBufferCount.decrementAndGet();
+		discard();
+	}
+
+
+	/**
+	 * Return the buffer for the given DataSource in the current transaction,
+	 * creating and registering it if necessary.
+	 * @param dataSource the DataSource to buffer updates for
+	 * @return the buffer (never {@code null})
+	 */
+	public static WriteBehindUpdateBuffer obtainBuffer(DataSource dataSource) {
+		BufferKey key = new BufferKey(dataSource);
+		WriteBehindUpdateBuffer buffer = (WriteBehindUpdateBuffer) TransactionSynchronizationManager.getResource(key);
+		if (buffer == null) {
+			buffer = new WriteBehindUpdateBuffer(key);
+			TransactionSynchronizationManager.bindResource(key, buffer);
+			TransactionSynchronizationManager.registerSynchronization(buffer);
+			boundBufferCount.incrementAndGet();
+		}
+		return buffer;
+	}
+
+	/**
+	 * Return the buffer for the given DataSource in the current transaction, if any.
+	 * <p>Returns immediately, without any resource lookup, if no buffer is
+	 * bound in any thread, i.e. if write-behind mode is not in use.
+	 * @param dataSource the DataSource to check
+	 * @return the buffer, or {@code null} if none
+	 */
+	@Nullable
+	public static WriteBehindUpdateBuffer getBuffer(DataSource dataSource) {
+		if (boundBufferCount.get() == 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+		return (WriteBehindUpdateBuffer) TransactionSynchronizationManager.getResource(new BufferKey(dataSource));
+	}
+
+
+	/**
+	 * Buffered updates for a specific SQL statement, exposed as a batch setter.
+	 */
+	private static class BatchedUpdate implements BatchPreparedStatementSetter, ParameterDisposer {
+
+		final JdbcTemplate jdbcTemplate;
+
+		final String sql;
+
+		final List<PreparedStatementSetter> setters = new ArrayList<>();
+
+		BatchedUpdate(JdbcTemplate jdbcTemplate, String sql) {
+			this.jdbcTemplate = jdbcTemplate;
+			this.sql = sql;
+		}
+
+		@Override
+		public void setValues(PreparedStatement ps, int i) throws SQLException {
+			PreparedStatementSetter pss = this.setters.get(i);
+			if (pss != null) {
+				pss.setValues(ps);
+			}
+		}
+
+		@Override
+		public int getBatchSize() {
+			return this.setters.size();
+		}
+
+		@Override
+		public void cleanupParameters() {
+			for (PreparedStatementSetter pss : this.setters) {
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Transactional resource key for the buffer of a specific DataSource.
+	 */
+	private static final class BufferKey {
+
+		private final DataSource dataSource;
+
+		BufferKey(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return (this == other || (other instanceof BufferKey &&
+					this.dataSource.equals(((BufferKey) other).dataSource)));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.dataSource.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "Write-behind update buffer for [" + this.dataSource + "]";
+		}
+	}
+
+}
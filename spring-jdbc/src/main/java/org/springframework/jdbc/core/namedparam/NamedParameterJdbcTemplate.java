@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,10 +18,19 @@ package org.springframework.jdbc.core.namedparam;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -39,8 +48,11 @@ import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
 import org.springframework.jdbc.core.SingleColumnRowMapper;
 import org.springframework.jdbc.core.SqlParameter;
+import org.springframework.jdbc.core.SqlParameterValue;
 import org.springframework.jdbc.core.SqlRowSetResultSetExtractor;
 import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.jdbc.support.rowset.ColumnarRowList;
+import org.springframework.jdbc.support.rowset.ColumnarSqlRowSet;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -54,6 +66,14 @@ import org.springframework.util.Assert;
  * done at execution time. It also allows for expanding a {@link java.util.List}
  * of values to the appropriate number of placeholders.
  *
+ * <p>The substituted JDBC statement and its parameter declarations are cached
+ * as a statement template per original SQL and parameter shape (that is, the
+ * sizes of expanded value lists and the declared parameter types). With
+ * {@link #setInListPadding "inListPadding"} switched on, expanded value lists
+ * get padded to the next power of two, limiting the number of distinct JDBC
+ * statements for {@code IN (:ids)} clauses with varying list sizes and
+ * therefore allowing for effective statement caching in the JDBC driver.
+ *
  * <p>The underlying {@link org.springframework.jdbc.core.JdbcTemplate} is
  * exposed to allow for convenient access to the traditional
  * {@link org.springframework.jdbc.core.JdbcTemplate} methods.
@@ -87,6 +107,12 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 				}
 			};
 
+	/** Cache of original SQL String to statement templates per parameter shape. */
+	private final ConcurrentMap<String, StatementTemplates> statementTemplateCache =
+			new ConcurrentHashMap<>(DEFAULT_CACHE_LIMIT);
+
+	private boolean inListPadding = false;
+
 
 	/**
 	 * Create a new NamedParameterJdbcTemplate for the given {@link DataSource}.
@@ -133,6 +159,8 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	/**
 	 * Specify the maximum number of entries for this template's SQL cache.
 	 * Default is 256.
+	 * <p>This limit applies to parsed SQL statements as well as to the statement
+	 * templates derived from them. A limit of 0 or less turns caching off.
 	 */
 	public void setCacheLimit(int cacheLimit) {
 		this.cacheLimit = cacheLimit;
@@ -145,6 +173,31 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return this.cacheLimit;
 	}
 
+	/**
+	 * Set whether to pad expanded value lists (e.g. for {@code IN (:ids)} clauses)
+	 * to the next power of two, repeating the last value of each list.
+	 * <p>Default is "false". Switch this on for statements with value lists of
+	 * varying size, in order to reduce the number of distinct JDBC statements
+	 * and to let the JDBC driver reuse its cached statements accordingly.
+	 * The padded values do not change the outcome of an {@code IN} clause.
+	 * <p>Only parameters which exclusively occur as elements of an
+	 * {@code IN (...)} value list in the statement get padded; value lists
+	 * elsewhere, e.g. in a {@code VALUES} clause, are left as-is. Value lists
+	 * declared with {@link Types#ARRAY} will not be padded either.
+	 * @since 5.1.21
+	 */
+	public void setInListPadding(boolean inListPadding) {
+		this.inListPadding = inListPadding;
+	}
+
+	/**
+	 * Return whether to pad expanded value lists to the next power of two.
+	 * @since 5.1.21
+	 */
+	public boolean isInListPadding() {
+		return this.inListPadding;
+	}
+
 
 	@Override
 	@Nullable
@@ -223,6 +276,20 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return query(sql, new MapSqlParameterSource(paramMap), rowMapper);
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return getJdbcOperations().queryForStream(getPreparedStatementCreator(sql, paramSource), rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(sql, new MapSqlParameterSource(paramMap), rowMapper);
+	}
+
 	@Override
 	public <T> List<T> query(String sql, RowMapper<T> rowMapper) throws DataAccessException {
 		return query(sql, EmptySqlParameterSource.INSTANCE, rowMapper);
@@ -293,6 +360,12 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	public List<Map<String, Object>> queryForList(String sql, SqlParameterSource paramSource)
 			throws DataAccessException {
 
+		if (isColumnarResults()) {
+			List<Map<String, Object>> result = getJdbcOperations().query(
+					getPreparedStatementCreator(sql, paramSource), ColumnarRowList::from);
+			Assert.state(result != null, "No result");
+			return result;
+		}
 		return query(sql, paramSource, new ColumnMapRowMapper());
 	}
 
@@ -305,8 +378,9 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 
 	@Override
 	public SqlRowSet queryForRowSet(String sql, SqlParameterSource paramSource) throws DataAccessException {
-		SqlRowSet result = getJdbcOperations().query(
-				getPreparedStatementCreator(sql, paramSource), new SqlRowSetResultSetExtractor());
+		ResultSetExtractor<SqlRowSet> rse =
+				(isColumnarResults() ? ColumnarSqlRowSet::from : new SqlRowSetResultSetExtractor());
+		SqlRowSet result = getJdbcOperations().query(getPreparedStatementCreator(sql, paramSource), rse);
 		Assert.state(result != null, "No result");
 		return result;
 	}
@@ -360,20 +434,34 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 			return new int[0];
 		}
 
-		ParsedSql parsedSql = getParsedSql(sql);
-		PreparedStatementCreatorFactory pscf = getPreparedStatementCreatorFactory(parsedSql, batchArgs[0]);
+		SqlParameterSource[] batchArgsToUse = batchArgs;
+		if (isInListPadding()) {
+			Set<String> inListParameterNames = getParsedSql(sql).getInListParameterNames();
+			if (!inListParameterNames.isEmpty()) {
+				batchArgsToUse = new SqlParameterSource[batchArgs.length];
+				for (int i = 0; i < batchArgs.length; i++) {
+					batchArgsToUse[i] = new InListPaddingSqlParameterSource(batchArgs[i], inListParameterNames);
+				}
+			}
+		}
+
+		StatementTemplate template = getStatementTemplate(sql, batchArgsToUse[0]);
+		ParsedSql parsedSql = (template != null ? template.parsedSql : getParsedSql(sql));
+		PreparedStatementCreatorFactory pscf = (template != null ? template.factory :
+				getPreparedStatementCreatorFactory(parsedSql, batchArgsToUse[0]));
+		SqlParameterSource[] argsToBind = batchArgsToUse;
 
 		return getJdbcOperations().batchUpdate(
 				pscf.getSql(),
 				new BatchPreparedStatementSetter() {
 					@Override
 					public void setValues(PreparedStatement ps, int i) throws SQLException {
-						Object[] values = NamedParameterUtils.buildValueArray(parsedSql, batchArgs[i], null);
+						Object[] values = NamedParameterUtils.buildValueArray(parsedSql, argsToBind[i], null);
 						pscf.newPreparedStatementSetter(values).setValues(ps);
 					}
 					@Override
 					public int getBatchSize() {
-						return batchArgs.length;
+						return argsToBind.length;
 					}
 				});
 	}
@@ -410,12 +498,29 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	protected PreparedStatementCreator getPreparedStatementCreator(String sql, SqlParameterSource paramSource,
 			@Nullable Consumer<PreparedStatementCreatorFactory> customizer) {
 
-		ParsedSql parsedSql = getParsedSql(sql);
-		PreparedStatementCreatorFactory pscf = getPreparedStatementCreatorFactory(parsedSql, paramSource);
-		if (customizer != null) {
-			customizer.accept(pscf);
+		SqlParameterSource paramSourceToUse = paramSource;
+		if (isInListPadding()) {
+			Set<String> inListParameterNames = getParsedSql(sql).getInListParameterNames();
+			if (!inListParameterNames.isEmpty()) {
+				paramSourceToUse = new InListPaddingSqlParameterSource(paramSource, inListParameterNames);
+			}
+		}
+		ParsedSql parsedSql;
+		PreparedStatementCreatorFactory pscf;
+		// A customized factory must not be shared: only use the cached template as-is.
+		StatementTemplate template = (customizer == null ? getStatementTemplate(sql, paramSourceToUse) : null);
+		if (template != null) {
+			parsedSql = template.parsedSql;
+			pscf = template.factory;
 		}
-		Object[] params = NamedParameterUtils.buildValueArray(parsedSql, paramSource, null);
+		else {
+			parsedSql = getParsedSql(sql);
+			pscf = getPreparedStatementCreatorFactory(parsedSql, paramSourceToUse);
+			if (customizer != null) {
+				customizer.accept(pscf);
+			}
+		}
+		Object[] params = NamedParameterUtils.buildValueArray(parsedSql, paramSourceToUse, null);
 		return pscf.newPreparedStatementCreator(params);
 	}
 
@@ -456,4 +561,252 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return new PreparedStatementCreatorFactory(sqlToUse, declaredParameters);
 	}
 
+	/**
+	 * Determine whether the underlying JdbcTemplate has been configured
+	 * for columnar results.
+	 * @see JdbcTemplate#setColumnarResults
+	 */
+	private boolean isColumnarResults() {
+		JdbcOperations jdbcOperations = getJdbcOperations();
+		return (jdbcOperations instanceof JdbcTemplate && ((JdbcTemplate) jdbcOperations).isColumnarResults());
+	}
+
+	/**
+	 * Obtain the cached statement template for the given SQL statement and the
+	 * shape of the given parameters, building and caching it if necessary.
+	 * @param sql the original SQL statement
+	 * @param paramSource container of arguments to bind
+	 * @return the statement template, or {@code null} if not cacheable
+	 */
+	@Nullable
+	private StatementTemplate getStatementTemplate(String sql, SqlParameterSource paramSource) {
+		int cacheLimit = getCacheLimit();
+		if (cacheLimit <= 0) {
+			return null;
+		}
+		StatementTemplates templates = this.statementTemplateCache.get(sql);
+		if (templates == null) {
+			templates = new StatementTemplates(getParsedSql(sql));
+			StatementTemplates existing = this.statementTemplateCache.putIfAbsent(sql, templates);
+			if (existing != null) {
+				templates = existing;
+			}
+			else {
+				evictIfNecessary(this.statementTemplateCache, sql, cacheLimit);
+			}
+		}
+		StatementTemplateKey key = StatementTemplateKey.forParameters(templates.parsedSql, paramSource);
+		if (key == null) {
+			return null;
+		}
+		StatementTemplate template = templates.byShape.get(key);
+		if (template == null) {
+			template = new StatementTemplate(templates.parsedSql,
+					getPreparedStatementCreatorFactory(templates.parsedSql, paramSource));
+			StatementTemplate existing = templates.byShape.putIfAbsent(key, template);
+			if (existing != null) {
+				template = existing;
+			}
+			else {
+				evictIfNecessary(templates.byShape, key, cacheLimit);
+			}
+		}
+		return template;
+	}
+
+	private static <K> void evictIfNecessary(Map<K, ?> cache, K keyToRetain, int cacheLimit) {
+		if (cache.size() > cacheLimit) {
+			Iterator<K> it = cache.keySet().iterator();
+			while (cache.size() > cacheLimit && it.hasNext()) {
+				if (!it.next().equals(keyToRetain)) {
+					it.remove();
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Statement templates for a specific original SQL statement.
+	 */
+	private static final class StatementTemplates {
+
+		final ParsedSql parsedSql;
+
+		final ConcurrentMap<StatementTemplateKey, StatementTemplate> byShape = new ConcurrentHashMap<>(4);
+
+		StatementTemplates(ParsedSql parsedSql) {
+			this.parsedSql = parsedSql;
+		}
+	}
+
+
+	/**
+	 * Substituted JDBC statement with its parameter declarations, captured
+	 * in a shareable {@link PreparedStatementCreatorFactory}.
+	 */
+	private static final class StatementTemplate {
+
+		final ParsedSql parsedSql;
+
+		final PreparedStatementCreatorFactory factory;
+
+		StatementTemplate(ParsedSql parsedSql, PreparedStatementCreatorFactory factory) {
+			this.parsedSql = parsedSql;
+			this.factory = factory;
+		}
+	}
+
+
+	/**
+	 * Shape of the parameters for a specific statement: the number of
+	 * placeholders per named parameter as well as the declared SQL types.
+	 */
+	private static final class StatementTemplateKey {
+
+		private final int[] shape;
+
+		@Nullable
+		private final String[] typeNames;
+
+		private final int hashCode;
+
+		private StatementTemplateKey(int[] shape, @Nullable String[] typeNames) {
+			this.shape = shape;
+			this.typeNames = typeNames;
+			this.hashCode = Arrays.hashCode(shape) * 29 + Arrays.hashCode(typeNames);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof StatementTemplateKey)) {
+				return false;
+			}
+			StatementTemplateKey otherKey = (StatementTemplateKey) other;
+			return (Arrays.equals(this.shape, otherKey.shape) && Arrays.equals(this.typeNames, otherKey.typeNames));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+
+		/**
+		 * Determine the key for the given parameters, or {@code null} if the
+		 * parameters contain lists of value arrays (which are not cached).
+		 */
+		@Nullable
+		static StatementTemplateKey forParameters(ParsedSql parsedSql, SqlParameterSource paramSource) {
+			List<String> paramNames = parsedSql.getParameterNames();
+			int[] shape = new int[paramNames.size() * 2];
+			String[] typeNames = null;
+			for (int i = 0; i < paramNames.size(); i++) {
+				String paramName = paramNames.get(i);
+				int placeholders = -1;
+				if (paramSource.hasValue(paramName)) {
+					Object value = paramSource.getValue(paramName);
+					if (value instanceof SqlParameterValue) {
+						value = ((SqlParameterValue) value).getValue();
+					}
+					if (value instanceof Collection) {
+						for (Object entry : (Collection<?>) value) {
+							if (entry instanceof Object[]) {
+								return null;
+							}
+						}
+						placeholders = ((Collection<?>) value).size();
+					}
+				}
+				shape[i * 2] = placeholders;
+				shape[i * 2 + 1] = paramSource.getSqlType(paramName);
+				String typeName = paramSource.getTypeName(paramName);
+				if (typeName != null) {
+					if (typeNames == null) {
+						typeNames = new String[paramNames.size()];
+					}
+					typeNames[i] = typeName;
+				}
+			}
+			return new StatementTemplateKey(shape, typeNames);
+		}
+	}
+
+
+	/**
+	 * Decorator for a {@link SqlParameterSource} which pads the collection values
+	 * of the given IN-list parameters to the next power of two, repeating the
+	 * last element of each collection.
+	 */
+	private static class InListPaddingSqlParameterSource implements SqlParameterSource {
+
+		private final SqlParameterSource target;
+
+		private final Set<String> inListParameterNames;
+
+		InListPaddingSqlParameterSource(SqlParameterSource target, Set<String> inListParameterNames) {
+			this.target = target;
+			this.inListParameterNames = inListParameterNames;
+		}
+
+		@Override
+		public boolean hasValue(String paramName) {
+			return this.target.hasValue(paramName);
+		}
+
+		@Override
+		@Nullable
+		public Object getValue(String paramName) throws IllegalArgumentException {
+			Object value = this.target.getValue(paramName);
+			if (!this.inListParameterNames.contains(paramName)) {
+				return value;
+			}
+			if (value instanceof SqlParameterValue) {
+				SqlParameterValue paramValue = (SqlParameterValue) value;
+				Object paddedValue = padIfNecessary(paramValue.getValue(), paramValue.getSqlType());
+				return (paddedValue != paramValue.getValue() ? new SqlParameterValue(paramValue, paddedValue) : value);
+			}
+			return padIfNecessary(value, this.target.getSqlType(paramName));
+		}
+
+		@Override
+		public int getSqlType(String paramName) {
+			return this.target.getSqlType(paramName);
+		}
+
+		@Override
+		@Nullable
+		public String getTypeName(String paramName) {
+			return this.target.getTypeName(paramName);
+		}
+
+		@Override
+		@Nullable
+		public String[] getParameterNames() {
+			return this.target.getParameterNames();
+		}
+
+		@Nullable
+		private static Object padIfNecessary(@Nullable Object value, int sqlType) {
+			if (!(value instanceof Collection) || sqlType == Types.ARRAY) {
+				return value;
+			}
+			Collection<?> entries = (Collection<?>) value;
+			int size = entries.size();
+			if (size <= 1 || (size & (size - 1)) == 0) {
+				return value;
+			}
+			int paddedSize = Integer.highestOneBit(size) << 1;
+			List<Object> paddedEntries = new ArrayList<>(paddedSize);
+			paddedEntries.addAll(entries);
+			Object last = paddedEntries.get(size - 1);
+			while (paddedEntries.size() < paddedSize) {
+				paddedEntries.add(last);
+			}
+			return paddedEntries;
+		}
+	}
+
 }
@@ -18,6 +18,7 @@ package org.springframework.jdbc.core.namedparam;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -396,6 +397,67 @@ public abstract class NamedParameterUtils {
 		return (c < 128 && separatorIndex[c]) || Character.isWhitespace(c);
 	}
 
+	/**
+	 * Determine the names of the parameters which exclusively occur as
+	 * elements of an {@code IN (...)} value list in the given statement.
+	 * @param parsedSql the parsed SQL statement
+	 * @return the parameter names (never {@code null})
+	 * @since 5.1.21
+	 */
+	static Set<String> findInListParameterNames(ParsedSql parsedSql) {
+		String sql = parsedSql.getOriginalSql();
+		List<String> paramNames = parsedSql.getParameterNames();
+		Set<String> inListNames = null;
+		Set<String> otherNames = new HashSet<>();
+		for (int i = 0; i < paramNames.size(); i++) {
+			int[] indexes = parsedSql.getParameterIndexes(i);
+			if (isInListElement(sql, indexes[0], indexes[1])) {
+				if (inListNames == null) {
+					inListNames = new HashSet<>();
+				}
+				inListNames.add(paramNames.get(i));
+			}
+			else {
+				otherNames.add(paramNames.get(i));
+			}
+		}
+		if (inListNames == null) {
+			return Collections.emptySet();
+		}
+		inListNames.removeAll(otherNames);
+		return inListNames;
+	}
+
+	/**
+	 * Check whether the parameter at the given position is an element of
+	 * a plain value list following an {@code IN} keyword.
+	 */
+	private static boolean isInListElement(String sql, int startIndex, int endIndex) {
+		int i = endIndex;
+		while (i < sql.length() && Character.isWhitespace(sql.charAt(i))) {
+			i++;
+		}
+		if (i >= sql.length() || (sql.charAt(i) != ',' && sql.charAt(i) != ')')) {
+			return false;
+		}
+		// Walk back over preceding list elements to the opening parenthesis.
+		i = startIndex - 1;
+		while (i >= 0 && sql.charAt(i) != '(') {
+			char c = sql.charAt(i);
+			if (c == ')' || c == '=' || c == '<' || c == '>') {
+				return false;
+			}
+			i--;
+		}
+		i--;
+		while (i >= 0 && Character.isWhitespace(sql.charAt(i))) {
+			i--;
+		}
+		return (i >= 1 && Character.toUpperCase(sql.charAt(i)) == 'N' &&
+				Character.toUpperCase(sql.charAt(i - 1)) == 'I' &&
+				(i == 1 || !Character.isJavaIdentifierPart(sql.charAt(i - 2))));
+	}
+
 	/**
 	 * Convert parameter types from an SqlParameterSource into a corresponding int array.
 	 * This is necessary in order to reuse existing methods on JdbcTemplate.
@@ -18,6 +18,9 @@ package org.springframework.jdbc.core.namedparam;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
 
 /**
  * Holds information about a parsed SQL statement.
@@ -40,6 +43,9 @@ public class ParsedSql {
 
 	private int totalParameterCount;
 
+	@Nullable
+	private volatile Set<String> inListParameterNames;
+
 
 	/**
 	 * Create a new instance of the {@link ParsedSql} class.
@@ -134,6 +140,21 @@ public class ParsedSql {
 	}
 
 
+	/**
+	 * Return the names of the parameters which exclusively occur as
+	 * elements of an {@code IN (...)} value list in the SQL statement.
+	 * @since 5.1.21
+	 */
+	Set<String> getInListParameterNames() {
+		Set<String> names = this.inListParameterNames;
+		if (names == null) {
+			names = NamedParameterUtils.findInListParameterNames(this);
+			this.inListParameterNames = names;
+		}
+		return names;
+	}
+
+
 	/**
 	 * Exposes the original SQL String.
 	 */
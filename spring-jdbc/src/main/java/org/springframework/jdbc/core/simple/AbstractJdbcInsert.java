@@ -37,6 +37,7 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 import org.springframework.dao.InvalidDataAccessResourceUsageException;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.BulkUpdateResult;
 import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.SqlTypeValue;
@@ -562,6 +563,52 @@ public abstract class AbstractJdbcInsert {
 		return executeBatchInternal(batchValues);
 	}
 
+	/**
+	 * Delegate method that executes a bulk insert using the passed-in Maps of parameters.
+	 * @param batchSize the number of rows per chunk
+	 * @param concurrency the maximum number of chunks inserted concurrently
+	 * @param batch array of Maps with parameter names and values to be used in bulk insert
+	 * @return the aggregated result of the bulk insert
+	 * @since 5.1.21
+	 */
+	@SuppressWarnings("unchecked")
+	protected BulkUpdateResult doExecuteBulk(int batchSize, int concurrency, Map<String, ?>... batch) {
+		checkCompiled();
+		List<List<Object>> batchValues = new ArrayList<>(batch.length);
+		for (Map<String, ?> args : batch) {
+			batchValues.add(matchInParameterValuesWithInsertColumns(args));
+		}
+		return executeBulkInternal(batchSize, concurrency, batchValues);
+	}
+
+	/**
+	 * Delegate method that executes a bulk insert using the passed-in {@link SqlParameterSource SqlParameterSources}.
+	 * @param batchSize the number of rows per chunk
+	 * @param concurrency the maximum number of chunks inserted concurrently
+	 * @param batch array of SqlParameterSource with parameter names and values to be used in bulk insert
+	 * @return the aggregated result of the bulk insert
+	 * @since 5.1.21
+	 */
+	protected BulkUpdateResult doExecuteBulk(int batchSize, int concurrency, SqlParameterSource... batch) {
+		checkCompiled();
+		List<List<Object>> batchValues = new ArrayList<>(batch.length);
+		for (SqlParameterSource parameterSource : batch) {
+			batchValues.add(matchInParameterValuesWithInsertColumns(parameterSource));
+		}
+		return executeBulkInternal(batchSize, concurrency, batchValues);
+	}
+
+	/**
+	 * Delegate method to execute the bulk insert.
+	 */
+	private BulkUpdateResult executeBulkInternal(int batchSize, int concurrency, List<List<Object>> batchValues) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing statement " + getInsertString() + " with bulk of size: " + batchValues.size());
+		}
+		return getJdbcTemplate().bulkUpdate(getInsertString(), batchValues, batchSize, concurrency,
+				(ps, values) -> setParameterValues(ps, values, getInsertTypes()));
+	}
+
 	/**
 	 * Delegate method to execute the batch insert.
 	 */
@@ -21,6 +21,7 @@ import java.util.Map;
 
 import javax.sql.DataSource;
 
+import org.springframework.jdbc.core.BulkUpdateResult;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.KeyHolder;
@@ -153,4 +154,15 @@ public class SimpleJdbcInsert extends AbstractJdbcInsert implements SimpleJdbcIn
 		return doExecuteBatch(batch);
 	}
 
+	@Override
+	@SuppressWarnings("unchecked")
+	public BulkUpdateResult executeBulk(int batchSize, int concurrency, Map<String, ?>... batch) {
+		return doExecuteBulk(batchSize, concurrency, batch);
+	}
+
+	@Override
+	public BulkUpdateResult executeBulk(int batchSize, int concurrency, SqlParameterSource... batch) {
+		return doExecuteBulk(batchSize, concurrency, batch);
+	}
+
 }
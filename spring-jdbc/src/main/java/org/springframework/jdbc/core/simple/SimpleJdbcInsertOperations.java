@@ -18,6 +18,7 @@ package org.springframework.jdbc.core.simple;
 
 import java.util.Map;
 
+import org.springframework.jdbc.core.BulkUpdateResult;
 import org.springframework.jdbc.core.namedparam.SqlParameterSource;
 import org.springframework.jdbc.support.KeyHolder;
 
@@ -150,4 +151,44 @@ public interface SimpleJdbcInsertOperations {
 	 */
 	int[] executeBatch(SqlParameterSource... batch);
 
+	/**
+	 * Execute a bulk insert using the batch of values passed in, split into chunks
+	 * of the given size which are inserted concurrently on separate Connections.
+	 * <p>The default implementation delegates to {@link #executeBatch(Map[])},
+	 * reporting the entire batch as a single chunk.
+	 * @param batchSize the number of rows per chunk
+	 * @param concurrency the maximum number of chunks inserted concurrently
+	 * @param batch an array of Maps containing a batch of column names and corresponding value
+	 * @return the aggregated result, including the number of rows affected per chunk
+	 * @since 5.1.21
+	 * @see org.springframework.jdbc.core.JdbcTemplate#bulkUpdate
+	 */
+	@SuppressWarnings("unchecked")
+	default BulkUpdateResult executeBulk(int batchSize, int concurrency, Map<String, ?>... batch) {
+		long startTime = System.currentTimeMillis();
+		int[] updateCounts = executeBatch(batch);
+		return new BulkUpdateResult(new int[][] {updateCounts}, batch.length, 0,
+				System.currentTimeMillis() - startTime);
+	}
+
+	/**
+	 * Execute a bulk insert using the batch of values passed in, split into chunks
+	 * of the given size which are inserted concurrently on separate Connections.
+	 * <p>The default implementation delegates to
+	 * {@link #executeBatch(SqlParameterSource...)}, reporting the entire
+	 * batch as a single chunk.
+	 * @param batchSize the number of rows per chunk
+	 * @param concurrency the maximum number of chunks inserted concurrently
+	 * @param batch an array of SqlParameterSource containing values for the batch
+	 * @return the aggregated result, including the number of rows affected per chunk
+	 * @since 5.1.21
+	 * @see org.springframework.jdbc.core.JdbcTemplate#bulkUpdate
+	 */
+	default BulkUpdateResult executeBulk(int batchSize, int concurrency, SqlParameterSource... batch) {
+		long startTime = System.currentTimeMillis();
+		int[] updateCounts = executeBatch(batch);
+		return new BulkUpdateResult(new int[][] {updateCounts}, batch.length, 0,
+				System.currentTimeMillis() - startTime);
+	}
+
 }
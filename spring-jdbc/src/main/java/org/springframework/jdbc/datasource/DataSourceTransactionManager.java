@@ -27,6 +27,7 @@ import org.springframework.lang.Nullable;
 import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.metrics.TransactionMetricsRecorder;
 import org.springframework.transaction.support.AbstractPlatformTransactionManager;
 import org.springframework.transaction.support.DefaultTransactionStatus;
 import org.springframework.transaction.support.ResourceTransactionManager;
@@ -258,7 +259,13 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		try {
 			if (!txObject.hasConnectionHolder() ||
 					txObject.getConnectionHolder().isSynchronizedWithTransaction()) {
+				TransactionMetricsRecorder metricsRecorder = getMetricsRecorder();
+				long startTime = (metricsRecorder != null ? System.nanoTime() : 0);
 				Connection newCon = obtainDataSource().getConnection();
+				if (metricsRecorder != null) {
+					metricsRecorder.recordTiming(definition.getName(),
+							TransactionMetricsRecorder.Timing.CONNECTION_ACQUISITION, System.nanoTime() - startTime);
+				}
 				if (logger.isDebugEnabled()) {
 					logger.debug("Acquired Connection [" + newCon + "] for JDBC transaction");
 				}
@@ -0,0 +1,1004 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link SmartDataSource} implementation that pools the physical Connections
+ * obtained from a non-pooling target DataSource, e.g. a {@link SimpleDriverDataSource}
+ * or an embedded database.
+ *
+ * <p>Borrowing a Connection does not involve any locks in the common case:
+ * idle Connections are claimed through a compare-and-set on their state, with
+ * a thread-affine fast path that first tries the Connections recently returned
+ * by the calling thread. The number of concurrently borrowed Connections is
+ * bounded by {@link #setMaxPoolSize "maxPoolSize"}; callers beyond that limit
+ * wait in FIFO order for up to {@link #setConnectionTimeout "connectionTimeout"}
+ * milliseconds before a {@link SQLTransientConnectionException} is thrown.
+ *
+ * <p>Connections are handed out as {@link ConnectionProxy} handles whose
+ * {@code close()} call returns the physical Connection to the pool, closing
+ * any Statements left open through the handle, rolling back any pending
+ * transaction and resetting modified Connection properties. Statements,
+ * their ResultSets and the DatabaseMetaData obtained through a handle
+ * expose that handle rather than the physical Connection.
+ * A background housekeeping task validates and expires idle Connections and,
+ * if a {@link #setLeakDetectionThreshold "leakDetectionThreshold"} has been
+ * specified, logs the stack trace of every borrower which holds on to its
+ * Connection for longer than that.
+ *
+ * <p>Pool statistics are exposed through the {@link PooledDataSourceMXBean}
+ * interface, for example through Spring's
+ * {@link org.springframework.jmx.export.MBeanExporter}.
+ *
+ * <p>Pool settings are expected to be configured before the first Connection is
+ * obtained. Call {@link #destroy()} to close all physical Connections on shutdown;
+ * as this class implements {@link DisposableBean}, a bean factory does this
+ * automatically for its singletons.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see #setTargetDataSource
+ * @see #setMaxPoolSize
+ * @see #setConnectionTimeout
+ */
+public class PooledDataSource extends DelegatingDataSource
+		implements SmartDataSource, PooledDataSourceMXBean, DisposableBean {
+
+	private static final int STATE_IDLE = 0;
+
+	private static final int STATE_IN_USE = 1;
+
+	private static final int STATE_RESERVED = 2;
+
+	private static final int STATE_REMOVED = 3;
+
+	private static final int MAX_RECENTLY_USED = 16;
+
+
+	protected final Log logger = LogFactory.getLog(getClass());
+
+	private int maxPoolSize = 10;
+
+	private long connectionTimeout = 30000;
+
+	private boolean validateOnBorrow = false;
+
+	private boolean validateWhileIdle = true;
+
+	private int validationTimeout = 5;
+
+	private long maxIdleTime = 600000;
+
+	private long leakDetectionThreshold = 0;
+
+	private long housekeepingInterval = 30000;
+
+	private final List<PooledConnection> connections = new CopyOnWriteArrayList<>();
+
+	private final AtomicInteger totalConnections = new AtomicInteger();
+
+	private final ThreadLocal<List<WeakReference<PooledConnection>>> recentlyUsed =
+			new NamedThreadLocal<List<WeakReference<PooledConnection>>>("Recently used pooled JDBC Connections") {
+				@Override
+				protected List<WeakReference<PooledConnection>> initialValue() {
+					return new ArrayList<>(MAX_RECENTLY_USED);
+				}
+			};
+
+	@Nullable
+	private volatile Semaphore permits;
+
+	@Nullable
+	private ScheduledExecutorService housekeeper;
+
+	private volatile boolean closed;
+
+	private final LongAdder borrowCount = new LongAdder();
+
+	private final LongAdder timeoutCount = new LongAdder();
+
+	private final LongAdder createdCount = new LongAdder();
+
+	private final LongAdder validationFailureCount = new LongAdder();
+
+	private final LongAdder leakCount = new LongAdder();
+
+	/** Synchronization monitor for pool initialization and shutdown. */
+	private final Object lifecycleMonitor = new Object();
+
+
+	/**
+	 * Create a new PooledDataSource.
+	 * @see #setTargetDataSource
+	 */
+	public PooledDataSource() {
+	}
+
+	/**
+	 * Create a new PooledDataSource.
+	 * @param targetDataSource the target DataSource to obtain physical Connections from
+	 */
+	public PooledDataSource(DataSource targetDataSource) {
+		super(targetDataSource);
+	}
+
+
+	/**
+	 * Set the maximum number of physical Connections in the pool,
+	 * which is also the maximum number of concurrently borrowed Connections.
+	 * Default is 10.
+	 */
+	public void setMaxPoolSize(int maxPoolSize) {
+		Assert.isTrue(maxPoolSize > 0, "maxPoolSize must be greater than 0");
+		this.maxPoolSize = maxPoolSize;
+	}
+
+	@Override
+	public int getMaxPoolSize() {
+		return this.maxPoolSize;
+	}
+
+	/**
+	 * Set the maximum number of milliseconds to wait for a Connection
+	 * when all Connections are currently borrowed. Default is 30000.
+	 * @see java.sql.SQLTransientConnectionException
+	 */
+	public void setConnectionTimeout(long connectionTimeout) {
+		Assert.isTrue(connectionTimeout >= 0, "connectionTimeout must not be negative");
+		this.connectionTimeout = connectionTimeout;
+	}
+
+	/**
+	 * Return the maximum number of milliseconds to wait for a Connection.
+	 */
+	public long getConnectionTimeout() {
+		return this.connectionTimeout;
+	}
+
+	/**
+	 * Set whether to validate an idle Connection through {@link Connection#isValid}
+	 * before handing it out. Default is "false", relying on idle validation.
+	 * @see #setValidateWhileIdle
+	 */
+	public void setValidateOnBorrow(boolean validateOnBorrow) {
+		this.validateOnBorrow = validateOnBorrow;
+	}
+
+	/**
+	 * Return whether idle Connections get validated before handing them out.
+	 */
+	public boolean isValidateOnBorrow() {
+		return this.validateOnBorrow;
+	}
+
+	/**
+	 * Set whether to validate idle Connections through {@link Connection#isValid}
+	 * in the housekeeping task. Default is "true".
+	 * @see #setHousekeepingInterval
+	 */
+	public void setValidateWhileIdle(boolean validateWhileIdle) {
+		this.validateWhileIdle = validateWhileIdle;
+	}
+
+	/**
+	 * Return whether idle Connections get validated in the housekeeping task.
+	 */
+	public boolean isValidateWhileIdle() {
+		return this.validateWhileIdle;
+	}
+
+	/**
+	 * Set the timeout in seconds to pass to {@link Connection#isValid}.
+	 * Default is 5.
+	 */
+	public void setValidationTimeout(int validationTimeout) {
+		Assert.isTrue(validationTimeout >= 0, "validationTimeout must not be negative");
+		this.validationTimeout = validationTimeout;
+	}
+
+	/**
+	 * Return the timeout in seconds to pass to {@link Connection#isValid}.
+	 */
+	public int getValidationTimeout() {
+		return this.validationTimeout;
+	}
+
+	/**
+	 * Set the number of milliseconds after which an idle Connection gets closed
+	 * by the housekeeping task. Default is 600000 (10 minutes); 0 indicates
+	 * that idle Connections never expire.
+	 */
+	public void setMaxIdleTime(long maxIdleTime) {
+		Assert.isTrue(maxIdleTime >= 0, "maxIdleTime must not be negative");
+		this.maxIdleTime = maxIdleTime;
+	}
+
+	/**
+	 * Return the number of milliseconds after which an idle Connection gets closed.
+	 */
+	public long getMaxIdleTime() {
+		return this.maxIdleTime;
+	}
+
+	/**
+	 * Set the number of milliseconds after which a borrowed Connection is
+	 * reported as a potential leak, logging the stack trace of the borrower.
+	 * Default is 0, not tracking borrowers at all.
+	 * <p>Note that leaks are detected by the housekeeping task, so the
+	 * effective resolution is the {@link #setHousekeepingInterval housekeeping interval}.
+	 */
+	public void setLeakDetectionThreshold(long leakDetectionThreshold) {
+		Assert.isTrue(leakDetectionThreshold >= 0, "leakDetectionThreshold must not be negative");
+		this.leakDetectionThreshold = leakDetectionThreshold;
+	}
+
+	/**
+	 * Return the number of milliseconds after which a borrowed Connection
+	 * is reported as a potential leak.
+	 */
+	public long getLeakDetectionThreshold() {
+		return this.leakDetectionThreshold;
+	}
+
+	/**
+	 * Set the interval in milliseconds between runs of the housekeeping task
+	 * which validates and expires idle Connections and detects leaks.
+	 * Default is 30000; 0 indicates no housekeeping at all.
+	 */
+	public void setHousekeepingInterval(long housekeepingInterval) {
+		Assert.isTrue(housekeepingInterval >= 0, "housekeepingInterval must not be negative");
+		this.housekeepingInterval = housekeepingInterval;
+	}
+
+	/**
+	 * Return the interval in milliseconds between runs of the housekeeping task.
+	 */
+	public long getHousekeepingInterval() {
+		return this.housekeepingInterval;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		super.afterPropertiesSet();
+		obtainPermits();
+	}
+
+	/**
+	 * Obtain a Connection from the pool, creating a new physical Connection
+	 * if no idle Connection is available and the pool is not exhausted yet.
+	 * @throws SQLTransientConnectionException if no Connection became
+	 * available within the {@link #setConnectionTimeout connection timeout}
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		Semaphore permits = obtainPermits();
+		try {
+			if (!permits.tryAcquire(this.connectionTimeout, TimeUnit.MILLISECONDS)) {
+				this.timeoutCount.increment();
+				throw new SQLTransientConnectionException("Connection not available within " +
+						this.connectionTimeout + "ms (" + getActiveConnections() + " active, " +
+						getThreadsAwaitingConnection() + " waiting, max " + this.maxPoolSize + ")");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a pooled Connection", ex);
+		}
+		try {
+			PooledConnection pooled = borrowConnection();
+			this.borrowCount.increment();
+			return (Connection) Proxy.newProxyInstance(
+					ConnectionProxy.class.getClassLoader(),
+					new Class<?>[] {ConnectionProxy.class},
+					new PooledConnectionInvocationHandler(pooled));
+		}
+		catch (Throwable ex) {
+			permits.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Specifying a custom username and password doesn't make sense
+	 * with a pool of uniform Connections.
+	 * @throws SQLException always
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLException("PooledDataSource does not support custom username and password");
+	}
+
+	/**
+	 * Connections from this pool should always be closed:
+	 * closing the handle returns the physical Connection to the pool.
+	 */
+	@Override
+	public boolean shouldClose(Connection con) {
+		return true;
+	}
+
+	/**
+	 * Close all idle physical Connections and stop the housekeeping task.
+	 * Borrowed Connections are closed as soon as they are returned.
+	 */
+	@Override
+	public void destroy() {
+		synchronized (this.lifecycleMonitor) {
+			this.closed = true;
+			if (this.housekeeper != null) {
+				this.housekeeper.shutdownNow();
+				this.housekeeper = null;
+			}
+		}
+		for (PooledConnection pooled : this.connections) {
+			if (pooled.compareAndSetState(STATE_IDLE, STATE_RESERVED)) {
+				discard(pooled);
+			}
+		}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Closed PooledDataSource with " + getActiveConnections() + " borrowed Connections remaining");
+		}
+	}
+
+
+	//---------------------------------------------------------------------
+	// Implementation of PooledDataSourceMXBean interface
+	//---------------------------------------------------------------------
+
+	@Override
+	public int getTotalConnections() {
+		return this.totalConnections.get();
+	}
+
+	@Override
+	public int getActiveConnections() {
+		return countConnections(STATE_IN_USE);
+	}
+
+	@Override
+	public int getIdleConnections() {
+		return countConnections(STATE_IDLE);
+	}
+
+	@Override
+	public int getThreadsAwaitingConnection() {
+		Semaphore permits = this.permits;
+		return (permits != null ? permits.getQueueLength() : 0);
+	}
+
+	@Override
+	public long getBorrowCount() {
+		return this.borrowCount.sum();
+	}
+
+	@Override
+	public long getTimeoutCount() {
+		return this.timeoutCount.sum();
+	}
+
+	@Override
+	public long getCreatedCount() {
+		return this.createdCount.sum();
+	}
+
+	@Override
+	public long getValidationFailureCount() {
+		return this.validationFailureCount.sum();
+	}
+
+	@Override
+	public long getLeakCount() {
+		return this.leakCount.sum();
+	}
+
+	@Override
+	public void softEvictConnections() {
+		for (PooledConnection pooled : this.connections) {
+			pooled.evicted = true;
+			if (pooled.compareAndSetState(STATE_IDLE, STATE_RESERVED)) {
+				discard(pooled);
+			}
+		}
+	}
+
+
+	/**
+	 * Run a single housekeeping pass: report Connections borrowed for longer
+	 * than the leak detection threshold, and close idle Connections which
+	 * have expired, have been evicted or fail validation.
+	 * <p>Called periodically according to the
+	 * {@link #setHousekeepingInterval housekeeping interval}.
+	 */
+	public void housekeep() {
+		long now = System.nanoTime();
+		long leakThresholdNanos = TimeUnit.MILLISECONDS.toNanos(this.leakDetectionThreshold);
+		long maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(this.maxIdleTime);
+		for (PooledConnection pooled : this.connections) {
+			if (pooled.getState() == STATE_IN_USE) {
+				Throwable borrowedAt = pooled.borrowedAt;
+				if (borrowedAt != null && leakThresholdNanos > 0 && !pooled.leakReported &&
+						now - pooled.borrowTime > leakThresholdNanos) {
+					pooled.leakReported = true;
+					this.leakCount.increment();
+					if (logger.isWarnEnabled()) {
+						logger.warn("Connection leak detection triggered for " + pooled.target + ", borrowed " +
+								TimeUnit.NANOSECONDS.toMillis(now - pooled.borrowTime) + "ms ago", borrowedAt);
+					}
+				}
+			}
+			else if (pooled.compareAndSetState(STATE_IDLE, STATE_RESERVED)) {
+				if (this.closed || pooled.evicted || (maxIdleNanos > 0 && now - pooled.lastAccessTime > maxIdleNanos)) {
+					discard(pooled);
+				}
+				else if (this.validateWhileIdle && !isValid(pooled)) {
+					this.validationFailureCount.increment();
+					discard(pooled);
+				}
+				else {
+					pooled.setState(STATE_IDLE);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Lazily initialize the permits bounding the number of borrowed Connections,
+	 * along with the housekeeping task.
+	 */
+	private Semaphore obtainPermits() {
+		Semaphore permits = this.permits;
+		if (permits == null) {
+			synchronized (this.lifecycleMonitor) {
+				permits = this.permits;
+				if (permits == null) {
+					if (this.housekeepingInterval > 0) {
+						this.housekeeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+							Thread thread = new Thread(runnable, "PooledDataSource housekeeper");
+							thread.setDaemon(true);
+							return thread;
+						});
+						this.housekeeper.scheduleWithFixedDelay(this::runHousekeeping,
+								this.housekeepingInterval, this.housekeepingInterval, TimeUnit.MILLISECONDS);
+					}
+					permits = new Semaphore(this.maxPoolSize, true);
+					this.permits = permits;
+				}
+			}
+		}
+		return permits;
+	}
+
+	private void runHousekeeping() {
+		try {
+			housekeep();
+		}
+		catch (Throwable ex) {
+			logger.warn("Housekeeping of pooled JDBC Connections failed", ex);
+		}
+	}
+
+	/**
+	 * Claim an idle Connection or create a new one. Only to be called
+	 * with a permit held, which guarantees that either an idle Connection
+	 * is available or the pool has room for another Connection.
+	 */
+	private PooledConnection borrowConnection() throws SQLException {
+		while (true) {
+			if (this.closed) {
+				throw new SQLException("PooledDataSource has been closed");
+			}
+			PooledConnection pooled = claimIdleConnection();
+			if (pooled != null) {
+				if (pooled.evicted) {
+					discard(pooled);
+					continue;
+				}
+				if (this.validateOnBorrow && !isValid(pooled)) {
+					this.validationFailureCount.increment();
+					discard(pooled);
+					continue;
+				}
+			}
+			else {
+				pooled = createConnectionIfPossible();
+				if (pooled == null) {
+					// Remaining Connections temporarily reserved by housekeeping
+					LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100));
+					continue;
+				}
+			}
+			pooled.borrowTime = System.nanoTime();
+			pooled.borrowedAt = (this.leakDetectionThreshold > 0 ?
+					new Exception("Connection borrowed by thread '" + Thread.currentThread().getName() + "'") : null);
+			pooled.leakReported = false;
+			return pooled;
+		}
+	}
+
+	@Nullable
+	private PooledConnection claimIdleConnection() {
+		List<WeakReference<PooledConnection>> recent = this.recentlyUsed.get();
+		for (int i = recent.size() - 1; i >= 0; i--) {
+			PooledConnection pooled = recent.remove(i).get();
+			if (pooled != null && pooled.compareAndSetState(STATE_IDLE, STATE_IN_USE)) {
+				return pooled;
+			}
+		}
+		for (PooledConnection pooled : this.connections) {
+			if (pooled.compareAndSetState(STATE_IDLE, STATE_IN_USE)) {
+				return pooled;
+			}
+		}
+		return null;
+	}
+
+	@Nullable
+	private PooledConnection createConnectionIfPossible() throws SQLException {
+		int total;
+		do {
+			total = this.totalConnections.get();
+			if (total >= this.maxPoolSize) {
+				return null;
+			}
+		}
+		while (!this.totalConnections.compareAndSet(total, total + 1));
+
+		try {
+			Connection target = obtainTargetDataSource().getConnection();
+			PooledConnection pooled;
+			try {
+				pooled = new PooledConnection(target);
+			}
+			catch (Throwable ex) {
+				closeTarget(target);
+				throw ex;
+			}
+			this.connections.add(pooled);
+			this.createdCount.increment();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Added JDBC Connection to pool: " + target);
+			}
+			return pooled;
+		}
+		catch (Throwable ex) {
+			this.totalConnections.decrementAndGet();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Return the given Connection to the pool, or close it if it has been
+	 * evicted in the meantime, and release the caller's permit.
+	 */
+	private void releaseConnection(PooledConnection pooled) {
+		try {
+			if (!this.closed && !pooled.evicted) {
+				try {
+					pooled.resetState();
+				}
+				catch (SQLException ex) {
+					logger.debug("Could not reset pooled JDBC Connection - discarding it", ex);
+					pooled.evicted = true;
+				}
+			}
+			pooled.borrowedAt = null;
+			if (this.closed || pooled.evicted) {
+				discard(pooled);
+			}
+			else {
+				pooled.lastAccessTime = System.nanoTime();
+				pooled.setState(STATE_IDLE);
+				List<WeakReference<PooledConnection>> recent = this.recentlyUsed.get();
+				if (recent.size() < MAX_RECENTLY_USED) {
+					recent.add(pooled.reference);
+				}
+			}
+		}
+		finally {
+			Semaphore permits = this.permits;
+			if (permits != null) {
+				permits.release();
+			}
+		}
+	}
+
+	private boolean isValid(PooledConnection pooled) {
+		try {
+			return pooled.target.isValid(this.validationTimeout);
+		}
+		catch (Throwable ex) {
+			logger.debug("Validation of pooled JDBC Connection failed", ex);
+			return false;
+		}
+	}
+
+	private void discard(PooledConnection pooled) {
+		pooled.setState(STATE_REMOVED);
+		if (this.connections.remove(pooled)) {
+			this.totalConnections.decrementAndGet();
+		}
+		closeTarget(pooled.target);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Removed JDBC Connection from pool: " + pooled.target);
+		}
+	}
+
+	private void closeTarget(Connection target) {
+		try {
+			target.close();
+		}
+		catch (Throwable ex) {
+			logger.debug("Could not close pooled JDBC Connection", ex);
+		}
+	}
+
+	private int countConnections(int state) {
+		int count = 0;
+		for (PooledConnection pooled : this.connections) {
+			if (pooled.getState() == state) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+
+	/**
+	 * Holder for a physical Connection in the pool, tracking its pool state
+	 * and the Connection properties to restore when it is returned.
+	 */
+	private static final class PooledConnection {
+
+		final Connection target;
+
+		final WeakReference<PooledConnection> reference = new WeakReference<>(this);
+
+		private final AtomicInteger state = new AtomicInteger(STATE_IN_USE);
+
+		private final boolean defaultAutoCommit;
+
+		private final boolean defaultReadOnly;
+
+		private final int defaultTransactionIsolation;
+
+		@Nullable
+		private final String defaultCatalog;
+
+		boolean autoCommit;
+
+		boolean readOnlyModified;
+
+		boolean transactionIsolationModified;
+
+		boolean catalogModified;
+
+		volatile boolean evicted;
+
+		volatile long lastAccessTime = System.nanoTime();
+
+		volatile long borrowTime;
+
+		@Nullable
+		volatile Throwable borrowedAt;
+
+		volatile boolean leakReported;
+
+		PooledConnection(Connection target) throws SQLException {
+			this.target = target;
+			this.defaultAutoCommit = target.getAutoCommit();
+			this.defaultReadOnly = target.isReadOnly();
+			this.defaultTransactionIsolation = target.getTransactionIsolation();
+			this.defaultCatalog = target.getCatalog();
+			this.autoCommit = this.defaultAutoCommit;
+		}
+
+		int getState() {
+			return this.state.get();
+		}
+
+		void setState(int state) {
+			this.state.set(state);
+		}
+
+		boolean compareAndSetState(int expect, int update) {
+			return this.state.compareAndSet(expect, update);
+		}
+
+		/**
+		 * Roll back any pending transaction and restore the Connection properties
+		 * which have been modified through the handle.
+		 */
+		void resetState() throws SQLException {
+			if (!this.autoCommit) {
+				this.target.rollback();
+			}
+			if (this.autoCommit != this.defaultAutoCommit) {
+				this.target.setAutoCommit(this.defaultAutoCommit);
+				this.autoCommit = this.defaultAutoCommit;
+			}
+			if (this.readOnlyModified) {
+				this.target.setReadOnly(this.defaultReadOnly);
+				this.readOnlyModified = false;
+			}
+			if (this.transactionIsolationModified) {
+				this.target.setTransactionIsolation(this.defaultTransactionIsolation);
+				this.transactionIsolationModified = false;
+			}
+			if (this.catalogModified) {
+				if (this.defaultCatalog != null) {
+					this.target.setCatalog(this.defaultCatalog);
+				}
+				this.catalogModified = false;
+			}
+			this.target.clearWarnings();
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a borrowed Connection handle, returning the
+	 * physical Connection to the pool on {@code close()}.
+	 */
+	private class PooledConnectionInvocationHandler implements InvocationHandler {
+
+		private final PooledConnection pooled;
+
+		private final List<Statement> openStatements = new ArrayList<>();
+
+		private volatile boolean closed;
+
+		public PooledConnectionInvocationHandler(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on ConnectionProxy interface coming in...
+
+			switch (method.getName()) {
+				case "equals":
+					// Only consider equal when proxies are identical.
+					return (proxy == args[0]);
+				case "hashCode":
+					// Use hashCode of Connection proxy.
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled JDBC Connection [" + (this.closed ? "closed" : this.pooled.target) + "]";
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+				case "close":
+					// Handle close method: return physical Connection to the pool.
+					synchronized (this.openStatements) {
+						if (this.closed) {
+							return null;
+						}
+						this.closed = true;
+					}
+					closeOpenStatements();
+					releaseConnection(this.pooled);
+					return null;
+				case "isClosed":
+					return this.closed;
+				case "getTargetConnection":
+					// Handle getTargetConnection method: return underlying Connection.
+					return this.pooled.target;
+			}
+
+			if (this.closed) {
+				throw new SQLException("Connection handle already closed");
+			}
+
+			// Invoke method on target Connection.
+			Object result;
+			try {
+				result = method.invoke(this.pooled.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				Throwable targetEx = ex.getTargetException();
+				if (targetEx instanceof SQLNonTransientConnectionException ||
+						(targetEx instanceof SQLException && isConnectionFailure((SQLException) targetEx))) {
+					// Physical Connection is broken: do not return it to the pool.
+					this.pooled.evicted = true;
+				}
+				throw targetEx;
+			}
+
+			switch (method.getName()) {
+				case "setAutoCommit":
+					this.pooled.autoCommit = (Boolean) args[0];
+					break;
+				case "setReadOnly":
+					this.pooled.readOnlyModified = true;
+					break;
+				case "setTransactionIsolation":
+					this.pooled.transactionIsolationModified = true;
+					break;
+				case "setCatalog":
+					this.pooled.catalogModified = true;
+					break;
+			}
+
+			if (result instanceof Statement) {
+				// Track Statement for closing on handle close, exposing this handle.
+				Statement statement = (Statement) result;
+				synchronized (this.openStatements) {
+					this.openStatements.add(statement);
+				}
+				return createResourceProxy(method.getReturnType(), statement, (Connection) proxy, null);
+			}
+			if (result instanceof DatabaseMetaData) {
+				return createResourceProxy(DatabaseMetaData.class, result, (Connection) proxy, null);
+			}
+			return result;
+		}
+
+		private boolean isConnectionFailure(SQLException ex) {
+			String sqlState = ex.getSQLState();
+			return (sqlState != null && sqlState.startsWith("08"));
+		}
+
+		private Object createResourceProxy(Class<?> resourceType, Object target,
+				Connection connectionProxy, @Nullable Object statementProxy) {
+
+			return Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(), new Class<?>[] {resourceType},
+					new ConnectionResourceInvocationHandler(this, target, connectionProxy, statementProxy));
+		}
+
+		void statementClosed(Statement statement) {
+			synchronized (this.openStatements) {
+				this.openStatements.removeIf(candidate -> candidate == statement);
+			}
+		}
+
+		private void closeOpenStatements() {
+			List<Statement> statements;
+			synchronized (this.openStatements) {
+				statements = new ArrayList<>(this.openStatements);
+				this.openStatements.clear();
+			}
+			for (Statement statement : statements) {
+				try {
+					statement.close();
+				}
+				catch (Throwable ex) {
+					logger.debug("Could not close JDBC Statement left open on pooled Connection", ex);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a Statement, ResultSet or DatabaseMetaData obtained
+	 * through a borrowed Connection handle, returning that handle (rather than the
+	 * physical Connection) from {@code getConnection()} and the Statement proxy
+	 * from {@code ResultSet.getStatement()}.
+	 */
+	private static class ConnectionResourceInvocationHandler implements InvocationHandler {
+
+		private final PooledConnectionInvocationHandler connectionHandler;
+
+		private final Object target;
+
+		private final Connection connectionProxy;
+
+		@Nullable
+		private final Object statementProxy;
+
+		public ConnectionResourceInvocationHandler(PooledConnectionInvocationHandler connectionHandler,
+				Object target, Connection connectionProxy, @Nullable Object statementProxy) {
+
+			this.connectionHandler = connectionHandler;
+			this.target = target;
+			this.connectionProxy = connectionProxy;
+			this.statementProxy = statementProxy;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					// Only consider equal when proxies are identical.
+					return (proxy == args[0]);
+				case "hashCode":
+					// Use hashCode of resource proxy.
+					return System.identityHashCode(proxy);
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+				case "getConnection":
+					// Expose the Connection handle instead of the physical Connection.
+					return this.connectionProxy;
+				case "getStatement":
+					if (this.target instanceof ResultSet) {
+						return this.statementProxy;
+					}
+					break;
+				case "close":
+					if (this.target instanceof Statement) {
+						this.connectionHandler.statementClosed((Statement) this.target);
+					}
+					break;
+			}
+
+			Object result;
+			try {
+				result = method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+
+			if (result instanceof ResultSet && this.target instanceof Statement) {
+				return this.connectionHandler.createResourceProxy(ResultSet.class, result, this.connectionProxy, proxy);
+			}
+			return result;
+		}
+	}
+
+}
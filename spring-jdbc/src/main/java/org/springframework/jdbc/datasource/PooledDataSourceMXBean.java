@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+/**
+ * Management interface for a {@link PooledDataSource}, exposing pool
+ * statistics as well as a few runtime operations.
+ *
+ * <p>Follows the MXBean conventions, so a {@code PooledDataSource} bean is
+ * automatically detected and registered by Spring's
+ * {@link org.springframework.jmx.export.MBeanExporter} when autodetection
+ * is active, without any need for JMX-specific metadata.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see PooledDataSource
+ */
+public interface PooledDataSourceMXBean {
+
+	/**
+	 * Return the maximum number of physical Connections in the pool.
+	 */
+	int getMaxPoolSize();
+
+	/**
+	 * Return the current number of physical Connections in the pool.
+	 */
+	int getTotalConnections();
+
+	/**
+	 * Return the number of Connections currently borrowed from the pool.
+	 */
+	int getActiveConnections();
+
+	/**
+	 * Return the number of Connections currently idle in the pool.
+	 */
+	int getIdleConnections();
+
+	/**
+	 * Return an estimate of the number of threads waiting for a Connection.
+	 */
+	int getThreadsAwaitingConnection();
+
+	/**
+	 * Return the total number of successful Connection borrows.
+	 */
+	long getBorrowCount();
+
+	/**
+	 * Return the number of borrow attempts which timed out.
+	 */
+	long getTimeoutCount();
+
+	/**
+	 * Return the number of physical Connections created so far.
+	 */
+	long getCreatedCount();
+
+	/**
+	 * Return the number of physical Connections discarded after failed validation.
+	 */
+	long getValidationFailureCount();
+
+	/**
+	 * Return the number of Connections reported as potentially leaked.
+	 */
+	long getLeakCount();
+
+	/**
+	 * Mark all current Connections for eviction: idle Connections get closed
+	 * right away, borrowed Connections once they are returned to the pool.
+	 */
+	void softEvictConnections();
+
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+/**
+ * Strategy interface for determining the replication lag of a read replica,
+ * as used by {@link ReplicaRoutingDataSource} to exclude replicas that fall
+ * too far behind the primary database.
+ *
+ * <p>Implementations typically run a database-specific query against the
+ * replica, e.g. comparing a heartbeat timestamp written on the primary.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see ReplicaRoutingDataSource#setLagProbe
+ */
+@FunctionalInterface
+public interface ReplicaLagProbe {
+
+	/**
+	 * Determine the current replication lag of the given replica.
+	 * @param replica the replica DataSource to check
+	 * @return the replication lag (never {@code null})
+	 * @throws SQLException if the replica could not be checked, in which
+	 * case it will be considered unavailable until the next check
+	 */
+	Duration getReplicationLag(DataSource replica) throws SQLException;
+
+}
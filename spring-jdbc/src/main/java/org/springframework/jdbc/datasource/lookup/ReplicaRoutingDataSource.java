@@ -0,0 +1,523 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * DataSource that routes read-only transactions to read replicas, with all
+ * other access going to the primary database. A transaction counts as
+ * read-only if the current thread is within a transaction marked as such,
+ * e.g. through {@code @Transactional(readOnly = true)}.
+ *
+ * <p>By default, Connections are exposed through a {@link LazyConnectionDataSourceProxy},
+ * deferring the routing decision and the fetching of a physical Connection until
+ * the first statement gets executed. At that point, the transaction manager has
+ * exposed the read-only flag of the current transaction, even if the transaction
+ * manager obtains its Connection eagerly on transaction begin (as standard
+ * {@link org.springframework.jdbc.datasource.DataSourceTransactionManager} does).
+ *
+ * <p>A replica is selected per physical Connection according to the configured
+ * {@link SelectionStrategy}: by default the replica with the least outstanding
+ * Connections relative to its weight. A {@link ReplicaLagProbe} may be specified
+ * for excluding replicas which fall behind the primary by more than the
+ * {@link #setMaxReplicationLag maximum replication lag}; the probe runs at
+ * most once per {@link #setCheckInterval check interval} and replica, on the
+ * thread that happens to request a Connection. A replica failing to provide
+ * a Connection is excluded until the next check as well. Without any available
+ * replica, read-only transactions fall back to the primary database.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see #setPrimaryDataSource
+ * @see #setReplicaDataSources
+ * @see TransactionSynchronizationManager#isCurrentTransactionReadOnly()
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean {
+
+	/**
+	 * Strategy for selecting a replica.
+	 */
+	public enum SelectionStrategy {
+
+		/**
+		 * Select the replica with the least outstanding Connections,
+		 * relative to its weight.
+		 */
+		LEAST_OUTSTANDING,
+
+		/**
+		 * Select a replica randomly, with a probability proportional to its weight.
+		 */
+		WEIGHTED_RANDOM
+	}
+
+
+	@Nullable
+	private DataSource primaryDataSource;
+
+	private List<DataSource> replicaDataSources = Collections.emptyList();
+
+	@Nullable
+	private int[] replicaWeights;
+
+	private SelectionStrategy selectionStrategy = SelectionStrategy.LEAST_OUTSTANDING;
+
+	@Nullable
+	private ReplicaLagProbe lagProbe;
+
+	private Duration maxReplicationLag = Duration.ofSeconds(10);
+
+	private Duration checkInterval = Duration.ofSeconds(5);
+
+	private boolean lazyConnectionFetch = true;
+
+	private Replica[] replicas = new Replica[0];
+
+	@Nullable
+	private DataSource connectionSource;
+
+	private final AtomicInteger rotation = new AtomicInteger();
+
+	private final LongAdder replicaConnectionCount = new LongAdder();
+
+	private final LongAdder primaryFallbackCount = new LongAdder();
+
+
+	/**
+	 * Specify the primary DataSource, used for all access outside of
+	 * read-only transactions and as a fallback for read-only transactions.
+	 */
+	public void setPrimaryDataSource(DataSource primaryDataSource) {
+		this.primaryDataSource = primaryDataSource;
+	}
+
+	/**
+	 * Return the primary DataSource.
+	 */
+	@Nullable
+	public DataSource getPrimaryDataSource() {
+		return this.primaryDataSource;
+	}
+
+	/**
+	 * Specify the replica DataSources for read-only transactions.
+	 */
+	public void setReplicaDataSources(List<DataSource> replicaDataSources) {
+		Assert.notNull(replicaDataSources, "Replica DataSources must not be null");
+		this.replicaDataSources = replicaDataSources;
+	}
+
+	/**
+	 * Return the replica DataSources.
+	 */
+	public List<DataSource> getReplicaDataSources() {
+		return this.replicaDataSources;
+	}
+
+	/**
+	 * Specify a weight for each replica DataSource, in the order of
+	 * {@link #setReplicaDataSources}. Default is an equal weight of 1.
+	 */
+	public void setReplicaWeights(int... replicaWeights) {
+		this.replicaWeights = replicaWeights;
+	}
+
+	/**
+	 * Specify the strategy for selecting a replica.
+	 * <p>Default is {@link SelectionStrategy#LEAST_OUTSTANDING}.
+	 */
+	public void setSelectionStrategy(SelectionStrategy selectionStrategy) {
+		Assert.notNull(selectionStrategy, "SelectionStrategy must not be null");
+		this.selectionStrategy = selectionStrategy;
+	}
+
+	/**
+	 * Return the strategy for selecting a replica.
+	 */
+	public SelectionStrategy getSelectionStrategy() {
+		return this.selectionStrategy;
+	}
+
+	/**
+	 * Specify a probe for the replication lag of each replica.
+	 * <p>Default is none, considering every replica as up-to-date.
+	 * @see #setMaxReplicationLag
+	 */
+	public void setLagProbe(@Nullable ReplicaLagProbe lagProbe) {
+		this.lagProbe = lagProbe;
+	}
+
+	/**
+	 * Specify the maximum replication lag for a replica to be selected.
+	 * <p>Default is 10 seconds.
+	 * @see #setLagProbe
+	 */
+	public void setMaxReplicationLag(Duration maxReplicationLag) {
+		Assert.notNull(maxReplicationLag, "Max replication lag must not be null");
+		this.maxReplicationLag = maxReplicationLag;
+	}
+
+	/**
+	 * Specify the interval between checks of a replica's availability,
+	 * through the lag probe (if any) or after a failed Connection attempt.
+	 * <p>Default is 5 seconds.
+	 */
+	public void setCheckInterval(Duration checkInterval) {
+		Assert.notNull(checkInterval, "Check interval must not be null");
+		this.checkInterval = checkInterval;
+	}
+
+	/**
+	 * Specify whether to defer fetching a physical Connection until the first
+	 * statement, through a {@link LazyConnectionDataSourceProxy}.
+	 * <p>Default is "true". Switch this to "false" only if the transaction
+	 * manager exposes the read-only flag before obtaining a Connection.
+	 */
+	public void setLazyConnectionFetch(boolean lazyConnectionFetch) {
+		this.lazyConnectionFetch = lazyConnectionFetch;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		Assert.notNull(this.primaryDataSource, "Property 'primaryDataSource' is required");
+		int[] weights = this.replicaWeights;
+		if (weights != null) {
+			Assert.isTrue(weights.length == this.replicaDataSources.size(),
+					"Number of replica weights does not match number of replica DataSources");
+		}
+		List<Replica> replicas = new ArrayList<>(this.replicaDataSources.size());
+		for (int i = 0; i < this.replicaDataSources.size(); i++) {
+			int weight = (weights != null ? weights[i] : 1);
+			Assert.isTrue(weight > 0, "Replica weights must be positive");
+			replicas.add(new Replica(this.replicaDataSources.get(i), weight));
+		}
+		this.replicas = replicas.toArray(new Replica[0]);
+		DataSource router = new ReplicaRouter();
+		this.connectionSource = (this.lazyConnectionFetch ? new LazyConnectionDataSourceProxy(router) : router);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return obtainConnectionSource().getConnection();
+	}
+
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		return obtainConnectionSource().getConnection(username, password);
+	}
+
+	private DataSource obtainConnectionSource() {
+		DataSource connectionSource = this.connectionSource;
+		Assert.state(connectionSource != null, "ReplicaRoutingDataSource not initialized");
+		return connectionSource;
+	}
+
+	/**
+	 * Determine whether the current Connection request is to be routed to a replica.
+	 * <p>The default implementation checks whether the current transaction is
+	 * read-only. Can be overridden to take further conditions into account.
+	 * @see TransactionSynchronizationManager#isCurrentTransactionReadOnly()
+	 */
+	protected boolean isReplicaRoutingActive() {
+		return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
+
+	/**
+	 * Return the number of physical Connections obtained from replicas.
+	 */
+	public long getReplicaConnectionCount() {
+		return this.replicaConnectionCount.sum();
+	}
+
+	/**
+	 * Return the number of read-only Connection requests that fell back to
+	 * the primary DataSource for lack of an available replica.
+	 */
+	public long getPrimaryFallbackCount() {
+		return this.primaryFallbackCount.sum();
+	}
+
+	/**
+	 * Return the number of currently open Connections per replica,
+	 * in the order of {@link #setReplicaDataSources}.
+	 */
+	public int[] getOutstandingConnectionCounts() {
+		int[] counts = new int[this.replicas.length];
+		for (int i = 0; i < this.replicas.length; i++) {
+			counts[i] = this.replicas[i].outstanding.get();
+		}
+		return counts;
+	}
+
+
+	/**
+	 * Obtain a physical Connection from a replica or the primary DataSource.
+	 */
+	private Connection getTargetConnection(@Nullable String username, @Nullable String password)
+			throws SQLException {
+
+		if (this.replicas.length > 0 && isReplicaRoutingActive()) {
+			Replica replica = selectReplica();
+			if (replica != null) {
+				try {
+					Connection con = replica.getConnection(username, password);
+					this.replicaConnectionCount.increment();
+					return con;
+				}
+				catch (SQLException ex) {
+					replica.markUnavailable();
+					logger.warn("Failed to obtain Connection from replica DataSource [" +
+							replica.dataSource + "] - falling back to primary", ex);
+				}
+			}
+			this.primaryFallbackCount.increment();
+		}
+		DataSource primary = this.primaryDataSource;
+		Assert.state(primary != null, "No primary DataSource set");
+		return (username != null ? primary.getConnection(username, password) : primary.getConnection());
+	}
+
+	@Nullable
+	private Replica selectReplica() {
+		long now = System.nanoTime();
+		Replica[] replicas = this.replicas;
+		int count = replicas.length;
+		int start = (count > 1 ? Math.floorMod(this.rotation.getAndIncrement(), count) : 0);
+		if (this.selectionStrategy == SelectionStrategy.WEIGHTED_RANDOM) {
+			// Take a single availability snapshot for weighing and picking
+			Replica[] availableReplicas = new Replica[count];
+			int availableCount = 0;
+			int totalWeight = 0;
+			for (Replica replica : replicas) {
+				if (replica.isAvailable(now)) {
+					availableReplicas[availableCount++] = replica;
+					totalWeight += replica.weight;
+				}
+			}
+			if (totalWeight > 0) {
+				int value = ThreadLocalRandom.current().nextInt(totalWeight);
+				for (int i = 0; i < availableCount; i++) {
+					value -= availableReplicas[i].weight;
+					if (value < 0) {
+						return availableReplicas[i];
+					}
+				}
+			}
+			return null;
+		}
+		else {
+			Replica selected = null;
+			double lowestLoad = Double.MAX_VALUE;
+			for (int i = 0; i < count; i++) {
+				Replica replica = replicas[(start + i) % count];
+				if (replica.isAvailable(now)) {
+					double load = (double) replica.outstanding.get() / replica.weight;
+					if (load < lowestLoad) {
+						selected = replica;
+						lowestLoad = load;
+					}
+				}
+			}
+			return selected;
+		}
+	}
+
+
+	/**
+	 * Internal DataSource which performs the actual routing,
+	 * possibly behind a {@link LazyConnectionDataSourceProxy}.
+	 */
+	private class ReplicaRouter extends AbstractDataSource {
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return getTargetConnection(null, null);
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return getTargetConnection(username, password);
+		}
+
+		@Override
+		public String toString() {
+			return "ReplicaRouter for primary [" + primaryDataSource + "] and replicas " + replicaDataSources;
+		}
+	}
+
+
+	/**
+	 * Runtime state of a replica DataSource.
+	 */
+	private class Replica {
+
+		final DataSource dataSource;
+
+		final int weight;
+
+		final AtomicInteger outstanding = new AtomicInteger();
+
+		private final AtomicBoolean checking = new AtomicBoolean();
+
+		volatile boolean available = true;
+
+		private volatile long nextCheck = System.nanoTime();
+
+		Replica(DataSource dataSource, int weight) {
+			this.dataSource = dataSource;
+			this.weight = weight;
+		}
+
+		boolean isAvailable(long now) {
+			if (now - this.nextCheck >= 0 && this.checking.compareAndSet(false, true)) {
+				try {
+					this.available = checkAvailability();
+				}
+				finally {
+					this.nextCheck = now + checkInterval.toNanos();
+					this.checking.set(false);
+				}
+			}
+			return this.available;
+		}
+
+		private boolean checkAvailability() {
+			ReplicaLagProbe probe = lagProbe;
+			if (probe == null) {
+				return true;
+			}
+			try {
+				Duration lag = probe.getReplicationLag(this.dataSource);
+				if (lag.compareTo(maxReplicationLag) > 0) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Excluding replica DataSource [" + this.dataSource +
+								"] with replication lag of " + lag.toMillis() + " ms");
+					}
+					return false;
+				}
+				return true;
+			}
+			catch (Throwable ex) {
+				logger.debug("Failed to determine replication lag of replica DataSource [" +
+						this.dataSource + "]", ex);
+				return false;
+			}
+		}
+
+		void markUnavailable() {
+			this.available = false;
+			this.nextCheck = System.nanoTime() + checkInterval.toNanos();
+		}
+
+		Connection getConnection(@Nullable String username, @Nullable String password) throws SQLException {
+			Connection con = (username != null ?
+					this.dataSource.getConnection(username, password) : this.dataSource.getConnection());
+			this.outstanding.incrementAndGet();
+			return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+					new Class<?>[] {ConnectionProxy.class}, new ReplicaConnectionInvocationHandler(con, this.outstanding));
+		}
+	}
+
+
+	/**
+	 * Invocation handler that tracks the closing of a replica Connection.
+	 */
+	private static class ReplicaConnectionInvocationHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		private final AtomicInteger outstanding;
+
+		private boolean closed;
+
+		public ReplicaConnectionInvocationHandler(Connection target, AtomicInteger outstanding) {
+			this.target = target;
+			this.outstanding = outstanding;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on ConnectionProxy interface coming in...
+
+			switch (method.getName()) {
+				case "equals":
+					// Only consider equal when proxies are identical.
+					return (proxy == args[0]);
+				case "hashCode":
+					// Use hashCode of Connection proxy.
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Replica Connection proxy for target Connection [" + this.target + "]";
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+				case "getTargetConnection":
+					// Handle getTargetConnection method: return underlying Connection.
+					return this.target;
+				case "close":
+					// Count the first close call only.
+					if (!this.closed) {
+						this.closed = true;
+						this.outstanding.decrementAndGet();
+					}
+					break;
+			}
+
+			// Invoke method on target Connection.
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+}
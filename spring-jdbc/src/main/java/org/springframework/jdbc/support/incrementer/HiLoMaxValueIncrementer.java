@@ -0,0 +1,362 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.incrementer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DataFieldMaxValueIncrementer} decorator which allocates blocks of keys
+ * from a target incrementer, handing out the keys of the current block from memory.
+ *
+ * <p>Each value retrieved from the target incrementer reserves a block of
+ * {@link #setBlockSize "blockSize"} keys. By default, the classic hi/lo scheme
+ * applies: a target value {@code hi} reserves the keys from {@code hi * blockSize}
+ * to {@code hi * blockSize + blockSize - 1}. Alternatively, with
+ * {@link #setPooled "pooled"} allocation, the target value is taken as the first
+ * key of the block, for use with database sequences that increment by the block
+ * size themselves (which keeps the sequence in line with the keys in use).
+ *
+ * <p>Keys within a block are handed out through an {@link AtomicLong}, without
+ * any locking. Once a configurable share of the current block has been handed out,
+ * the next block gets fetched asynchronously, so that callers will usually not
+ * have to wait for a database round trip when the current block runs out.
+ *
+ * <p>Note that keys reserved in memory get lost on shutdown, leaving gaps
+ * in the key sequence. Keys are unique but not strictly ascending across
+ * threads, with concurrent callers competing for the keys of the same block.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see #setTargetIncrementer
+ * @see #setBlockSize
+ */
+public class HiLoMaxValueIncrementer implements DataFieldMaxValueIncrementer, InitializingBean {
+
+	/** Default number of keys per block: 100. */
+	public static final int DEFAULT_BLOCK_SIZE = 100;
+
+
+	private static final Log logger = LogFactory.getLog(HiLoMaxValueIncrementer.class);
+
+	@Nullable
+	private DataFieldMaxValueIncrementer targetIncrementer;
+
+	private int blockSize = DEFAULT_BLOCK_SIZE;
+
+	private boolean pooled = false;
+
+	private float prefetchThreshold = 0.5f;
+
+	private Executor prefetchExecutor = new SimpleAsyncTaskExecutor("HiLoMaxValueIncrementer-");
+
+	private int paddingLength = 0;
+
+	private final AtomicReference<Block> currentBlock = new AtomicReference<>();
+
+	private final AtomicReference<CompletableFuture<Block>> nextBlock = new AtomicReference<>();
+
+	private final Lock blockSwitchLock = new ReentrantLock();
+
+
+	/**
+	 * Default constructor for bean property style usage.
+	 * @see #setTargetIncrementer
+	 * @see #setBlockSize
+	 */
+	public HiLoMaxValueIncrementer() {
+	}
+
+	/**
+	 * Convenience constructor.
+	 * @param targetIncrementer the incrementer to allocate blocks from
+	 * @param blockSize the number of keys per block
+	 */
+	public HiLoMaxValueIncrementer(DataFieldMaxValueIncrementer targetIncrementer, int blockSize) {
+		Assert.notNull(targetIncrementer, "Target incrementer must not be null");
+		setBlockSize(blockSize);
+		this.targetIncrementer = targetIncrementer;
+	}
+
+
+	/**
+	 * Set the incrementer to allocate blocks from, typically a sequence-based
+	 * incrementer such as {@link OracleSequenceMaxValueIncrementer}.
+	 */
+	public void setTargetIncrementer(DataFieldMaxValueIncrementer targetIncrementer) {
+		this.targetIncrementer = targetIncrementer;
+	}
+
+	/**
+	 * Return the incrementer to allocate blocks from.
+	 */
+	@Nullable
+	public DataFieldMaxValueIncrementer getTargetIncrementer() {
+		return this.targetIncrementer;
+	}
+
+	/**
+	 * Set the number of keys per block. Default is 100.
+	 * <p>With {@link #setPooled "pooled"} allocation, this needs to match the
+	 * increment of the underlying database sequence.
+	 */
+	public void setBlockSize(int blockSize) {
+		Assert.isTrue(blockSize > 0, "Block size must be greater than 0");
+		this.blockSize = blockSize;
+	}
+
+	/**
+	 * Return the number of keys per block.
+	 */
+	public int getBlockSize() {
+		return this.blockSize;
+	}
+
+	/**
+	 * Set whether a value retrieved from the target incrementer is the first key
+	 * of its block ("pooled" allocation), rather than the high part of the keys
+	 * in the block (classic hi/lo allocation). Default is "false".
+	 */
+	public void setPooled(boolean pooled) {
+		this.pooled = pooled;
+	}
+
+	/**
+	 * Return whether a value retrieved from the target incrementer is
+	 * the first key of its block.
+	 */
+	public boolean isPooled() {
+		return this.pooled;
+	}
+
+	/**
+	 * Set the share of the current block (between 0 and 1) which needs to
+	 * be handed out before the next block gets fetched asynchronously.
+	 * Default is 0.5, i.e. prefetching once half of the block has been used.
+	 * <p>A value of 1 switches prefetching off: the next block will be fetched
+	 * synchronously once the current block has been exhausted.
+	 */
+	public void setPrefetchThreshold(float prefetchThreshold) {
+		Assert.isTrue(prefetchThreshold >= 0 && prefetchThreshold <= 1,
+				"Prefetch threshold must be between 0 and 1");
+		this.prefetchThreshold = prefetchThreshold;
+	}
+
+	/**
+	 * Return the share of the current block which needs to be handed out
+	 * before the next block gets fetched asynchronously.
+	 */
+	public float getPrefetchThreshold() {
+		return this.prefetchThreshold;
+	}
+
+	/**
+	 * Set the executor to fetch the next block with.
+	 * <p>Default is a {@link SimpleAsyncTaskExecutor}, starting a new thread
+	 * per prefetch. Consider specifying a shared thread pool instead.
+	 */
+	public void setPrefetchExecutor(Executor prefetchExecutor) {
+		Assert.notNull(prefetchExecutor, "Executor must not be null");
+		this.prefetchExecutor = prefetchExecutor;
+	}
+
+	/**
+	 * Return the executor to fetch the next block with.
+	 */
+	public Executor getPrefetchExecutor() {
+		return this.prefetchExecutor;
+	}
+
+	/**
+	 * Set the padding length, i.e. the length to which a string result
+	 * should be pre-pended with zeroes.
+	 */
+	public void setPaddingLength(int paddingLength) {
+		this.paddingLength = paddingLength;
+	}
+
+	/**
+	 * Return the padding length for String values.
+	 */
+	public int getPaddingLength() {
+		return this.paddingLength;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.targetIncrementer == null) {
+			throw new IllegalArgumentException("Property 'targetIncrementer' is required");
+		}
+	}
+
+
+	@Override
+	public int nextIntValue() throws DataAccessException {
+		long value = nextLongValue();
+		try {
+			return Math.toIntExact(value);
+		}
+		catch (ArithmeticException ex) {
+			throw new DataAccessResourceFailureException("Key value " + value + " exceeds int range", ex);
+		}
+	}
+
+	@Override
+	public long nextLongValue() throws DataAccessException {
+		while (true) {
+			Block block = this.currentBlock.get();
+			if (block != null) {
+				long value = block.nextValue.getAndIncrement();
+				if (value < block.endValue) {
+					if (value == block.prefetchValue) {
+						prefetchNextBlock();
+					}
+					return value;
+				}
+			}
+			switchBlock(block);
+		}
+	}
+
+	@Override
+	public String nextStringValue() throws DataAccessException {
+		String s = Long.toString(nextLongValue());
+		int len = s.length();
+		if (len < this.paddingLength) {
+			StringBuilder sb = new StringBuilder(this.paddingLength);
+			for (int i = 0; i < this.paddingLength - len; i++) {
+				sb.append('0');
+			}
+			sb.append(s);
+			s = sb.toString();
+		}
+		return s;
+	}
+
+
+	/**
+	 * Replace the given exhausted block with the next block, unless
+	 * another thread has done so already in the meantime.
+	 */
+	private void switchBlock(@Nullable Block exhaustedBlock) {
+		this.blockSwitchLock.lock();
+		try {
+			if (this.currentBlock.get() != exhaustedBlock) {
+				return;
+			}
+			Block block = null;
+			CompletableFuture<Block> prefetched = this.nextBlock.getAndSet(null);
+			if (prefetched != null) {
+				try {
+					block = prefetched.join();
+				}
+				catch (CompletionException ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Prefetching of next key block failed - fetching it synchronously", ex.getCause());
+					}
+				}
+			}
+			if (block == null) {
+				block = fetchBlock();
+			}
+			this.currentBlock.set(block);
+		}
+		finally {
+			this.blockSwitchLock.unlock();
+		}
+	}
+
+	/**
+	 * Trigger an asynchronous fetch of the next block, unless already in progress.
+	 */
+	private void prefetchNextBlock() {
+		CompletableFuture<Block> future = new CompletableFuture<>();
+		if (this.nextBlock.compareAndSet(null, future)) {
+			try {
+				this.prefetchExecutor.execute(() -> {
+					try {
+						future.complete(fetchBlock());
+					}
+					catch (Throwable ex) {
+						future.completeExceptionally(ex);
+					}
+				});
+			}
+			catch (RuntimeException ex) {
+				// Executor rejected the task: fetch synchronously on block switch.
+				future.completeExceptionally(ex);
+			}
+		}
+	}
+
+	/**
+	 * Retrieve the next value from the target incrementer and
+	 * reserve the corresponding block of keys.
+	 */
+	private Block fetchBlock() {
+		DataFieldMaxValueIncrementer targetIncrementer = this.targetIncrementer;
+		Assert.state(targetIncrementer != null, "No target incrementer set");
+		long value = targetIncrementer.nextLongValue();
+		long startValue;
+		try {
+			startValue = (this.pooled ? value : Math.multiplyExact(value, (long) this.blockSize));
+		}
+		catch (ArithmeticException ex) {
+			throw new DataAccessResourceFailureException(
+					"Key space exhausted for target value " + value + " and block size " + this.blockSize, ex);
+		}
+		long prefetchValue = (this.prefetchThreshold < 1 ?
+				startValue + (long) (this.blockSize * this.prefetchThreshold) : Long.MIN_VALUE);
+		return new Block(startValue, startValue + this.blockSize, prefetchValue);
+	}
+
+
+	/**
+	 * A reserved block of keys, from the start value (inclusive)
+	 * to the end value (exclusive).
+	 */
+	private static final class Block {
+
+		final AtomicLong nextValue;
+
+		final long endValue;
+
+		final long prefetchValue;
+
+		Block(long startValue, long endValue, long prefetchValue) {
+			this.nextValue = new AtomicLong(startValue);
+			this.endValue = endValue;
+			this.prefetchValue = prefetchValue;
+		}
+	}
+
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.rowset;
+
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+import java.util.Set;
+
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+/**
+ * Disconnected, column-oriented representation of a {@link ResultSet},
+ * exposed as a {@code List} of column Maps analogous to the result of
+ * {@link org.springframework.jdbc.core.ColumnMapRowMapper}.
+ *
+ * <p>All rows share a single case-insensitive column index. Values of columns
+ * reported as {@code java.lang.Integer}, {@code java.lang.Long},
+ * {@code java.lang.Double} or {@code java.lang.Boolean} by
+ * {@link ResultSetMetaData#getColumnClassName} are stored in primitive arrays;
+ * all other values are stored as retrieved by
+ * {@link JdbcUtils#getResultSetValue(ResultSet, int)}. The Map for a row is a
+ * read-only view which gets created on access, so no per-row Map overhead is
+ * retained for the lifetime of the result.
+ *
+ * <p>As with {@code ColumnMapRowMapper}, the first column wins for any given
+ * column name. This list and its row Maps are unmodifiable.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see #from(ResultSet)
+ * @see ColumnarSqlRowSet
+ * @see org.springframework.jdbc.core.JdbcTemplate#setColumnarResults
+ */
+@SuppressWarnings("serial")
+public class ColumnarRowList extends AbstractList<Map<String, Object>> implements RandomAccess, Serializable {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+
+	private final String[] keys;
+
+	private final int[] keyColumns;
+
+	private final Map<String, Integer> keyIndex;
+
+	private final Column[] columns;
+
+	private final int rowCount;
+
+
+	private ColumnarRowList(String[] keys, int[] keyColumns, Map<String, Integer> keyIndex,
+			Column[] columns, int rowCount) {
+
+		this.keys = keys;
+		this.keyColumns = keyColumns;
+		this.keyIndex = keyIndex;
+		this.columns = columns;
+		this.rowCount = rowCount;
+	}
+
+
+	/**
+	 * Return the number of columns in each row.
+	 */
+	public int getColumnCount() {
+		return this.columns.length;
+	}
+
+	/**
+	 * Return the value of the specified column in the specified row.
+	 * @param rowIndex the 0-based row index
+	 * @param columnIndex the 1-based column index, as in JDBC
+	 * @return the column value (may be {@code null})
+	 * @throws IndexOutOfBoundsException if either index is out of range
+	 */
+	@Nullable
+	public Object getValue(int rowIndex, int columnIndex) {
+		return getColumn(columnIndex).getValue(checkRowIndex(rowIndex));
+	}
+
+	/**
+	 * Return the map view of the specified row.
+	 * @param rowIndex the 0-based row index
+	 * @return a read-only Map from column name to column value
+	 */
+	@Override
+	public Map<String, Object> get(int rowIndex) {
+		return new RowMap(checkRowIndex(rowIndex));
+	}
+
+	@Override
+	public int size() {
+		return this.rowCount;
+	}
+
+	Column getColumn(int columnIndex) {
+		if (columnIndex < 1 || columnIndex > this.columns.length) {
+			throw new IndexOutOfBoundsException("Invalid column index: " + columnIndex);
+		}
+		return this.columns[columnIndex - 1];
+	}
+
+	private int checkRowIndex(int rowIndex) {
+		if (rowIndex < 0 || rowIndex >= this.rowCount) {
+			throw new IndexOutOfBoundsException("Invalid row index: " + rowIndex);
+		}
+		return rowIndex;
+	}
+
+
+	/**
+	 * Read all remaining rows of the given ResultSet into a new ColumnarRowList.
+	 * <p>Can be used as a {@link org.springframework.jdbc.core.ResultSetExtractor}
+	 * through a method reference: {@code ColumnarRowList::from}.
+	 * @param rs the ResultSet to read (will not be closed)
+	 * @return the columnar representation of the ResultSet
+	 * @throws SQLException if thrown by JDBC methods
+	 */
+	public static ColumnarRowList from(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		Column[] columns = new Column[columnCount];
+		List<String> keys = new ArrayList<>(columnCount);
+		int[] keyColumns = new int[columnCount];
+		Map<String, Integer> keyIndex = new LinkedCaseInsensitiveMap<>(columnCount);
+		for (int i = 1; i <= columnCount; i++) {
+			columns[i - 1] = Column.forColumnClass(rsmd.getColumnClassName(i));
+			String key = JdbcUtils.lookupColumnName(rsmd, i);
+			if (!keyIndex.containsKey(key)) {
+				keyIndex.put(key, i - 1);
+				keyColumns[keys.size()] = i - 1;
+				keys.add(key);
+			}
+		}
+
+		int rowCount = 0;
+		while (rs.next()) {
+			for (int i = 0; i < columnCount; i++) {
+				columns[i].read(rs, i + 1, rowCount);
+			}
+			rowCount++;
+		}
+		for (Column column : columns) {
+			column.trimToSize(rowCount);
+		}
+		return new ColumnarRowList(keys.toArray(new String[0]), Arrays.copyOf(keyColumns, keys.size()),
+				keyIndex, columns, rowCount);
+	}
+
+
+	/**
+	 * Read-only Map view of a specific row.
+	 */
+	private class RowMap extends AbstractMap<String, Object> {
+
+		private final int rowIndex;
+
+		RowMap(int rowIndex) {
+			this.rowIndex = rowIndex;
+		}
+
+		@Override
+		@Nullable
+		public Object get(Object key) {
+			Integer column = (key instanceof String ? keyIndex.get(key) : null);
+			return (column != null ? columns[column].getValue(this.rowIndex) : null);
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return (key instanceof String && keyIndex.containsKey(key));
+		}
+
+		@Override
+		public int size() {
+			return keys.length;
+		}
+
+		@Override
+		public Set<Entry<String, Object>> entrySet() {
+			return new AbstractSet<Entry<String, Object>>() {
+				@Override
+				public Iterator<Entry<String, Object>> iterator() {
+					return new Iterator<Entry<String, Object>>() {
+						private int index = 0;
+						@Override
+						public boolean hasNext() {
+							return (this.index < keys.length);
+						}
+						@Override
+						public Entry<String, Object> next() {
+							if (this.index >= keys.length) {
+								throw new NoSuchElementException();
+							}
+							int keyPosition = this.index++;
+							return new SimpleImmutableEntry<>(keys[keyPosition],
+									columns[keyColumns[keyPosition]].getValue(rowIndex));
+						}
+					};
+				}
+				@Override
+				public int size() {
+					return keys.length;
+				}
+			};
+		}
+	}
+
+
+	/**
+	 * Storage for the values of a specific column.
+	 */
+	@SuppressWarnings("serial")
+	abstract static class Column implements Serializable {
+
+		static Column forColumnClass(@Nullable String className) {
+			if (Integer.class.getName().equals(className)) {
+				return new IntColumn();
+			}
+			else if (Long.class.getName().equals(className)) {
+				return new LongColumn();
+			}
+			else if (Double.class.getName().equals(className)) {
+				return new DoubleColumn();
+			}
+			else if (Boolean.class.getName().equals(className)) {
+				return new BooleanColumn();
+			}
+			else {
+				return new ObjectColumn();
+			}
+		}
+
+		abstract void read(ResultSet rs, int index, int rowIndex) throws SQLException;
+
+		abstract void trimToSize(int rowCount);
+
+		@Nullable
+		abstract Object getValue(int rowIndex);
+
+		boolean isNull(int rowIndex) {
+			return (getValue(rowIndex) == null);
+		}
+	}
+
+
+	/**
+	 * Base class for columns with primitive storage, tracking null values in a BitSet.
+	 */
+	@SuppressWarnings("serial")
+	abstract static class PrimitiveColumn extends Column {
+
+		final BitSet nulls = new BitSet();
+
+		@Override
+		boolean isNull(int rowIndex) {
+			return this.nulls.get(rowIndex);
+		}
+
+		@Override
+		@Nullable
+		Object getValue(int rowIndex) {
+			return (this.nulls.get(rowIndex) ? null : getNonNullValue(rowIndex));
+		}
+
+		abstract Object getNonNullValue(int rowIndex);
+	}
+
+
+	@SuppressWarnings("serial")
+	static final class IntColumn extends PrimitiveColumn {
+
+		int[] values = new int[INITIAL_CAPACITY];
+
+		@Override
+		void read(ResultSet rs, int index, int rowIndex) throws SQLException {
+			if (rowIndex == this.values.length) {
+				this.values = Arrays.copyOf(this.values, rowIndex * 2);
+			}
+			this.values[rowIndex] = rs.getInt(index);
+			if (rs.wasNull()) {
+				this.nulls.set(rowIndex);
+			}
+		}
+
+		@Override
+		void trimToSize(int rowCount) {
+			this.values = Arrays.copyOf(this.values, rowCount);
+		}
+
+		@Override
+		Object getNonNullValue(int rowIndex) {
+			return this.values[rowIndex];
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static final class LongColumn extends PrimitiveColumn {
+
+		long[] values = new long[INITIAL_CAPACITY];
+
+		@Override
+		void read(ResultSet rs, int index, int rowIndex) throws SQLException {
+			if (rowIndex == this.values.length) {
+				this.values = Arrays.copyOf(this.values, rowIndex * 2);
+			}
+			this.values[rowIndex] = rs.getLong(index);
+			if (rs.wasNull()) {
+				this.nulls.set(rowIndex);
+			}
+		}
+
+		@Override
+		void trimToSize(int rowCount) {
+			this.values = Arrays.copyOf(this.values, rowCount);
+		}
+
+		@Override
+		Object getNonNullValue(int rowIndex) {
+			return this.values[rowIndex];
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static final class DoubleColumn extends PrimitiveColumn {
+
+		double[] values = new double[INITIAL_CAPACITY];
+
+		@Override
+		void read(ResultSet rs, int index, int rowIndex) throws SQLException {
+			if (rowIndex == this.values.length) {
+				this.values = Arrays.copyOf(this.values, rowIndex * 2);
+			}
+			this.values[rowIndex] = rs.getDouble(index);
+			if (rs.wasNull()) {
+				this.nulls.set(rowIndex);
+			}
+		}
+
+		@Override
+		void trimToSize(int rowCount) {
+			this.values = Arrays.copyOf(this.values, rowCount);
+		}
+
+		@Override
+		Object getNonNullValue(int rowIndex) {
+			return this.values[rowIndex];
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static final class BooleanColumn extends PrimitiveColumn {
+
+		final BitSet values = new BitSet();
+
+		@Override
+		void read(ResultSet rs, int index, int rowIndex) throws SQLException {
+			if (rs.getBoolean(index)) {
+				this.values.set(rowIndex);
+			}
+			if (rs.wasNull()) {
+				this.nulls.set(rowIndex);
+			}
+		}
+
+		@Override
+		void trimToSize(int rowCount) {
+		}
+
+		@Override
+		Object getNonNullValue(int rowIndex) {
+			return this.values.get(rowIndex);
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	static final class ObjectColumn extends Column {
+
+		Object[] values = new Object[INITIAL_CAPACITY];
+
+		@Override
+		void read(ResultSet rs, int index, int rowIndex) throws SQLException {
+			if (rowIndex == this.values.length) {
+				this.values = Arrays.copyOf(this.values, rowIndex * 2);
+			}
+			this.values[rowIndex] = JdbcUtils.getResultSetValue(rs, index);
+		}
+
+		@Override
+		void trimToSize(int rowCount) {
+			this.values = Arrays.copyOf(this.values, rowCount);
+		}
+
+		@Override
+		@Nullable
+		Object getValue(int rowIndex) {
+			return this.values[rowIndex];
+		}
+	}
+
+}
@@ -0,0 +1,710 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.rowset;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.rowset.RowSetMetaDataImpl;
+
+import org.springframework.jdbc.InvalidResultSetAccessException;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link SqlRowSet} implementation on top of a {@link ColumnarRowList},
+ * as an alternative to a {@link ResultSetWrappingSqlRowSet} around a
+ * {@code javax.sql.rowset.CachedRowSet}.
+ *
+ * <p>Values of primitive columns are served without boxing. Conversions between
+ * value types follow common JDBC driver behavior: e.g. numbers may be retrieved
+ * as any numeric type or as a String, and timestamps may be retrieved as dates.
+ * Unsupported conversions result in an {@link InvalidResultSetAccessException}.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see #from(ResultSet)
+ * @see org.springframework.jdbc.core.JdbcTemplate#setColumnarResults
+ */
+public class ColumnarSqlRowSet implements SqlRowSet {
+
+	private static final long serialVersionUID = 4906218376468567592L;
+
+
+	private final ColumnarRowList rows;
+
+	private final ResultSetMetaData resultSetMetaData;
+
+	private final Map<String, Integer> columnLabelMap;
+
+	@Nullable
+	private transient SqlRowSetMetaData rowSetMetaData;
+
+	private int cursor = -1;
+
+	private boolean wasNull;
+
+
+	/**
+	 * Create a new ColumnarSqlRowSet for the given rows and meta-data.
+	 * @param rows the columnar row data
+	 * @param resultSetMetaData disconnected meta-data for the given rows
+	 * (usually a {@link RowSetMetaDataImpl} instance)
+	 * @throws InvalidResultSetAccessException if accessing the meta-data failed
+	 */
+	public ColumnarSqlRowSet(ColumnarRowList rows, ResultSetMetaData resultSetMetaData)
+			throws InvalidResultSetAccessException {
+
+		this.rows = rows;
+		this.resultSetMetaData = resultSetMetaData;
+		try {
+			int columnCount = resultSetMetaData.getColumnCount();
+			this.columnLabelMap = new HashMap<>(columnCount);
+			for (int i = 1; i <= columnCount; i++) {
+				this.columnLabelMap.putIfAbsent(resultSetMetaData.getColumnLabel(i), i);
+			}
+		}
+		catch (SQLException se) {
+			throw new InvalidResultSetAccessException(se);
+		}
+	}
+
+
+	/**
+	 * Return the underlying columnar row data.
+	 */
+	public final ColumnarRowList getRows() {
+		return this.rows;
+	}
+
+	@Override
+	public SqlRowSetMetaData getMetaData() {
+		SqlRowSetMetaData metaData = this.rowSetMetaData;
+		if (metaData == null) {
+			metaData = new ResultSetWrappingSqlRowSetMetaData(this.resultSetMetaData);
+			this.rowSetMetaData = metaData;
+		}
+		return metaData;
+	}
+
+	@Override
+	public int findColumn(String columnLabel) throws InvalidResultSetAccessException {
+		Integer columnIndex = this.columnLabelMap.get(columnLabel);
+		if (columnIndex != null) {
+			return columnIndex;
+		}
+		Integer candidate = null;
+		for (Map.Entry<String, Integer> entry : this.columnLabelMap.entrySet()) {
+			if (entry.getKey().equalsIgnoreCase(columnLabel) &&
+					(candidate == null || entry.getValue() < candidate)) {
+				candidate = entry.getValue();
+			}
+		}
+		if (candidate != null) {
+			return candidate;
+		}
+		throw new InvalidResultSetAccessException(new SQLException("Invalid column label: " + columnLabel));
+	}
+
+
+	// RowSet methods for extracting data values
+
+	@Override
+	@Nullable
+	public BigDecimal getBigDecimal(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getValue(columnIndex);
+		if (value == null || value instanceof BigDecimal) {
+			return (BigDecimal) value;
+		}
+		else if (value instanceof BigInteger) {
+			return new BigDecimal((BigInteger) value);
+		}
+		else if (value instanceof Double || value instanceof Float) {
+			return BigDecimal.valueOf(((Number) value).doubleValue());
+		}
+		else if (value instanceof Number) {
+			return BigDecimal.valueOf(((Number) value).longValue());
+		}
+		else if (value instanceof Boolean) {
+			return ((Boolean) value ? BigDecimal.ONE : BigDecimal.ZERO);
+		}
+		else if (value instanceof String) {
+			return parseNumber((String) value);
+		}
+		throw conversionFailure(value, BigDecimal.class);
+	}
+
+	@Override
+	@Nullable
+	public BigDecimal getBigDecimal(String columnLabel) throws InvalidResultSetAccessException {
+		return getBigDecimal(findColumn(columnLabel));
+	}
+
+	@Override
+	public boolean getBoolean(int columnIndex) throws InvalidResultSetAccessException {
+		ColumnarRowList.Column column = getColumn(columnIndex);
+		if (column instanceof ColumnarRowList.BooleanColumn) {
+			ColumnarRowList.BooleanColumn booleanColumn = (ColumnarRowList.BooleanColumn) column;
+			this.wasNull = booleanColumn.isNull(this.cursor);
+			return booleanColumn.values.get(this.cursor);
+		}
+		Object value = getValue(columnIndex);
+		if (value == null) {
+			return false;
+		}
+		else if (value instanceof Boolean) {
+			return (Boolean) value;
+		}
+		else if (value instanceof Number) {
+			return (((Number) value).doubleValue() != 0);
+		}
+		else if (value instanceof String) {
+			String str = ((String) value).trim();
+			return ("true".equalsIgnoreCase(str) || "1".equals(str));
+		}
+		throw conversionFailure(value, boolean.class);
+	}
+
+	@Override
+	public boolean getBoolean(String columnLabel) throws InvalidResultSetAccessException {
+		return getBoolean(findColumn(columnLabel));
+	}
+
+	@Override
+	public byte getByte(int columnIndex) throws InvalidResultSetAccessException {
+		return (byte) getLong(columnIndex);
+	}
+
+	@Override
+	public byte getByte(String columnLabel) throws InvalidResultSetAccessException {
+		return getByte(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Date getDate(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getValue(columnIndex);
+		if (value == null || value instanceof Date) {
+			return (Date) value;
+		}
+		else if (value instanceof java.util.Date) {
+			return new Date(((java.util.Date) value).getTime());
+		}
+		else if (value instanceof String) {
+			try {
+				return Date.valueOf(((String) value).trim());
+			}
+			catch (IllegalArgumentException ex) {
+				throw conversionFailure(value, Date.class);
+			}
+		}
+		throw conversionFailure(value, Date.class);
+	}
+
+	@Override
+	@Nullable
+	public Date getDate(String columnLabel) throws InvalidResultSetAccessException {
+		return getDate(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Date getDate(int columnIndex, Calendar cal) throws InvalidResultSetAccessException {
+		Date date = getDate(columnIndex);
+		return (date != null ? new Date(convertToCalendar(date, cal)) : null);
+	}
+
+	@Override
+	@Nullable
+	public Date getDate(String columnLabel, Calendar cal) throws InvalidResultSetAccessException {
+		return getDate(findColumn(columnLabel), cal);
+	}
+
+	@Override
+	public double getDouble(int columnIndex) throws InvalidResultSetAccessException {
+		ColumnarRowList.Column column = getColumn(columnIndex);
+		if (column instanceof ColumnarRowList.DoubleColumn) {
+			ColumnarRowList.DoubleColumn doubleColumn = (ColumnarRowList.DoubleColumn) column;
+			this.wasNull = doubleColumn.isNull(this.cursor);
+			return doubleColumn.values[this.cursor];
+		}
+		Object value = getValue(columnIndex);
+		if (value == null) {
+			return 0;
+		}
+		else if (value instanceof Number) {
+			return ((Number) value).doubleValue();
+		}
+		else if (value instanceof Boolean) {
+			return ((Boolean) value ? 1 : 0);
+		}
+		else if (value instanceof String) {
+			return parseNumber((String) value).doubleValue();
+		}
+		throw conversionFailure(value, double.class);
+	}
+
+	@Override
+	public double getDouble(String columnLabel) throws InvalidResultSetAccessException {
+		return getDouble(findColumn(columnLabel));
+	}
+
+	@Override
+	public float getFloat(int columnIndex) throws InvalidResultSetAccessException {
+		return (float) getDouble(columnIndex);
+	}
+
+	@Override
+	public float getFloat(String columnLabel) throws InvalidResultSetAccessException {
+		return getFloat(findColumn(columnLabel));
+	}
+
+	@Override
+	public int getInt(int columnIndex) throws InvalidResultSetAccessException {
+		ColumnarRowList.Column column = getColumn(columnIndex);
+		if (column instanceof ColumnarRowList.IntColumn) {
+			ColumnarRowList.IntColumn intColumn = (ColumnarRowList.IntColumn) column;
+			this.wasNull = intColumn.isNull(this.cursor);
+			return intColumn.values[this.cursor];
+		}
+		return (int) getLong(columnIndex);
+	}
+
+	@Override
+	public int getInt(String columnLabel) throws InvalidResultSetAccessException {
+		return getInt(findColumn(columnLabel));
+	}
+
+	@Override
+	public long getLong(int columnIndex) throws InvalidResultSetAccessException {
+		ColumnarRowList.Column column = getColumn(columnIndex);
+		if (column instanceof ColumnarRowList.LongColumn) {
+			ColumnarRowList.LongColumn longColumn = (ColumnarRowList.LongColumn) column;
+			this.wasNull = longColumn.isNull(this.cursor);
+			return longColumn.values[this.cursor];
+		}
+		Object value = getValue(columnIndex);
+		if (value == null) {
+			return 0;
+		}
+		else if (value instanceof Number) {
+			return ((Number) value).longValue();
+		}
+		else if (value instanceof Boolean) {
+			return ((Boolean) value ? 1 : 0);
+		}
+		else if (value instanceof String) {
+			return parseNumber((String) value).longValue();
+		}
+		throw conversionFailure(value, long.class);
+	}
+
+	@Override
+	public long getLong(String columnLabel) throws InvalidResultSetAccessException {
+		return getLong(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public String getNString(int columnIndex) throws InvalidResultSetAccessException {
+		return getString(columnIndex);
+	}
+
+	@Override
+	@Nullable
+	public String getNString(String columnLabel) throws InvalidResultSetAccessException {
+		return getNString(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Object getObject(int columnIndex) throws InvalidResultSetAccessException {
+		return getValue(columnIndex);
+	}
+
+	@Override
+	@Nullable
+	public Object getObject(String columnLabel) throws InvalidResultSetAccessException {
+		return getObject(findColumn(columnLabel));
+	}
+
+	/**
+	 * This implementation ignores the given type map: user-defined types
+	 * have already been resolved when reading the original ResultSet.
+	 */
+	@Override
+	@Nullable
+	public Object getObject(int columnIndex, Map<String, Class<?>> map) throws InvalidResultSetAccessException {
+		return getObject(columnIndex);
+	}
+
+	@Override
+	@Nullable
+	public Object getObject(String columnLabel, Map<String, Class<?>> map) throws InvalidResultSetAccessException {
+		return getObject(findColumn(columnLabel), map);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public <T> T getObject(int columnIndex, Class<T> type) throws InvalidResultSetAccessException {
+		Object value = getValue(columnIndex);
+		if (value == null || type.isInstance(value)) {
+			return (T) value;
+		}
+		else if (String.class == type) {
+			return (T) getString(columnIndex);
+		}
+		else if (Boolean.class == type) {
+			return (T) Boolean.valueOf(getBoolean(columnIndex));
+		}
+		else if (Byte.class == type) {
+			return (T) Byte.valueOf(getByte(columnIndex));
+		}
+		else if (Short.class == type) {
+			return (T) Short.valueOf(getShort(columnIndex));
+		}
+		else if (Integer.class == type) {
+			return (T) Integer.valueOf(getInt(columnIndex));
+		}
+		else if (Long.class == type) {
+			return (T) Long.valueOf(getLong(columnIndex));
+		}
+		else if (Float.class == type) {
+			return (T) Float.valueOf(getFloat(columnIndex));
+		}
+		else if (Double.class == type) {
+			return (T) Double.valueOf(getDouble(columnIndex));
+		}
+		else if (BigDecimal.class == type) {
+			return (T) getBigDecimal(columnIndex);
+		}
+		else if (Date.class == type) {
+			return (T) getDate(columnIndex);
+		}
+		else if (Time.class == type) {
+			return (T) getTime(columnIndex);
+		}
+		else if (Timestamp.class == type) {
+			return (T) getTimestamp(columnIndex);
+		}
+		throw conversionFailure(value, type);
+	}
+
+	@Override
+	@Nullable
+	public <T> T getObject(String columnLabel, Class<T> type) throws InvalidResultSetAccessException {
+		return getObject(findColumn(columnLabel), type);
+	}
+
+	@Override
+	public short getShort(int columnIndex) throws InvalidResultSetAccessException {
+		return (short) getLong(columnIndex);
+	}
+
+	@Override
+	public short getShort(String columnLabel) throws InvalidResultSetAccessException {
+		return getShort(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public String getString(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getValue(columnIndex);
+		if (value instanceof BigDecimal) {
+			return ((BigDecimal) value).toPlainString();
+		}
+		return (value != null ? value.toString() : null);
+	}
+
+	@Override
+	@Nullable
+	public String getString(String columnLabel) throws InvalidResultSetAccessException {
+		return getString(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Time getTime(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getValue(columnIndex);
+		if (value == null || value instanceof Time) {
+			return (Time) value;
+		}
+		else if (value instanceof Timestamp) {
+			return new Time(((Timestamp) value).getTime());
+		}
+		else if (value instanceof String) {
+			try {
+				return Time.valueOf(((String) value).trim());
+			}
+			catch (IllegalArgumentException ex) {
+				throw conversionFailure(value, Time.class);
+			}
+		}
+		throw conversionFailure(value, Time.class);
+	}
+
+	@Override
+	@Nullable
+	public Time getTime(String columnLabel) throws InvalidResultSetAccessException {
+		return getTime(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Time getTime(int columnIndex, Calendar cal) throws InvalidResultSetAccessException {
+		Time time = getTime(columnIndex);
+		return (time != null ? new Time(convertToCalendar(time, cal)) : null);
+	}
+
+	@Override
+	@Nullable
+	public Time getTime(String columnLabel, Calendar cal) throws InvalidResultSetAccessException {
+		return getTime(findColumn(columnLabel), cal);
+	}
+
+	@Override
+	@Nullable
+	public Timestamp getTimestamp(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getValue(columnIndex);
+		if (value == null || value instanceof Timestamp) {
+			return (Timestamp) value;
+		}
+		else if (value instanceof java.util.Date) {
+			return new Timestamp(((java.util.Date) value).getTime());
+		}
+		else if (value instanceof String) {
+			try {
+				return Timestamp.valueOf(((String) value).trim());
+			}
+			catch (IllegalArgumentException ex) {
+				throw conversionFailure(value, Timestamp.class);
+			}
+		}
+		throw conversionFailure(value, Timestamp.class);
+	}
+
+	@Override
+	@Nullable
+	public Timestamp getTimestamp(String columnLabel) throws InvalidResultSetAccessException {
+		return getTimestamp(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Timestamp getTimestamp(int columnIndex, Calendar cal) throws InvalidResultSetAccessException {
+		Timestamp timestamp = getTimestamp(columnIndex);
+		if (timestamp == null) {
+			return null;
+		}
+		Timestamp result = new Timestamp(convertToCalendar(timestamp, cal));
+		result.setNanos(timestamp.getNanos());
+		return result;
+	}
+
+	@Override
+	@Nullable
+	public Timestamp getTimestamp(String columnLabel, Calendar cal) throws InvalidResultSetAccessException {
+		return getTimestamp(findColumn(columnLabel), cal);
+	}
+
+
+	// RowSet navigation methods
+
+	@Override
+	public boolean absolute(int row) throws InvalidResultSetAccessException {
+		int size = this.rows.size();
+		if (row > 0) {
+			this.cursor = Math.min(row - 1, size);
+		}
+		else if (row < 0) {
+			this.cursor = Math.max(size + row, -1);
+		}
+		else {
+			this.cursor = -1;
+		}
+		return isOnRow();
+	}
+
+	@Override
+	public void afterLast() throws InvalidResultSetAccessException {
+		this.cursor = this.rows.size();
+	}
+
+	@Override
+	public void beforeFirst() throws InvalidResultSetAccessException {
+		this.cursor = -1;
+	}
+
+	@Override
+	public boolean first() throws InvalidResultSetAccessException {
+		return absolute(1);
+	}
+
+	@Override
+	public int getRow() throws InvalidResultSetAccessException {
+		return (isOnRow() ? this.cursor + 1 : 0);
+	}
+
+	@Override
+	public boolean isAfterLast() throws InvalidResultSetAccessException {
+		return (!this.rows.isEmpty() && this.cursor == this.rows.size());
+	}
+
+	@Override
+	public boolean isBeforeFirst() throws InvalidResultSetAccessException {
+		return (!this.rows.isEmpty() && this.cursor == -1);
+	}
+
+	@Override
+	public boolean isFirst() throws InvalidResultSetAccessException {
+		return (!this.rows.isEmpty() && this.cursor == 0);
+	}
+
+	@Override
+	public boolean isLast() throws InvalidResultSetAccessException {
+		return (!this.rows.isEmpty() && this.cursor == this.rows.size() - 1);
+	}
+
+	@Override
+	public boolean last() throws InvalidResultSetAccessException {
+		return absolute(-1);
+	}
+
+	@Override
+	public boolean next() throws InvalidResultSetAccessException {
+		if (this.cursor < this.rows.size()) {
+			this.cursor++;
+		}
+		return isOnRow();
+	}
+
+	@Override
+	public boolean previous() throws InvalidResultSetAccessException {
+		if (this.cursor >= 0) {
+			this.cursor--;
+		}
+		return isOnRow();
+	}
+
+	@Override
+	public boolean relative(int rows) throws InvalidResultSetAccessException {
+		this.cursor = Math.max(Math.min(this.cursor + rows, this.rows.size()), -1);
+		return isOnRow();
+	}
+
+	@Override
+	public boolean wasNull() throws InvalidResultSetAccessException {
+		return this.wasNull;
+	}
+
+
+	private boolean isOnRow() {
+		return (this.cursor >= 0 && this.cursor < this.rows.size());
+	}
+
+	private ColumnarRowList.Column getColumn(int columnIndex) throws InvalidResultSetAccessException {
+		if (!isOnRow()) {
+			throw new InvalidResultSetAccessException(new SQLException("Invalid cursor position"));
+		}
+		try {
+			return this.rows.getColumn(columnIndex);
+		}
+		catch (IndexOutOfBoundsException ex) {
+			throw new InvalidResultSetAccessException(new SQLException(ex.getMessage()));
+		}
+	}
+
+	@Nullable
+	private Object getValue(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getColumn(columnIndex).getValue(this.cursor);
+		this.wasNull = (value == null);
+		return value;
+	}
+
+	private BigDecimal parseNumber(String value) throws InvalidResultSetAccessException {
+		try {
+			return new BigDecimal(value.trim());
+		}
+		catch (NumberFormatException ex) {
+			throw conversionFailure(value, Number.class);
+		}
+	}
+
+	private static long convertToCalendar(java.util.Date value, Calendar cal) {
+		Calendar defaultCal = Calendar.getInstance();
+		defaultCal.setTime(value);
+		Calendar targetCal = (Calendar) cal.clone();
+		targetCal.clear();
+		targetCal.set(defaultCal.get(Calendar.YEAR), defaultCal.get(Calendar.MONTH),
+				defaultCal.get(Calendar.DAY_OF_MONTH), defaultCal.get(Calendar.HOUR_OF_DAY),
+				defaultCal.get(Calendar.MINUTE), defaultCal.get(Calendar.SECOND));
+		targetCal.set(Calendar.MILLISECOND, defaultCal.get(Calendar.MILLISECOND));
+		return targetCal.getTimeInMillis();
+	}
+
+	private static InvalidResultSetAccessException conversionFailure(Object value, Class<?> targetType) {
+		return new InvalidResultSetAccessException(new SQLException(
+				"Cannot convert value [" + value + "] of type [" + value.getClass().getName() +
+				"] to [" + targetType.getName() + "]"));
+	}
+
+
+	/**
+	 * Read all remaining rows of the given ResultSet into a new ColumnarSqlRowSet,
+	 * along with a disconnected copy of its meta-data.
+	 * @param rs the ResultSet to read (will not be closed)
+	 * @return the disconnected SqlRowSet
+	 * @throws SQLException if thrown by JDBC methods
+	 * @see ColumnarRowList#from(ResultSet)
+	 */
+	public static ColumnarSqlRowSet from(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+		metaData.setColumnCount(columnCount);
+		for (int i = 1; i <= columnCount; i++) {
+			metaData.setAutoIncrement(i, rsmd.isAutoIncrement(i));
+			metaData.setCaseSensitive(i, rsmd.isCaseSensitive(i));
+			metaData.setCurrency(i, rsmd.isCurrency(i));
+			metaData.setNullable(i, rsmd.isNullable(i));
+			metaData.setSigned(i, rsmd.isSigned(i));
+			metaData.setSearchable(i, rsmd.isSearchable(i));
+			int displaySize = rsmd.getColumnDisplaySize(i);
+			metaData.setColumnDisplaySize(i, Math.max(displaySize, 0));
+			metaData.setColumnLabel(i, rsmd.getColumnLabel(i));
+			metaData.setColumnName(i, rsmd.getColumnName(i));
+			metaData.setSchemaName(i, rsmd.getSchemaName(i));
+			metaData.setPrecision(i, Math.max(rsmd.getPrecision(i), 0));
+			metaData.setScale(i, Math.max(rsmd.getScale(i), 0));
+			metaData.setTableName(i, rsmd.getTableName(i));
+			metaData.setCatalogName(i, rsmd.getCatalogName(i));
+			metaData.setColumnType(i, rsmd.getColumnType(i));
+			metaData.setColumnTypeName(i, rsmd.getColumnTypeName(i));
+		}
+		return new ColumnarSqlRowSet(ColumnarRowList.from(rs), metaData);
+	}
+
+}
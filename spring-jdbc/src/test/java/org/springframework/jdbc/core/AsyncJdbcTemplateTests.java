@@ -0,0 +1,197 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * @author agent
+ */
+public class AsyncJdbcTemplateTests {
+
+	private Connection connection;
+
+	private DataSource dataSource;
+
+	private PreparedStatement preparedStatement;
+
+	private AsyncJdbcTemplate template;
+
+
+	@Before
+	public void setup() throws Exception {
+		this.connection = mock(Connection.class);
+		this.dataSource = mock(DataSource.class);
+		this.preparedStatement = mock(PreparedStatement.class);
+		given(this.dataSource.getConnection()).willReturn(this.connection);
+		given(this.connection.prepareStatement(anyString())).willReturn(this.preparedStatement);
+		given(this.preparedStatement.executeUpdate()).willReturn(1);
+		this.template = new AsyncJdbcTemplate(this.dataSource);
+	}
+
+	@After
+	public void shutdown() {
+		this.template.destroy();
+	}
+
+
+	@Test
+	public void updateOnWorkerThread() throws Exception {
+		CompletableFuture<String> future = this.template.execute(ops -> {
+			ops.update("UPDATE sometable SET somecol = ?", 1);
+			return Thread.currentThread().getName();
+		});
+
+		assertTrue(future.get().startsWith("AsyncJdbcTemplate-"));
+		assertEquals(1, this.template.getSubmittedCount());
+		verify(this.preparedStatement).setObject(1, 1);
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void updateWithTimeout() throws Exception {
+		assertEquals(Integer.valueOf(1), this.template.execute(ops -> ops.update("UPDATE sometable SET somecol = ?", 1), 5).get());
+		verify(this.preparedStatement).setQueryTimeout(5);
+	}
+
+	@Test
+	public void updateWithTimeoutAppliesTemplateSettings() throws Exception {
+		this.template.getJdbcTemplate().setFetchSize(10);
+		this.template.getJdbcTemplate().setMaxRows(20);
+		this.template.getJdbcTemplate().setQueryResultCache(new QueryResultCache(new ConcurrentMapCache("queries")));
+		assertEquals(Integer.valueOf(1), this.template.execute(ops -> {
+			assertSame(this.template.getJdbcTemplate().getQueryResultCache(),
+					((JdbcTemplate) ops).getQueryResultCache());
+			return ops.update("UPDATE sometable SET somecol = ?", 1);
+		}, 5).get());
+		verify(this.preparedStatement).setFetchSize(10);
+		verify(this.preparedStatement).setMaxRows(20);
+		verify(this.preparedStatement).setQueryTimeout(5);
+	}
+
+	@Test
+	public void updateWithListenableFuture() throws Exception {
+		assertEquals(Integer.valueOf(1), this.template.executeListenable(ops -> ops.update("UPDATE sometable SET somecol = ?", 1)).get());
+	}
+
+	@Test
+	public void updateWithMono() throws Exception {
+		assertEquals(Integer.valueOf(1), this.template.executeMono(ops -> ops.update("UPDATE sometable SET somecol = ?", 1)).block());
+		verify(this.preparedStatement).close();
+	}
+
+	@Test
+	public void rejectionWithFullQueue() throws Exception {
+		this.template.setConcurrencyLimit(1);
+		this.template.setQueueCapacity(0);
+		CountDownLatch latch = new CountDownLatch(1);
+		CompletableFuture<Boolean> first = this.template.execute(ops -> awaitLatch(latch));
+		CompletableFuture<Integer> second = this.template.execute(ops -> ops.update("UPDATE sometable SET somecol = ?", 1));
+		latch.countDown();
+
+		assertTrue(first.get());
+		assertTrue(second.isCompletedExceptionally());
+		try {
+			second.get();
+			fail("Should have thrown ExecutionException");
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof TaskRejectedException);
+		}
+		assertEquals(1, this.template.getRejectedCount());
+		verify(this.preparedStatement, never()).executeUpdate();
+	}
+
+	@Test
+	public void timeoutExpiredInQueue() throws Exception {
+		this.template.setConcurrencyLimit(1);
+		CompletableFuture<Object> first = this.template.execute(ops -> {
+			try {
+				Thread.sleep(1100);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return null;
+		});
+		CompletableFuture<Integer> second = this.template.execute(ops -> ops.update("UPDATE sometable SET somecol = ?", 1), 1);
+
+		assertNull(first.get());
+		try {
+			second.get();
+			fail("Should have thrown ExecutionException");
+		}
+		catch (ExecutionException ex) {
+			assertTrue(ex.getCause() instanceof QueryTimeoutException);
+		}
+		assertEquals(1, this.template.getExpiredCount());
+		verify(this.preparedStatement, never()).executeUpdate();
+	}
+
+	@Test
+	public void inlineExecutionWithinTransaction() throws Exception {
+		TransactionSynchronizationManager.bindResource(this.dataSource, new ConnectionHolder(this.connection));
+		try {
+			CompletableFuture<String> future = this.template.execute(ops -> {
+				ops.update("UPDATE sometable SET somecol = ?", 1);
+				return Thread.currentThread().getName();
+			});
+
+			assertTrue(future.isDone());
+			assertEquals(Thread.currentThread().getName(), future.get());
+			assertEquals(1, this.template.getInlineCount());
+			assertEquals(0, this.template.getSubmittedCount());
+			verify(this.connection, never()).close();
+		}
+		finally {
+			TransactionSynchronizationManager.unbindResource(this.dataSource);
+		}
+	}
+
+
+	private static boolean awaitLatch(CountDownLatch latch) {
+		try {
+			return latch.await(5, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+}
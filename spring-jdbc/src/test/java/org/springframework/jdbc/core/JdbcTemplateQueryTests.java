@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,9 +23,13 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.SQLWarning;
 import java.sql.Statement;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -34,7 +38,12 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.SQLWarningException;
+import org.springframework.jdbc.support.rowset.ColumnarRowList;
+import org.springframework.jdbc.support.rowset.ColumnarSqlRowSet;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.*;
@@ -108,6 +117,39 @@ public class JdbcTemplateQueryTests {
 		verify(this.statement).close();
 	}
 
+	@Test
+	public void testQueryForListWithColumnarResults() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < ?";
+		given(this.resultSetMetaData.getColumnClassName(1)).willReturn(Integer.class.getName());
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		this.template.setColumnarResults(true);
+		List<Map<String, Object>> li = this.template.queryForList(sql, 3);
+		assertTrue(li instanceof ColumnarRowList);
+		assertEquals("All rows returned", 2, li.size());
+		assertEquals("First row is Integer", 11, ((Integer) li.get(0).get("age")).intValue());
+		assertEquals("Second row is Integer", 12, ((Integer) li.get(1).get("AGE")).intValue());
+		verify(this.resultSet, never()).getObject(1);
+		verify(this.preparedStatement).setObject(1, 3);
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+	}
+
+	@Test
+	public void testQueryForRowSetWithColumnarResults() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.resultSet.next()).willReturn(true, false);
+		given(this.resultSet.getObject(1)).willReturn("11");
+		this.template.setColumnarResults(true);
+		SqlRowSet rowSet = this.template.queryForRowSet(sql);
+		assertTrue(rowSet instanceof ColumnarSqlRowSet);
+		assertTrue(rowSet.next());
+		assertEquals(11, rowSet.getInt("age"));
+		assertFalse(rowSet.next());
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+	}
+
 	@Test
 	public void testQueryForListWithSingleRowAndColumn() throws Exception {
 		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
@@ -393,4 +435,130 @@ public class JdbcTemplateQueryTests {
 		verify(this.preparedStatement).close();
 	}
 
+	@Test
+	public void testQueryForStream() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.statement.getConnection()).willReturn(this.connection);
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1))) {
+			verify(this.resultSet, never()).next();
+			assertEquals(Arrays.asList(11, 12), stream.collect(Collectors.toList()));
+			verify(this.resultSet, never()).close();
+			verify(this.statement, never()).close();
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithArgsAndFetchSize() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < ?";
+		given(this.preparedStatement.getConnection()).willReturn(this.connection);
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		this.template.setFetchSize(10);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1), 3)) {
+			assertEquals(11, stream.findFirst().get().intValue());
+		}
+		verify(this.preparedStatement).setFetchSize(10);
+		verify(this.preparedStatement).setObject(1, 3);
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithSqlExceptionDuringIteration() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.statement.getConnection()).willReturn(this.connection);
+		given(this.resultSet.next()).willThrow(new SQLException("bad row"));
+		Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1));
+		try {
+			stream.count();
+			fail("Should have thrown DataAccessException");
+		}
+		catch (DataAccessException ex) {
+			// expected
+		}
+		finally {
+			stream.close();
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamClosesResourcesOnWarning() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.statement.getWarnings()).willReturn(new SQLWarning("warning"));
+		this.template.setIgnoreWarnings(false);
+		try {
+			this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1));
+			fail("Should have thrown SQLWarningException");
+		}
+		catch (SQLWarningException ex) {
+			// expected
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithSetterClosesResourcesOnSetterFailure() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < ?";
+		try {
+			this.template.queryForStream(sql, ps -> {
+				throw new IllegalStateException("bad setter");
+			}, (rs, rowNum) -> rs.getInt(1));
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		verify(this.preparedStatement, never()).executeQuery();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamReleasesConnectionHandleFromProxyDataSource() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		Connection handle = mock(Connection.class);
+		given(this.dataSource.getConnection()).willReturn(handle);
+		given(handle.createStatement()).willReturn(this.statement);
+		given(this.statement.getConnection()).willReturn(this.connection);
+		given(this.resultSet.next()).willReturn(true, false);
+		given(this.resultSet.getInt(1)).willReturn(11);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1))) {
+			assertEquals(1, stream.count());
+			verify(handle, never()).close();
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(handle).close();
+		verify(this.connection, never()).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithArgsReleasesConnectionHandleFromProxyDataSource() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < ?";
+		Connection handle = mock(Connection.class);
+		given(this.dataSource.getConnection()).willReturn(handle);
+		given(handle.prepareStatement(sql)).willReturn(this.preparedStatement);
+		given(this.preparedStatement.getConnection()).willReturn(this.connection);
+		given(this.resultSet.next()).willReturn(true, false);
+		given(this.resultSet.getInt(1)).willReturn(11);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1), 3)) {
+			assertEquals(1, stream.count());
+		}
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(handle).close();
+		verify(this.connection, never()).close();
+	}
+
 }
@@ -40,6 +40,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.InOrder;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
@@ -48,10 +49,14 @@ import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.jdbc.SQLWarningException;
 import org.springframework.jdbc.UncategorizedSQLException;
 import org.springframework.jdbc.core.support.AbstractInterruptibleBatchPreparedStatementSetter;
+import org.springframework.jdbc.datasource.ConnectionHolder;
 import org.springframework.jdbc.datasource.ConnectionProxy;
 import org.springframework.jdbc.datasource.SingleConnectionDataSource;
 import org.springframework.jdbc.support.SQLErrorCodeSQLExceptionTranslator;
 import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
 import org.springframework.util.LinkedCaseInsensitiveMap;
 import org.springframework.util.StringUtils;
 
@@ -1137,6 +1142,230 @@ public class JdbcTemplateTests {
 	}
 
 
+	@Test
+	public void testWriteBehindUpdatesFlushedBeforeCommit() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1, 1, 1});
+		mockDatabaseMetaData(true);
+		this.template.setWriteBehindBatchSize(10);
+
+		startTransaction();
+		try {
+			assertEquals(Statement.SUCCESS_NO_INFO, this.template.update(sql, 100));
+			this.template.update(sql, 200);
+			this.template.update(sql, 300);
+			verify(this.connection, never()).prepareStatement(sql);
+
+			TransactionSynchronizationUtils.triggerBeforeCommit(false);
+			verify(this.connection).prepareStatement(sql);
+			verify(this.preparedStatement).setObject(1, 100);
+			verify(this.preparedStatement).setObject(1, 200);
+			verify(this.preparedStatement).setObject(1, 300);
+			verify(this.preparedStatement, times(3)).addBatch();
+			verify(this.preparedStatement).executeBatch();
+			assertArrayEquals(new int[] {1, 1, 1}, this.template.flushWriteBehindUpdates());
+			assertEquals(0, this.template.flushWriteBehindUpdates().length);
+		}
+		finally {
+			endTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		}
+		verify(this.connection, never()).close();
+	}
+
+	@Test
+	public void testWriteBehindUpdatesFlushedBeforeQuery() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1, 1});
+		mockDatabaseMetaData(true);
+		this.template.setWriteBehindBatchSize(10);
+
+		startTransaction();
+		try {
+			this.template.update(sql, 100);
+			this.template.update(sql, 200);
+			this.template.query("SELECT ID FROM NOSUCHTABLE WHERE ID = ?", (ResultSetExtractor<Object>) rs -> null, 100);
+
+			InOrder ordered = inOrder(this.preparedStatement);
+			ordered.verify(this.preparedStatement).executeBatch();
+			ordered.verify(this.preparedStatement).executeQuery();
+			assertArrayEquals(new int[] {1, 1}, this.template.flushWriteBehindUpdates());
+		}
+		finally {
+			endTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		}
+	}
+
+	@Test
+	public void testWriteBehindUpdatesFlushedAtBufferLimitAndDiscardedOnRollback() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final String sql2 = "DELETE FROM NOSUCHTABLE WHERE ID = ?";
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1, 1});
+		mockDatabaseMetaData(true);
+		this.template.setWriteBehindBatchSize(2);
+
+		startTransaction();
+		try {
+			this.template.update(sql, 100);
+			this.template.update(sql, 200);
+			this.template.update(sql2, 100);
+			verify(this.connection).prepareStatement(sql);
+			verify(this.preparedStatement).executeBatch();
+		}
+		finally {
+			endTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+		verify(this.connection, never()).prepareStatement(sql2);
+	}
+
+	@Test
+	public void testWriteBehindFlushFailureMarksTransactionRollbackOnly() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final String sql2 = "DELETE FROM NOSUCHTABLE WHERE ID = ?";
+		given(this.preparedStatement.executeBatch()).willThrow(new SQLException("Deadlock", "40001"));
+		mockDatabaseMetaData(true);
+		this.template.setWriteBehindBatchSize(10);
+
+		startTransaction();
+		try {
+			this.template.update(sql, 100);
+			this.template.update(sql2, 100);
+			try {
+				TransactionSynchronizationUtils.triggerBeforeCommit(false);
+				fail("Should have thrown DataAccessException");
+			}
+			catch (DataAccessException ex) {
+				// expected
+			}
+			ConnectionHolder holder = (ConnectionHolder) TransactionSynchronizationManager.getResource(this.dataSource);
+			assertTrue(holder.isRollbackOnly());
+			assertEquals(0, this.template.flushWriteBehindUpdates().length);
+		}
+		finally {
+			endTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+		verify(this.connection).prepareStatement(sql);
+		verify(this.connection, never()).prepareStatement(sql2);
+	}
+
+	@Test
+	public void testWriteBehindUpdatesExecutedWithSettingsOfIssuingTemplate() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1});
+		mockDatabaseMetaData(true);
+		this.template.setWriteBehindBatchSize(10);
+		JdbcTemplate template2 = new JdbcTemplate(this.dataSource);
+		template2.setWriteBehindBatchSize(10);
+		template2.setQueryTimeout(5);
+
+		startTransaction();
+		try {
+			this.template.update(sql, 100);
+			template2.update(sql, 200);
+			assertArrayEquals(new int[] {1, 1}, this.template.flushWriteBehindUpdates());
+		}
+		finally {
+			endTransaction(TransactionSynchronization.STATUS_COMMITTED);
+		}
+		verify(this.preparedStatement, times(2)).executeBatch();
+		verify(this.preparedStatement, times(1)).setQueryTimeout(5);
+	}
+
+	@Test
+	public void testWriteBehindNotAppliedOutsideOfTransaction() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		given(this.preparedStatement.executeUpdate()).willReturn(1);
+		this.template.setWriteBehindBatchSize(10);
+
+		assertEquals(1, this.template.update(sql, 100));
+		verify(this.preparedStatement).setObject(1, 100);
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testBulkUpdate() throws Exception {
+		final String sql = "INSERT INTO NOSUCHTABLE (ID) VALUES (?)";
+		final List<Integer> ids = Arrays.asList(100, 200, 300, 400, 500);
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1, 1});
+		given(this.connection.getAutoCommit()).willReturn(true);
+		mockDatabaseMetaData(true);
+
+		BulkUpdateResult result = this.template.bulkUpdate(sql, ids, 2, 2, (ps, id) -> ps.setInt(1, id));
+		assertEquals(5, result.getRowCount());
+		assertEquals(3, result.getChunkCount());
+		assertEquals(0, result.getRetryCount());
+		assertEquals(6, result.getTotalUpdateCount());
+
+		for (Integer id : ids) {
+			verify(this.preparedStatement).setInt(1, id);
+		}
+		verify(this.preparedStatement, times(5)).addBatch();
+		verify(this.preparedStatement, times(3)).executeBatch();
+		verify(this.preparedStatement, times(3)).close();
+		verify(this.connection, times(3)).setAutoCommit(false);
+		verify(this.connection, times(3)).commit();
+		verify(this.connection, times(3)).setAutoCommit(true);
+	}
+
+	@Test
+	public void testBulkUpdateRetriedAfterTransientFailure() throws Exception {
+		final String sql = "INSERT INTO NOSUCHTABLE (ID) VALUES (?)";
+		given(this.preparedStatement.executeBatch())
+				.willThrow(new SQLException("Deadlock found", "40001", 1213))
+				.willReturn(new int[] {1, 1});
+		given(this.connection.getAutoCommit()).willReturn(true);
+		mockDatabaseMetaData(true);
+
+		BulkUpdateResult result = this.template.bulkUpdate(sql, Arrays.asList(100, 200), 2, 1, (ps, id) -> ps.setInt(1, id));
+		assertEquals(1, result.getRetryCount());
+		assertArrayEquals(new int[] {1, 1}, result.getUpdateCounts()[0]);
+		verify(this.connection).rollback();
+		verify(this.connection).commit();
+	}
+
+	@Test
+	public void testBulkUpdateStoppedAfterNonTransientFailure() throws Exception {
+		final String sql = "INSERT INTO NOSUCHTABLE (ID) VALUES (?)";
+		given(this.preparedStatement.executeBatch()).willThrow(new SQLException("Unknown column", "42S22", 1054));
+		given(this.connection.getAutoCommit()).willReturn(true);
+		mockDatabaseMetaData(true);
+
+		this.thrown.expect(BadSqlGrammarException.class);
+		try {
+			this.template.bulkUpdate(sql, Arrays.asList(100, 200, 300, 400), 2, 1, (ps, id) -> ps.setInt(1, id));
+		}
+		finally {
+			verify(this.preparedStatement).executeBatch();
+			verify(this.connection).rollback();
+			verify(this.connection, never()).commit();
+		}
+	}
+
+	@Test
+	public void testBulkUpdateWithinTransactionNotAllowed() throws Exception {
+		startTransaction();
+		try {
+			this.thrown.expect(InvalidDataAccessApiUsageException.class);
+			this.template.bulkUpdate("INSERT INTO NOSUCHTABLE (ID) VALUES (?)",
+					Arrays.asList(100, 200), 2, 2, (ps, id) -> ps.setInt(1, id));
+		}
+		finally {
+			endTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+		}
+	}
+
+	private void startTransaction() {
+		TransactionSynchronizationManager.bindResource(this.dataSource, new ConnectionHolder(this.connection));
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+	}
+
+	private void endTransaction(int status) {
+		TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(), status);
+		TransactionSynchronizationManager.clear();
+		TransactionSynchronizationManager.unbindResource(this.dataSource);
+	}
+
 	private void mockDatabaseMetaData(boolean supportsBatchUpdates) throws SQLException {
 		DatabaseMetaData databaseMetaData = mock(DatabaseMetaData.class);
 		given(databaseMetaData.getDatabaseProductName()).willReturn("MySQL");
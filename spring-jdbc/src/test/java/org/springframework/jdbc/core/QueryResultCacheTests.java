@@ -0,0 +1,194 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * @author agent
+ */
+public class QueryResultCacheTests {
+
+	private static final String SQL = "SELECT id, name FROM app.countries c WHERE id = ?";
+
+	private PreparedStatement preparedStatement;
+
+	private ResultSet resultSet;
+
+	private JdbcTemplate template;
+
+	private QueryResultCache queryResultCache;
+
+
+	@Before
+	public void setup() throws Exception {
+		Connection connection = mock(Connection.class);
+		DataSource dataSource = mock(DataSource.class);
+		this.resultSet = mock(ResultSet.class);
+		ResultSetMetaData resultSetMetaData = mock(ResultSetMetaData.class);
+		this.preparedStatement = mock(PreparedStatement.class);
+		given(dataSource.getConnection()).willReturn(connection);
+		given(connection.prepareStatement(anyString())).willReturn(this.preparedStatement);
+		given(this.preparedStatement.executeQuery()).willReturn(this.resultSet);
+		given(this.resultSet.getMetaData()).willReturn(resultSetMetaData);
+		given(resultSetMetaData.getColumnCount()).willReturn(2);
+		given(resultSetMetaData.getColumnLabel(1)).willReturn("ID");
+		given(resultSetMetaData.getColumnLabel(2)).willReturn("NAME");
+		given(resultSetMetaData.getColumnName(1)).willReturn("ID");
+		given(resultSetMetaData.getColumnName(2)).willReturn("NAME");
+		given(resultSetMetaData.getColumnType(1)).willReturn(Types.INTEGER);
+		given(resultSetMetaData.getColumnType(2)).willReturn(Types.VARCHAR);
+		given(this.resultSet.next()).willReturn(true, false, true, false);
+		given(this.resultSet.getObject(1)).willReturn(1);
+		given(this.resultSet.getObject(2)).willReturn("Austria");
+
+		this.template = new JdbcTemplate(dataSource);
+		this.queryResultCache = new QueryResultCache(new ConcurrentMapCache("queries"));
+		this.template.setQueryResultCache(this.queryResultCache);
+	}
+
+	@After
+	public void cleanup() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clear();
+		}
+	}
+
+
+	@Test
+	public void resultSharedAcrossRowMappers() throws Exception {
+		List<Map<String, Object>> rows = this.template.queryForList(SQL, 1);
+		List<String> names = this.template.query(SQL, (rs, rowNum) -> rs.getString("NAME"), 1);
+
+		assertEquals(1, rows.size());
+		assertEquals("Austria", rows.get(0).get("NAME"));
+		assertEquals(Collections.singletonList("Austria"), names);
+		assertEquals(1, this.queryResultCache.getHitCount());
+		verify(this.preparedStatement, times(1)).executeQuery();
+	}
+
+	@Test
+	public void resultSharedWithNamedParameterTemplate() throws Exception {
+		NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(this.template);
+		String sql = "SELECT id, name FROM countries WHERE id IN (:ids)";
+		Map<String, Object> params = Collections.singletonMap("ids", Arrays.asList(1, 2));
+
+		assertEquals(1, namedTemplate.queryForList(sql, params).size());
+		assertEquals(1, namedTemplate.queryForList(sql, params).size());
+		verify(this.preparedStatement, times(1)).executeQuery();
+	}
+
+	@Test
+	public void updateInvalidatesAffectedTablesOnly() throws Exception {
+		this.template.queryForList(SQL, 1);
+		this.template.update("UPDATE cities SET name = ? WHERE id = ?", "Vienna", 1);
+		this.template.queryForList(SQL, 1);
+		verify(this.preparedStatement, times(1)).executeQuery();
+
+		this.template.update("UPDATE countries SET name = ? WHERE id = ?", "Belgium", 1);
+		this.template.queryForList(SQL, 1);
+		verify(this.preparedStatement, times(2)).executeQuery();
+	}
+
+	@Test
+	public void explicitInvalidation() throws Exception {
+		this.template.queryForList(SQL, 1);
+		this.queryResultCache.invalidate("COUNTRIES");
+		this.template.queryForList(SQL, 1);
+		verify(this.preparedStatement, times(2)).executeQuery();
+	}
+
+	@Test
+	public void cacheBypassedAfterWriteWithinTransaction() throws Exception {
+		TransactionSynchronizationManager.initSynchronization();
+		this.template.update("DELETE FROM countries WHERE id = ?", 2);
+		this.template.queryForList(SQL, 1);
+		this.template.queryForList(SQL, 1);
+		verify(this.preparedStatement, times(2)).executeQuery();
+		assertEquals(0, this.queryResultCache.getHitCount());
+
+		for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+			synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+		}
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+	}
+
+	@Test
+	public void resultExceedingMaxCachedRowsNotCached() throws Exception {
+		this.queryResultCache.setMaxCachedRows(0);
+		assertEquals(1, this.template.queryForList(SQL, 1).size());
+		assertEquals(1, this.template.queryForList(SQL, 1).size());
+		assertEquals(0, this.queryResultCache.getHitCount());
+		verify(this.preparedStatement, times(2)).executeQuery();
+	}
+
+	@Test
+	public void resultExceedingMaxCachedRowsContinuesFromResultSet() throws Exception {
+		given(this.resultSet.next()).willReturn(true, true, true, false);
+		given(this.resultSet.getString("NAME")).willReturn("Austria");
+		this.queryResultCache.setMaxCachedRows(1);
+		List<String> names = this.template.query(SQL, (rs, rowNum) -> rowNum + rs.getString("NAME"), 1);
+
+		assertEquals(Arrays.asList("0Austria", "1Austria", "2Austria"), names);
+		assertEquals(0, this.queryResultCache.getHitCount());
+		verify(this.resultSet, times(4)).next();
+	}
+
+	@Test
+	public void lockingQueryNotCached() throws Exception {
+		this.template.queryForList(SQL + " FOR UPDATE", 1);
+		this.template.queryForList(SQL + " FOR UPDATE", 1);
+		verify(this.preparedStatement, times(2)).executeQuery();
+	}
+
+	@Test
+	public void extractTableNames() {
+		assertArrayEquals(new String[] {"a", "b", "c"},
+				this.queryResultCache.extractTableNames("select * from a x, b as y, \"Sch\".\"C\" where x.id = y.id"));
+		assertArrayEquals(new String[] {"a", "b", "c"},
+				this.queryResultCache.extractTableNames("select a.* from a join b on a.id = b.id left outer join c on 1 = 1"));
+		assertArrayEquals(new String[] {"w", "z"},
+				this.queryResultCache.extractTableNames("select * from (select * from z) q, w"));
+		assertArrayEquals(new String[] {"t", "s"},
+				this.queryResultCache.extractTableNames("insert into t (a, b) select a, b from s where c = 'from x'"));
+		assertArrayEquals(new String[] {"x"},
+				this.queryResultCache.extractTableNames("delete from /* from y */ x -- from z\n"));
+	}
+
+}
@@ -28,6 +28,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -42,6 +44,7 @@ import org.springframework.jdbc.Customer;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
 import org.springframework.jdbc.core.SqlParameterValue;
 
 import static org.junit.Assert.*;
@@ -334,6 +337,35 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection).close();
 	}
 
+	@Test
+	public void testQueryForStreamWithRowMapper() throws SQLException {
+		given(resultSet.next()).willReturn(true, false);
+		given(resultSet.getInt("id")).willReturn(1);
+		given(resultSet.getString("forename")).willReturn("rod");
+
+		params.put("id", new SqlParameterValue(Types.DECIMAL, 1));
+		params.put("country", "UK");
+		List<Customer> customers;
+		try (Stream<Customer> stream = namedParameterTemplate.queryForStream(SELECT_NAMED_PARAMETERS, params,
+				(rs, rownum) -> {
+					Customer cust = new Customer();
+					cust.setId(rs.getInt(COLUMN_NAMES[0]));
+					cust.setForename(rs.getString(COLUMN_NAMES[1]));
+					return cust;
+				})) {
+			customers = stream.collect(Collectors.toList());
+		}
+		assertEquals(1, customers.size());
+		assertTrue("Customer id was assigned correctly", customers.get(0).getId() == 1);
+		assertTrue("Customer forename was assigned correctly", customers.get(0).getForename().equals("rod"));
+		verify(connection).prepareStatement(SELECT_NAMED_PARAMETERS_PARSED);
+		verify(preparedStatement).setObject(1, 1, Types.DECIMAL);
+		verify(preparedStatement).setString(2, "UK");
+		verify(resultSet).close();
+		verify(preparedStatement).close();
+		verify(connection).close();
+	}
+
 	@Test
 	public void testQueryWithRowMapperNoParameters() throws SQLException {
 		given(resultSet.next()).willReturn(true, false);
@@ -533,4 +565,106 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection, atLeastOnce()).close();
 	}
 
+	@Test
+	public void testStatementTemplateReusedForSameParameterShape() throws SQLException {
+		int[] factoryCount = new int[1];
+		namedParameterTemplate = new NamedParameterJdbcTemplate(dataSource) {
+			@Override
+			protected PreparedStatementCreatorFactory getPreparedStatementCreatorFactory(
+					ParsedSql parsedSql, SqlParameterSource paramSource) {
+				factoryCount[0]++;
+				return super.getPreparedStatementCreatorFactory(parsedSql, paramSource);
+			}
+		};
+		String sql = "select id from custmr where id in (:ids)";
+
+		namedParameterTemplate.queryForList(sql, Collections.singletonMap("ids", Arrays.asList(1, 2)));
+		namedParameterTemplate.queryForList(sql, Collections.singletonMap("ids", Arrays.asList(3, 4)));
+		assertEquals(1, factoryCount[0]);
+
+		namedParameterTemplate.queryForList(sql, Collections.singletonMap("ids", Arrays.asList(5, 6, 7)));
+		assertEquals(2, factoryCount[0]);
+
+		namedParameterTemplate.queryForList(sql, new MapSqlParameterSource("ids", Arrays.asList(8, 9)));
+		namedParameterTemplate.queryForList(sql,
+				new MapSqlParameterSource().addValue("ids", Arrays.asList(8, 9), Types.INTEGER));
+		assertEquals(3, factoryCount[0]);
+
+		verify(connection, times(4)).prepareStatement("select id from custmr where id in (?, ?)");
+		verify(connection).prepareStatement("select id from custmr where id in (?, ?, ?)");
+		verify(preparedStatement).setObject(1, 8, Types.INTEGER);
+		verify(preparedStatement).setObject(2, 9, Types.INTEGER);
+	}
+
+	@Test
+	public void testQueryWithInListPadding() throws SQLException {
+		namedParameterTemplate.setInListPadding(true);
+		String sql = "select id from custmr where id in (:ids) and country = :country";
+		params.put("ids", Arrays.asList(1, 2, 3));
+		params.put("country", "UK");
+
+		namedParameterTemplate.queryForList(sql, params);
+		params.put("ids", Arrays.asList(1, 2, 3, 4));
+		namedParameterTemplate.queryForList(sql, params);
+		params.put("ids", Arrays.asList(1, 2, 3, 4, 5));
+		namedParameterTemplate.queryForList(sql, params);
+		params.put("ids", Collections.singletonList(1));
+		namedParameterTemplate.queryForList(sql, params);
+
+		verify(connection, times(2)).prepareStatement(
+				"select id from custmr where id in (?, ?, ?, ?) and country = ?");
+		verify(connection).prepareStatement(
+				"select id from custmr where id in (?, ?, ?, ?, ?, ?, ?, ?) and country = ?");
+		verify(connection).prepareStatement("select id from custmr where id in (?) and country = ?");
+		verify(preparedStatement).setObject(4, 3);
+		verify(preparedStatement, times(2)).setObject(4, 4);
+		verify(preparedStatement).setObject(8, 5);
+		verify(preparedStatement, times(4)).setString(anyInt(), eq("UK"));
+	}
+
+	@Test
+	public void testBatchUpdateWithInListPadding() throws Exception {
+		@SuppressWarnings("unchecked")
+		Map<String, Object>[] parameters = new Map[2];
+		parameters[0] = Collections.singletonMap("ids", Arrays.asList(1, 2, 3));
+		parameters[1] = Collections.singletonMap("ids", Arrays.asList(4, 5, 6));
+
+		given(preparedStatement.executeBatch()).willReturn(new int[] {1, 1});
+		given(connection.getMetaData()).willReturn(databaseMetaData);
+		namedParameterTemplate = new NamedParameterJdbcTemplate(new JdbcTemplate(dataSource, false));
+		namedParameterTemplate.setInListPadding(true);
+
+		int[] actualRowsAffected = namedParameterTemplate.batchUpdate("delete sometable where id in (:ids)", parameters);
+		assertEquals(2, actualRowsAffected.length);
+
+		verify(connection).prepareStatement("delete sometable where id in (?, ?, ?, ?)");
+		InOrder inOrder = inOrder(preparedStatement);
+		inOrder.verify(preparedStatement).setObject(1, 1);
+		inOrder.verify(preparedStatement).setObject(2, 2);
+		inOrder.verify(preparedStatement).setObject(3, 3);
+		inOrder.verify(preparedStatement).setObject(4, 3);
+		inOrder.verify(preparedStatement).addBatch();
+		inOrder.verify(preparedStatement).setObject(1, 4);
+		inOrder.verify(preparedStatement).setObject(2, 5);
+		inOrder.verify(preparedStatement).setObject(3, 6);
+		inOrder.verify(preparedStatement).setObject(4, 6);
+		inOrder.verify(preparedStatement).addBatch();
+	}
+
+	@Test
+	public void testUpdateWithInListPaddingSkipsValueLists() throws SQLException {
+		given(preparedStatement.executeUpdate()).willReturn(1);
+		namedParameterTemplate.setInListPadding(true);
+		params.put("values", Arrays.asList(1, "Rod", "UK"));
+		params.put("ids", Arrays.asList(1, 2, 3));
+
+		namedParameterTemplate.update("insert into custmr (id, name, country) values (:values)", params);
+		namedParameterTemplate.update("update custmr set flag = 1 where id in (:ids) or id = :ids", params);
+
+		verify(connection).prepareStatement("insert into custmr (id, name, country) values (?, ?, ?)");
+		verify(connection).prepareStatement("update custmr set flag = 1 where id in (?, ?, ?) or id = ?, ?, ?");
+		verify(preparedStatement, never()).setObject(4, 3);
+		verify(preparedStatement, never()).setString(4, "UK");
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,8 +16,10 @@
 
 package org.springframework.jdbc.core.namedparam;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 import org.junit.Test;
@@ -310,4 +312,20 @@ public class NamedParameterUtilsTests {
 		assertEquals("xxx", psql2.getParameterNames().get(0));
 	}
 
+	@Test
+	public void findInListParameterNames() {
+		assertEquals(new HashSet<>(Arrays.asList("ids", "a", "codes")), NamedParameterUtils.findInListParameterNames(
+				NamedParameterUtils.parseSqlStatement("select * from t where id in (:ids) and code IN( :a, :codes )")));
+		assertEquals(Collections.emptySet(), NamedParameterUtils.findInListParameterNames(
+				NamedParameterUtils.parseSqlStatement("insert into t (id, name) values (:ids)")));
+		assertEquals(Collections.emptySet(), NamedParameterUtils.findInListParameterNames(
+				NamedParameterUtils.parseSqlStatement("select * from t where (a, b) in ((:a, :b)) or min(:c) = 1")));
+		assertEquals(Collections.emptySet(), NamedParameterUtils.findInListParameterNames(
+				NamedParameterUtils.parseSqlStatement("select * from t where id in (select id from s where x = :ids)")));
+		assertEquals(Collections.singleton("ids"), NamedParameterUtils.findInListParameterNames(
+				NamedParameterUtils.parseSqlStatement("select * from t where joined_in (:a) or id in (:ids)")));
+		assertEquals(Collections.emptySet(), NamedParameterUtils.findInListParameterNames(
+				NamedParameterUtils.parseSqlStatement("update t set v = :ids where id in (:ids)")));
+	}
+
 }
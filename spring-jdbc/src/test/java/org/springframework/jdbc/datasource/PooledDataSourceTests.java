@@ -0,0 +1,411 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.util.StopWatch;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link PooledDataSource}.
+ *
+ * @author agent
+ */
+public class PooledDataSourceTests {
+
+	private final DataSource target = mock(DataSource.class);
+
+	private final PooledDataSource dataSource = new PooledDataSource(this.target);
+
+
+	@Before
+	public void setup() throws SQLException {
+		given(this.target.getConnection()).willAnswer(invocation -> {
+			Connection con = mock(Connection.class);
+			given(con.getAutoCommit()).willReturn(true);
+			given(con.isValid(anyInt())).willReturn(true);
+			return con;
+		});
+		this.dataSource.setHousekeepingInterval(0);
+		this.dataSource.afterPropertiesSet();
+	}
+
+	@After
+	public void destroy() {
+		this.dataSource.destroy();
+	}
+
+
+	@Test
+	public void connectionReusedAfterClose() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+		assertEquals(1, this.dataSource.getActiveConnections());
+		con.close();
+		assertTrue(con.isClosed());
+		assertEquals(0, this.dataSource.getActiveConnections());
+		assertEquals(1, this.dataSource.getIdleConnections());
+
+		Connection con2 = this.dataSource.getConnection();
+		assertNotSame(con, con2);
+		assertSame(targetCon, ((ConnectionProxy) con2).getTargetConnection());
+		con2.close();
+
+		verify(this.target, times(1)).getConnection();
+		verify(targetCon, never()).close();
+		assertEquals(1, this.dataSource.getTotalConnections());
+		assertEquals(1, this.dataSource.getCreatedCount());
+		assertEquals(2, this.dataSource.getBorrowCount());
+		assertTrue(this.dataSource.shouldClose(con));
+	}
+
+	@Test
+	public void closedHandleRejectsCalls() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		con.close();
+		con.close();
+		assertEquals(1, this.dataSource.getIdleConnections());
+		try {
+			con.createStatement();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void statementsAndMetaDataExposeConnectionHandle() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+		Statement targetStmt = mock(Statement.class);
+		ResultSet targetRs = mock(ResultSet.class);
+		DatabaseMetaData targetMetaData = mock(DatabaseMetaData.class);
+		given(targetCon.createStatement()).willReturn(targetStmt);
+		given(targetCon.getMetaData()).willReturn(targetMetaData);
+		given(targetStmt.getConnection()).willReturn(targetCon);
+		given(targetStmt.executeQuery("SELECT 1")).willReturn(targetRs);
+		given(targetRs.getStatement()).willReturn(targetStmt);
+		given(targetMetaData.getConnection()).willReturn(targetCon);
+
+		Statement stmt = con.createStatement();
+		assertSame(con, stmt.getConnection());
+		ResultSet rs = stmt.executeQuery("SELECT 1");
+		assertSame(stmt, rs.getStatement());
+		assertSame(con, rs.getStatement().getConnection());
+		assertSame(con, con.getMetaData().getConnection());
+		con.close();
+	}
+
+	@Test
+	public void openStatementsClosedOnClose() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+		Statement targetStmt = mock(Statement.class);
+		PreparedStatement targetPs = mock(PreparedStatement.class);
+		given(targetCon.createStatement()).willReturn(targetStmt);
+		given(targetCon.prepareStatement("SELECT 1")).willReturn(targetPs);
+
+		con.createStatement().close();
+		con.prepareStatement("SELECT 1");
+		con.close();
+
+		verify(targetStmt, times(1)).close();
+		verify(targetPs).close();
+		verify(targetCon, never()).close();
+		assertEquals(1, this.dataSource.getIdleConnections());
+	}
+
+	@Test
+	public void modifiedStateResetOnClose() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+		con.setAutoCommit(false);
+		con.setReadOnly(true);
+		con.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		con.close();
+
+		verify(targetCon).rollback();
+		verify(targetCon).setAutoCommit(true);
+		verify(targetCon).setReadOnly(false);
+		verify(targetCon).setTransactionIsolation(0);
+	}
+
+	@Test
+	public void poolExhaustedTimesOut() throws SQLException {
+		this.dataSource.destroy();
+		PooledDataSource dataSource = new PooledDataSource(this.target);
+		dataSource.setMaxPoolSize(1);
+		dataSource.setConnectionTimeout(10);
+		dataSource.setHousekeepingInterval(0);
+
+		Connection con = dataSource.getConnection();
+		try {
+			dataSource.getConnection();
+			fail("Should have thrown SQLTransientConnectionException");
+		}
+		catch (SQLTransientConnectionException ex) {
+			// expected
+		}
+		assertEquals(1, dataSource.getTimeoutCount());
+		con.close();
+		dataSource.getConnection().close();
+		dataSource.destroy();
+	}
+
+	@Test
+	public void waitingThreadReceivesReturnedConnection() throws Exception {
+		this.dataSource.destroy();
+		PooledDataSource dataSource = new PooledDataSource(this.target);
+		dataSource.setMaxPoolSize(1);
+		dataSource.setHousekeepingInterval(0);
+
+		Connection con = dataSource.getConnection();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Connection> future = executor.submit(() -> {
+				Connection con2 = dataSource.getConnection();
+				con2.close();
+				return ((ConnectionProxy) con2).getTargetConnection();
+			});
+			while (dataSource.getThreadsAwaitingConnection() == 0) {
+				Thread.sleep(1);
+			}
+			Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+			con.close();
+			assertSame(targetCon, future.get(1, TimeUnit.SECONDS));
+		}
+		finally {
+			executor.shutdownNow();
+			dataSource.destroy();
+		}
+		assertEquals(1, dataSource.getCreatedCount());
+	}
+
+	@Test
+	public void invalidConnectionDiscardedOnBorrow() throws SQLException {
+		this.dataSource.setValidateOnBorrow(true);
+		Connection con = this.dataSource.getConnection();
+		Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+		con.close();
+		given(targetCon.isValid(anyInt())).willReturn(false);
+
+		Connection con2 = this.dataSource.getConnection();
+		assertNotSame(targetCon, ((ConnectionProxy) con2).getTargetConnection());
+		verify(targetCon).close();
+		assertEquals(1, this.dataSource.getValidationFailureCount());
+		assertEquals(1, this.dataSource.getTotalConnections());
+		con2.close();
+	}
+
+	@Test
+	public void brokenConnectionDiscardedOnClose() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+		given(targetCon.createStatement()).willThrow(new SQLException("Connection reset", "08S01"));
+		try {
+			con.createStatement();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			assertEquals("08S01", ex.getSQLState());
+		}
+		con.close();
+		verify(targetCon).close();
+		assertEquals(0, this.dataSource.getTotalConnections());
+	}
+
+	@Test
+	public void housekeepingExpiresIdleConnections() throws Exception {
+		this.dataSource.setMaxIdleTime(1);
+		Connection con = this.dataSource.getConnection();
+		Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+		con.close();
+		Thread.sleep(10);
+		this.dataSource.housekeep();
+		verify(targetCon).close();
+		assertEquals(0, this.dataSource.getTotalConnections());
+	}
+
+	@Test
+	public void housekeepingValidatesIdleConnections() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection con2 = this.dataSource.getConnection();
+		Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+		Connection targetCon2 = ((ConnectionProxy) con2).getTargetConnection();
+		con.close();
+		con2.close();
+		given(targetCon.isValid(anyInt())).willReturn(false);
+		this.dataSource.housekeep();
+		verify(targetCon).close();
+		verify(targetCon2, never()).close();
+		assertEquals(1, this.dataSource.getTotalConnections());
+		assertEquals(1, this.dataSource.getValidationFailureCount());
+	}
+
+	@Test
+	public void housekeepingDetectsLeaks() throws Exception {
+		this.dataSource.setLeakDetectionThreshold(1);
+		Connection con = this.dataSource.getConnection();
+		Thread.sleep(10);
+		this.dataSource.housekeep();
+		this.dataSource.housekeep();
+		assertEquals(1, this.dataSource.getLeakCount());
+		con.close();
+	}
+
+	@Test
+	public void softEvictClosesIdleAndReturnedConnections() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection con2 = this.dataSource.getConnection();
+		Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+		Connection targetCon2 = ((ConnectionProxy) con2).getTargetConnection();
+		con.close();
+		this.dataSource.softEvictConnections();
+		verify(targetCon).close();
+		verify(targetCon2, never()).close();
+		con2.close();
+		verify(targetCon2).close();
+		assertEquals(0, this.dataSource.getTotalConnections());
+	}
+
+	@Test
+	public void destroyClosesIdleConnections() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection targetCon = ((ConnectionProxy) con).getTargetConnection();
+		con.close();
+		this.dataSource.destroy();
+		verify(targetCon).close();
+		try {
+			this.dataSource.getConnection();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void pooledEmbeddedDatabaseUnderConcurrentAccess() throws Exception {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		PooledDataSource dataSource = new PooledDataSource(database);
+		dataSource.setMaxPoolSize(4);
+		dataSource.afterPropertiesSet();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.execute("create table T (ID integer)");
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		AtomicInteger inserted = new AtomicInteger();
+		try {
+			Future<?>[] futures = new Future<?>[8];
+			for (int i = 0; i < futures.length; i++) {
+				futures[i] = executor.submit(() -> {
+					for (int j = 0; j < 100; j++) {
+						jdbcTemplate.update("insert into T (ID) values (?)", j);
+						inserted.incrementAndGet();
+					}
+				});
+			}
+			for (Future<?> future : futures) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+			assertEquals(Integer.valueOf(inserted.get()), jdbcTemplate.queryForObject("select count(*) from T", Integer.class));
+			assertTrue(dataSource.getTotalConnections() <= 4);
+			assertEquals(0, dataSource.getActiveConnections());
+		}
+		finally {
+			executor.shutdownNow();
+			dataSource.destroy();
+			database.shutdown();
+		}
+	}
+
+	@Test
+	@Ignore("Intended for use during development only")
+	public void shouldBeFasterThanUnpooledEmbeddedDatabase() throws Exception {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		PooledDataSource dataSource = new PooledDataSource(database);
+		dataSource.afterPropertiesSet();
+		try {
+			StopWatch unpooledTime = timeMultiThreaded("Unpooled", database);
+			System.out.println(unpooledTime.prettyPrint());
+
+			StopWatch pooledTime = timeMultiThreaded("PooledDataSource", dataSource);
+			System.out.println(pooledTime.prettyPrint());
+
+			assertTrue(pooledTime.getTotalTimeSeconds() < unpooledTime.getTotalTimeSeconds());
+		}
+		finally {
+			dataSource.destroy();
+			database.shutdown();
+		}
+	}
+
+	/**
+	 * Time 10K queries on each of 10 threads against the given DataSource.
+	 * @return the timing stopwatch
+	 */
+	private StopWatch timeMultiThreaded(String id, DataSource dataSource) throws Exception {
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		StopWatch stopWatch = new StopWatch(id);
+		ExecutorService executor = Executors.newFixedThreadPool(10);
+		stopWatch.start("Running threads");
+		try {
+			Future<?>[] futures = new Future<?>[10];
+			for (int i = 0; i < futures.length; i++) {
+				futures[i] = executor.submit(() -> {
+					for (int j = 0; j < 10000; j++) {
+						jdbcTemplate.queryForObject("values (1)", Integer.class);
+					}
+				});
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		stopWatch.stop();
+		return stopWatch;
+	}
+
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * @author agent
+ */
+public class ReplicaRoutingDataSourceTests {
+
+	private DataSource primary;
+
+	private DataSource replica1;
+
+	private DataSource replica2;
+
+	private Connection primaryConnection;
+
+	private Connection replica1Connection;
+
+	private Connection replica2Connection;
+
+	private ReplicaRoutingDataSource dataSource;
+
+
+	@Before
+	public void setup() throws Exception {
+		this.primary = mock(DataSource.class);
+		this.replica1 = mock(DataSource.class);
+		this.replica2 = mock(DataSource.class);
+		this.primaryConnection = mock(Connection.class);
+		this.replica1Connection = mock(Connection.class);
+		this.replica2Connection = mock(Connection.class);
+		given(this.primary.getConnection()).willReturn(this.primaryConnection);
+		given(this.replica1.getConnection()).willReturn(this.replica1Connection);
+		given(this.replica2.getConnection()).willReturn(this.replica2Connection);
+		given(this.primaryConnection.getAutoCommit()).willReturn(true);
+		given(this.replica1Connection.getAutoCommit()).willReturn(true);
+		given(this.replica2Connection.getAutoCommit()).willReturn(true);
+
+		this.dataSource = new ReplicaRoutingDataSource();
+		this.dataSource.setPrimaryDataSource(this.primary);
+		this.dataSource.setReplicaDataSources(Arrays.asList(this.replica1, this.replica2));
+	}
+
+	@After
+	public void cleanup() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+
+	@Test
+	public void readOnlyTransactionRoutedToReplica() throws Exception {
+		this.dataSource.afterPropertiesSet();
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+		tt.setReadOnly(true);
+		tt.execute(status -> {
+			executeStatement();
+			return null;
+		});
+
+		assertEquals(1, this.dataSource.getReplicaConnectionCount());
+		assertEquals(0, this.dataSource.getPrimaryFallbackCount());
+		assertArrayEquals(new int[] {0, 0}, this.dataSource.getOutstandingConnectionCounts());
+		verify(this.replica1Connection).createStatement();
+		verify(this.replica1Connection).commit();
+		verify(this.replica1Connection).close();
+		verify(this.primaryConnection, never()).createStatement();
+	}
+
+	@Test
+	public void readWriteTransactionRoutedToPrimary() throws Exception {
+		this.dataSource.afterPropertiesSet();
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+		tt.execute(status -> {
+			executeStatement();
+			return null;
+		});
+
+		assertEquals(0, this.dataSource.getReplicaConnectionCount());
+		verify(this.primaryConnection).createStatement();
+		verify(this.primaryConnection).commit();
+		verify(this.replica1, never()).getConnection();
+		verify(this.replica2, never()).getConnection();
+	}
+
+	@Test
+	public void leastOutstandingSelection() throws Exception {
+		this.dataSource.setLazyConnectionFetch(false);
+		this.dataSource.afterPropertiesSet();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		Connection con1 = this.dataSource.getConnection();
+		Connection con2 = this.dataSource.getConnection();
+		assertNotSame(((ConnectionProxy) con1).getTargetConnection(), ((ConnectionProxy) con2).getTargetConnection());
+		assertArrayEquals(new int[] {1, 1}, this.dataSource.getOutstandingConnectionCounts());
+
+		con1.close();
+		con1.close();
+		assertEquals(1, this.dataSource.getOutstandingConnectionCounts()[0] + this.dataSource.getOutstandingConnectionCounts()[1]);
+		con2.close();
+		assertArrayEquals(new int[] {0, 0}, this.dataSource.getOutstandingConnectionCounts());
+	}
+
+	@Test
+	public void laggingReplicaExcluded() throws Exception {
+		this.dataSource.setLazyConnectionFetch(false);
+		this.dataSource.setLagProbe(replica -> (replica == this.replica1 ? Duration.ofSeconds(30) : Duration.ZERO));
+		this.dataSource.afterPropertiesSet();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		for (int i = 0; i < 4; i++) {
+			try (Connection con = this.dataSource.getConnection()) {
+				assertSame(this.replica2Connection, ((ConnectionProxy) con).getTargetConnection());
+			}
+		}
+		verify(this.replica1, never()).getConnection();
+	}
+
+	@Test
+	public void weightedRandomSelection() throws Exception {
+		this.dataSource.setLazyConnectionFetch(false);
+		this.dataSource.setSelectionStrategy(ReplicaRoutingDataSource.SelectionStrategy.WEIGHTED_RANDOM);
+		this.dataSource.setReplicaWeights(1, 3);
+		this.dataSource.setLagProbe(replica -> {
+			if (replica == this.replica2) {
+				throw new SQLException("Replica unreachable");
+			}
+			return Duration.ZERO;
+		});
+		this.dataSource.afterPropertiesSet();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		for (int i = 0; i < 4; i++) {
+			try (Connection con = this.dataSource.getConnection()) {
+				assertSame(this.replica1Connection, ((ConnectionProxy) con).getTargetConnection());
+			}
+		}
+		assertEquals(4, this.dataSource.getReplicaConnectionCount());
+	}
+
+	@Test
+	public void failingReplicasFallBackToPrimary() throws Exception {
+		given(this.replica1.getConnection()).willThrow(new SQLException("Replica unreachable"));
+		given(this.replica2.getConnection()).willThrow(new SQLException("Replica unreachable"));
+		this.dataSource.setLazyConnectionFetch(false);
+		this.dataSource.setCheckInterval(Duration.ofMinutes(1));
+		this.dataSource.afterPropertiesSet();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		for (int i = 0; i < 3; i++) {
+			try (Connection con = this.dataSource.getConnection()) {
+				assertSame(this.primaryConnection, con);
+			}
+		}
+		assertEquals(0, this.dataSource.getReplicaConnectionCount());
+		assertEquals(3, this.dataSource.getPrimaryFallbackCount());
+		verify(this.replica1, times(1)).getConnection();
+		verify(this.replica2, times(1)).getConnection();
+	}
+
+	@Test
+	public void embeddedDatabasesRoutedByTransactionType() {
+		EmbeddedDatabase primaryDatabase = createDatabase("primary", 0);
+		EmbeddedDatabase replicaDatabase1 = createDatabase("replica1", 0);
+		EmbeddedDatabase replicaDatabase2 = createDatabase("replica2", 0);
+		try {
+			this.dataSource.setPrimaryDataSource(primaryDatabase);
+			this.dataSource.setReplicaDataSources(Arrays.asList(replicaDatabase1, replicaDatabase2));
+			this.dataSource.afterPropertiesSet();
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+			TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+
+			assertEquals("primary-updated", tt.execute(status -> {
+				jdbcTemplate.update("update SOURCE set NAME = ?", "primary-updated");
+				return jdbcTemplate.queryForObject("select NAME from SOURCE", String.class);
+			}));
+			tt.setReadOnly(true);
+			for (int i = 0; i < 4; i++) {
+				String name = tt.execute(status -> jdbcTemplate.queryForObject("select NAME from SOURCE", String.class));
+				assertTrue(name, "replica1".equals(name) || "replica2".equals(name));
+			}
+			assertEquals(4, this.dataSource.getReplicaConnectionCount());
+			assertEquals(0, this.dataSource.getPrimaryFallbackCount());
+			assertArrayEquals(new int[] {0, 0}, this.dataSource.getOutstandingConnectionCounts());
+			assertEquals("primary-updated",
+					new JdbcTemplate(primaryDatabase).queryForObject("select NAME from SOURCE", String.class));
+		}
+		finally {
+			primaryDatabase.shutdown();
+			replicaDatabase1.shutdown();
+			replicaDatabase2.shutdown();
+		}
+	}
+
+	@Test
+	public void embeddedDatabasesWithWeightedRandomSelection() {
+		EmbeddedDatabase primaryDatabase = createDatabase("primary", 0);
+		EmbeddedDatabase replicaDatabase1 = createDatabase("replica1", 0);
+		EmbeddedDatabase replicaDatabase2 = createDatabase("replica2", 30);
+		try {
+			this.dataSource.setPrimaryDataSource(primaryDatabase);
+			this.dataSource.setReplicaDataSources(Arrays.asList(replicaDatabase1, replicaDatabase2));
+			this.dataSource.setReplicaWeights(1, 3);
+			this.dataSource.setSelectionStrategy(ReplicaRoutingDataSource.SelectionStrategy.WEIGHTED_RANDOM);
+			this.dataSource.setLagProbe(replica -> Duration.ofSeconds(
+					new JdbcTemplate(replica).queryForObject("select LAG from SOURCE", Integer.class)));
+			this.dataSource.afterPropertiesSet();
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(this.dataSource);
+			TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(this.dataSource));
+			tt.setReadOnly(true);
+
+			for (int i = 0; i < 8; i++) {
+				assertEquals("replica1",
+						tt.execute(status -> jdbcTemplate.queryForObject("select NAME from SOURCE", String.class)));
+			}
+			assertEquals(8, this.dataSource.getReplicaConnectionCount());
+			assertEquals(0, this.dataSource.getPrimaryFallbackCount());
+		}
+		finally {
+			primaryDatabase.shutdown();
+			replicaDatabase1.shutdown();
+			replicaDatabase2.shutdown();
+		}
+	}
+
+
+	private static EmbeddedDatabase createDatabase(String name, int lagSeconds) {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.execute("create table SOURCE (NAME varchar(50), LAG integer)");
+		jdbcTemplate.update("insert into SOURCE (NAME, LAG) values (?, ?)", name, lagSeconds);
+		return database;
+	}
+
+	private void executeStatement() {
+		Connection con = DataSourceUtils.getConnection(this.dataSource);
+		try {
+			con.createStatement();
+		}
+		catch (SQLException ex) {
+			throw new IllegalStateException(ex);
+		}
+		finally {
+			DataSourceUtils.releaseConnection(con, this.dataSource);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,12 +20,21 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.sql.DataSource;
 
 import org.junit.Test;
 
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.support.incrementer.DataFieldMaxValueIncrementer;
 import org.springframework.jdbc.support.incrementer.HanaSequenceMaxValueIncrementer;
+import org.springframework.jdbc.support.incrementer.HiLoMaxValueIncrementer;
 import org.springframework.jdbc.support.incrementer.HsqlMaxValueIncrementer;
 import org.springframework.jdbc.support.incrementer.MySQLMaxValueIncrementer;
 import org.springframework.jdbc.support.incrementer.OracleSequenceMaxValueIncrementer;
@@ -203,4 +212,91 @@ public class DataFieldMaxValueIncrementerTests {
 		verify(connection, times(2)).close();
 	}
 
+	@Test
+	public void testHiLoMaxValueIncrementer() {
+		DataFieldMaxValueIncrementer target = mock(DataFieldMaxValueIncrementer.class);
+		given(target.nextLongValue()).willReturn(1L, 2L, 3L);
+
+		HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer();
+		incrementer.setTargetIncrementer(target);
+		incrementer.setBlockSize(4);
+		incrementer.setPrefetchExecutor(new SyncTaskExecutor());
+		incrementer.setPaddingLength(3);
+		incrementer.afterPropertiesSet();
+
+		assertEquals(4, incrementer.nextLongValue());
+		assertEquals(5, incrementer.nextIntValue());
+		verify(target, times(1)).nextLongValue();
+		assertEquals("006", incrementer.nextStringValue());
+		verify(target, times(2)).nextLongValue();
+		assertEquals(7, incrementer.nextLongValue());
+		assertEquals(8, incrementer.nextLongValue());
+		assertEquals(9, incrementer.nextLongValue());
+		verify(target, times(2)).nextLongValue();
+		assertEquals(10, incrementer.nextLongValue());
+		verify(target, times(3)).nextLongValue();
+	}
+
+	@Test
+	public void testHiLoMaxValueIncrementerWithPooledAllocation() {
+		DataFieldMaxValueIncrementer target = mock(DataFieldMaxValueIncrementer.class);
+		given(target.nextLongValue()).willReturn(1L, 21L);
+
+		HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer(target, 20);
+		incrementer.setPooled(true);
+		incrementer.setPrefetchThreshold(1);
+
+		for (long i = 1; i <= 20; i++) {
+			assertEquals(i, incrementer.nextLongValue());
+		}
+		verify(target, times(1)).nextLongValue();
+		assertEquals(21, incrementer.nextLongValue());
+		verify(target, times(2)).nextLongValue();
+	}
+
+	@Test
+	public void testHiLoMaxValueIncrementerWithIntOverflow() {
+		DataFieldMaxValueIncrementer target = mock(DataFieldMaxValueIncrementer.class);
+		given(target.nextLongValue()).willReturn((long) Integer.MAX_VALUE);
+
+		HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer(target, 2);
+		incrementer.setPooled(true);
+		incrementer.setPrefetchThreshold(1);
+
+		assertEquals(Integer.MAX_VALUE, incrementer.nextIntValue());
+		try {
+			incrementer.nextIntValue();
+			fail("Should have thrown DataAccessResourceFailureException");
+		}
+		catch (DataAccessResourceFailureException ex) {
+			assertTrue(ex.getCause() instanceof ArithmeticException);
+		}
+	}
+
+	@Test
+	public void testHiLoMaxValueIncrementerWithConcurrentAccess() throws Exception {
+		AtomicLong sequence = new AtomicLong();
+		DataFieldMaxValueIncrementer target = mock(DataFieldMaxValueIncrementer.class);
+		given(target.nextLongValue()).willAnswer(invocation -> sequence.incrementAndGet());
+		HiLoMaxValueIncrementer incrementer = new HiLoMaxValueIncrementer(target, 10);
+
+		Set<Long> keys = ConcurrentHashMap.newKeySet();
+		List<Thread> threads = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			threads.add(new Thread(() -> {
+				for (int j = 0; j < 1000; j++) {
+					keys.add(incrementer.nextLongValue());
+				}
+			}));
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(8000, keys.size());
+		assertTrue(sequence.get() <= 801);
+	}
+
 }
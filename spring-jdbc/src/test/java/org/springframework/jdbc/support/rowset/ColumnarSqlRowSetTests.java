@@ -0,0 +1,164 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.rowset;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.InvalidResultSetAccessException;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * @author agent
+ */
+public class ColumnarSqlRowSetTests {
+
+	private ResultSet resultSet;
+
+	private ResultSetMetaData resultSetMetaData;
+
+
+	@Before
+	public void setup() throws Exception {
+		resultSet = mock(ResultSet.class);
+		resultSetMetaData = mock(ResultSetMetaData.class);
+		given(resultSet.getMetaData()).willReturn(resultSetMetaData);
+		given(resultSetMetaData.getColumnCount()).willReturn(4);
+		given(resultSetMetaData.getColumnLabel(1)).willReturn("ID");
+		given(resultSetMetaData.getColumnLabel(2)).willReturn("NAME");
+		given(resultSetMetaData.getColumnLabel(3)).willReturn("CREATED");
+		given(resultSetMetaData.getColumnLabel(4)).willReturn("ID");
+		given(resultSetMetaData.getColumnClassName(1)).willReturn(Integer.class.getName());
+		given(resultSetMetaData.getColumnClassName(2)).willReturn(String.class.getName());
+		given(resultSetMetaData.getColumnClassName(3)).willReturn(Timestamp.class.getName());
+		given(resultSetMetaData.getColumnClassName(4)).willReturn(Long.class.getName());
+		given(resultSetMetaData.getColumnType(1)).willReturn(Types.INTEGER);
+		given(resultSetMetaData.getColumnType(2)).willReturn(Types.VARCHAR);
+		given(resultSetMetaData.getColumnType(3)).willReturn(Types.TIMESTAMP);
+		given(resultSetMetaData.getColumnType(4)).willReturn(Types.BIGINT);
+
+		given(resultSet.next()).willReturn(true, true, false);
+		given(resultSet.getInt(1)).willReturn(1, 0);
+		given(resultSet.getObject(2)).willReturn("Rod", "Juergen");
+		given(resultSet.getObject(3)).willReturn(new Timestamp(1000L), null);
+		given(resultSet.getLong(4)).willReturn(10L, 20L);
+		given(resultSet.wasNull()).willReturn(false, false, true, false);
+	}
+
+
+	@Test
+	public void columnarRowList() throws Exception {
+		ColumnarRowList rows = ColumnarRowList.from(resultSet);
+
+		assertEquals(2, rows.size());
+		assertEquals(4, rows.getColumnCount());
+		assertEquals(1, rows.getValue(0, 1));
+		assertNull(rows.getValue(1, 1));
+		assertEquals(20L, rows.getValue(1, 4));
+
+		Map<String, Object> expected = new LinkedHashMap<>();
+		expected.put("ID", 1);
+		expected.put("NAME", "Rod");
+		expected.put("CREATED", new Timestamp(1000L));
+		assertEquals(expected, rows.get(0));
+		assertEquals(Arrays.asList("ID", "NAME", "CREATED"), Arrays.asList(rows.get(0).keySet().toArray()));
+		assertEquals("Juergen", rows.get(1).get("name"));
+		assertTrue(rows.get(1).containsKey("id"));
+		assertNull(rows.get(1).get("id"));
+		verify(resultSet, never()).getObject(1);
+		verify(resultSet, never()).getObject(4);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void columnarRowListIsReadOnly() throws Exception {
+		ColumnarRowList.from(resultSet).get(0).put("NAME", "Mark");
+	}
+
+	@Test
+	public void rowSetNavigationAndAccess() throws Exception {
+		SqlRowSet rowSet = ColumnarSqlRowSet.from(resultSet);
+
+		assertTrue(rowSet.isBeforeFirst());
+		assertTrue(rowSet.next());
+		assertEquals(1, rowSet.getRow());
+		assertEquals(1, rowSet.getInt("id"));
+		assertFalse(rowSet.wasNull());
+		assertEquals(10L, rowSet.getLong(4));
+		assertEquals(new BigDecimal("1"), rowSet.getBigDecimal("ID"));
+		assertEquals("Rod", rowSet.getString("NAME"));
+		assertEquals(new Timestamp(1000L), rowSet.getTimestamp("CREATED"));
+		assertEquals(1000L, rowSet.getDate(3).getTime());
+
+		assertTrue(rowSet.next());
+		assertTrue(rowSet.isLast());
+		assertEquals(0, rowSet.getInt(1));
+		assertTrue(rowSet.wasNull());
+		assertNull(rowSet.getObject(1, Integer.class));
+		assertNull(rowSet.getTimestamp(3));
+		assertEquals("20", rowSet.getString(4));
+		assertEquals(Integer.valueOf(20), rowSet.getObject(4, Integer.class));
+
+		assertFalse(rowSet.next());
+		assertTrue(rowSet.isAfterLast());
+		assertTrue(rowSet.first());
+		assertEquals("Rod", rowSet.getString(2));
+		assertTrue(rowSet.absolute(-1));
+		assertEquals("Juergen", rowSet.getString(2));
+		assertFalse(rowSet.relative(-2));
+		assertTrue(rowSet.isBeforeFirst());
+	}
+
+	@Test
+	public void rowSetMetaData() throws Exception {
+		SqlRowSet rowSet = ColumnarSqlRowSet.from(resultSet);
+
+		assertEquals(4, rowSet.getMetaData().getColumnCount());
+		assertEquals("NAME", rowSet.getMetaData().getColumnLabel(2));
+		assertEquals(Types.TIMESTAMP, rowSet.getMetaData().getColumnType(3));
+		assertEquals(1, rowSet.findColumn("ID"));
+		assertEquals(2, rowSet.findColumn("name"));
+	}
+
+	@Test(expected = InvalidResultSetAccessException.class)
+	public void rowSetAccessBeforeFirst() throws Exception {
+		ColumnarSqlRowSet.from(resultSet).getString(2);
+	}
+
+	@Test(expected = InvalidResultSetAccessException.class)
+	public void rowSetAccessWithInvalidLabel() throws Exception {
+		ColumnarSqlRowSet.from(resultSet).findColumn("AGE");
+	}
+
+	@Test(expected = InvalidResultSetAccessException.class)
+	public void rowSetAccessWithUnsupportedConversion() throws Exception {
+		SqlRowSet rowSet = ColumnarSqlRowSet.from(resultSet);
+		rowSet.next();
+		rowSet.getInt("NAME");
+	}
+
+}
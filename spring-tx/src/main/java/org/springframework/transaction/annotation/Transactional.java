@@ -185,4 +185,22 @@ public @interface Transactional {
 	 */
 	String[] noRollbackForClassName() default {};
 
+	/**
+	 * The maximum number of times to retry the annotated method after a
+	 * transient concurrency failure such as a deadlock, a lock acquisition
+	 * timeout or a serialization failure, rolling back the entire transaction
+	 * and starting over for each retry.
+	 * <p>Defaults to 0, i.e. no retries.
+	 * <p>Retries only apply at the outermost transaction boundary: a method
+	 * invoked within an existing transaction propagates the failure to its
+	 * caller, since the failed transaction cannot be repeated from there.
+	 * Retries also require a repeatable method invocation, as provided by
+	 * the proxy-based {@link org.springframework.transaction.interceptor.TransactionInterceptor}.
+	 * @since 5.1.21
+	 * @see org.springframework.transaction.interceptor.TransactionAttribute#getMaxRetries()
+	 * @see org.springframework.transaction.interceptor.TransactionAspectSupport#isRetryable
+	 * @see org.springframework.transaction.interceptor.TransactionAspectSupport#setRetryBackOff
+	 */
+	int maxRetries() default 0;
+
 }
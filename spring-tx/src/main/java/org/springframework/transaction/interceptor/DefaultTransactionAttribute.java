@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.transaction.interceptor;
 
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.util.Assert;
 import org.springframework.util.StringUtils;
 
 /**
@@ -37,6 +38,8 @@ public class DefaultTransactionAttribute extends DefaultTransactionDefinition im
 	@Nullable
 	private String descriptor;
 
+	private int maxRetries = 0;
+
 
 	/**
 	 * Create a new DefaultTransactionAttribute, with default settings.
@@ -61,6 +64,7 @@ public class DefaultTransactionAttribute extends DefaultTransactionDefinition im
 	 */
 	public DefaultTransactionAttribute(TransactionAttribute other) {
 		super(other);
+		this.maxRetries = other.getMaxRetries();
 	}
 
 	/**
@@ -116,6 +120,26 @@ public class DefaultTransactionAttribute extends DefaultTransactionDefinition im
 		return this.descriptor;
 	}
 
+	/**
+	 * Set the maximum number of retries after a transient concurrency failure.
+	 * <p>Default is 0, i.e. no retries.
+	 * @since 5.1.21
+	 * @see TransactionAspectSupport#isRetryable
+	 */
+	public void setMaxRetries(int maxRetries) {
+		Assert.isTrue(maxRetries >= 0, "Max retries must not be negative");
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * Return the maximum number of retries after a transient concurrency failure.
+	 * @since 5.1.21
+	 */
+	@Override
+	public int getMaxRetries() {
+		return this.maxRetries;
+	}
+
 	/**
 	 * The default behavior is as with EJB: rollback on unchecked exception
 	 * ({@link RuntimeException}), assuming an unexpected outcome outside of any
@@ -145,6 +169,9 @@ public class DefaultTransactionAttribute extends DefaultTransactionDefinition im
 		if (StringUtils.hasText(this.qualifier)) {
 			result.append("; '").append(this.qualifier).append("'");
 		}
+		if (this.maxRetries > 0) {
+			result.append("; maxRetries ").append(this.maxRetries);
+		}
 		return result;
 	}
 
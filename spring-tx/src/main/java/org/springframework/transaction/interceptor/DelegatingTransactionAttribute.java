@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2012 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -58,4 +58,9 @@ public abstract class DelegatingTransactionAttribute extends DelegatingTransacti
 		return this.targetAttribute.rollbackOn(ex);
 	}
 
+	@Override
+	public int getMaxRetries() {
+		return this.targetAttribute.getMaxRetries();
+	}
+
 }
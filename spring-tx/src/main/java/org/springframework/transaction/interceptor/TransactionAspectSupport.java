@@ -17,8 +17,13 @@
 package org.springframework.transaction.interceptor;
 
 import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -28,16 +33,21 @@ import org.springframework.beans.factory.BeanFactoryAware;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.core.NamedThreadLocal;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.support.CallbackPreferringPlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.StringUtils;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 /**
  * Base class for transactional aspects, such as the {@link TransactionInterceptor}
@@ -144,6 +154,10 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	private final ConcurrentMap<Object, PlatformTransactionManager> transactionManagerCache =
 			new ConcurrentReferenceHashMap<>(4);
 
+	private BackOff retryBackOff = defaultRetryBackOff();
+
+	private final ConcurrentMap<Method, TransactionRetryStatistics> retryStatistics = new ConcurrentHashMap<>(16);
+
 
 	/**
 	 * Specify the name of the default transaction manager bean.
@@ -230,6 +244,31 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		return this.transactionAttributeSource;
 	}
 
+	/**
+	 * Specify the back-off policy between retries of transactional methods
+	 * with {@link TransactionAttribute#getMaxRetries() retries} enabled.
+	 * Each interval is randomized between half of its value and its full
+	 * value, in order to spread out retries of concurrently failed transactions.
+	 * <p>Default is an {@link ExponentialBackOff} starting at 50 ms,
+	 * doubling on every retry up to a maximum interval of 1 second.
+	 * @since 5.1.21
+	 * @see org.springframework.transaction.annotation.Transactional#maxRetries()
+	 */
+	public void setRetryBackOff(BackOff retryBackOff) {
+		Assert.notNull(retryBackOff, "BackOff must not be null");
+		this.retryBackOff = retryBackOff;
+	}
+
+	/**
+	 * Return the retry statistics for transactional methods with
+	 * {@link TransactionAttribute#getMaxRetries() retries} enabled,
+	 * keyed by method.
+	 * @since 5.1.21
+	 */
+	public Map<Method, TransactionRetryStatistics> getRetryStatistics() {
+		return Collections.unmodifiableMap(this.retryStatistics);
+	}
+
 	/**
 	 * Set the BeanFactory to use for retrieving PlatformTransactionManager beans.
 	 */
@@ -280,7 +319,23 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 
 		// If the transaction attribute is null, the method is non-transactional.
 		TransactionAttributeSource tas = getTransactionAttributeSource();
-		final TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+		TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+
+		// Retries only at the outermost transaction boundary, for repeatable invocations.
+		if (txAttr != null && txAttr.getMaxRetries() > 0 && invocation instanceof RepeatableInvocationCallback &&
+				!TransactionSynchronizationManager.isActualTransactionActive()) {
+			return invokeWithRetry(method, targetClass, txAttr, (RepeatableInvocationCallback) invocation);
+		}
+		return invokeWithinTransaction(method, targetClass, txAttr, invocation);
+	}
+
+	/**
+	 * Invoke the given callback within a transaction for the given attribute.
+	 */
+	@Nullable
+	private Object invokeWithinTransaction(Method method, @Nullable Class<?> targetClass,
+			@Nullable final TransactionAttribute txAttr, final InvocationCallback invocation) throws Throwable {
+
 		final PlatformTransactionManager tm = determineTransactionManager(txAttr);
 		final String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
 
@@ -363,6 +418,99 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		}
 	}
 
+	/**
+	 * Invoke the given callback within a transaction, retrying the entire
+	 * transaction on transient concurrency failures.
+	 */
+	@Nullable
+	private Object invokeWithRetry(Method method, @Nullable Class<?> targetClass,
+			TransactionAttribute txAttr, RepeatableInvocationCallback invocation) throws Throwable {
+
+		TransactionRetryStatistics statistics = this.retryStatistics.get(method);
+		if (statistics == null) {
+			statistics = this.retryStatistics.computeIfAbsent(method, key -> new TransactionRetryStatistics());
+		}
+		BackOffExecution backOffExecution = null;
+		int retries = 0;
+		while (true) {
+			try {
+				Object retVal = invokeWithinTransaction(method, targetClass, txAttr, invocation.newAttempt());
+				if (retries > 0) {
+					statistics.recordRecovery();
+				}
+				return retVal;
+			}
+			catch (Throwable ex) {
+				if (!txAttr.rollbackOn(ex) || !isRetryable(ex)) {
+					throw ex;
+				}
+				if (backOffExecution == null) {
+					backOffExecution = this.retryBackOff.start();
+				}
+				long interval = (retries < txAttr.getMaxRetries() ? backOffExecution.nextBackOff() : BackOffExecution.STOP);
+				if (interval == BackOffExecution.STOP || !sleepBeforeRetry(interval)) {
+					statistics.recordExhaustion();
+					throw ex;
+				}
+				retries++;
+				statistics.recordRetry();
+				if (logger.isDebugEnabled()) {
+					logger.debug("Retrying transaction for [" + methodIdentification(method, targetClass, txAttr) +
+							"] (attempt " + (retries + 1) + ") after " + ex);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the given exception indicates a transient concurrency
+	 * failure, worth retrying the entire transaction for.
+	 * <p>The default implementation checks the exception and its causes for a
+	 * {@link PessimisticLockingFailureException} (covering deadlocks, lock acquisition
+	 * failures and serialization failures as translated by Spring's JDBC exception
+	 * translators) as well as for an untranslated {@link SQLException} with an SQL
+	 * state of class "40" (transaction rollback), e.g. when thrown on commit.
+	 * @param ex the exception thrown from the transactional method or from commit
+	 * @since 5.1.21
+	 * @see org.springframework.dao.DeadlockLoserDataAccessException
+	 * @see org.springframework.dao.CannotAcquireLockException
+	 * @see org.springframework.dao.CannotSerializeTransactionException
+	 */
+	protected boolean isRetryable(Throwable ex) {
+		Throwable current = ex;
+		while (current != null) {
+			if (current instanceof PessimisticLockingFailureException) {
+				return true;
+			}
+			if (current instanceof SQLException) {
+				String sqlState = ((SQLException) current).getSQLState();
+				if (sqlState != null && sqlState.startsWith("40")) {
+					return true;
+				}
+			}
+			current = current.getCause();
+		}
+		return false;
+	}
+
+	private boolean sleepBeforeRetry(long interval) {
+		long halfInterval = interval / 2;
+		try {
+			Thread.sleep(halfInterval + ThreadLocalRandom.current().nextLong(interval - halfInterval + 1));
+			return true;
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private static BackOff defaultRetryBackOff() {
+		ExponentialBackOff backOff = new ExponentialBackOff(50, 2.0);
+		backOff.setMaxInterval(1000);
+		return backOff;
+	}
+
 	/**
 	 * Clear the transaction manager cache.
 	 */
@@ -688,6 +836,22 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	}
 
 
+	/**
+	 * Extension of the {@link InvocationCallback} interface for invocations
+	 * which can be repeated, as required for retrying a transactional method.
+	 * @since 5.1.21
+	 * @see TransactionAttribute#getMaxRetries()
+	 */
+	protected interface RepeatableInvocationCallback extends InvocationCallback {
+
+		/**
+		 * Create a callback for another attempt of the same invocation,
+		 * independent from any previous attempts.
+		 */
+		InvocationCallback newAttempt();
+	}
+
+
 	/**
 	 * Internal holder class for a Throwable in a callback transaction model.
 	 */
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -48,4 +48,15 @@ public interface TransactionAttribute extends TransactionDefinition {
 	 */
 	boolean rollbackOn(Throwable ex);
 
+	/**
+	 * Return the maximum number of retries after a transient concurrency
+	 * failure, with 0 indicating no retries.
+	 * <p>The default implementation returns 0.
+	 * @since 5.1.21
+	 * @see TransactionAspectSupport#isRetryable
+	 */
+	default int getMaxRetries() {
+		return 0;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.util.Properties;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
 
+import org.springframework.aop.ProxyMethodInvocation;
 import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.lang.Nullable;
@@ -95,6 +96,10 @@ public class TransactionInterceptor extends TransactionAspectSupport implements
 		Class<?> targetClass = (invocation.getThis() != null ? AopUtils.getTargetClass(invocation.getThis()) : null);
 
 		// Adapt to TransactionAspectSupport's invokeWithinTransaction...
+		if (invocation instanceof ProxyMethodInvocation) {
+			return invokeWithinTransaction(invocation.getMethod(), targetClass,
+					new ProxyMethodInvocationCallback((ProxyMethodInvocation) invocation));
+		}
 		return invokeWithinTransaction(invocation.getMethod(), targetClass, invocation::proceed);
 	}
 
@@ -127,4 +132,29 @@ public class TransactionInterceptor extends TransactionAspectSupport implements
 		setBeanFactory((BeanFactory) ois.readObject());
 	}
 
+
+	/**
+	 * Repeatable callback for a proxy method invocation, creating an
+	 * independent copy of the original invocation for every retry attempt.
+	 */
+	private static class ProxyMethodInvocationCallback implements RepeatableInvocationCallback {
+
+		private final ProxyMethodInvocation invocation;
+
+		public ProxyMethodInvocationCallback(ProxyMethodInvocation invocation) {
+			this.invocation = invocation;
+		}
+
+		@Override
+		@Nullable
+		public Object proceedWithInvocation() throws Throwable {
+			return this.invocation.proceed();
+		}
+
+		@Override
+		public InvocationCallback newAttempt() {
+			return this.invocation.invocableClone()::proceed;
+		}
+	}
+
 }
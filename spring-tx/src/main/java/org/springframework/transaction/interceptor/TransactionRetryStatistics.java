@@ -0,0 +1,82 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.interceptor;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Retry statistics for a transactional method with
+ * {@link TransactionAttribute#getMaxRetries() retries} enabled.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see TransactionAspectSupport#getRetryStatistics()
+ */
+public final class TransactionRetryStatistics {
+
+	private final LongAdder retryCount = new LongAdder();
+
+	private final LongAdder recoveryCount = new LongAdder();
+
+	private final LongAdder exhaustionCount = new LongAdder();
+
+
+	TransactionRetryStatistics() {
+	}
+
+
+	/**
+	 * Return the total number of retry attempts.
+	 */
+	public long getRetryCount() {
+		return this.retryCount.sum();
+	}
+
+	/**
+	 * Return the number of invocations which succeeded after one or more retries.
+	 */
+	public long getRecoveryCount() {
+		return this.recoveryCount.sum();
+	}
+
+	/**
+	 * Return the number of invocations which failed on a transient concurrency
+	 * failure without any retry left, propagating the failure to the caller.
+	 */
+	public long getExhaustionCount() {
+		return this.exhaustionCount.sum();
+	}
+
+	void recordRetry() {
+		this.retryCount.increment();
+	}
+
+	void recordRecovery() {
+		this.recoveryCount.increment();
+	}
+
+	void recordExhaustion() {
+		this.exhaustionCount.increment();
+	}
+
+	@Override
+	public String toString() {
+		return "TransactionRetryStatistics: retries " + getRetryCount() + ", recoveries " + getRecoveryCount() +
+				", exhaustions " + getExhaustionCount();
+	}
+
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram for latencies in nanoseconds, with logarithmic buckets
+ * split into linear sub-buckets (a relative precision of 12.5%). Values
+ * beyond 2^41 nanoseconds (about 36 minutes) share the last bucket.
+ *
+ * @author agent
+ * @since 5.1.21
+ */
+final class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 3;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int MAX_EXPONENT = 40;
+
+	static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+
+	private final LongAdder totalTime = new LongAdder();
+
+	private final AtomicLong maxTime = new AtomicLong();
+
+
+	/**
+	 * Record the given duration.
+	 * @param nanos the duration in nanoseconds
+	 */
+	public void record(long nanos) {
+		long value = Math.max(nanos, 0);
+		this.buckets.incrementAndGet(indexFor(value));
+		this.totalTime.add(value);
+		long max = this.maxTime.get();
+		while (value > max && !this.maxTime.compareAndSet(max, value)) {
+			max = this.maxTime.get();
+		}
+	}
+
+	/**
+	 * Create a snapshot of the current distribution.
+	 */
+	public TransactionStatistics.TimingStatistics snapshot() {
+		long[] counts = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			counts[i] = this.buckets.get(i);
+			count += counts[i];
+		}
+		if (count == 0) {
+			return new TransactionStatistics.TimingStatistics(0, 0, 0, 0, 0, 0);
+		}
+		long max = this.maxTime.get();
+		return new TransactionStatistics.TimingStatistics(count,
+				toMillis((double) this.totalTime.sum() / count), toMillis(max),
+				toMillis(valueAtPercentile(counts, count, 0.5, max)),
+				toMillis(valueAtPercentile(counts, count, 0.9, max)),
+				toMillis(valueAtPercentile(counts, count, 0.99, max)));
+	}
+
+
+	static int indexFor(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+		int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+	}
+
+	static long highestValueFor(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+		int shift = exponent - SUB_BUCKET_BITS;
+		long lowestValue = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+		return lowestValue + (1L << shift) - 1;
+	}
+
+	private static long valueAtPercentile(long[] counts, long count, double percentile, long max) {
+		long rank = Math.max((long) Math.ceil(percentile * count), 1);
+		long cumulative = 0;
+		for (int i = 0; i < counts.length; i++) {
+			cumulative += counts[i];
+			if (cumulative >= rank) {
+				return Math.min(highestValueFor(i), max);
+			}
+		}
+		return max;
+	}
+
+	private static double toMillis(double nanos) {
+		return nanos / 1000000.0;
+	}
+
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Default {@link TransactionMetricsRecorder} implementation, keeping
+ * lock-free latency histograms per transaction name and exposing them
+ * through the {@link TransactionMetricsMXBean} management interface.
+ *
+ * <p>Typically defined as a bean and passed into the transaction manager:
+ *
+ * <pre class="code">
+ * &#064;Bean
+ * public TransactionMetrics transactionMetrics() {
+ *     return new TransactionMetrics();
+ * }
+ *
+ * &#064;Bean
+ * public DataSourceTransactionManager transactionManager(DataSource dataSource) {
+ *     DataSourceTransactionManager tm = new DataSourceTransactionManager(dataSource);
+ *     tm.setMetricsRecorder(transactionMetrics());
+ *     return tm;
+ * }</pre>
+ *
+ * <p>Each distinct transaction name holds a fixed-size set of histograms.
+ * Transaction names are usually derived from transactional methods and
+ * therefore bounded; programmatically named transactions should not
+ * use unbounded names such as request-specific identifiers.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see org.springframework.transaction.support.AbstractPlatformTransactionManager#setMetricsRecorder
+ */
+public class TransactionMetrics implements TransactionMetricsRecorder, TransactionMetricsMXBean {
+
+	private static final Timing[] TIMINGS = Timing.values();
+
+
+	private final ConcurrentMap<String, TransactionMetricsEntry> entries = new ConcurrentHashMap<>(64);
+
+
+	@Override
+	public void recordTiming(@Nullable String transactionName, Timing timing, long durationNanos) {
+		getEntry(transactionName).histograms[timing.ordinal()].record(durationNanos);
+	}
+
+	@Override
+	public void recordSuspension(@Nullable String transactionName) {
+		getEntry(transactionName).suspensionCount.increment();
+	}
+
+	@Override
+	public void recordRollbackOnly(@Nullable String transactionName) {
+		getEntry(transactionName).rollbackOnlyCount.increment();
+	}
+
+	private TransactionMetricsEntry getEntry(@Nullable String transactionName) {
+		String key = (transactionName != null ? transactionName : "");
+		TransactionMetricsEntry entry = this.entries.get(key);
+		if (entry == null) {
+			entry = this.entries.computeIfAbsent(key, k -> new TransactionMetricsEntry());
+		}
+		return entry;
+	}
+
+
+	@Override
+	public String[] getTransactionNames() {
+		return StringUtils.toStringArray(this.entries.keySet());
+	}
+
+	@Override
+	public List<TransactionStatistics> getTransactionStatistics() {
+		List<TransactionStatistics> statistics = new ArrayList<>(this.entries.size());
+		for (Map.Entry<String, TransactionMetricsEntry> entry : this.entries.entrySet()) {
+			statistics.add(entry.getValue().snapshot(entry.getKey()));
+		}
+		return statistics;
+	}
+
+	/**
+	 * Return a snapshot of the statistics for the given transaction.
+	 * @param transactionName the name of the transaction
+	 * @return the statistics, or {@code null} if nothing has been
+	 * recorded for the given transaction
+	 */
+	@Nullable
+	public TransactionStatistics getTransactionStatistics(String transactionName) {
+		TransactionMetricsEntry entry = this.entries.get(transactionName);
+		return (entry != null ? entry.snapshot(transactionName) : null);
+	}
+
+	@Override
+	public void reset() {
+		this.entries.clear();
+	}
+
+
+	/**
+	 * Metrics recorded for a specific transaction name.
+	 */
+	private static class TransactionMetricsEntry {
+
+		final LatencyHistogram[] histograms = new LatencyHistogram[TIMINGS.length];
+
+		final LongAdder suspensionCount = new LongAdder();
+
+		final LongAdder rollbackOnlyCount = new LongAdder();
+
+		TransactionMetricsEntry() {
+			for (int i = 0; i < this.histograms.length; i++) {
+				this.histograms[i] = new LatencyHistogram();
+			}
+		}
+
+		TransactionStatistics snapshot(String transactionName) {
+			return new TransactionStatistics(transactionName,
+					snapshot(Timing.BEGIN), snapshot(Timing.CONNECTION_ACQUISITION), snapshot(Timing.HOLD),
+					snapshot(Timing.COMMIT), snapshot(Timing.ROLLBACK), snapshot(Timing.SYNCHRONIZATION),
+					this.suspensionCount.sum(), this.rollbackOnlyCount.sum());
+		}
+
+		private TransactionStatistics.TimingStatistics snapshot(Timing timing) {
+			return this.histograms[timing.ordinal()].snapshot();
+		}
+	}
+
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+import java.util.List;
+
+/**
+ * Management interface for {@link TransactionMetrics}, exposing
+ * per-transaction statistics.
+ *
+ * <p>Follows the MXBean conventions, so a {@code TransactionMetrics} bean is
+ * automatically detected and registered by Spring's
+ * {@link org.springframework.jmx.export.MBeanExporter} when autodetection
+ * is active, without any need for JMX-specific metadata.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see TransactionMetrics
+ */
+public interface TransactionMetricsMXBean {
+
+	/**
+	 * Return the names of all transactions recorded so far.
+	 */
+	String[] getTransactionNames();
+
+	/**
+	 * Return a snapshot of the statistics for all transactions recorded so far.
+	 */
+	List<TransactionStatistics> getTransactionStatistics();
+
+	/**
+	 * Reset all statistics.
+	 */
+	void reset();
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Strategy interface for recording transaction metrics, as reported by
+ * {@link org.springframework.transaction.support.AbstractPlatformTransactionManager}
+ * and its subclasses when a recorder has been specified.
+ *
+ * <p>All methods are invoked on the thread executing the transaction, right
+ * within the transaction manager's critical path. Implementations need to be
+ * thread-safe and should be as cheap as possible, e.g. delegating to an
+ * existing metrics library or to lock-free histograms as in the default
+ * {@link TransactionMetrics} implementation.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see org.springframework.transaction.support.AbstractPlatformTransactionManager#setMetricsRecorder
+ * @see TransactionMetrics
+ */
+public interface TransactionMetricsRecorder {
+
+	/**
+	 * Record the duration of a specific transaction phase.
+	 * @param transactionName the name of the transaction
+	 * (typically the fully-qualified transactional method), if any
+	 * @param timing the phase of the transaction
+	 * @param durationNanos the duration in nanoseconds
+	 */
+	void recordTiming(@Nullable String transactionName, Timing timing, long durationNanos);
+
+	/**
+	 * Record the suspension of the given transaction,
+	 * e.g. for an inner transaction with propagation "requires new".
+	 * @param transactionName the name of the suspended transaction, if known
+	 */
+	void recordSuspension(@Nullable String transactionName);
+
+	/**
+	 * Record a commit attempt for a transaction marked as rollback-only,
+	 * leading to a rollback instead.
+	 * @param transactionName the name of the transaction, if any
+	 */
+	void recordRollbackOnly(@Nullable String transactionName);
+
+
+	/**
+	 * Phases of a transaction that get timed.
+	 */
+	enum Timing {
+
+		/**
+		 * Beginning a new transaction, including the acquisition of
+		 * transactional resources.
+		 */
+		BEGIN,
+
+		/**
+		 * Acquiring a transactional Connection, as part of {@link #BEGIN}
+		 * (reported by resource-specific transaction managers only).
+		 */
+		CONNECTION_ACQUISITION,
+
+		/**
+		 * Holding a transaction from its successful begin until its
+		 * completion and the release of its resources.
+		 */
+		HOLD,
+
+		/**
+		 * Committing a transaction.
+		 */
+		COMMIT,
+
+		/**
+		 * Rolling back a transaction.
+		 */
+		ROLLBACK,
+
+		/**
+		 * Invoking transaction synchronization callbacks,
+		 * accumulated for all completion callbacks of a transaction.
+		 */
+		SYNCHRONIZATION
+	}
+
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+/**
+ * Snapshot of the metrics recorded for a specific transaction name,
+ * as exposed by {@link TransactionMetrics}.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see TransactionMetrics#getTransactionStatistics()
+ */
+public final class TransactionStatistics {
+
+	private final String transactionName;
+
+	private final TimingStatistics begin;
+
+	private final TimingStatistics connectionAcquisition;
+
+	private final TimingStatistics hold;
+
+	private final TimingStatistics commit;
+
+	private final TimingStatistics rollback;
+
+	private final TimingStatistics synchronization;
+
+	private final long suspensionCount;
+
+	private final long rollbackOnlyCount;
+
+
+	TransactionStatistics(String transactionName, TimingStatistics begin, TimingStatistics connectionAcquisition,
+			TimingStatistics hold, TimingStatistics commit, TimingStatistics rollback,
+			TimingStatistics synchronization, long suspensionCount, long rollbackOnlyCount) {
+
+		this.transactionName = transactionName;
+		this.begin = begin;
+		this.connectionAcquisition = connectionAcquisition;
+		this.hold = hold;
+		this.commit = commit;
+		this.rollback = rollback;
+		this.synchronization = synchronization;
+		this.suspensionCount = suspensionCount;
+		this.rollbackOnlyCount = rollbackOnlyCount;
+	}
+
+
+	/**
+	 * Return the name of the transaction (empty for unnamed transactions).
+	 */
+	public String getTransactionName() {
+		return this.transactionName;
+	}
+
+	/**
+	 * Return the timings for beginning a transaction.
+	 */
+	public TimingStatistics getBegin() {
+		return this.begin;
+	}
+
+	/**
+	 * Return the timings for acquiring a transactional Connection.
+	 */
+	public TimingStatistics getConnectionAcquisition() {
+		return this.connectionAcquisition;
+	}
+
+	/**
+	 * Return the timings for holding a transaction from begin to completion.
+	 */
+	public TimingStatistics getHold() {
+		return this.hold;
+	}
+
+	/**
+	 * Return the timings for committing a transaction.
+	 */
+	public TimingStatistics getCommit() {
+		return this.commit;
+	}
+
+	/**
+	 * Return the timings for rolling back a transaction.
+	 */
+	public TimingStatistics getRollback() {
+		return this.rollback;
+	}
+
+	/**
+	 * Return the timings for transaction synchronization callbacks.
+	 */
+	public TimingStatistics getSynchronization() {
+		return this.synchronization;
+	}
+
+	/**
+	 * Return the number of times the transaction has been suspended.
+	 */
+	public long getSuspensionCount() {
+		return this.suspensionCount;
+	}
+
+	/**
+	 * Return the number of commit attempts for a rollback-only transaction.
+	 */
+	public long getRollbackOnlyCount() {
+		return this.rollbackOnlyCount;
+	}
+
+	@Override
+	public String toString() {
+		return "TransactionStatistics '" + this.transactionName + "': begin " + this.begin +
+				", hold " + this.hold + ", commit " + this.commit + ", rollback " + this.rollback +
+				", suspensions " + this.suspensionCount + ", rollback-only " + this.rollbackOnlyCount;
+	}
+
+
+	/**
+	 * Snapshot of the distribution of a specific timing, in milliseconds.
+	 */
+	public static final class TimingStatistics {
+
+		private final long count;
+
+		private final double mean;
+
+		private final double max;
+
+		private final double percentile50;
+
+		private final double percentile90;
+
+		private final double percentile99;
+
+		TimingStatistics(long count, double mean, double max,
+				double percentile50, double percentile90, double percentile99) {
+
+			this.count = count;
+			this.mean = mean;
+			this.max = max;
+			this.percentile50 = percentile50;
+			this.percentile90 = percentile90;
+			this.percentile99 = percentile99;
+		}
+
+		/**
+		 * Return the number of recorded timings.
+		 */
+		public long getCount() {
+			return this.count;
+		}
+
+		/**
+		 * Return the mean duration in milliseconds.
+		 */
+		public double getMean() {
+			return this.mean;
+		}
+
+		/**
+		 * Return the maximum duration in milliseconds.
+		 */
+		public double getMax() {
+			return this.max;
+		}
+
+		/**
+		 * Return the median duration in milliseconds.
+		 */
+		public double getPercentile50() {
+			return this.percentile50;
+		}
+
+		/**
+		 * Return the 90th percentile duration in milliseconds.
+		 */
+		public double getPercentile90() {
+			return this.percentile90;
+		}
+
+		/**
+		 * Return the 99th percentile duration in milliseconds.
+		 */
+		public double getPercentile99() {
+			return this.percentile99;
+		}
+
+		@Override
+		public String toString() {
+			return "[count=" + this.count + ", mean=" + this.mean + "ms, p99=" + this.percentile99 +
+					"ms, max=" + this.max + "ms]";
+		}
+	}
+
+}
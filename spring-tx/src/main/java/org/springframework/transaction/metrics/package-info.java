@@ -0,0 +1,11 @@
+/**
+ * Transaction metrics support: a recorder SPI for timings and events
+ * reported by {@code AbstractPlatformTransactionManager}, and a default
+ * histogram-based implementation exposed through JMX.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.transaction.metrics;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -35,6 +35,7 @@ import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.TransactionSuspensionNotSupportedException;
 import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.metrics.TransactionMetricsRecorder;
 
 /**
  * Abstract base class that implements Spring's standard transaction workflow,
@@ -127,6 +128,9 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 
 	private boolean rollbackOnCommitFailure = false;
 
+	@Nullable
+	private transient TransactionMetricsRecorder metricsRecorder;
+
 
 	/**
 	 * Set the transaction synchronization by the name of the corresponding constant
@@ -324,6 +328,28 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		return this.rollbackOnCommitFailure;
 	}
 
+	/**
+	 * Specify a recorder for transaction metrics: begin, hold, commit, rollback
+	 * and synchronization timings as well as suspension and rollback-only counts,
+	 * per transaction name.
+	 * <p>Default is none, skipping any time measurement. Note that the recorder
+	 * is not serialized along with this transaction manager.
+	 * @since 5.1.21
+	 * @see org.springframework.transaction.metrics.TransactionMetrics
+	 */
+	public final void setMetricsRecorder(@Nullable TransactionMetricsRecorder metricsRecorder) {
+		this.metricsRecorder = metricsRecorder;
+	}
+
+	/**
+	 * Return the recorder for transaction metrics, if any.
+	 * @since 5.1.21
+	 */
+	@Nullable
+	public final TransactionMetricsRecorder getMetricsRecorder() {
+		return this.metricsRecorder;
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of PlatformTransactionManager
@@ -372,12 +398,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				logger.debug("Creating new transaction with name [" + definition.getName() + "]: " + definition);
 			}
 			try {
-				boolean newSynchronization = (getTransactionSynchronization() != SYNCHRONIZATION_NEVER);
-				DefaultTransactionStatus status = newTransactionStatus(
-						definition, transaction, true, newSynchronization, debugEnabled, suspendedResources);
-				doBegin(transaction, definition);
-				prepareSynchronization(status, definition);
-				return status;
+				return startTransaction(definition, transaction, debugEnabled, suspendedResources);
 			}
 			catch (RuntimeException | Error ex) {
 				resume(null, suspendedResources);
@@ -395,6 +416,31 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		}
 	}
 
+	/**
+	 * Start a new transaction, recording its begin latency if necessary.
+	 */
+	private TransactionStatus startTransaction(TransactionDefinition definition, Object transaction,
+			boolean debugEnabled, @Nullable SuspendedResourcesHolder suspendedResources) {
+
+		boolean newSynchronization = (getTransactionSynchronization() != SYNCHRONIZATION_NEVER);
+		DefaultTransactionStatus status = newTransactionStatus(
+				definition, transaction, true, newSynchronization, debugEnabled, suspendedResources);
+		TransactionMetricsRecorder metricsRecorder = this.metricsRecorder;
+		if (metricsRecorder != null) {
+			long startTime = System.nanoTime();
+			doBegin(transaction, definition);
+			long beginTime = System.nanoTime();
+			metricsRecorder.recordTiming(definition.getName(), TransactionMetricsRecorder.Timing.BEGIN,
+					beginTime - startTime);
+			status.initMetrics(metricsRecorder, definition.getName(), beginTime);
+		}
+		else {
+			doBegin(transaction, definition);
+		}
+		prepareSynchronization(status, definition);
+		return status;
+	}
+
 	/**
 	 * Create a TransactionStatus for an existing transaction.
 	 */
@@ -424,12 +470,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			}
 			SuspendedResourcesHolder suspendedResources = suspend(transaction);
 			try {
-				boolean newSynchronization = (getTransactionSynchronization() != SYNCHRONIZATION_NEVER);
-				DefaultTransactionStatus status = newTransactionStatus(
-						definition, transaction, true, newSynchronization, debugEnabled, suspendedResources);
-				doBegin(transaction, definition);
-				prepareSynchronization(status, definition);
-				return status;
+				return startTransaction(definition, transaction, debugEnabled, suspendedResources);
 			}
 			catch (RuntimeException | Error beginEx) {
 				resumeAfterBeginException(transaction, suspendedResources, beginEx);
@@ -459,12 +500,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				// Nested transaction through nested begin and commit/rollback calls.
 				// Usually only for JTA: Spring synchronization might get activated here
 				// in case of a pre-existing JTA transaction.
-				boolean newSynchronization = (getTransactionSynchronization() != SYNCHRONIZATION_NEVER);
-				DefaultTransactionStatus status = newTransactionStatus(
-						definition, transaction, true, newSynchronization, debugEnabled, null);
-				doBegin(transaction, definition);
-				prepareSynchronization(status, definition);
-				return status;
+				return startTransaction(definition, transaction, debugEnabled, null);
 			}
 		}
 
@@ -530,13 +566,10 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 	 */
 	protected void prepareSynchronization(DefaultTransactionStatus status, TransactionDefinition definition) {
 		if (status.isNewSynchronization()) {
-			TransactionSynchronizationManager.setActualTransactionActive(status.hasTransaction());
-			TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(
-					definition.getIsolationLevel() != TransactionDefinition.ISOLATION_DEFAULT ?
-							definition.getIsolationLevel() : null);
-			TransactionSynchronizationManager.setCurrentTransactionReadOnly(definition.isReadOnly());
-			TransactionSynchronizationManager.setCurrentTransactionName(definition.getName());
-			TransactionSynchronizationManager.initSynchronization();
+			TransactionSynchronizationManager.initSynchronization(definition.getName(), definition.isReadOnly(),
+					(definition.getIsolationLevel() != TransactionDefinition.ISOLATION_DEFAULT ?
+							definition.getIsolationLevel() : null),
+					status.hasTransaction());
 		}
 	}
 
@@ -584,6 +617,9 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(null);
 				boolean wasActive = TransactionSynchronizationManager.isActualTransactionActive();
 				TransactionSynchronizationManager.setActualTransactionActive(false);
+				if (this.metricsRecorder != null && transaction != null) {
+					this.metricsRecorder.recordSuspension(name);
+				}
 				return new SuspendedResourcesHolder(
 						suspendedResources, suspendedSynchronizations, name, readOnly, isolationLevel, wasActive);
 			}
@@ -596,6 +632,9 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		else if (transaction != null) {
 			// Transaction active but no synchronization active.
 			Object suspendedResources = doSuspend(transaction);
+			if (this.metricsRecorder != null) {
+				this.metricsRecorder.recordSuspension(null);
+			}
 			return new SuspendedResourcesHolder(suspendedResources);
 		}
 		else {
@@ -699,6 +738,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			if (defStatus.isDebug()) {
 				logger.debug("Transactional code has requested rollback");
 			}
+			defStatus.recordRollbackOnly();
 			processRollback(defStatus, false);
 			return;
 		}
@@ -707,6 +747,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			if (defStatus.isDebug()) {
 				logger.debug("Global transaction is marked as rollback-only but transactional code requested commit");
 			}
+			defStatus.recordRollbackOnly();
 			processRollback(defStatus, true);
 			return;
 		}
@@ -743,7 +784,13 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 						logger.debug("Initiating transaction commit");
 					}
 					unexpectedRollback = status.isGlobalRollbackOnly();
-					doCommit(status);
+					long startTime = status.startTiming();
+					try {
+						doCommit(status);
+					}
+					finally {
+						status.recordTiming(TransactionMetricsRecorder.Timing.COMMIT, startTime);
+					}
 				}
 				else if (isFailEarlyOnGlobalRollbackOnly()) {
 					unexpectedRollback = status.isGlobalRollbackOnly();
@@ -835,7 +882,13 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 					if (status.isDebug()) {
 						logger.debug("Initiating transaction rollback");
 					}
-					doRollback(status);
+					long startTime = status.startTiming();
+					try {
+						doRollback(status);
+					}
+					finally {
+						status.recordTiming(TransactionMetricsRecorder.Timing.ROLLBACK, startTime);
+					}
 				}
 				else {
 					// Participating in larger transaction
@@ -892,7 +945,13 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				if (status.isDebug()) {
 					logger.debug("Initiating transaction rollback after commit exception", ex);
 				}
-				doRollback(status);
+				long startTime = status.startTiming();
+				try {
+					doRollback(status);
+				}
+				finally {
+					status.recordTiming(TransactionMetricsRecorder.Timing.ROLLBACK, startTime);
+				}
 			}
 			else if (status.hasTransaction() && isGlobalRollbackOnParticipationFailure()) {
 				if (status.isDebug()) {
@@ -919,7 +978,9 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			if (status.isDebug()) {
 				logger.trace("Triggering beforeCommit synchronization");
 			}
+			long startTime = status.startTiming();
 			TransactionSynchronizationUtils.triggerBeforeCommit(status.isReadOnly());
+			status.addSynchronizationTime(startTime);
 		}
 	}
 
@@ -932,7 +993,9 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			if (status.isDebug()) {
 				logger.trace("Triggering beforeCompletion synchronization");
 			}
+			long startTime = status.startTiming();
 			TransactionSynchronizationUtils.triggerBeforeCompletion();
+			status.addSynchronizationTime(startTime);
 		}
 	}
 
@@ -945,7 +1008,9 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			if (status.isDebug()) {
 				logger.trace("Triggering afterCommit synchronization");
 			}
+			long startTime = status.startTiming();
 			TransactionSynchronizationUtils.triggerAfterCommit();
+			status.addSynchronizationTime(startTime);
 		}
 	}
 
@@ -964,7 +1029,9 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				}
 				// No transaction or new transaction for the current scope ->
 				// invoke the afterCompletion callbacks immediately
+				long startTime = status.startTiming();
 				invokeAfterCompletion(synchronizations, completionStatus);
+				status.addSynchronizationTime(startTime);
 			}
 			else if (!synchronizations.isEmpty()) {
 				// Existing transaction that we participate in, controlled outside
@@ -1005,6 +1072,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		}
 		if (status.isNewTransaction()) {
 			doCleanupAfterCompletion(status.getTransaction());
+			status.recordCompletion();
 		}
 		if (status.getSuspendedResources() != null) {
 			if (status.isDebug()) {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2020 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.transaction.support;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.NestedTransactionNotSupportedException;
 import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.metrics.TransactionMetricsRecorder;
 import org.springframework.util.Assert;
 
 /**
@@ -64,6 +65,16 @@ public class DefaultTransactionStatus extends AbstractTransactionStatus {
 	@Nullable
 	private final Object suspendedResources;
 
+	@Nullable
+	private TransactionMetricsRecorder metricsRecorder;
+
+	@Nullable
+	private String metricsName;
+
+	private long beginTime;
+
+	private long synchronizationTime;
+
 
 	/**
 	 * Create a new {@code DefaultTransactionStatus} instance.
@@ -203,4 +214,80 @@ public class DefaultTransactionStatus extends AbstractTransactionStatus {
 		return (this.transaction instanceof SavepointManager);
 	}
 
+
+	//---------------------------------------------------------------------
+	// Metrics recording, used by AbstractPlatformTransactionManager
+	//---------------------------------------------------------------------
+
+	/**
+	 * Start recording metrics for this transaction.
+	 * @param metricsRecorder the recorder to report to
+	 * @param metricsName the name of the transaction, if any
+	 * @param beginTime the time at which the transaction has begun
+	 * (as returned by {@link System#nanoTime()})
+	 */
+	void initMetrics(TransactionMetricsRecorder metricsRecorder, @Nullable String metricsName, long beginTime) {
+		this.metricsRecorder = metricsRecorder;
+		this.metricsName = metricsName;
+		this.beginTime = beginTime;
+	}
+
+	/**
+	 * Return the current time for a subsequent timing,
+	 * or 0 if no metrics are recorded for this transaction.
+	 */
+	long startTiming() {
+		return (this.metricsRecorder != null ? System.nanoTime() : 0);
+	}
+
+	/**
+	 * Record the given timing, if metrics are recorded for this transaction.
+	 * @param timing the phase of the transaction
+	 * @param startTime the start time as returned by {@link #startTiming()}
+	 */
+	void recordTiming(TransactionMetricsRecorder.Timing timing, long startTime) {
+		TransactionMetricsRecorder metricsRecorder = this.metricsRecorder;
+		if (metricsRecorder != null) {
+			metricsRecorder.recordTiming(this.metricsName, timing, System.nanoTime() - startTime);
+		}
+	}
+
+	/**
+	 * Accumulate the time spent in synchronization callbacks,
+	 * if metrics are recorded for this transaction.
+	 * @param startTime the start time as returned by {@link #startTiming()}
+	 */
+	void addSynchronizationTime(long startTime) {
+		if (this.metricsRecorder != null) {
+			this.synchronizationTime += System.nanoTime() - startTime;
+		}
+	}
+
+	/**
+	 * Record a commit attempt for a rollback-only transaction,
+	 * if metrics are recorded for this transaction.
+	 */
+	void recordRollbackOnly() {
+		TransactionMetricsRecorder metricsRecorder = this.metricsRecorder;
+		if (metricsRecorder != null) {
+			metricsRecorder.recordRollbackOnly(this.metricsName);
+		}
+	}
+
+	/**
+	 * Record the hold time and the accumulated synchronization time
+	 * on completion, if metrics are recorded for this transaction.
+	 */
+	void recordCompletion() {
+		TransactionMetricsRecorder metricsRecorder = this.metricsRecorder;
+		if (metricsRecorder != null) {
+			metricsRecorder.recordTiming(this.metricsName, TransactionMetricsRecorder.Timing.HOLD,
+					System.nanoTime() - this.beginTime);
+			if (isNewSynchronization()) {
+				metricsRecorder.recordTiming(this.metricsName, TransactionMetricsRecorder.Timing.SYNCHRONIZATION,
+						this.synchronizationTime);
+			}
+		}
+	}
+
 }
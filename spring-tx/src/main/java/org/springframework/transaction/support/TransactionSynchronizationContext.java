@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Holder for the transactional state of a thread, as managed by
+ * {@link TransactionSynchronizationManager}: bound resources, registered
+ * synchronizations and the characteristics of the current transaction.
+ *
+ * <p>All state is kept in a single object per thread, bound through a single
+ * {@code ThreadLocal}, with its collections reused for the lifetime of the
+ * context. Instances are opaque to application code; they may be obtained
+ * through {@link TransactionSynchronizationManager#getContext()} and handed
+ * over to another thread through {@link TransactionSynchronizationManager#setContext},
+ * e.g. in a {@link org.springframework.core.task.TaskDecorator}.
+ *
+ * @author agent
+ * @since 5.1.21
+ * @see TransactionSynchronizationManager
+ */
+public final class TransactionSynchronizationContext {
+
+	final Map<Object, Object> resources = new HashMap<>(8);
+
+	final Set<TransactionSynchronization> synchronizations = new LinkedHashSet<>(8);
+
+	boolean synchronizationActive;
+
+	@Nullable
+	String currentTransactionName;
+
+	boolean currentTransactionReadOnly;
+
+	@Nullable
+	Integer currentTransactionIsolationLevel;
+
+	boolean actualTransactionActive;
+
+
+	TransactionSynchronizationContext() {
+	}
+
+
+	/**
+	 * Reset synchronization state and transaction characteristics,
+	 * keeping any bound resources.
+	 */
+	void clear() {
+		this.synchronizations.clear();
+		this.synchronizationActive = false;
+		this.currentTransactionName = null;
+		this.currentTransactionReadOnly = false;
+		this.currentTransactionIsolationLevel = null;
+		this.actualTransactionActive = false;
+	}
+
+	/**
+	 * Return whether this context does not hold any state at all.
+	 */
+	boolean isEmpty() {
+		return (this.resources.isEmpty() && !this.synchronizationActive && this.currentTransactionName == null &&
+				!this.currentTransactionReadOnly && this.currentTransactionIsolationLevel == null &&
+				!this.actualTransactionActive);
+	}
+
+
+	@Override
+	public String toString() {
+		return "TransactionSynchronizationContext: resources=" + this.resources.keySet() +
+				", synchronizationActive=" + this.synchronizationActive +
+				", currentTransactionName=" + this.currentTransactionName +
+				", actualTransactionActive=" + this.actualTransactionActive;
+	}
+
+}
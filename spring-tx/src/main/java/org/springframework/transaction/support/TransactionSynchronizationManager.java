@@ -18,8 +18,6 @@ package org.springframework.transaction.support;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -64,6 +62,11 @@ import org.springframework.util.Assert;
  * within a JTA transaction, e.g. a JDBC Connection or a Hibernate Session for
  * any given DataSource or SessionFactory, respectively.
  *
+ * <p>As of 5.1.21, all state for a thread is held in a single
+ * {@link TransactionSynchronizationContext}, which is bound on first use and
+ * kept for reuse by subsequent transactions on the same thread. An empty context
+ * does not hold any references to transactional resources or synchronizations.
+ *
  * @author Juergen Hoeller
  * @since 02.06.2003
  * @see #isSynchronizationActive
@@ -78,23 +81,61 @@ public abstract class TransactionSynchronizationManager {
 
 	private static final Log logger = LogFactory.getLog(TransactionSynchronizationManager.class);
 
-	private static final ThreadLocal<Map<Object, Object>> resources =
-			new NamedThreadLocal<>("Transactional resources");
+	private static final ThreadLocal<TransactionSynchronizationContext> context =
+			new NamedThreadLocal<>("Transaction synchronization context");
 
-	private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations =
-			new NamedThreadLocal<>("Transaction synchronizations");
 
-	private static final ThreadLocal<String> currentTransactionName =
-			new NamedThreadLocal<>("Current transaction name");
+	//-------------------------------------------------------------------------
+	// Management of the per-thread context
+	//-------------------------------------------------------------------------
 
-	private static final ThreadLocal<Boolean> currentTransactionReadOnly =
-			new NamedThreadLocal<>("Current transaction read-only status");
+	/**
+	 * Return the context holding all transactional state of the current thread.
+	 * <p>Mainly intended for handing over the state to another thread, e.g. in a
+	 * {@link org.springframework.core.task.TaskDecorator}, through {@link #setContext}.
+	 * Note that transactional resources such as JDBC Connections are generally not
+	 * thread-safe: a context must not be used by several threads concurrently.
+	 * @return the current context, or {@code null} if the current thread does
+	 * not hold any transactional state
+	 * @since 5.1.21
+	 */
+	@Nullable
+	public static TransactionSynchronizationContext getContext() {
+		TransactionSynchronizationContext ctx = context.get();
+		return (ctx != null && !ctx.isEmpty() ? ctx : null);
+	}
 
-	private static final ThreadLocal<Integer> currentTransactionIsolationLevel =
-			new NamedThreadLocal<>("Current transaction isolation level");
+	/**
+	 * Bind the given context to the current thread, replacing the current context.
+	 * @param newContext the context to bind, or {@code null} to remove the
+	 * current context
+	 * @return the previously bound context, to be restored afterwards
+	 * @since 5.1.21
+	 * @see #getContext()
+	 */
+	@Nullable
+	public static TransactionSynchronizationContext setContext(@Nullable TransactionSynchronizationContext newContext) {
+		TransactionSynchronizationContext oldContext = context.get();
+		if (newContext != null) {
+			context.set(newContext);
+		}
+		else {
+			context.remove();
+		}
+		return oldContext;
+	}
 
-	private static final ThreadLocal<Boolean> actualTransactionActive =
-			new NamedThreadLocal<>("Actual transaction active");
+	/**
+	 * Return the context of the current thread, binding a new one if necessary.
+	 */
+	private static TransactionSynchronizationContext obtainContext() {
+		TransactionSynchronizationContext ctx = context.get();
+		if (ctx == null) {
+			ctx = new TransactionSynchronizationContext();
+			context.set(ctx);
+		}
+		return ctx;
+	}
 
 
 	//-------------------------------------------------------------------------
@@ -111,8 +152,9 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #hasResource
 	 */
 	public static Map<Object, Object> getResourceMap() {
-		Map<Object, Object> map = resources.get();
-		return (map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap());
+		TransactionSynchronizationContext ctx = context.get();
+		return (ctx != null && !ctx.resources.isEmpty() ?
+				Collections.unmodifiableMap(ctx.resources) : Collections.emptyMap());
 	}
 
 	/**
@@ -150,18 +192,14 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doGetResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		TransactionSynchronizationContext ctx = context.get();
+		if (ctx == null) {
 			return null;
 		}
-		Object value = map.get(actualKey);
+		Object value = ctx.resources.get(actualKey);
 		// Transparently remove ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
-			map.remove(actualKey);
-			// Remove entire ThreadLocal if empty...
-			if (map.isEmpty()) {
-				resources.remove();
-			}
+			ctx.resources.remove(actualKey);
 			value = null;
 		}
 		return value;
@@ -177,12 +215,7 @@ public abstract class TransactionSynchronizationManager {
 	public static void bindResource(Object key, Object value) throws IllegalStateException {
 		Object actualKey = TransactionSynchronizationUtils.unwrapResourceIfNecessary(key);
 		Assert.notNull(value, "Value must not be null");
-		Map<Object, Object> map = resources.get();
-		// set ThreadLocal Map if none found
-		if (map == null) {
-			map = new HashMap<>();
-			resources.set(map);
-		}
+		Map<Object, Object> map = obtainContext().resources;
 		Object oldValue = map.put(actualKey, value);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (oldValue instanceof ResourceHolder && ((ResourceHolder) oldValue).isVoid()) {
@@ -231,15 +264,11 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doUnbindResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		TransactionSynchronizationContext ctx = context.get();
+		if (ctx == null) {
 			return null;
 		}
-		Object value = map.remove(actualKey);
-		// Remove entire ThreadLocal if empty...
-		if (map.isEmpty()) {
-			resources.remove();
-		}
+		Object value = ctx.resources.remove(actualKey);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
 			value = null;
@@ -262,7 +291,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #registerSynchronization
 	 */
 	public static boolean isSynchronizationActive() {
-		return (synchronizations.get() != null);
+		TransactionSynchronizationContext ctx = context.get();
+		return (ctx != null && ctx.synchronizationActive);
 	}
 
 	/**
@@ -271,11 +301,39 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is already active
 	 */
 	public static void initSynchronization() throws IllegalStateException {
-		if (isSynchronizationActive()) {
+		TransactionSynchronizationContext ctx = obtainContext();
+		if (ctx.synchronizationActive) {
 			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
 		}
 		logger.trace("Initializing transaction synchronization");
-		synchronizations.set(new LinkedHashSet<>());
+		ctx.synchronizationActive = true;
+	}
+
+	/**
+	 * Expose the characteristics of a new transaction and activate transaction
+	 * synchronization for the current thread, in a single step.
+	 * Called by {@link AbstractPlatformTransactionManager} on transaction begin.
+	 * @param name the name of the transaction, if any
+	 * @param readOnly whether the transaction is read-only
+	 * @param isolationLevel the isolation level to expose, if any
+	 * @param actualTransactionActive whether there is an actual transaction active
+	 * @throws IllegalStateException if synchronization is already active
+	 * @since 5.1.21
+	 * @see #initSynchronization()
+	 */
+	static void initSynchronization(@Nullable String name, boolean readOnly,
+			@Nullable Integer isolationLevel, boolean actualTransactionActive) throws IllegalStateException {
+
+		TransactionSynchronizationContext ctx = obtainContext();
+		if (ctx.synchronizationActive) {
+			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
+		}
+		ctx.actualTransactionActive = actualTransactionActive;
+		ctx.currentTransactionIsolationLevel = isolationLevel;
+		ctx.currentTransactionReadOnly = readOnly;
+		ctx.currentTransactionName = name;
+		logger.trace("Initializing transaction synchronization");
+		ctx.synchronizationActive = true;
 	}
 
 	/**
@@ -292,11 +350,11 @@ public abstract class TransactionSynchronizationManager {
 			throws IllegalStateException {
 
 		Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		TransactionSynchronizationContext ctx = context.get();
+		if (ctx == null || !ctx.synchronizationActive) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
-		synchs.add(synchronization);
+		ctx.synchronizations.add(synchronization);
 	}
 
 	/**
@@ -307,10 +365,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization
 	 */
 	public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		TransactionSynchronizationContext ctx = context.get();
+		if (ctx == null || !ctx.synchronizationActive) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
+		Set<TransactionSynchronization> synchs = ctx.synchronizations;
 		// Return unmodifiable snapshot, to avoid ConcurrentModificationExceptions
 		// while iterating and invoking synchronization callbacks that in turn
 		// might register further synchronizations.
@@ -331,11 +390,13 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is not active
 	 */
 	public static void clearSynchronization() throws IllegalStateException {
-		if (!isSynchronizationActive()) {
+		TransactionSynchronizationContext ctx = context.get();
+		if (ctx == null || !ctx.synchronizationActive) {
 			throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
 		}
 		logger.trace("Clearing transaction synchronization");
-		synchronizations.remove();
+		ctx.synchronizations.clear();
+		ctx.synchronizationActive = false;
 	}
 
 
@@ -350,7 +411,10 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getName()
 	 */
 	public static void setCurrentTransactionName(@Nullable String name) {
-		currentTransactionName.set(name);
+		TransactionSynchronizationContext ctx = (name != null ? obtainContext() : context.get());
+		if (ctx != null) {
+			ctx.currentTransactionName = name;
+		}
 	}
 
 	/**
@@ -361,7 +425,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static String getCurrentTransactionName() {
-		return currentTransactionName.get();
+		TransactionSynchronizationContext ctx = context.get();
+		return (ctx != null ? ctx.currentTransactionName : null);
 	}
 
 	/**
@@ -372,7 +437,10 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
 	 */
 	public static void setCurrentTransactionReadOnly(boolean readOnly) {
-		currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+		TransactionSynchronizationContext ctx = (readOnly ? obtainContext() : context.get());
+		if (ctx != null) {
+			ctx.currentTransactionReadOnly = readOnly;
+		}
 	}
 
 	/**
@@ -388,7 +456,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization#beforeCommit(boolean)
 	 */
 	public static boolean isCurrentTransactionReadOnly() {
-		return (currentTransactionReadOnly.get() != null);
+		TransactionSynchronizationContext ctx = context.get();
+		return (ctx != null && ctx.currentTransactionReadOnly);
 	}
 
 	/**
@@ -408,7 +477,10 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
 	 */
 	public static void setCurrentTransactionIsolationLevel(@Nullable Integer isolationLevel) {
-		currentTransactionIsolationLevel.set(isolationLevel);
+		TransactionSynchronizationContext ctx = (isolationLevel != null ? obtainContext() : context.get());
+		if (ctx != null) {
+			ctx.currentTransactionIsolationLevel = isolationLevel;
+		}
 	}
 
 	/**
@@ -430,7 +502,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static Integer getCurrentTransactionIsolationLevel() {
-		return currentTransactionIsolationLevel.get();
+		TransactionSynchronizationContext ctx = context.get();
+		return (ctx != null ? ctx.currentTransactionIsolationLevel : null);
 	}
 
 	/**
@@ -440,7 +513,10 @@ public abstract class TransactionSynchronizationManager {
 	 * with an actual transaction; {@code false} to reset that marker
 	 */
 	public static void setActualTransactionActive(boolean active) {
-		actualTransactionActive.set(active ? Boolean.TRUE : null);
+		TransactionSynchronizationContext ctx = (active ? obtainContext() : context.get());
+		if (ctx != null) {
+			ctx.actualTransactionActive = active;
+		}
 	}
 
 	/**
@@ -455,7 +531,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #isSynchronizationActive()
 	 */
 	public static boolean isActualTransactionActive() {
-		return (actualTransactionActive.get() != null);
+		TransactionSynchronizationContext ctx = context.get();
+		return (ctx != null && ctx.actualTransactionActive);
 	}
 
 
@@ -469,11 +546,10 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #setActualTransactionActive
 	 */
 	public static void clear() {
-		synchronizations.remove();
-		currentTransactionName.remove();
-		currentTransactionReadOnly.remove();
-		currentTransactionIsolationLevel.remove();
-		actualTransactionActive.remove();
+		TransactionSynchronizationContext ctx = context.get();
+		if (ctx != null) {
+			ctx.clear();
+		}
 	}
 
 }
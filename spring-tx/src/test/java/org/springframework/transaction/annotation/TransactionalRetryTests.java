@@ -0,0 +1,211 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.annotation;
+
+import java.sql.SQLException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.tests.transaction.CallCountingTransactionManager;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.interceptor.TransactionRetryStatistics;
+import org.springframework.util.backoff.FixedBackOff;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class TransactionalRetryTests {
+
+	private final CallCountingTransactionManager ptm = new CallCountingTransactionManager();
+
+	private final AnnotationTransactionAttributeSource source = new AnnotationTransactionAttributeSource();
+
+	private final TransactionInterceptor ti = new TransactionInterceptor(this.ptm, this.source);
+
+	private final RetryTarget target = new RetryTarget();
+
+	private TestService proxy;
+
+
+	@Before
+	public void setup() {
+		this.ti.setRetryBackOff(new FixedBackOff(1, Long.MAX_VALUE));
+		this.proxy = createProxy(this.target);
+	}
+
+
+	@Test
+	public void maxRetriesParsed() throws Exception {
+		TransactionAttribute txAttr = this.source.getTransactionAttribute(
+				TestService.class.getMethod("retryable", RuntimeException.class, int.class), RetryTarget.class);
+		assertNotNull(txAttr);
+		assertEquals(3, txAttr.getMaxRetries());
+	}
+
+	@Test
+	public void retriedAfterDeadlock() {
+		assertEquals("ok", this.proxy.retryable(new DeadlockLoserDataAccessException("deadlock", null), 2));
+		assertEquals(3, this.target.attempts);
+		assertEquals(3, this.ptm.begun);
+		assertEquals(2, this.ptm.rollbacks);
+		assertEquals(1, this.ptm.commits);
+
+		TransactionRetryStatistics statistics = this.ti.getRetryStatistics().values().iterator().next();
+		assertEquals(2, statistics.getRetryCount());
+		assertEquals(1, statistics.getRecoveryCount());
+		assertEquals(0, statistics.getExhaustionCount());
+	}
+
+	@Test
+	public void retriedAfterSerializationFailureOnCommit() {
+		SQLException sqlEx = new SQLException("could not serialize access", "40001");
+		assertEquals("ok", this.proxy.retryable(new TransactionSystemException("commit failed", sqlEx), 1));
+		assertEquals(2, this.target.attempts);
+	}
+
+	@Test
+	public void retriesExhausted() {
+		CannotAcquireLockException ex = new CannotAcquireLockException("lock timeout");
+		try {
+			this.proxy.retryable(ex, 10);
+			fail("Should have thrown CannotAcquireLockException");
+		}
+		catch (CannotAcquireLockException actual) {
+			assertSame(ex, actual);
+		}
+		assertEquals(4, this.target.attempts);
+		assertEquals(4, this.ptm.rollbacks);
+
+		TransactionRetryStatistics statistics = this.ti.getRetryStatistics().values().iterator().next();
+		assertEquals(3, statistics.getRetryCount());
+		assertEquals(0, statistics.getRecoveryCount());
+		assertEquals(1, statistics.getExhaustionCount());
+	}
+
+	@Test
+	public void notRetriedForOtherFailure() {
+		try {
+			this.proxy.retryable(new IllegalStateException(), 1);
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		assertEquals(1, this.target.attempts);
+		assertTrue(this.ti.getRetryStatistics().values().iterator().next().getRetryCount() == 0);
+	}
+
+	@Test
+	public void notRetriedWithoutMaxRetries() {
+		try {
+			this.proxy.nonRetryable(new DeadlockLoserDataAccessException("deadlock", null), 1);
+			fail("Should have thrown DeadlockLoserDataAccessException");
+		}
+		catch (DeadlockLoserDataAccessException ex) {
+			// expected
+		}
+		assertEquals(1, this.target.attempts);
+		assertTrue(this.ti.getRetryStatistics().isEmpty());
+	}
+
+	@Test
+	public void notRetriedWithinExistingTransaction() {
+		TestService outer = createProxy(new OuterTarget(this.proxy));
+		try {
+			outer.nonRetryable(new DeadlockLoserDataAccessException("deadlock", null), 1);
+			fail("Should have thrown DeadlockLoserDataAccessException");
+		}
+		catch (DeadlockLoserDataAccessException ex) {
+			// expected
+		}
+		assertEquals(1, this.target.attempts);
+		assertTrue(this.ti.getRetryStatistics().isEmpty());
+	}
+
+
+	private TestService createProxy(TestService target) {
+		ProxyFactory proxyFactory = new ProxyFactory();
+		proxyFactory.setTarget(target);
+		proxyFactory.addInterface(TestService.class);
+		proxyFactory.addAdvice(this.ti);
+		return (TestService) proxyFactory.getProxy();
+	}
+
+
+	public interface TestService {
+
+		String retryable(RuntimeException failure, int failures);
+
+		String nonRetryable(RuntimeException failure, int failures);
+	}
+
+
+	public static class RetryTarget implements TestService {
+
+		int attempts;
+
+		@Override
+		@Transactional(maxRetries = 3)
+		public String retryable(RuntimeException failure, int failures) {
+			return attempt(failure, failures);
+		}
+
+		@Override
+		@Transactional
+		public String nonRetryable(RuntimeException failure, int failures) {
+			return attempt(failure, failures);
+		}
+
+		private String attempt(RuntimeException failure, int failures) {
+			if (this.attempts++ < failures) {
+				throw failure;
+			}
+			return "ok";
+		}
+	}
+
+
+	public static class OuterTarget implements TestService {
+
+		private final TestService inner;
+
+		public OuterTarget(TestService inner) {
+			this.inner = inner;
+		}
+
+		@Override
+		@Transactional
+		public String retryable(RuntimeException failure, int failures) {
+			return this.inner.retryable(failure, failures);
+		}
+
+		@Override
+		@Transactional
+		public String nonRetryable(RuntimeException failure, int failures) {
+			return this.inner.retryable(failure, failures);
+		}
+	}
+
+}
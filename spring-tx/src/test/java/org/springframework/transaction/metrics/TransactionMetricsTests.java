@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class TransactionMetricsTests {
+
+	private final TransactionMetrics metrics = new TransactionMetrics();
+
+	private final MetricsTestTransactionManager tm = new MetricsTestTransactionManager();
+
+
+	@Before
+	public void setup() {
+		this.tm.setMetricsRecorder(this.metrics);
+	}
+
+
+	@Test
+	public void commitRecorded() {
+		TransactionTemplate tt = new TransactionTemplate(this.tm);
+		tt.setName("tx");
+		tt.execute(status -> {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {});
+			return null;
+		});
+
+		TransactionStatistics statistics = this.metrics.getTransactionStatistics("tx");
+		assertNotNull(statistics);
+		assertEquals(1, statistics.getBegin().getCount());
+		assertEquals(1, statistics.getHold().getCount());
+		assertEquals(1, statistics.getCommit().getCount());
+		assertEquals(1, statistics.getSynchronization().getCount());
+		assertEquals(0, statistics.getRollback().getCount());
+		assertEquals(0, statistics.getConnectionAcquisition().getCount());
+		assertEquals(0, statistics.getRollbackOnlyCount());
+		assertTrue(statistics.getHold().getMax() >= statistics.getCommit().getMax());
+		assertArrayEquals(new String[] {"tx"}, this.metrics.getTransactionNames());
+	}
+
+	@Test
+	public void rollbackOnlyRecorded() {
+		TransactionTemplate tt = new TransactionTemplate(this.tm);
+		tt.setName("tx");
+		tt.execute(status -> {
+			status.setRollbackOnly();
+			return null;
+		});
+
+		TransactionStatistics statistics = this.metrics.getTransactionStatistics("tx");
+		assertNotNull(statistics);
+		assertEquals(1, statistics.getRollbackOnlyCount());
+		assertEquals(1, statistics.getRollback().getCount());
+		assertEquals(0, statistics.getCommit().getCount());
+		assertEquals(1, statistics.getHold().getCount());
+	}
+
+	@Test
+	public void suspensionRecorded() {
+		TransactionTemplate outer = new TransactionTemplate(this.tm);
+		outer.setName("outer");
+		TransactionTemplate inner = new TransactionTemplate(this.tm);
+		inner.setName("inner");
+		inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		outer.execute(status -> inner.execute(innerStatus -> null));
+
+		TransactionStatistics outerStatistics = this.metrics.getTransactionStatistics("outer");
+		TransactionStatistics innerStatistics = this.metrics.getTransactionStatistics("inner");
+		assertNotNull(outerStatistics);
+		assertNotNull(innerStatistics);
+		assertEquals(1, outerStatistics.getSuspensionCount());
+		assertEquals(0, innerStatistics.getSuspensionCount());
+		assertEquals(1, outerStatistics.getCommit().getCount());
+		assertEquals(1, innerStatistics.getCommit().getCount());
+		assertEquals(2, this.metrics.getTransactionStatistics().size());
+	}
+
+	@Test
+	public void noMetricsWithoutRecorder() {
+		this.tm.setMetricsRecorder(null);
+		new TransactionTemplate(this.tm).execute(status -> null);
+		assertEquals(0, this.metrics.getTransactionNames().length);
+	}
+
+	@Test
+	public void histogramPercentiles() {
+		for (int i = 1; i <= 100; i++) {
+			this.metrics.recordTiming("tx", TransactionMetricsRecorder.Timing.HOLD, i * 1000000L);
+		}
+		this.metrics.recordTiming(null, TransactionMetricsRecorder.Timing.BEGIN, 5);
+
+		TransactionStatistics.TimingStatistics hold = this.metrics.getTransactionStatistics("tx").getHold();
+		assertEquals(100, hold.getCount());
+		assertEquals(50.5, hold.getMean(), 0.001);
+		assertEquals(100.0, hold.getMax(), 0.001);
+		assertEquals(50.0, hold.getPercentile50(), 50.0 * 0.125);
+		assertEquals(90.0, hold.getPercentile90(), 90.0 * 0.125);
+		assertEquals(99.0, hold.getPercentile99(), 99.0 * 0.125);
+		assertEquals(1, this.metrics.getTransactionStatistics("").getBegin().getCount());
+
+		this.metrics.reset();
+		assertNull(this.metrics.getTransactionStatistics("tx"));
+	}
+
+	@Test
+	public void histogramBuckets() {
+		for (long value : new long[] {0, 7, 8, 15, 16, 1000, 123456789, 1L << 40, Long.MAX_VALUE}) {
+			int index = LatencyHistogram.indexFor(value);
+			assertTrue(index < LatencyHistogram.BUCKET_COUNT);
+			if (value < (1L << 41)) {
+				assertTrue(LatencyHistogram.highestValueFor(index) >= value);
+				assertTrue(LatencyHistogram.highestValueFor(index) - value <= value / 8);
+			}
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class MetricsTestTransactionManager extends AbstractPlatformTransactionManager {
+
+		private int activeTransactions;
+
+		@Override
+		protected Object doGetTransaction() {
+			return (this.activeTransactions > 0);
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object transaction) {
+			return (Boolean) transaction;
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			this.activeTransactions++;
+		}
+
+		@Override
+		protected Object doSuspend(Object transaction) {
+			this.activeTransactions--;
+			return transaction;
+		}
+
+		@Override
+		protected void doResume(Object transaction, Object suspendedResources) {
+			this.activeTransactions++;
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doCleanupAfterCompletion(Object transaction) {
+			this.activeTransactions--;
+		}
+	}
+
+}
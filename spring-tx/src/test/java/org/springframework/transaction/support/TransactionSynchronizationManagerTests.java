@@ -0,0 +1,128 @@
+/*
+ * Copyright 2002-2020 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.transaction.TransactionDefinition;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author agent
+ */
+public class TransactionSynchronizationManagerTests {
+
+	@After
+	public void cleanup() {
+		TransactionSynchronizationManager.setContext(null);
+	}
+
+
+	@Test
+	public void contextReleasedWhenEmpty() {
+		assertNull(TransactionSynchronizationManager.getContext());
+
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.initSynchronization(
+				"tx", true, TransactionDefinition.ISOLATION_SERIALIZABLE, true);
+		assertNotNull(TransactionSynchronizationManager.getContext());
+		assertEquals("tx", TransactionSynchronizationManager.getCurrentTransactionName());
+		assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		assertEquals(Integer.valueOf(TransactionDefinition.ISOLATION_SERIALIZABLE),
+				TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+		assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+		assertTrue(TransactionSynchronizationManager.isSynchronizationActive());
+
+		TransactionSynchronizationManager.clear();
+		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+		assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+		assertNull(TransactionSynchronizationManager.getCurrentTransactionName());
+		assertEquals("value", TransactionSynchronizationManager.getResource("key"));
+		assertNotNull(TransactionSynchronizationManager.getContext());
+
+		TransactionSynchronizationManager.unbindResource("key");
+		assertNull(TransactionSynchronizationManager.getContext());
+	}
+
+	@Test
+	public void synchronizationsResetOnReactivation() {
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {});
+		assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+		TransactionSynchronizationManager.clearSynchronization();
+		assertNull(TransactionSynchronizationManager.getContext());
+
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.initSynchronization();
+		assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+		TransactionSynchronizationManager.clearSynchronization();
+		assertNotNull(TransactionSynchronizationManager.getContext());
+		TransactionSynchronizationManager.setCurrentTransactionName(null);
+		assertNull(TransactionSynchronizationManager.getContext());
+	}
+
+	@Test
+	public void contextReusedAcrossTransactions() {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationContext context = TransactionSynchronizationManager.getContext();
+		TransactionSynchronizationManager.clearSynchronization();
+		TransactionSynchronizationManager.unbindResource("key");
+		assertNull(TransactionSynchronizationManager.getContext());
+
+		TransactionSynchronizationManager.bindResource("key", "value");
+		assertSame(context, TransactionSynchronizationManager.getContext());
+		assertEquals("value", TransactionSynchronizationManager.getResource("key"));
+		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+		TransactionSynchronizationManager.unbindResource("key");
+	}
+
+	@Test
+	public void contextHandedOverToOtherThread() throws Exception {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		TransactionSynchronizationContext context = TransactionSynchronizationManager.getContext();
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> future = executor.submit(() -> {
+				TransactionSynchronizationContext previous = TransactionSynchronizationManager.setContext(context);
+				try {
+					assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+					return TransactionSynchronizationManager.getResource("key");
+				}
+				finally {
+					TransactionSynchronizationManager.setContext(previous);
+				}
+			});
+			assertEquals("value", future.get());
+			assertNull(executor.submit(TransactionSynchronizationManager::getContext).get());
+		}
+		finally {
+			executor.shutdown();
+		}
+		assertSame(context, TransactionSynchronizationManager.getContext());
+		TransactionSynchronizationManager.unbindResource("key");
+	}
+
+}
@@ -17,12 +17,15 @@
 package org.springframework.web.accept;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.InvalidMediaTypeException;
 import org.springframework.http.MediaType;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.StringUtils;
 import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.context.request.NativeWebRequest;
 
@@ -35,6 +38,11 @@ import org.springframework.web.context.request.NativeWebRequest;
  */
 public class HeaderContentNegotiationStrategy implements ContentNegotiationStrategy {
 
+	/** Parsed and sorted media types for common single-valued 'Accept' headers. */
+	private static final ConcurrentLruCache<String, List<MediaType>> cachedAcceptHeaders =
+			new ConcurrentLruCache<>(64, HeaderContentNegotiationStrategy::parseAcceptHeader);
+
+
 	/**
 	 * {@inheritDoc}
 	 * @throws HttpMediaTypeNotAcceptableException if the 'Accept' header cannot be parsed
@@ -50,6 +58,9 @@ public class HeaderContentNegotiationStrategy implements ContentNegotiationStrat
 
 		List<String> headerValues = Arrays.asList(headerValueArray);
 		try {
+			if (headerValueArray.length == 1 && StringUtils.hasLength(headerValueArray[0])) {
+				return cachedAcceptHeaders.get(headerValueArray[0]);
+			}
 			List<MediaType> mediaTypes = MediaType.parseMediaTypes(headerValues);
 			MediaType.sortBySpecificityAndQuality(mediaTypes);
 			return !CollectionUtils.isEmpty(mediaTypes) ? mediaTypes : MEDIA_TYPE_ALL_LIST;
@@ -60,4 +71,10 @@ public class HeaderContentNegotiationStrategy implements ContentNegotiationStrat
 		}
 	}
 
+	private static List<MediaType> parseAcceptHeader(String headerValue) {
+		List<MediaType> mediaTypes = MediaType.parseMediaTypes(headerValue);
+		MediaType.sortBySpecificityAndQuality(mediaTypes);
+		return (!CollectionUtils.isEmpty(mediaTypes) ? Collections.unmodifiableList(mediaTypes) : MEDIA_TYPE_ALL_LIST);
+	}
+
 }
@@ -68,6 +68,20 @@ public class HeaderContentNegotiationStrategyTests {
 		assertEquals("text/plain;q=0.5", mediaTypes.get(3).toString());
 	}
 
+	@Test
+	public void resolveMediaTypesFromCachedHeaderValue() throws Exception {
+		this.servletRequest.addHeader("Accept", "text/plain; q=0.5, application/json");
+		List<MediaType> mediaTypes = this.strategy.resolveMediaTypes(this.webRequest);
+
+		assertEquals(2, mediaTypes.size());
+		assertEquals("application/json", mediaTypes.get(0).toString());
+		assertEquals("text/plain;q=0.5", mediaTypes.get(1).toString());
+
+		MockHttpServletRequest otherRequest = new MockHttpServletRequest();
+		otherRequest.addHeader("Accept", "text/plain; q=0.5, application/json");
+		assertSame(mediaTypes, this.strategy.resolveMediaTypes(new ServletWebRequest(otherRequest)));
+	}
+
 	@Test(expected = HttpMediaTypeNotAcceptableException.class)
 	public void resolveMediaTypesParseError() throws Exception {
 		this.servletRequest.addHeader("Accept", "textplain; q=0.5");